@@ -0,0 +1,31 @@
+package benchmarks;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import oauth1.OAuth1NoCallback;
+import oauth1.strategy.TokenMapStrategy;
+import oauth1.stub.StubOAuthProvider;
+import oauth1.stub.StubProviderConfig;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link OAuth1NoCallback} exposing {@link OAuth1NoCallback#buildOAuthParameters(String, String)} to the benchmarks.
+ */
+public class BenchmarkClient extends OAuth1NoCallback {
+    public BenchmarkClient(@Nonnull String baseUrl, @Nonnull TokenMapStrategy tokenMapStrategy) {
+        super(
+                StubProviderConfig.DEFAULT_CONSUMER_KEY,
+                StubProviderConfig.DEFAULT_CONSUMER_SECRET,
+                baseUrl + StubOAuthProvider.REQUEST_TOKEN_PATH,
+                baseUrl + StubOAuthProvider.AUTHORISE_PATH,
+                baseUrl + StubOAuthProvider.ACCESS_TOKEN_PATH,
+                tokenMapStrategy
+        );
+    }
+
+    @Nonnull
+    @Override
+    public OAuthParameters buildOAuthParameters(@Nonnull String accessToken, @Nonnull String tokenSecret) {
+        return super.buildOAuthParameters(accessToken, tokenSecret);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import com.google.api.client.http.HttpResponse;
+import oauth1.exception.GetAccessTokenException;
+import oauth1.exception.GetTemporaryTokenException;
+import oauth1.exception.OAuthBackedRequestException;
+import oauth1.exception.TokenMapException;
+import oauth1.lib.AuthorisedResult;
+import oauth1.lib.BeginResult;
+import oauth1.lib.RequestMethod;
+import oauth1.strategy.preset.BoundedExpiringTokenMapStrategy;
+import oauth1.stub.StubOAuthProvider;
+import oauth1.stub.StubProviderConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full begin() → authorised() → makeOAuthBackedRequest() round trips against a {@link StubOAuthProvider} on localhost,
+ * which skips verifying signatures so the benchmark measures the library's own cost rather than the provider's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandshakeBenchmark {
+    private StubOAuthProvider provider;
+    private BenchmarkClient client;
+    private String resourceUrl;
+
+    @Setup
+    public void setup() throws IOException {
+        StubProviderConfig config = new StubProviderConfig();
+        config.setVerifySignatures(false);
+        provider = new StubOAuthProvider(config);
+        client = new BenchmarkClient(provider.getBaseUrl(), new BoundedExpiringTokenMapStrategy());
+        resourceUrl = provider.getBaseUrl() + StubOAuthProvider.RESOURCE_PATH + "?count=20";
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.getTransport().shutdown();
+        provider.close();
+    }
+
+    @Benchmark
+    public String pooledRoundTrip() throws GetTemporaryTokenException, TokenMapException, GetAccessTokenException, OAuthBackedRequestException, IOException {
+        AuthorisedResult authorisedResult = handshake();
+        HttpResponse response = client.makePooledOAuthBackedRequest(resourceUrl, authorisedResult.getOAuthParameters(), RequestMethod.GET, null);
+        return response.parseAsString();
+    }
+
+    @Benchmark
+    public String staticRoundTrip() throws GetTemporaryTokenException, TokenMapException, GetAccessTokenException, OAuthBackedRequestException, IOException {
+        AuthorisedResult authorisedResult = handshake();
+        HttpResponse response = BenchmarkClient.makeOAuthBackedRequest(resourceUrl, authorisedResult.getOAuthParameters(), RequestMethod.GET, null);
+        return response.parseAsString();
+    }
+
+    private AuthorisedResult handshake() throws GetTemporaryTokenException, TokenMapException, GetAccessTokenException {
+        BeginResult beginResult = client.begin();
+        return client.authorised(beginResult.getTemporaryToken());
+    }
+}
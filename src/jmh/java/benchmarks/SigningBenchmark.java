@@ -0,0 +1,71 @@
+package benchmarks;
+
+import com.google.api.client.auth.oauth.OAuthHmacSigner;
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.GenericUrl;
+import oauth1.signer.SignatureBaseStringBuilder;
+import oauth1.strategy.preset.HashMapTokenMapStrategy;
+import oauth1.stub.StubProviderConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of computing the signature of a resource request through the {@link OAuthParameters} built by
+ * {@link oauth1.OAuth1Generic#buildOAuthParameters(String, String)}, compared with a plain {@link OAuthHmacSigner},
+ * and through the {@link SignatureBaseStringBuilder} used by the library's own requests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+    private OAuthParameters libraryParameters;
+    private OAuthParameters baselineParameters;
+    private GenericUrl url;
+
+    @Setup
+    public void setup() {
+        BenchmarkClient client = new BenchmarkClient("http://localhost", new HashMapTokenMapStrategy());
+        libraryParameters = client.buildOAuthParameters("access-token", "access-secret");
+
+        OAuthHmacSigner signer = new OAuthHmacSigner();
+        signer.clientSharedSecret = StubProviderConfig.DEFAULT_CONSUMER_SECRET;
+        signer.tokenSharedSecret = "access-secret";
+        baselineParameters = new OAuthParameters();
+        baselineParameters.signer = signer;
+        baselineParameters.consumerKey = StubProviderConfig.DEFAULT_CONSUMER_KEY;
+        baselineParameters.token = "access-token";
+        baselineParameters.version = "1.0";
+
+        url = new GenericUrl("https://api.example.com/1.1/statuses/user_timeline.json?screen_name=example&count=200&include_rts=true");
+    }
+
+    @Benchmark
+    public String buildOAuthParametersSignature() throws GeneralSecurityException {
+        return sign(libraryParameters);
+    }
+
+    @Benchmark
+    public String oAuthHmacSignerSignature() throws GeneralSecurityException {
+        return sign(baselineParameters);
+    }
+
+    @Benchmark
+    public String signatureBaseStringBuilderSignature() throws GeneralSecurityException {
+        libraryParameters.computeNonce();
+        libraryParameters.computeTimestamp();
+        SignatureBaseStringBuilder.computeSignature(libraryParameters, "GET", url, null);
+        return libraryParameters.signature;
+    }
+
+    private String sign(OAuthParameters parameters) throws GeneralSecurityException {
+        parameters.computeNonce();
+        parameters.computeTimestamp();
+        parameters.computeSignature("GET", url);
+        return parameters.signature;
+    }
+}
@@ -0,0 +1,99 @@
+package benchmarks;
+
+import oauth1.exception.TokenMapException;
+import oauth1.strategy.TokenMapStrategy;
+import oauth1.strategy.preset.BoundedExpiringTokenMapStrategy;
+import oauth1.strategy.preset.HashMapTokenMapStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of a map-then-fetch of a temporary token (as done by begin() then authorised()) under 1, 4 and all available threads.
+ * <br>
+ * Each thread cycles through its own fixed set of tokens, so the maps do not grow during the run.
+ * Note {@link HashMapTokenMapStrategy} is not thread-safe, so its multi-threaded results only show the cost of the race.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenMapBenchmark {
+    private static final int TOKENS_PER_THREAD = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Strategies {
+        final TokenMapStrategy hashMap = new HashMapTokenMapStrategy();
+        final TokenMapStrategy boundedExpiring = new BoundedExpiringTokenMapStrategy();
+        private final AtomicInteger threadIds = new AtomicInteger();
+
+        @TearDown
+        public void tearDown() {
+            HashMapTokenMapStrategy.TEMPORARY_TOKEN_TOKEN_SECRET_MAP.clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Tokens {
+        String[] tokens;
+        int next;
+
+        @Setup
+        public void setup(Strategies strategies) {
+            int threadId = strategies.threadIds.getAndIncrement();
+            tokens = new String[TOKENS_PER_THREAD];
+            for (int i = 0; i < TOKENS_PER_THREAD; i++) {
+                tokens[i] = "temporary-token-" + threadId + "-" + i;
+            }
+        }
+
+        String nextToken() {
+            String token = tokens[next];
+            next = (next + 1) & (TOKENS_PER_THREAD - 1);
+            return token;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String hashMap1Thread(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.hashMap, tokens.nextToken());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String hashMap4Threads(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.hashMap, tokens.nextToken());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String hashMapMaxThreads(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.hashMap, tokens.nextToken());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String boundedExpiring1Thread(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.boundedExpiring, tokens.nextToken());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String boundedExpiring4Threads(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.boundedExpiring, tokens.nextToken());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String boundedExpiringMaxThreads(Strategies strategies, Tokens tokens) throws TokenMapException {
+        return mapThenFetch(strategies.boundedExpiring, tokens.nextToken());
+    }
+
+    private static String mapThenFetch(TokenMapStrategy strategy, String token) throws TokenMapException {
+        strategy.mapTemporaryTokenToTemporaryTokenSecret(token, "temporary-secret");
+        return strategy.fetchTemporaryTokenSecretForTemporaryToken(token);
+    }
+}
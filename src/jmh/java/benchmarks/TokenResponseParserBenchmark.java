@@ -0,0 +1,48 @@
+package benchmarks;
+
+import com.google.api.client.auth.oauth.OAuthCredentialsResponse;
+import com.google.api.client.http.UrlEncodedParser;
+import oauth1.lib.TokenResponse;
+import oauth1.parser.TokenResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing an access token response with extra parameters through {@link TokenResponseParser},
+ * compared with the reflection-based {@link UrlEncodedParser} into an {@link OAuthCredentialsResponse}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenResponseParserBenchmark {
+    private static final byte[] RESPONSE = ("oauth_token=6253282-eWudHldSbIaelX7swmsiHImEL4KinwaGloHANdrY&oauth_token_secret=2EEfA6BG3ly3sR3RjE0IBSnlQu4ZrUzPiYKmrkVU"
+            + "&user_id=6253282&screen_name=example&oauth_expires_in=3600&oauth_session_handle=b1d3c1b2%2Fe9a1").getBytes(StandardCharsets.US_ASCII);
+
+    private ByteArrayInputStream content;
+
+    @Setup
+    public void setup() {
+        content = new ByteArrayInputStream(RESPONSE);
+    }
+
+    @Benchmark
+    public TokenResponse tokenResponseParser() throws IOException {
+        content.reset();
+        return TokenResponseParser.parse(content);
+    }
+
+    @Benchmark
+    public OAuthCredentialsResponse urlEncodedParser() {
+        // The response body is read as a string by HttpResponse#parseAsString() before being parsed.
+        OAuthCredentialsResponse response = new OAuthCredentialsResponse();
+        UrlEncodedParser.parse(new String(RESPONSE, StandardCharsets.UTF_8), response);
+        return response;
+    }
+}
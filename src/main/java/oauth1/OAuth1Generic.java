@@ -1,23 +1,73 @@
 package oauth1;
 
 import com.google.api.client.auth.oauth.*;
-import com.google.api.client.http.GenericUrl;
-import com.google.api.client.http.HttpContent;
-import com.google.api.client.http.HttpRequestFactory;
-import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.*;
 import com.google.api.client.http.javanet.NetHttpTransport;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
+import lombok.Setter;
+import oauth1.async.AsyncExecutors;
+import oauth1.cache.CachedResponse;
+import oauth1.cache.ResponseCache;
 import oauth1.exception.*;
 import oauth1.exception.missingdata.*;
+import oauth1.exception.unavailable.*;
+import oauth1.jfr.FlightRecorderEvents;
+import oauth1.jfr.HandshakeEvent;
+import oauth1.jfr.OAuthBackedRequestEvent;
+import oauth1.jfr.TokenMapEvent;
+import oauth1.jfr.TokenRequestEvent;
 import oauth1.lib.AuthorisedResult;
 import oauth1.lib.BeginResult;
 import oauth1.lib.RequestMethod;
+import oauth1.lib.TokenResponse;
+import oauth1.metrics.MetricsStrategy;
+import oauth1.metrics.NoOpMetricsStrategy;
+import oauth1.metrics.Operation;
+import oauth1.metrics.Phase;
+import oauth1.parser.TokenResponseParser;
+import oauth1.prefetch.TemporaryTokenPool;
+import oauth1.ratelimit.AcquisitionMode;
+import oauth1.ratelimit.RateLimiter;
+import oauth1.resilience.EndpointIsolator;
+import oauth1.resilience.RequestHedger;
+import oauth1.resilience.RetryPolicy;
+import oauth1.signer.HmacSignerCache;
+import oauth1.signer.NonceTimestampStrategy;
+import oauth1.signer.SignatureBaseStringBuilder;
+import oauth1.signer.StripedNonceTimestampStrategy;
+import oauth1.strategy.SealingTokenMapStrategy;
 import oauth1.strategy.TokenMapStrategy;
+import oauth1.streaming.ByteBufferSink;
+import oauth1.streaming.StreamedResponse;
+import oauth1.streaming.StreamingBody;
+import oauth1.transport.SharedTransport;
+import oauth1.warmup.WarmUpReport;
+import oauth1.warmup.WarmUpStep;
+import oauth1.warmup.WarmUpStepResult;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An OAuth1.0 consumer class, using the HMAC signing strategy.
@@ -35,10 +85,17 @@ import java.io.IOException;
  * 3. Once the user has granted access on the redirect URL (usually detected via the callback), call {@link OAuth1Generic#authorised(String, String)} with the temporary token obtained in (1), and the verifier (provided as a parameter to the callback, as parsed on the front-end), or null if no callback was used.
  * <br>
  * 4. If (3) succeeded, you now have an access token and an {@link OAuthParameters} object that can be used to make requests on the user's behalf. Using the {@link OAuthParameters} make a request to a given URL with a given HTTP request method and body via {@link OAuth1Generic#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}.
+ * <br><br>
+ * All requests made by an instance (and by {@link OAuth1Generic#makePooledOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}) go through its {@link SharedTransport},
+ * which holds one long-lived, pooled transport and request factory per instance.
+ * An instance constructed without a transport creates its own (with a pool of connections and a thread evicting idle ones), which is shut down by {@link OAuth1Generic#close()},
+ * so such an instance should be closed once no longer used. A transport passed in is left to its owner to shut down.
+ * <br>
+ * Each step also has an asynchronous counterpart returning a {@link CompletableFuture}, run on a caller-supplied {@link Executor} (or {@link AsyncExecutors#defaultExecutor()}).
  * @author Omar Tanner
  */
 @Data
-public class OAuth1Generic {
+public class OAuth1Generic implements AutoCloseable {
     protected @Nonnull String consumerKey;
     protected @Nonnull String consumerSecret;
     protected @Nonnull String requestTokenUrl;
@@ -46,12 +103,77 @@ public class OAuth1Generic {
     protected @Nullable String authoriseUrl;
     protected @Nonnull String accessTokenUrl;
     protected @Nonnull TokenMapStrategy tokenMapStrategy;
+    protected @Nonnull SharedTransport transport;
+    /**
+     * Cache of the HMAC signers (and thus derived signing keys) used for the handshake and by the {@link OAuthParameters} built by this instance.
+     */
+    protected @Nonnull HmacSignerCache signerCache = new HmacSignerCache();
+    /**
+     * Strategy recording the latency of each phase of the requests made by this instance, and their outcomes. Records nothing by default.
+     */
+    protected @Nonnull MetricsStrategy metricsStrategy = NoOpMetricsStrategy.INSTANCE;
+    /**
+     * Pool of temporary tokens fetched ahead of time, handed out by {@link OAuth1Generic#begin()}, or null if not enabled.
+     */
+    @Setter(AccessLevel.NONE)
+    protected volatile @Nullable TemporaryTokenPool temporaryTokenPool;
+    /**
+     * Rate limiter applied to the requests made through this instance's pooled transport, or null for none.
+     */
+    protected volatile @Nullable RateLimiter rateLimiter;
+    /**
+     * Hedger applied to the GET and HEAD requests made through this instance's pooled transport, or null for none.
+     */
+    protected volatile @Nullable RequestHedger requestHedger;
+    /**
+     * Policy retrying the token requests of {@link OAuth1Generic#begin()} and {@link OAuth1Generic#authorised(String, String)} on connection-level failures, or null for no retries.
+     */
+    protected volatile @Nullable RetryPolicy retryPolicy;
+    /**
+     * Circuit breakers and bulkheads applied per endpoint to the token requests and to the requests made through this instance's pooled transport, or null for none.
+     */
+    protected volatile @Nullable EndpointIsolator endpointIsolator;
+    /**
+     * Cache of the responses to the GET requests made via {@link OAuth1Generic#makeCachedOAuthBackedRequest(String, OAuthParameters)}, private to each user's credentials, or null for none.
+     */
+    protected volatile @Nullable ResponseCache responseCache;
+    /**
+     * Strategy generating the nonce and timestamp of each request signed by this instance (including the token requests), shared across instances by default.
+     */
+    protected @Nonnull NonceTimestampStrategy nonceTimestampStrategy = StripedNonceTimestampStrategy.INSTANCE;
+    /**
+     * The transport created by this instance (rather than passed in), shut down by {@link OAuth1Generic#close()}, or null if none.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private @Nullable SharedTransport ownedTransport;
+
+    /**
+     * Transport used by the static {@link OAuth1Generic#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}, which is thread-safe and thus shared.
+     */
+    private static final HttpTransport STATIC_TRANSPORT = new NetHttpTransport();
+
+    private static final String BODY_HASH_PARAMETER = "oauth_body_hash";
+    /**
+     * Method of the temporary token and access token requests, as sent by {@link AbstractOAuthGetToken#execute()} (which uses GET unless usePost is set, and it never is).
+     */
+    private static final String TOKEN_REQUEST_METHOD = HttpMethods.GET;
+    private static final int STREAMING_BUFFER_BYTES = 16 * 1024;
+
+    /**
+     * The default number of times {@link OAuth1Generic#warmUp()} repeats the signing and parsing steps.
+     */
+    public static final int DEFAULT_WARM_UP_ITERATIONS = 5_000;
+    private static final String WARM_UP_TOKEN = "oauth1-warm-up";
+    private static final byte[] WARM_UP_TOKEN_RESPONSE = "oauth_token=oauth1-warm-up&oauth_token_secret=oauth1-warm-up-secret&oauth_callback_confirmed=true".getBytes(StandardCharsets.US_ASCII);
 
     private OAuth1Generic() {
 
     }
 
     /**
+     * Constructs an instance with its own pooled {@link SharedTransport} using the default {@link oauth1.transport.TransportConfig}, shut down by {@link OAuth1Generic#close()}.
+     *
      * @param consumerKey Required identifier portion of the client credentials (equivalent to a username). More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
      * @param consumerSecret Client-shared secret. More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
      * @param requestTokenUrl Encoded authorization server URL. More information: request_uri entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
@@ -68,6 +190,30 @@ public class OAuth1Generic {
             @Nullable String authoriseUrl,
             @Nonnull String accessTokenUrl,
             @Nonnull TokenMapStrategy tokenMapStrategy
+    ) {
+        this(consumerKey, consumerSecret, requestTokenUrl, callbackUrl, authoriseUrl, accessTokenUrl, tokenMapStrategy, new SharedTransport());
+        this.ownedTransport = transport;
+    }
+
+    /**
+     * @param consumerKey Required identifier portion of the client credentials (equivalent to a username). More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param consumerSecret Client-shared secret. More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param requestTokenUrl Encoded authorization server URL. More information: request_uri entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param callbackUrl Optional absolute URI back to which the server will redirect the resource owner when the Resource Owner Authorization step is completed or null for none. More information: redirect_uri entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param authoriseUrl Encoded user authorization URL, or null if only wish to receive the temporary token and build it themselves.
+     * @param accessTokenUrl Encoded authorization server URL.
+     * @param tokenMapStrategy Strategy to map temporary tokens to token secrets, and fetch the token secret for a temporary token.
+     * @param transport The pooled HTTP transport used for every request made by this instance. It is not shut down by {@link OAuth1Generic#close()}.
+     */
+    protected OAuth1Generic(
+            @Nonnull String consumerKey,
+            @Nonnull String consumerSecret,
+            @Nonnull String requestTokenUrl,
+            @Nullable String callbackUrl,
+            @Nullable String authoriseUrl,
+            @Nonnull String accessTokenUrl,
+            @Nonnull TokenMapStrategy tokenMapStrategy,
+            @Nonnull SharedTransport transport
     ) {
         this.consumerKey = consumerKey;
         this.consumerSecret = consumerSecret;
@@ -76,6 +222,7 @@ public class OAuth1Generic {
         this.authoriseUrl = authoriseUrl;
         this.accessTokenUrl = accessTokenUrl;
         this.tokenMapStrategy = tokenMapStrategy;
+        this.transport = transport;
     }
 
     /**
@@ -89,40 +236,323 @@ public class OAuth1Generic {
      */
     @Nonnull
     protected BeginResult begin() throws GetTemporaryTokenException, TokenMapException {
+        long start = System.nanoTime();
+        HandshakeEvent event = FlightRecorderEvents.beginHandshake("begin");
+        try {
+            BeginResult beginResult = executeBegin();
+            metricsStrategy.recordOutcome(Operation.BEGIN, null);
+            if (event != null) {
+                event.complete(requestTokenUrl, null);
+            }
+            return beginResult;
+        }
+        catch (GetTemporaryTokenException | TokenMapException | RuntimeException e) {
+            metricsStrategy.recordOutcome(Operation.BEGIN, e.getClass());
+            if (event != null) {
+                event.complete(requestTokenUrl, e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(Phase.BEGIN, System.nanoTime() - start);
+        }
+    }
+
+    @Nonnull
+    private BeginResult executeBegin() throws GetTemporaryTokenException, TokenMapException {
+        // Take a temporary token fetched ahead of time if possible, otherwise fetch one now.
+        TemporaryTokenPool pool = temporaryTokenPool;
+        String temporaryToken = pool == null ? null : pool.poll();
+        TokenResponse tokenResponse = null;
+        if (temporaryToken == null) {
+            tokenResponse = requestTemporaryToken();
+            temporaryToken = mapTemporaryToken(tokenResponse);
+        }
+
+        // With a sealing strategy, what was fetched is the sealed state, which carries the temporary token.
+        String state = null;
+        TokenMapStrategy strategy = tokenMapStrategy;
+        if (strategy instanceof SealingTokenMapStrategy) {
+            state = temporaryToken;
+            temporaryToken = ((SealingTokenMapStrategy) strategy).temporaryTokenOf(state);
+        }
+
+        // If authoriseURL is null then return the temporary token with an empty Authenticate URL.
+        if (authoriseUrl == null) {
+            return new BeginResult(temporaryToken, null, state, tokenResponse);
+        }
+
+        // Build Authenticate URL, and return it with the temporary token.
+        OAuthAuthorizeTemporaryTokenUrl authorizeTemporaryTokenUrl = new OAuthAuthorizeTemporaryTokenUrl(authoriseUrl);
+        authorizeTemporaryTokenUrl.temporaryToken = temporaryToken;
+        return new BeginResult(temporaryToken, authorizeTemporaryTokenUrl.build(), state, tokenResponse);
+    }
+
+    /**
+     * Requests a temporary token and corresponding token secret from the server, then maps the temporary token to the token secret.
+     * With a {@link SealingTokenMapStrategy}, the token secret is sealed instead, and the sealed state (which carries the temporary token) is returned in place of the temporary token.
+     */
+    @Nonnull
+    private String fetchTemporaryToken() throws GetTemporaryTokenException, TokenMapException {
+        return mapTemporaryToken(requestTemporaryToken());
+    }
+
+    /**
+     * Requests a temporary token and corresponding token secret from the server.
+     */
+    @Nonnull
+    private TokenResponse requestTemporaryToken() throws GetTemporaryTokenException {
         // Build get temporary token request.
-        OAuthHmacSigner signer = new OAuthHmacSigner();
         OAuthGetTemporaryToken getTemporaryToken = new OAuthGetTemporaryToken(requestTokenUrl);
         getTemporaryToken.callback = callbackUrl;
-        signer.clientSharedSecret = consumerSecret;
         getTemporaryToken.consumerKey = consumerKey;
-        getTemporaryToken.signer = signer;
-        getTemporaryToken.transport = new NetHttpTransport();
+        getTemporaryToken.signer = signerCache.getSigner(consumerSecret, null);
+        getTemporaryToken.transport = transport.getHttpTransport();
 
         // Execute get temporary token request.
-        OAuthCredentialsResponse temporaryTokenResponse;
+        TokenResponse temporaryTokenResponse;
         try {
-            temporaryTokenResponse = getTemporaryToken.execute();
+            temporaryTokenResponse = executeTokenRequest(getTemporaryToken, Phase.REQUEST_TOKEN);
+        } catch (EndpointUnavailableException e) {
+            throw new EndpointUnavailableGetTemporaryTokenException(e);
         } catch (IOException e) {
             throw new GetTemporaryTokenException(e);
         }
-        if (temporaryTokenResponse == null || temporaryTokenResponse.token == null || temporaryTokenResponse.tokenSecret == null) {
+        if (temporaryTokenResponse.getToken() == null || temporaryTokenResponse.getTokenSecret() == null) {
             throw new MissingDataGetTemporaryTokenException();
         }
+        return temporaryTokenResponse;
+    }
 
-        // Map obtained temporary token to obtained token secret.
-        String temporaryToken = temporaryTokenResponse.token;
-        String tokenSecret = temporaryTokenResponse.tokenSecret;
-        tokenMapStrategy.mapTemporaryTokenToTemporaryTokenSecret(temporaryToken, tokenSecret);
+    /**
+     * Maps the temporary token of the given response to its token secret, or seals the token secret if the strategy stores nothing.
+     * @return The temporary token, or the sealed state with a {@link SealingTokenMapStrategy}.
+     */
+    @Nonnull
+    private String mapTemporaryToken(@Nonnull TokenResponse temporaryTokenResponse) throws TokenMapException {
+        String temporaryToken = temporaryTokenResponse.getToken();
+        String tokenSecret = temporaryTokenResponse.getTokenSecret();
+        TokenMapStrategy strategy = tokenMapStrategy;
+        long mapStart = System.nanoTime();
+        TokenMapEvent event = FlightRecorderEvents.beginTokenMap(strategy instanceof SealingTokenMapStrategy ? "seal" : "map", strategy);
+        try {
+            if (strategy instanceof SealingTokenMapStrategy) {
+                String state = ((SealingTokenMapStrategy) strategy).seal(temporaryToken, tokenSecret);
+                if (event != null) {
+                    event.complete(null);
+                }
+                return state;
+            }
+            strategy.mapTemporaryTokenToTemporaryTokenSecret(temporaryToken, tokenSecret);
+            if (event != null) {
+                event.complete(null);
+            }
+        }
+        catch (TokenMapException | RuntimeException e) {
+            if (event != null) {
+                event.complete(e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(Phase.TOKEN_MAP_WRITE, System.nanoTime() - mapStart);
+        }
+        return temporaryToken;
+    }
 
-        // If authoriseURL is null then return the temporary token with an empty Authenticate URL.
-        if (authoriseUrl == null) {
-            return new BeginResult(temporaryToken, null);
+    /**
+     * Starts keeping a pool of temporary tokens fetched (and mapped via the {@link TokenMapStrategy}) ahead of time,
+     * from which {@link OAuth1Generic#begin()} hands out tokens without a round trip to the server, falling back to fetching one when the pool is empty.
+     * Any previously started pool is closed.
+     *
+     * @param size The number of temporary tokens to keep in reserve.
+     * @param maxAgeMillis The age after which a pooled temporary token is discarded. This should be below the provider's temporary token lifetime, and the {@link TokenMapStrategy} must keep mappings for longer.
+     *                     As the whole reserve is refetched every maximum age even when idle, the mappings of discarded tokens are removed via {@link TokenMapStrategy#removeTemporaryToken(String)},
+     *                     so a strategy which does not expire mappings must implement it (as {@link oauth1.strategy.preset.HashMapTokenMapStrategy} does).
+     * @param refillConcurrency The maximum number of concurrent requests made in the background to refill the pool.
+     * @return The started pool, e.g. to monitor its hit rate.
+     */
+    @Nonnull
+    public TemporaryTokenPool startTemporaryTokenPool(int size, long maxAgeMillis, int refillConcurrency) {
+        TemporaryTokenPool.TemporaryTokenSource source = new TemporaryTokenPool.TemporaryTokenSource() {
+            @Nonnull
+            @Override
+            public String fetchTemporaryToken() throws GetTemporaryTokenException, TokenMapException {
+                return OAuth1Generic.this.fetchTemporaryToken();
+            }
+
+            @Override
+            public void discardTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+                tokenMapStrategy.removeTemporaryToken(temporaryToken);
+            }
+        };
+        TemporaryTokenPool pool = new TemporaryTokenPool(source, size, maxAgeMillis, refillConcurrency);
+        stopTemporaryTokenPool();
+        temporaryTokenPool = pool;
+        return pool;
+    }
+
+    /**
+     * Stops the pool started via {@link OAuth1Generic#startTemporaryTokenPool(int, long, int)}, if any, so {@link OAuth1Generic#begin()} always fetches a temporary token.
+     */
+    public void stopTemporaryTokenPool() {
+        TemporaryTokenPool pool = temporaryTokenPool;
+        temporaryTokenPool = null;
+        if (pool != null) {
+            pool.close();
         }
+    }
 
-        // Build Authenticate URL, and return it with the temporary token.
-        OAuthAuthorizeTemporaryTokenUrl authorizeTemporaryTokenUrl = new OAuthAuthorizeTemporaryTokenUrl(authoriseUrl);
-        authorizeTemporaryTokenUrl.temporaryToken = temporaryToken;
-        return new BeginResult(temporaryToken, authorizeTemporaryTokenUrl.build());
+    /**
+     * Stops the temporary token pool, if any, and shuts down the {@link SharedTransport} this instance created itself, if any.
+     * A transport passed in at construction (or set afterwards) is left open, as it may be shared with other instances.
+     * The instance cannot make requests through a transport it shut down.
+     *
+     * @throws IOException If shutting down the transport failed.
+     */
+    @Override
+    public void close() throws IOException {
+        stopTemporaryTokenPool();
+        SharedTransport owned = ownedTransport;
+        ownedTransport = null;
+        if (owned != null) {
+            owned.shutdown();
+        }
+    }
+
+    /**
+     * Warms up this instance before it serves traffic, e.g. right after a deploy, so the first logins are not slowed down by class loading, JIT compilation, DNS resolution and TLS handshakes.
+     * Equivalent to {@link OAuth1Generic#warmUp(int)} with {@value #DEFAULT_WARM_UP_ITERATIONS} iterations.
+     *
+     * @return The duration and outcome of each step.
+     */
+    @Nonnull
+    public WarmUpReport warmUp() {
+        return warmUp(DEFAULT_WARM_UP_ITERATIONS);
+    }
+
+    /**
+     * Warms up this instance before it serves traffic, running each {@link WarmUpStep} in turn:
+     * <br>
+     * 1. Signs requests to the token URLs the given number of times, with the signer later used for the handshake. Nothing is sent.
+     * <br>
+     * 2. Parses a token response and builds the authorise URL the given number of times.
+     * <br>
+     * 3. Resolves the hosts of the request token and access token URLs.
+     * <br>
+     * 4. Sends an unsigned HEAD request to the request token and access token URLs through the pooled transport, so a connection to each origin is kept alive (and its TLS session cached) for the handshake.
+     * Any HTTP response, whatever its status, counts as a success.
+     * <br>
+     * 5. Maps a throwaway temporary token via the {@link TokenMapStrategy} and fetches it back, or seals and unseals it with a {@link SealingTokenMapStrategy}.
+     * The throwaway mapping is then removed via {@link TokenMapStrategy#removeTemporaryToken(String)}.
+     * <br><br>
+     * A failed step is recorded in the report rather than thrown, and does not stop the following steps. Nothing is recorded by the {@link MetricsStrategy}, and the {@link RateLimiter} does not apply.
+     *
+     * @param iterations The number of times the signing and parsing steps are repeated, so they are compiled by the JIT.
+     * @return The duration and outcome of each step.
+     */
+    @Nonnull
+    public WarmUpReport warmUp(int iterations) {
+        long start = System.nanoTime();
+        List<WarmUpStepResult> steps = new ArrayList<>(WarmUpStep.values().length);
+        runWarmUpStep(steps, WarmUpStep.SIGNING, () -> warmUpSigning(iterations));
+        runWarmUpStep(steps, WarmUpStep.PARSING, () -> warmUpParsing(iterations));
+        runWarmUpStep(steps, WarmUpStep.DNS, () -> {
+            for (String host : warmUpHosts().keySet()) {
+                InetAddress.getAllByName(host);
+            }
+        });
+        runWarmUpStep(steps, WarmUpStep.CONNECT, () -> {
+            for (String url : warmUpHosts().values()) {
+                HttpRequest request = transport.getRequestFactory().buildHeadRequest(new GenericUrl(url));
+                request.setThrowExceptionOnExecuteError(false);
+                // Consuming the response returns the connection to the pool.
+                request.execute().ignore();
+            }
+        });
+        runWarmUpStep(steps, WarmUpStep.TOKEN_MAP, this::warmUpTokenMap);
+        return new WarmUpReport(steps, System.nanoTime() - start);
+    }
+
+    private static void runWarmUpStep(@Nonnull List<WarmUpStepResult> steps, @Nonnull WarmUpStep step, @Nonnull WarmUpAction action) {
+        long start = System.nanoTime();
+        Exception exception = null;
+        try {
+            action.run();
+        }
+        catch (Exception e) {
+            exception = e;
+        }
+        steps.add(new WarmUpStepResult(step, System.nanoTime() - start, exception));
+    }
+
+    private void warmUpSigning(int iterations) throws IOException {
+        OAuthParameters oAuthParameters = new OAuthParameters();
+        oAuthParameters.signer = signerCache.getSigner(consumerSecret, null);
+        oAuthParameters.consumerKey = consumerKey;
+        oAuthParameters.version = "1.0";
+        HttpRequest requestTokenRequest = transport.getRequestFactory().buildGetRequest(new GenericUrl(requestTokenUrl));
+        HttpRequest accessTokenRequest = transport.getRequestFactory().buildGetRequest(new GenericUrl(accessTokenUrl));
+        for (int i = 0; i < iterations; i++) {
+            // Alternate between the shapes of the handshake requests and of the requests made on behalf of a token, with a body hash.
+            boolean withToken = (i & 1) == 1;
+            oAuthParameters.token = withToken ? WARM_UP_TOKEN : null;
+            oAuthParameters.verifier = withToken ? WARM_UP_TOKEN : null;
+            sign(oAuthParameters, withToken ? accessTokenRequest : requestTokenRequest, nonceTimestampStrategy, withToken ? WARM_UP_TOKEN : null);
+        }
+    }
+
+    private void warmUpParsing(int iterations) throws IOException, MissingDataGetTemporaryTokenException {
+        for (int i = 0; i < iterations; i++) {
+            TokenResponse response = TokenResponseParser.parse(new ByteArrayInputStream(WARM_UP_TOKEN_RESPONSE));
+            if (response.getToken() == null || response.getTokenSecret() == null) {
+                throw new MissingDataGetTemporaryTokenException();
+            }
+            if (authoriseUrl != null) {
+                OAuthAuthorizeTemporaryTokenUrl authorizeTemporaryTokenUrl = new OAuthAuthorizeTemporaryTokenUrl(authoriseUrl);
+                authorizeTemporaryTokenUrl.temporaryToken = response.getToken();
+                authorizeTemporaryTokenUrl.build();
+            }
+        }
+    }
+
+    /**
+     * @return The URL to connect to for each distinct host of the request token and access token URLs.
+     */
+    @Nonnull
+    private Map<String, String> warmUpHosts() {
+        Map<String, String> hosts = new LinkedHashMap<>();
+        hosts.putIfAbsent(new GenericUrl(requestTokenUrl).getHost(), requestTokenUrl);
+        hosts.putIfAbsent(new GenericUrl(accessTokenUrl).getHost(), accessTokenUrl);
+        return hosts;
+    }
+
+    private void warmUpTokenMap() throws TokenMapException {
+        String temporaryToken = WARM_UP_TOKEN + "-" + UUID.randomUUID();
+        String temporaryTokenSecret = UUID.randomUUID().toString();
+        TokenMapStrategy strategy = tokenMapStrategy;
+        String fetched;
+        if (strategy instanceof SealingTokenMapStrategy) {
+            SealingTokenMapStrategy sealingStrategy = (SealingTokenMapStrategy) strategy;
+            fetched = sealingStrategy.unseal(temporaryToken, sealingStrategy.seal(temporaryToken, temporaryTokenSecret));
+        }
+        else {
+            strategy.mapTemporaryTokenToTemporaryTokenSecret(temporaryToken, temporaryTokenSecret);
+            fetched = strategy.fetchTemporaryTokenSecretForTemporaryToken(temporaryToken);
+            // Most strategies drop the mapping once fetched, but remove it regardless so none outlives the warm-up.
+            strategy.removeTemporaryToken(temporaryToken);
+        }
+        if (!temporaryTokenSecret.equals(fetched)) {
+            throw new MissingDataTokenMapException();
+        }
+    }
+
+    /**
+     * A step of {@link OAuth1Generic#warmUp(int)}.
+     */
+    @FunctionalInterface
+    private interface WarmUpAction {
+        void run() throws Exception;
     }
 
     /**
@@ -137,39 +567,107 @@ public class OAuth1Generic {
      */
     @Nonnull
     protected AuthorisedResult authorised(@Nonnull String temporaryToken, @Nullable String verifier) throws GetAccessTokenException, TokenMapException {
-        // Fetch the temporary token secret for the given temporary token using the given strategy.
-        String temporaryTokenSecret = tokenMapStrategy.fetchTemporaryTokenSecretForTemporaryToken(temporaryToken);
+        return authorisedWithState(temporaryToken, verifier, null);
+    }
+
+    /**
+     * Unseals the token secret corresponding to the temporary token from the state obtained from {@link OAuth1Generic#begin()} when a {@link SealingTokenMapStrategy} is used,
+     * then uses the obtained token secret along with the original temporary token and verifier to obtain an access token from the server.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Generic#begin()}
+     * @param verifier       The verifier, if a callback is used, otherwise null.
+     * @param state          The sealed state obtained from {@link OAuth1Generic#begin()}, or null to fetch the token secret from the {@link TokenMapStrategy} as {@link OAuth1Generic#authorised(String, String)} does.
+     * @return Access token from the server, and an {@link OAuthParameters} object used to make OAuth-backed requests on behalf of the access token via {@link OAuth1Generic#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}
+     * @throws GetAccessTokenException If the request to the server for the access token failed.
+     * @throws TokenMapException       If unsealing the state failed (e.g. an {@link InvalidSealedStateException} if it has expired or was already used), or no sealing strategy is used.
+     */
+    @Nonnull
+    protected AuthorisedResult authorisedWithState(@Nonnull String temporaryToken, @Nullable String verifier, @Nullable String state) throws GetAccessTokenException, TokenMapException {
+        long start = System.nanoTime();
+        HandshakeEvent event = FlightRecorderEvents.beginHandshake("authorised");
+        try {
+            AuthorisedResult authorisedResult = executeAuthorised(temporaryToken, verifier, state);
+            metricsStrategy.recordOutcome(Operation.AUTHORISED, null);
+            if (event != null) {
+                event.complete(accessTokenUrl, null);
+            }
+            return authorisedResult;
+        }
+        catch (GetAccessTokenException | TokenMapException | RuntimeException e) {
+            metricsStrategy.recordOutcome(Operation.AUTHORISED, e.getClass());
+            if (event != null) {
+                event.complete(accessTokenUrl, e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(Phase.AUTHORISED, System.nanoTime() - start);
+        }
+    }
+
+    @Nonnull
+    private AuthorisedResult executeAuthorised(@Nonnull String temporaryToken, @Nullable String verifier, @Nullable String state) throws GetAccessTokenException, TokenMapException {
+        // Fetch the temporary token secret for the given temporary token using the given strategy, or unseal it from the state.
+        String temporaryTokenSecret;
+        TokenMapStrategy strategy = tokenMapStrategy;
+        long mapStart = System.nanoTime();
+        TokenMapEvent event = FlightRecorderEvents.beginTokenMap(state == null ? "fetch" : "unseal", strategy);
+        try {
+            if (state == null) {
+                temporaryTokenSecret = strategy.fetchTemporaryTokenSecretForTemporaryToken(temporaryToken);
+            }
+            else if (strategy instanceof SealingTokenMapStrategy) {
+                temporaryTokenSecret = ((SealingTokenMapStrategy) strategy).unseal(temporaryToken, state);
+            }
+            else {
+                throw new TokenMapException("A sealed state was given, but the token map strategy does not seal!");
+            }
+            if (event != null) {
+                event.complete(null);
+            }
+        }
+        catch (TokenMapException | RuntimeException e) {
+            if (event != null) {
+                event.complete(e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(Phase.TOKEN_MAP_READ, System.nanoTime() - mapStart);
+        }
         if (temporaryTokenSecret == null) {
             throw new MissingDataTokenMapException();
         }
 
         // Build the get access token request.
-        OAuthHmacSigner signer = new OAuthHmacSigner();
-        signer.clientSharedSecret = consumerSecret;
-        signer.tokenSharedSecret = temporaryTokenSecret;
         OAuthGetAccessToken getAccessToken = new OAuthGetAccessToken(accessTokenUrl);
-        getAccessToken.signer = signer;
+        getAccessToken.signer = signerCache.getSigner(consumerSecret, temporaryTokenSecret);
         getAccessToken.temporaryToken = temporaryToken;
-        getAccessToken.transport = new NetHttpTransport();
+        getAccessToken.transport = transport.getHttpTransport();
         getAccessToken.consumerKey = consumerKey;
         getAccessToken.verifier = verifier;
 
         // Execute the get access token request.
-        OAuthCredentialsResponse oAuthCredentialsResponse;
+        TokenResponse accessTokenResponse;
         try {
-            oAuthCredentialsResponse = getAccessToken.execute();
+            accessTokenResponse = executeTokenRequest(getAccessToken, Phase.ACCESS_TOKEN);
+        } catch (EndpointUnavailableException e) {
+            throw new EndpointUnavailableGetAccessTokenException(e);
         } catch (IOException e) {
             throw new GetAccessTokenException(e);
         }
-        if (oAuthCredentialsResponse == null || oAuthCredentialsResponse.token == null) {
+        if (accessTokenResponse.getToken() == null) {
             throw new MissingDataGetAccessTokenException();
         }
 
-        // Obtain the access token.
-        String accessToken = oAuthCredentialsResponse.token;
+        // Obtain the access token and its secret.
+        String accessToken = accessTokenResponse.getToken();
+        String accessTokenSecret = accessTokenResponse.getTokenSecret();
 
-        // Return the obtained access token, and an OAuthParameters object of the access token.
-        return new AuthorisedResult(accessToken, buildOAuthParameters(accessToken, temporaryTokenSecret));
+        // Return the obtained access credentials, and an OAuthParameters object signing with them.
+        // Requests are signed with the access token secret, falling back to the temporary token secret for providers which return none.
+        String signingSecret = accessTokenSecret != null ? accessTokenSecret : temporaryTokenSecret;
+        return new AuthorisedResult(accessToken, accessTokenSecret, buildOAuthParameters(accessToken, signingSecret), accessTokenResponse);
     }
 
     /**
@@ -187,29 +685,518 @@ public class OAuth1Generic {
      */
     @Nonnull
     public static HttpResponse makeOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) throws OAuthBackedRequestException {
-        GenericUrl genericUrl = new GenericUrl(url);
-        HttpRequestFactory requestFactory = new NetHttpTransport().createRequestFactory(oAuthParameters);
-        HttpResponse httpResponse;
+        return executeOAuthBackedRequest(STATIC_TRANSPORT.createRequestFactory(), NoOpMetricsStrategy.INSTANCE, StripedNonceTimestampStrategy.INSTANCE, null, false, null, url, oAuthParameters, requestMethod, httpContent, null);
+    }
+
+    /**
+     * Makes a request to the given URL wrapped with a user's OAuth credentials (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)},
+     * to make a request on a user's behalf, reusing the pooled connections and timeouts of this instance's {@link SharedTransport}.
+     * <br>
+     * Each request signs a private copy of the given {@link OAuthParameters}, so one instance may be shared by concurrent requests.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param httpContent The content of the HTTP request body, if applicable (e.g. in a PUT request), otherwise null.
+     *
+     * @return The response from the server after making the request to the url on the behalf of the user. Note: use {@link HttpResponse#parseAsString()} or {@link HttpResponse#parseAs(Class)} to deserialize the response body, or {@link HttpResponse#disconnect()} to release the pooled connection.
+     *
+     * @throws OAuthBackedRequestException If building the request, or executing the request to the server, failed.
+     */
+    @Nonnull
+    public HttpResponse makePooledOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) throws OAuthBackedRequestException {
+        return executePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, httpContent, false);
+    }
+
+    /**
+     * Makes a GET request on a user's behalf through this instance's {@link SharedTransport}, served from its {@link OAuth1Generic#responseCache} if set.
+     * <br>
+     * A cached response is only ever served to the credentials (consumer key and access token) it was fetched with.
+     * A fresh one is served without a request, and a stale one with an {@code ETag} or {@code Last-Modified} validator is revalidated with a freshly signed conditional request,
+     * so the provider only sends the body again if it changed. Without a cache, this makes the request and reads its body.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     *
+     * @return The response, with its body read and its connection released, and whether it was served from the provider or the cache.
+     *
+     * @throws OAuthBackedRequestException If building the request, executing the request to the server, or reading the response failed, or the server responded with an error.
+     */
+    @Nonnull
+    public CachedResponse makeCachedOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters) throws OAuthBackedRequestException {
+        ResponseCache cache = responseCache;
+        if (cache == null) {
+            try {
+                return CachedResponse.read(makePooledOAuthBackedRequest(url, oAuthParameters, RequestMethod.GET, null));
+            }
+            catch (IOException e) {
+                throw new OAuthBackedRequestException(e);
+            }
+        }
+        return cache.get(oAuthParameters, url, (HttpHeaders conditionalHeaders) -> conditionalHeaders == null
+                ? makePooledOAuthBackedRequest(url, oAuthParameters, RequestMethod.GET, null)
+                : makeConditionalOAuthBackedRequest(url, oAuthParameters, conditionalHeaders));
+    }
+
+    /**
+     * Makes a request on a user's behalf through this instance's {@link SharedTransport}, streaming the request body from its source and the response body into the given sink,
+     * so neither is held in memory as a whole.
+     * <br>
+     * If the body has the body hash enabled, its {@code oauth_body_hash} is computed incrementally and signed along with the request.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param body The streamed body of the request, if applicable (e.g. in a PUT request), otherwise null.
+     * @param sink The channel the (decoded) response body is written into.
+     *
+     * @return The status and headers of the response, and the number of body bytes written into the sink.
+     *
+     * @throws OAuthBackedRequestException If reading the request body, executing the request to the server, or writing the response body into the sink failed.
+     */
+    @Nonnull
+    public StreamedResponse makeStreamingOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable StreamingBody body, @Nonnull WritableByteChannel sink) throws OAuthBackedRequestException {
+        String bodyHash;
         try {
-            httpResponse = requestFactory.buildRequest(requestMethod.getApiRepresentation(), genericUrl, httpContent).execute();
+            bodyHash = body == null ? null : body.computeBodyHash();
         }
         catch (IOException e) {
+            closeQuietly(body);
+            throw new OAuthBackedRequestException(e);
+        }
+        HttpResponse httpResponse;
+        try {
+            httpResponse = executeOAuthBackedRequest(transport.getRequestFactory(), metricsStrategy, nonceTimestampStrategy, rateLimiter, false, endpointIsolator, url, oAuthParameters, requestMethod, body, bodyHash);
+        }
+        finally {
+            // The body is closed once sent, but not if the request failed before sending it.
+            closeQuietly(body);
+        }
+        try {
+            long bodyBytes = copyContent(httpResponse, sink);
+            return new StreamedResponse(httpResponse.getStatusCode(), httpResponse.getStatusMessage(), httpResponse.getHeaders(), bodyBytes);
+        }
+        catch (IOException | BufferOverflowException e) {
             throw new OAuthBackedRequestException(e);
         }
-        if (httpResponse == null) {
-            throw new MissingDataOAuthBackedRequestException();
+        finally {
+            try {
+                httpResponse.disconnect();
+            }
+            catch (IOException e) {
+                // The body has been fully read, so there is nothing left to release.
+            }
+        }
+    }
+
+    /**
+     * Makes a request on a user's behalf through this instance's {@link SharedTransport}, streaming the request body from its source and the response body into the given buffer.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param body The streamed body of the request, if applicable (e.g. in a PUT request), otherwise null.
+     * @param sink The buffer the (decoded) response body is written into, starting at its position.
+     *
+     * @return The status and headers of the response, and the number of body bytes written into the buffer.
+     *
+     * @throws OAuthBackedRequestException If reading the request body or executing the request to the server failed, or the response body exceeds the remaining capacity of the buffer.
+     */
+    @Nonnull
+    public StreamedResponse makeStreamingOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable StreamingBody body, @Nonnull ByteBuffer sink) throws OAuthBackedRequestException {
+        return makeStreamingOAuthBackedRequest(url, oAuthParameters, requestMethod, body, new ByteBufferSink(sink));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#begin()}, run on {@link AsyncExecutors#defaultExecutor()}.
+     *
+     * @return A future completed with the temporary token and redirect URL, or exceptionally with a {@link GetTemporaryTokenException} or {@link TokenMapException}.
+     */
+    @Nonnull
+    protected CompletableFuture<BeginResult> beginAsync() {
+        return beginAsync(AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#begin()}, run on the given executor.
+     *
+     * @param executor The executor to run the request on, e.g. {@link AsyncExecutors#newVirtualThreadPerTaskExecutorOrCachedPool()}.
+     * @return A future completed with the temporary token and redirect URL, or exceptionally with a {@link GetTemporaryTokenException} (also if the executor rejected the task) or {@link TokenMapException}.
+     */
+    @Nonnull
+    protected CompletableFuture<BeginResult> beginAsync(@Nonnull Executor executor) {
+        return AsyncExecutors.supplyAsync(executor, this::begin, GetTemporaryTokenException::new);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#authorised(String, String)}, run on {@link AsyncExecutors#defaultExecutor()}.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Generic#begin()}
+     * @param verifier       The verifier, if a callback is used, otherwise null.
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} or {@link TokenMapException}.
+     */
+    @Nonnull
+    protected CompletableFuture<AuthorisedResult> authorisedAsync(@Nonnull String temporaryToken, @Nullable String verifier) {
+        return authorisedAsync(temporaryToken, verifier, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#authorised(String, String)}, run on the given executor.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Generic#begin()}
+     * @param verifier       The verifier, if a callback is used, otherwise null.
+     * @param executor       The executor to run the request on.
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} (also if the executor rejected the task) or {@link TokenMapException}.
+     */
+    @Nonnull
+    protected CompletableFuture<AuthorisedResult> authorisedAsync(@Nonnull String temporaryToken, @Nullable String verifier, @Nonnull Executor executor) {
+        return AsyncExecutors.supplyAsync(executor, () -> authorised(temporaryToken, verifier), GetAccessTokenException::new);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#authorisedWithState(String, String, String)}, run on the given executor.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Generic#begin()}
+     * @param verifier       The verifier, if a callback is used, otherwise null.
+     * @param state          The sealed state obtained from {@link OAuth1Generic#begin()}.
+     * @param executor       The executor to run the request on.
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} (also if the executor rejected the task) or {@link TokenMapException}.
+     */
+    @Nonnull
+    protected CompletableFuture<AuthorisedResult> authorisedWithStateAsync(@Nonnull String temporaryToken, @Nullable String verifier, @Nullable String state, @Nonnull Executor executor) {
+        return AsyncExecutors.supplyAsync(executor, () -> authorisedWithState(temporaryToken, verifier, state), GetAccessTokenException::new);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#makePooledOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}, run on {@link AsyncExecutors#defaultExecutor()}.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param httpContent The content of the HTTP request body, if applicable (e.g. in a PUT request), otherwise null.
+     * @return A future completed with the response from the server, or exceptionally with an {@link OAuthBackedRequestException}.
+     */
+    @Nonnull
+    public CompletableFuture<HttpResponse> makeOAuthBackedRequestAsync(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) {
+        return makeOAuthBackedRequestAsync(url, oAuthParameters, requestMethod, httpContent, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Generic#makePooledOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}, run on the given executor.
+     *
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials corresponding to a user (which includes their access token) obtained from {@link OAuth1Generic#authorised(String, String)}
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param httpContent The content of the HTTP request body, if applicable (e.g. in a PUT request), otherwise null.
+     * @param executor The executor to run the request on.
+     * @return A future completed with the response from the server, or exceptionally with an {@link OAuthBackedRequestException} (also if the executor rejected the task).
+     */
+    @Nonnull
+    public CompletableFuture<HttpResponse> makeOAuthBackedRequestAsync(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent, @Nonnull Executor executor) {
+        RateLimiter limiter = rateLimiter;
+        if (limiter == null || limiter.getConfig().getMode() == AcquisitionMode.BLOCKING) {
+            return AsyncExecutors.supplyAsync(executor, () -> makePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, httpContent), OAuthBackedRequestException::new);
+        }
+        // Only hand the request to the executor once its permit is available, so no thread waits for it.
+        return AsyncExecutors.supplyAsyncAfter(limiter.acquireAsync(oAuthParameters.consumerKey, oAuthParameters.token), executor,
+                () -> executePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, httpContent, true),
+                OAuthBackedRequestException::new);
+    }
+
+    /**
+     * Makes a request through this instance's {@link SharedTransport}, hedging it if it is a GET or HEAD request and a {@link RequestHedger} is set,
+     * and otherwise dropping the user's cached response of the URL once it succeeded.
+     * @param permitAcquired Whether a permit of the rate limiter was already acquired for the request, in which case only a hedge attempt acquires its own.
+     */
+    @Nonnull
+    private HttpResponse executePooledOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent, boolean permitAcquired) throws OAuthBackedRequestException {
+        RateLimiter limiter = rateLimiter;
+        RequestHedger hedger = requestHedger;
+        if (hedger != null && httpContent == null && (requestMethod == RequestMethod.GET || requestMethod == RequestMethod.HEAD)) {
+            // Each attempt signs its own copy of the parameters, so it gets a fresh nonce and timestamp without racing the other.
+            AtomicBoolean acquired = new AtomicBoolean(permitAcquired);
+            return hedger.execute(() -> executeOAuthBackedRequest(transport.getRequestFactory(), metricsStrategy, nonceTimestampStrategy, limiter, acquired.getAndSet(false), endpointIsolator, url, oAuthParameters, requestMethod, null, null));
+        }
+        HttpResponse httpResponse = executeOAuthBackedRequest(transport.getRequestFactory(), metricsStrategy, nonceTimestampStrategy, limiter, permitAcquired, endpointIsolator, url, oAuthParameters, requestMethod, httpContent, null);
+        ResponseCache cache = responseCache;
+        if (cache != null && requestMethod != RequestMethod.GET && requestMethod != RequestMethod.HEAD) {
+            // The request succeeded (or it would have thrown), so it may have modified the resource cached for this user.
+            cache.invalidate(oAuthParameters.consumerKey, oAuthParameters.token, url);
         }
         return httpResponse;
     }
 
+    /**
+     * Makes a GET request through this instance's {@link SharedTransport} with the given conditional headers, which does not throw on an unsuccessful status (e.g. {@code 304 Not Modified}).
+     */
+    @Nonnull
+    private HttpResponse makeConditionalOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull HttpHeaders conditionalHeaders) throws OAuthBackedRequestException {
+        HttpRequestInitializer initializer = transport.getRequestFactory().getInitializer();
+        HttpRequestFactory requestFactory = transport.getHttpTransport().createRequestFactory((HttpRequest request) -> {
+            if (initializer != null) {
+                initializer.initialize(request);
+            }
+            request.getHeaders().setIfNoneMatch(conditionalHeaders.getIfNoneMatch()).setIfModifiedSince(conditionalHeaders.getIfModifiedSince());
+            request.setThrowExceptionOnExecuteError(false);
+        });
+        RequestHedger hedger = requestHedger;
+        if (hedger != null) {
+            return hedger.execute(() -> executeOAuthBackedRequest(requestFactory, metricsStrategy, nonceTimestampStrategy, rateLimiter, false, endpointIsolator, url, oAuthParameters, RequestMethod.GET, null, null));
+        }
+        return executeOAuthBackedRequest(requestFactory, metricsStrategy, nonceTimestampStrategy, rateLimiter, false, endpointIsolator, url, oAuthParameters, RequestMethod.GET, null, null);
+    }
+
+    @Nonnull
+    private static HttpResponse executeOAuthBackedRequest(@Nonnull HttpRequestFactory requestFactory, @Nonnull MetricsStrategy metricsStrategy, @Nonnull NonceTimestampStrategy nonceTimestampStrategy, @Nullable RateLimiter rateLimiter, boolean permitAcquired, @Nullable EndpointIsolator endpointIsolator, @Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent, @Nullable String bodyHash) throws OAuthBackedRequestException {
+        long start = System.nanoTime();
+        OAuthBackedRequestEvent event = FlightRecorderEvents.beginOAuthBackedRequest();
+        try {
+            if (rateLimiter != null && !permitAcquired) {
+                rateLimiter.acquire(oAuthParameters.consumerKey, oAuthParameters.token);
+            }
+            GenericUrl genericUrl = new GenericUrl(url);
+            EndpointIsolator.Permit permit;
+            try {
+                permit = endpointIsolator == null ? null : endpointIsolator.acquire(EndpointIsolator.endpointOf(genericUrl, false));
+            }
+            catch (EndpointUnavailableException e) {
+                throw new EndpointUnavailableOAuthBackedRequestException(e);
+            }
+            HttpResponse httpResponse;
+            try {
+                HttpRequest request = requestFactory.buildRequest(requestMethod.getApiRepresentation(), genericUrl, httpContent);
+                if (rateLimiter != null) {
+                    // Called for every response, including unsuccessful ones which are then thrown.
+                    request.setResponseInterceptor((HttpResponse response) ->
+                            rateLimiter.onResponse(oAuthParameters.consumerKey, oAuthParameters.token, response.getStatusCode(), response.getHeaders()));
+                }
+                // Sign a private copy, as signing writes the nonce, timestamp and signature into the parameters, which callers share across concurrent requests.
+                HttpExecuteInterceptor signer = (HttpRequest signedRequest) -> sign(copyOAuthParameters(oAuthParameters), signedRequest, nonceTimestampStrategy, bodyHash);
+                if (metricsStrategy.isEnabled() || event != null) {
+                    // Signing happens in the interceptor, when the request is executed.
+                    request.setInterceptor((HttpRequest signedRequest) -> {
+                        long signStart = System.nanoTime();
+                        signer.intercept(signedRequest);
+                        long signNanos = System.nanoTime() - signStart;
+                        metricsStrategy.recordLatency(Phase.SIGNING, signNanos);
+                        if (event != null) {
+                            event.recordSigning(signNanos);
+                        }
+                    });
+                }
+                else {
+                    request.setInterceptor(signer);
+                }
+                httpResponse = request.execute();
+                if (permit != null) {
+                    // The call ends once the response headers are received, before the body is read.
+                    permit.release(EndpointIsolator.isFailure(null, httpResponse == null ? 0 : httpResponse.getStatusCode()));
+                }
+            }
+            catch (IOException e) {
+                release(permit, e);
+                throw new OAuthBackedRequestException(e);
+            }
+            catch (RuntimeException e) {
+                release(permit, e);
+                throw e;
+            }
+            if (httpResponse == null) {
+                throw new MissingDataOAuthBackedRequestException();
+            }
+            metricsStrategy.recordOutcome(Operation.OAUTH_BACKED_REQUEST, null);
+            if (event != null) {
+                event.recordResponse(httpResponse.getStatusCode(), httpResponse.getHeaders().getContentLength());
+                event.complete(genericUrl.getHost(), requestMethod.getApiRepresentation(), contentLength(httpContent), null);
+            }
+            return httpResponse;
+        }
+        catch (OAuthBackedRequestException | RuntimeException e) {
+            metricsStrategy.recordOutcome(Operation.OAUTH_BACKED_REQUEST, e.getClass());
+            if (event != null) {
+                event.complete(FlightRecorderEvents.hostOf(url), requestMethod.getApiRepresentation(), contentLength(httpContent), e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(Phase.OAUTH_BACKED_REQUEST, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Signs the given request like {@link OAuthParameters#intercept(HttpRequest)}, but with the nonce and timestamp of the given strategy,
+     * additionally signing and sending the given {@code oauth_body_hash} if not null.
+     */
+    private static void sign(@Nonnull OAuthParameters oAuthParameters, @Nonnull HttpRequest request, @Nonnull NonceTimestampStrategy nonceTimestampStrategy, @Nullable String bodyHash) throws IOException {
+        oAuthParameters.nonce = nonceTimestampStrategy.nextNonce();
+        oAuthParameters.timestamp = nonceTimestampStrategy.currentTimestamp();
+        try {
+            // Signs the body hash (if any) as if it were a parameter of the URL, as the signature base string includes every parameter of the URL.
+            SignatureBaseStringBuilder.computeSignature(oAuthParameters, request.getRequestMethod(), request.getUrl(), bodyHash);
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        String authorization = oAuthParameters.getAuthorizationHeader();
+        if (bodyHash != null) {
+            authorization += ", " + BODY_HASH_PARAMETER + "=\"" + OAuthParameters.escape(bodyHash) + "\"";
+        }
+        request.getHeaders().setAuthorization(authorization);
+    }
+
+    private static long copyContent(@Nonnull HttpResponse httpResponse, @Nonnull WritableByteChannel sink) throws IOException {
+        InputStream content = httpResponse.getContent();
+        if (content == null) {
+            return 0;
+        }
+        try (ReadableByteChannel source = Channels.newChannel(content)) {
+            ByteBuffer buffer = ByteBuffer.allocate(STREAMING_BUFFER_BYTES);
+            long copied = 0;
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += sink.write(buffer);
+                }
+                buffer.clear();
+            }
+            return copied;
+        }
+    }
+
+    private static void closeQuietly(@Nullable StreamingBody body) {
+        if (body != null) {
+            try {
+                body.close();
+            }
+            catch (IOException e) {
+                // The request has already completed or failed, and the body is not used again.
+            }
+        }
+    }
+
+    @Nonnull
+    private TokenResponse executeTokenRequest(@Nonnull AbstractOAuthGetToken tokenRequest, @Nonnull Phase phase) throws IOException, EndpointUnavailableException {
+        RetryPolicy policy = retryPolicy;
+        EndpointIsolator isolator = endpointIsolator;
+        String endpoint = isolator == null ? null : EndpointIsolator.endpointOf(tokenRequest, true);
+        int failedAttempts = 0;
+        while (true) {
+            // Each attempt takes its own permit, so retries stop as soon as the circuit opens.
+            EndpointIsolator.Permit permit = isolator == null ? null : isolator.acquire(endpoint);
+            try {
+                TokenResponse tokenResponse = executeTokenRequestAttempt(tokenRequest, phase);
+                release(permit, null);
+                return tokenResponse;
+            }
+            catch (RuntimeException e) {
+                release(permit, e);
+                throw e;
+            }
+            catch (IOException e) {
+                release(permit, e);
+                failedAttempts++;
+                if (policy == null || failedAttempts >= policy.getMaxAttempts() || !RetryPolicy.isConnectionFailure(e)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(policy.backoffMillis(failedAttempts));
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Equivalent to {@link AbstractOAuthGetToken#execute()}, but builds the request through this instance's shared request factory so the configured timeouts apply,
+     * parses every parameter of the response via {@link TokenResponseParser}, and records the latency of the given phase.
+     */
+    @Nonnull
+    private TokenResponse executeTokenRequestAttempt(@Nonnull AbstractOAuthGetToken tokenRequest, @Nonnull Phase phase) throws IOException {
+        long start = System.nanoTime();
+        TokenRequestEvent event = FlightRecorderEvents.beginTokenRequest(phase.name());
+        try {
+            HttpRequest request = transport.getRequestFactory().buildRequest(TOKEN_REQUEST_METHOD, tokenRequest, null);
+            long signStart = System.nanoTime();
+            sign(tokenRequest.createParameters(), request, nonceTimestampStrategy, null);
+            long signNanos = System.nanoTime() - signStart;
+            metricsStrategy.recordLatency(Phase.SIGNING, signNanos);
+            if (event != null) {
+                event.recordSigning(signNanos);
+            }
+            HttpResponse response = request.execute();
+            response.setContentLoggingLimit(0);
+            if (event != null) {
+                event.recordResponse(response.getStatusCode(), response.getHeaders().getContentLength());
+            }
+            TokenResponse tokenResponse;
+            try (InputStream content = response.getContent()) {
+                tokenResponse = content == null ? new TokenResponse(new String[0]) : TokenResponseParser.parse(content);
+            }
+            if (event != null) {
+                event.complete(tokenRequest.getHost(), TOKEN_REQUEST_METHOD, null);
+            }
+            return tokenResponse;
+        }
+        catch (IOException | RuntimeException e) {
+            if (event != null) {
+                event.complete(tokenRequest.getHost(), TOKEN_REQUEST_METHOD, e);
+            }
+            throw e;
+        }
+        finally {
+            metricsStrategy.recordLatency(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return The length of the given request body, 0 if none, or -1 if unknown.
+     */
+    private static long contentLength(@Nullable HttpContent httpContent) {
+        if (httpContent == null) {
+            return 0;
+        }
+        try {
+            return httpContent.getLength();
+        }
+        catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void release(@Nullable EndpointIsolator.Permit permit, @Nullable Exception e) {
+        if (permit != null) {
+            permit.release(EndpointIsolator.isFailure(e, 0));
+        }
+    }
+
+    @Nonnull
+    private static OAuthParameters copyOAuthParameters(@Nonnull OAuthParameters oAuthParameters) {
+        OAuthParameters copy = new OAuthParameters();
+        copy.signer = oAuthParameters.signer;
+        copy.consumerKey = oAuthParameters.consumerKey;
+        copy.token = oAuthParameters.token;
+        copy.signatureMethod = oAuthParameters.signatureMethod;
+        copy.version = oAuthParameters.version;
+        copy.callback = oAuthParameters.callback;
+        copy.verifier = oAuthParameters.verifier;
+        copy.realm = oAuthParameters.realm;
+        return copy;
+    }
+
+    /**
+     * Builds the {@link OAuthParameters} used to sign requests on behalf of the given access token.
+     *
+     * @param accessToken The access token.
+     * @param tokenSecret The token secret the requests are signed with.
+     * @return The {@link OAuthParameters} of the access token.
+     */
     @Nonnull
-    private OAuthParameters buildOAuthParameters(@Nonnull String accessToken, @Nonnull String tokenSecret) {
-        OAuthHmacSigner signer = new OAuthHmacSigner();
-        signer.clientSharedSecret = consumerSecret;
-        signer.tokenSharedSecret = tokenSecret;
+    protected OAuthParameters buildOAuthParameters(@Nonnull String accessToken, @Nonnull String tokenSecret) {
         OAuthParameters oauthParameters = new OAuthParameters();
-        signer.tokenSharedSecret = tokenSecret;
-        oauthParameters.signer = signer;
+        oauthParameters.signer = signerCache.getSigner(consumerSecret, tokenSecret);
         oauthParameters.consumerKey = consumerKey;
         oauthParameters.token = accessToken;
         oauthParameters.signatureMethod = "HMAC-SHA1";
@@ -10,9 +10,12 @@ import oauth1.lib.AuthorisedResult;
 import oauth1.lib.BeginResult;
 import oauth1.lib.RequestMethod;
 import oauth1.strategy.TokenMapStrategy;
+import oauth1.transport.SharedTransport;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * An OAuth1.0 consumer class, using the HMAC signing strategy.
@@ -33,6 +36,8 @@ import javax.annotation.Nullable;
 @Data
 public class OAuth1NoCallback extends OAuth1Generic {
     /**
+     * Constructs an instance with its own pooled {@link SharedTransport} using the default {@link oauth1.transport.TransportConfig}, shut down by {@link OAuth1Generic#close()}.
+     *
      * @param consumerKey Required identifier portion of the client credentials (equivalent to a username). More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
      * @param consumerSecret Client-shared secret. More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
      * @param requestTokenUrl Encoded authorization server URL. More information: request_uri entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
@@ -59,6 +64,36 @@ public class OAuth1NoCallback extends OAuth1Generic {
         );
     }
 
+    /**
+     * @param consumerKey Required identifier portion of the client credentials (equivalent to a username). More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param consumerSecret Client-shared secret. More information: client_id entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param requestTokenUrl Encoded authorization server URL. More information: request_uri entry of the OAuthParameters table at https://www.iana.org/assignments/oauth-parameters/oauth-parameters.xhtml
+     * @param authoriseUrl Encoded user authorization URL, or null if only wish to receive the temporary token and build it themselves.
+     * @param accessTokenUrl Encoded authorization server URL.
+     * @param tokenMapStrategy Strategy to map temporary tokens to token secrets, and fetch the token secret for a temporary token.
+     * @param transport The pooled HTTP transport used for every request made by this instance.
+     */
+    public OAuth1NoCallback(
+            @Nonnull String consumerKey,
+            @Nonnull String consumerSecret,
+            @Nonnull String requestTokenUrl,
+            @Nullable String authoriseUrl,
+            @Nonnull String accessTokenUrl,
+            @Nonnull TokenMapStrategy tokenMapStrategy,
+            @Nonnull SharedTransport transport
+    ) {
+        super(
+                consumerKey,
+                consumerSecret,
+                requestTokenUrl,
+                null,
+                authoriseUrl,
+                accessTokenUrl,
+                tokenMapStrategy,
+                transport
+        );
+    }
+
     /**
      * Requests a temporary token and corresponding token secret from the server,
      * then maps the temporary token to the token secret
@@ -87,4 +122,78 @@ public class OAuth1NoCallback extends OAuth1Generic {
     public AuthorisedResult authorised(@Nonnull String temporaryToken) throws GetAccessTokenException, TokenMapException {
         return super.authorised(temporaryToken, null);
     }
+
+    /**
+     * Unseals the token secret corresponding to the temporary token from the state obtained from {@link OAuth1NoCallback#begin()} when a {@link oauth1.strategy.SealingTokenMapStrategy} is used,
+     * then uses the obtained token secret along with the original temporary token to obtain an access token from the server.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1NoCallback#begin()}
+     * @param state          The sealed state obtained from {@link OAuth1NoCallback#begin()}.
+     * @return Access token from the server, and an {@link OAuthParameters} object used to make OAuth-backed requests on behalf of the access token via {@link OAuth1NoCallback#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}
+     * @throws GetAccessTokenException If the request to the server for the access token failed.
+     * @throws TokenMapException       If unsealing the state failed, e.g. as it has expired or was already used.
+     */
+    @Nonnull
+    public AuthorisedResult authorisedWithState(@Nonnull String temporaryToken, @Nonnull String state) throws GetAccessTokenException, TokenMapException {
+        return super.authorisedWithState(temporaryToken, null, state);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1NoCallback#begin()}, run on {@link oauth1.async.AsyncExecutors#defaultExecutor()}.
+     *
+     * @return A future completed with the temporary token and redirect URL, or exceptionally with a {@link GetTemporaryTokenException} or {@link TokenMapException}.
+     */
+    @Override
+    @Nonnull
+    public CompletableFuture<BeginResult> beginAsync() {
+        return super.beginAsync();
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1NoCallback#begin()}, run on the given executor.
+     *
+     * @param executor The executor to run the request on, e.g. {@link oauth1.async.AsyncExecutors#newVirtualThreadPerTaskExecutorOrCachedPool()}.
+     * @return A future completed with the temporary token and redirect URL, or exceptionally with a {@link GetTemporaryTokenException} or {@link TokenMapException}.
+     */
+    @Override
+    @Nonnull
+    public CompletableFuture<BeginResult> beginAsync(@Nonnull Executor executor) {
+        return super.beginAsync(executor);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1NoCallback#authorised(String)}, run on {@link oauth1.async.AsyncExecutors#defaultExecutor()}.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1NoCallback#begin()}
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} or {@link TokenMapException}.
+     */
+    @Nonnull
+    public CompletableFuture<AuthorisedResult> authorisedAsync(@Nonnull String temporaryToken) {
+        return super.authorisedAsync(temporaryToken, null);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1NoCallback#authorised(String)}, run on the given executor.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1NoCallback#begin()}
+     * @param executor       The executor to run the request on.
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} or {@link TokenMapException}.
+     */
+    @Nonnull
+    public CompletableFuture<AuthorisedResult> authorisedAsync(@Nonnull String temporaryToken, @Nonnull Executor executor) {
+        return super.authorisedAsync(temporaryToken, null, executor);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1NoCallback#authorisedWithState(String, String)}, run on the given executor.
+     *
+     * @param temporaryToken The temporary token obtained from {@link OAuth1NoCallback#begin()}
+     * @param state          The sealed state obtained from {@link OAuth1NoCallback#begin()}.
+     * @param executor       The executor to run the request on.
+     * @return A future completed with the access token and {@link OAuthParameters}, or exceptionally with a {@link GetAccessTokenException} or {@link TokenMapException}.
+     */
+    @Nonnull
+    public CompletableFuture<AuthorisedResult> authorisedWithStateAsync(@Nonnull String temporaryToken, @Nonnull String state, @Nonnull Executor executor) {
+        return super.authorisedWithStateAsync(temporaryToken, null, state, executor);
+    }
 }
@@ -0,0 +1,126 @@
+package oauth1.async;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Executors and helpers backing the asynchronous API of {@link oauth1.OAuth1Generic}.
+ */
+public final class AsyncExecutors {
+    private AsyncExecutors() {
+
+    }
+
+    /**
+     * A blocking call which may throw a checked exception.
+     * @param <T> The type of the result.
+     * @param <E> The type of the checked exception.
+     */
+    @FunctionalInterface
+    public interface BlockingCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Creates an executor running each task on its own virtual thread if the JDK supports them (JDK 21+),
+     * otherwise falls back to a cached pool of daemon platform threads.
+     * @return A new executor, which should be shut down by the caller once no longer used.
+     */
+    @Nonnull
+    public static ExecutorService newVirtualThreadPerTaskExecutorOrCachedPool() {
+        try {
+            // Looked up reflectively, as this library targets Java 8.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory("oauth1-async-"));
+        }
+    }
+
+    /**
+     * The executor used by the asynchronous methods when none is given: a lazily created, shared {@link AsyncExecutors#newVirtualThreadPerTaskExecutorOrCachedPool()}.
+     * @return The shared default executor.
+     */
+    @Nonnull
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    /**
+     * Runs the given blocking call on the given executor, completing the returned future with its result,
+     * or exceptionally with the exception it threw (unwrapped, so it can be matched against the library's exception hierarchy).
+     * @param executor The executor to run the call on.
+     * @param call The blocking call.
+     * @param onRejected Maps a rejection of the task by the executor onto the exception type thrown by the call.
+     * @param <T> The type of the result.
+     * @return A future completed once the call has finished.
+     */
+    @Nonnull
+    public static <T> CompletableFuture<T> supplyAsync(@Nonnull Executor executor, @Nonnull BlockingCall<T, ?> call, @Nonnull Function<Throwable, ? extends Exception> onRejected) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    // Cancelled before starting.
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                }
+                catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            future.completeExceptionally(onRejected.apply(e));
+        }
+        return future;
+    }
+
+    /**
+     * Runs the given blocking call on the given executor once the given stage has completed (e.g. once a permit is available),
+     * completing the returned future like {@link AsyncExecutors#supplyAsync(Executor, BlockingCall, Function)}, or exceptionally with the stage's (unwrapped) exception if it failed.
+     * @param gate The stage to wait for, without blocking a thread.
+     * @param executor The executor to run the call on.
+     * @param call The blocking call.
+     * @param onRejected Maps a rejection of the task by the executor onto the exception type thrown by the call.
+     * @param <T> The type of the result.
+     * @return A future completed once the call has finished.
+     */
+    @Nonnull
+    public static <T> CompletableFuture<T> supplyAsyncAfter(@Nonnull CompletionStage<?> gate, @Nonnull Executor executor, @Nonnull BlockingCall<T, ?> call, @Nonnull Function<Throwable, ? extends Exception> onRejected) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        gate.whenComplete((Object ignored, Throwable failure) -> {
+            if (failure != null) {
+                future.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                return;
+            }
+            supplyAsync(executor, call, onRejected).whenComplete((T result, Throwable exception) -> {
+                if (exception != null) {
+                    future.completeExceptionally(exception);
+                }
+                else {
+                    future.complete(result);
+                }
+            });
+        });
+        return future;
+    }
+
+    @Nonnull
+    static ThreadFactory daemonThreadFactory(@Nonnull String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService INSTANCE = newVirtualThreadPerTaskExecutorOrCachedPool();
+    }
+}
@@ -0,0 +1,224 @@
+package oauth1.batch;
+
+import com.google.api.client.http.HttpResponse;
+import oauth1.OAuth1Generic;
+import oauth1.exception.OAuthBackedRequestException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Executes batches of OAuth-backed requests (e.g. one per user) through the pooled transport of an {@link OAuth1Generic} instance,
+ * with a global concurrency limit and a per-host concurrency limit.
+ * <br><br>
+ * Requests are dispatched round-robin across hosts, so a slow host holding all of its permits never blocks requests to other hosts.
+ * Dispatching is event-driven: a request is handed to the executor only once permits are available, so no worker thread ever waits for a permit.
+ * <br>
+ * A batch either completes with all outcomes in submission order ({@link BatchExecutor#submit(List, BatchResponseHandler)}),
+ * or streams each outcome as it completes ({@link BatchExecutor#stream(List, BatchResponseHandler, Consumer)}). Either way, aggregate throughput and latency are reported.
+ */
+public class BatchExecutor {
+    private final @Nonnull OAuth1Generic client;
+    private final @Nonnull Executor executor;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerHost;
+
+    /**
+     * @param client The instance whose pooled transport the requests are made through.
+     * @param executor The executor the requests are made on. It should allow at least maxConcurrency tasks to run at once.
+     * @param maxConcurrency The maximum number of requests of a batch in flight at once.
+     * @param maxConcurrencyPerHost The maximum number of requests of a batch in flight to a single host at once.
+     */
+    public BatchExecutor(@Nonnull OAuth1Generic client, @Nonnull Executor executor, int maxConcurrency, int maxConcurrencyPerHost) {
+        if (maxConcurrency <= 0 || maxConcurrencyPerHost <= 0) {
+            throw new IllegalArgumentException("Concurrency limits must be positive!");
+        }
+        this.client = client;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+    }
+
+    /**
+     * Executes the given requests, blocking until all have completed.
+     * @param requests The requests of the batch.
+     * @param handler Converts each response into a result.
+     * @param <T> The type of the results.
+     * @return The outcome of each request, in submission order, and the statistics of the batch.
+     */
+    @Nonnull
+    public <T> BatchReport<T> execute(@Nonnull List<BatchRequest> requests, @Nonnull BatchResponseHandler<T> handler) {
+        return submit(requests, handler).join();
+    }
+
+    /**
+     * Executes the given requests asynchronously.
+     * @param requests The requests of the batch.
+     * @param handler Converts each response into a result.
+     * @param <T> The type of the results.
+     * @return A future completed once all requests have completed, with the outcome of each, in submission order, and the statistics of the batch.
+     */
+    @Nonnull
+    public <T> CompletableFuture<BatchReport<T>> submit(@Nonnull List<BatchRequest> requests, @Nonnull BatchResponseHandler<T> handler) {
+        AtomicReferenceArray<BatchResult<T>> results = new AtomicReferenceArray<>(requests.size());
+        return stream(requests, handler, (BatchResult<T> result) -> results.set(result.getIndex(), result))
+                .thenApply((BatchStats stats) -> {
+                    List<BatchResult<T>> ordered = new ArrayList<>(results.length());
+                    for (int i = 0; i < results.length(); i++) {
+                        ordered.add(results.get(i));
+                    }
+                    return new BatchReport<>(ordered, stats);
+                });
+    }
+
+    /**
+     * Executes the given requests asynchronously, passing each outcome to the given consumer as soon as it completes.
+     * @param requests The requests of the batch.
+     * @param handler Converts each response into a result.
+     * @param onResult Receives each outcome, possibly concurrently from several worker threads.
+     * @param <T> The type of the results.
+     * @return A future completed with the statistics of the batch once all requests have completed and been consumed.
+     */
+    @Nonnull
+    public <T> CompletableFuture<BatchStats> stream(@Nonnull List<BatchRequest> requests, @Nonnull BatchResponseHandler<T> handler, @Nonnull Consumer<BatchResult<T>> onResult) {
+        Run<T> run = new Run<>(requests, handler, onResult);
+        run.start();
+        return run.completion;
+    }
+
+    /**
+     * The state of a single batch being executed.
+     */
+    private final class Run<T> {
+        private final @Nonnull List<BatchRequest> requests;
+        private final @Nonnull BatchResponseHandler<T> handler;
+        private final @Nonnull Consumer<BatchResult<T>> onResult;
+        private final @Nonnull CompletableFuture<BatchStats> completion = new CompletableFuture<>();
+        private final long[] latenciesNanos;
+        private final AtomicInteger remaining;
+        private final AtomicInteger failed = new AtomicInteger();
+        private final long startNanos = System.nanoTime();
+
+        // Guarded by this.
+        private final Map<String, HostQueue> hosts = new HashMap<>();
+        private final Deque<HostQueue> ready = new ArrayDeque<>();
+        private int active;
+
+        private Run(@Nonnull List<BatchRequest> requests, @Nonnull BatchResponseHandler<T> handler, @Nonnull Consumer<BatchResult<T>> onResult) {
+            this.requests = requests;
+            this.handler = handler;
+            this.onResult = onResult;
+            this.latenciesNanos = new long[requests.size()];
+            this.remaining = new AtomicInteger(requests.size());
+        }
+
+        private void start() {
+            if (requests.isEmpty()) {
+                completion.complete(BatchStats.of(latenciesNanos, 0, 0));
+                return;
+            }
+            synchronized (this) {
+                for (int i = 0; i < requests.size(); i++) {
+                    HostQueue host = hosts.computeIfAbsent(requests.get(i).getHost(), h -> new HostQueue());
+                    host.pending.add(i);
+                    if (!host.ready) {
+                        host.ready = true;
+                        ready.add(host);
+                    }
+                }
+            }
+            dispatch();
+        }
+
+        /**
+         * Hands requests to the executor while permits are available, taking one request per ready host in turn.
+         */
+        private void dispatch() {
+            List<Runnable> tasks = new ArrayList<>();
+            synchronized (this) {
+                while (active < maxConcurrency && !ready.isEmpty()) {
+                    HostQueue host = ready.poll();
+                    int index = host.pending.poll();
+                    host.active++;
+                    active++;
+                    if (!host.pending.isEmpty() && host.active < maxConcurrencyPerHost) {
+                        ready.add(host);
+                    }
+                    else {
+                        host.ready = false;
+                    }
+                    tasks.add(() -> run(index, host));
+                }
+            }
+            // Submitted outside of the lock, in case the executor runs tasks on the calling thread.
+            for (Runnable task : tasks) {
+                try {
+                    executor.execute(task);
+                }
+                catch (RejectedExecutionException e) {
+                    task.run();
+                }
+            }
+        }
+
+        private void run(int index, @Nonnull HostQueue host) {
+            BatchRequest request = requests.get(index);
+            long start = System.nanoTime();
+            T result = null;
+            OAuthBackedRequestException exception = null;
+            try {
+                HttpResponse response = client.makePooledOAuthBackedRequest(request.getUrl(), request.getOAuthParameters(), request.getRequestMethod(), request.getHttpContent());
+                try {
+                    result = handler.handle(response);
+                }
+                finally {
+                    response.disconnect();
+                }
+            }
+            catch (OAuthBackedRequestException e) {
+                exception = e;
+            }
+            catch (IOException | RuntimeException e) {
+                exception = new OAuthBackedRequestException(e);
+            }
+            long latency = System.nanoTime() - start;
+            latenciesNanos[index] = latency;
+            if (exception != null) {
+                failed.incrementAndGet();
+            }
+
+            synchronized (this) {
+                host.active--;
+                active--;
+                if (!host.pending.isEmpty() && !host.ready) {
+                    host.ready = true;
+                    ready.add(host);
+                }
+            }
+            dispatch();
+
+            try {
+                onResult.accept(new BatchResult<>(index, request, result, exception, latency));
+            }
+            finally {
+                if (remaining.decrementAndGet() == 0) {
+                    // The atomic decrement orders every write to latenciesNanos before this read.
+                    completion.complete(BatchStats.of(latenciesNanos, failed.get(), System.nanoTime() - startNanos));
+                }
+            }
+        }
+    }
+
+    private static final class HostQueue {
+        private final Deque<Integer> pending = new ArrayDeque<>();
+        private int active;
+        private boolean ready;
+    }
+}
@@ -0,0 +1,21 @@
+package oauth1.batch;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * The outcomes of all requests of a batch, in submission order, along with the aggregate statistics of the batch.
+ * @param <T> The type of the result produced by the {@link BatchResponseHandler}.
+ */
+@Data
+public class BatchReport<T> {
+    private final @Nonnull List<BatchResult<T>> results;
+    private final @Nonnull BatchStats stats;
+
+    public BatchReport(@Nonnull List<BatchResult<T>> results, @Nonnull BatchStats stats) {
+        this.results = results;
+        this.stats = stats;
+    }
+}
@@ -0,0 +1,37 @@
+package oauth1.batch;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import lombok.Data;
+import oauth1.lib.RequestMethod;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A single OAuth-backed request of a batch, i.e. the parameters of {@link oauth1.OAuth1Generic#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}.
+ */
+@Data
+public class BatchRequest {
+    private @Nonnull String url;
+    private @Nonnull OAuthParameters oAuthParameters;
+    private @Nonnull RequestMethod requestMethod;
+    private @Nullable HttpContent httpContent;
+
+    public BatchRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) {
+        this.url = url;
+        this.oAuthParameters = oAuthParameters;
+        this.requestMethod = requestMethod;
+        this.httpContent = httpContent;
+    }
+
+    /**
+     * @return The host the request is made to, which per-host concurrency limits are keyed by.
+     */
+    @Nonnull
+    public String getHost() {
+        String host = new GenericUrl(url).getHost();
+        return host == null ? "" : host;
+    }
+}
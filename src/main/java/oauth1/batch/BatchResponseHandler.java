@@ -0,0 +1,25 @@
+package oauth1.batch;
+
+import com.google.api.client.http.HttpResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Converts the response of a batch request into a result, e.g. via {@link HttpResponse#parseAsString()}.
+ * <br>
+ * The handler runs on the worker thread that made the request, and the response is disconnected once it returns,
+ * so the response must be fully consumed by the handler.
+ * @param <T> The type of the result.
+ */
+@FunctionalInterface
+public interface BatchResponseHandler<T> {
+    /**
+     * Handler parsing the response body as a string.
+     */
+    BatchResponseHandler<String> AS_STRING = HttpResponse::parseAsString;
+
+    @Nullable
+    T handle(@Nonnull HttpResponse response) throws IOException;
+}
@@ -0,0 +1,38 @@
+package oauth1.batch;
+
+import lombok.Data;
+import oauth1.exception.OAuthBackedRequestException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The outcome of a single request of a batch: either a result or the exception the request failed with.
+ * @param <T> The type of the result produced by the {@link BatchResponseHandler}.
+ */
+@Data
+public class BatchResult<T> {
+    /**
+     * Index of the request within the submitted batch.
+     */
+    private final int index;
+    private final @Nonnull BatchRequest request;
+    private final @Nullable T result;
+    private final @Nullable OAuthBackedRequestException exception;
+    /**
+     * Time from the request being dispatched to its response being handled (or the request failing).
+     */
+    private final long latencyNanos;
+
+    public BatchResult(int index, @Nonnull BatchRequest request, @Nullable T result, @Nullable OAuthBackedRequestException exception, long latencyNanos) {
+        this.index = index;
+        this.request = request;
+        this.result = result;
+        this.exception = exception;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
@@ -0,0 +1,82 @@
+package oauth1.batch;
+
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregate throughput and latency of a completed batch.
+ */
+@Data
+public class BatchStats {
+    private final int total;
+    private final int succeeded;
+    private final int failed;
+    /**
+     * Wall-clock time from the batch being submitted to its last request completing.
+     */
+    private final long elapsedNanos;
+    private final long minLatencyNanos;
+    private final long meanLatencyNanos;
+    private final long p50LatencyNanos;
+    private final long p90LatencyNanos;
+    private final long p99LatencyNanos;
+    private final long maxLatencyNanos;
+
+    public BatchStats(int total, int succeeded, int failed, long elapsedNanos, long minLatencyNanos, long meanLatencyNanos, long p50LatencyNanos, long p90LatencyNanos, long p99LatencyNanos, long maxLatencyNanos) {
+        this.total = total;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.minLatencyNanos = minLatencyNanos;
+        this.meanLatencyNanos = meanLatencyNanos;
+        this.p50LatencyNanos = p50LatencyNanos;
+        this.p90LatencyNanos = p90LatencyNanos;
+        this.p99LatencyNanos = p99LatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /**
+     * @return Completed requests per second over the whole batch.
+     */
+    public double getThroughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : total * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Computes the statistics of a batch from the latencies of its requests.
+     * @param latenciesNanos The latency of each request (this array is sorted in place).
+     * @param failed The number of failed requests.
+     * @param elapsedNanos The wall-clock duration of the batch.
+     * @return The statistics of the batch.
+     */
+    static BatchStats of(long[] latenciesNanos, int failed, long elapsedNanos) {
+        int total = latenciesNanos.length;
+        if (total == 0) {
+            return new BatchStats(0, 0, 0, elapsedNanos, 0, 0, 0, 0, 0, 0);
+        }
+        Arrays.sort(latenciesNanos);
+        long sum = 0;
+        for (long latency : latenciesNanos) {
+            sum += latency;
+        }
+        return new BatchStats(
+                total,
+                total - failed,
+                failed,
+                elapsedNanos,
+                latenciesNanos[0],
+                sum / total,
+                percentile(latenciesNanos, 0.50),
+                percentile(latenciesNanos, 0.90),
+                percentile(latenciesNanos, 0.99),
+                latenciesNanos[total - 1]
+        );
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,89 @@
+package oauth1.cache;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpMediaType;
+import com.google.api.client.http.HttpResponse;
+import lombok.Data;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A response of {@link oauth1.OAuth1Generic#makeCachedOAuthBackedRequest(String, com.google.api.client.auth.oauth.OAuthParameters)}, with its (decoded) body fully read,
+ * whether it was served from the provider or from a {@link ResponseCache}.
+ */
+@Data
+public class CachedResponse {
+    private static final int READ_BUFFER_BYTES = 8 * 1024;
+
+    private final int statusCode;
+    private final @Nullable String statusMessage;
+    /**
+     * The headers of the response, which are a copy owned by the caller.
+     */
+    private final @Nonnull HttpHeaders headers;
+    @ToString.Exclude
+    private final @Nonnull byte[] body;
+    private final @Nonnull ResponseSource source;
+
+    public CachedResponse(int statusCode, @Nullable String statusMessage, @Nonnull HttpHeaders headers, @Nonnull byte[] body, @Nonnull ResponseSource source) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.headers = headers;
+        this.body = body;
+        this.source = source;
+    }
+
+    /**
+     * @return The body decoded with the charset of its content type, or UTF-8 if it has none.
+     */
+    @Nonnull
+    public String parseAsString() {
+        Charset charset = StandardCharsets.UTF_8;
+        String contentType = headers.getContentType();
+        if (contentType != null) {
+            try {
+                Charset declared = new HttpMediaType(contentType).getCharsetParameter();
+                if (declared != null) {
+                    charset = declared;
+                }
+            }
+            catch (IllegalArgumentException e) {
+                // A malformed or unsupported content type, so the default applies.
+            }
+        }
+        return new String(body, charset);
+    }
+
+    /**
+     * Reads the body of a response from the provider, releasing its connection.
+     * @param response The response.
+     * @return The response, with {@link ResponseSource#NETWORK} as its source.
+     * @throws IOException If reading the body failed.
+     */
+    @Nonnull
+    public static CachedResponse read(@Nonnull HttpResponse response) throws IOException {
+        return new CachedResponse(response.getStatusCode(), response.getStatusMessage(), response.getHeaders(), readBody(response), ResponseSource.NETWORK);
+    }
+
+    @Nonnull
+    private static byte[] readBody(@Nonnull HttpResponse response) throws IOException {
+        try (InputStream content = response.getContent()) {
+            if (content == null) {
+                return new byte[0];
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[READ_BUFFER_BYTES];
+            for (int read = content.read(buffer); read != -1; read = content.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package oauth1.cache;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import oauth1.exception.OAuthBackedRequestException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A thread-safe, in-memory cache of the responses to signed GET requests, private to each set of credentials:
+ * entries are keyed by the consumer key and access token of the {@link OAuthParameters} along with the URL, so a response is only ever served to the credentials it was fetched with.
+ * <br><br>
+ * Freshness follows the response's {@code Cache-Control} ({@code max-age}, {@code no-cache} and {@code no-store}) or, failing that, {@code Expires} header, less its {@code Age}.
+ * A fresh entry is served without a request. A stale entry with an {@code ETag} or {@code Last-Modified} validator is revalidated with a freshly signed conditional request
+ * ({@code If-None-Match}/{@code If-Modified-Since}), so a {@code 304 Not Modified} serves it again without transferring its body. Only {@code 200} responses are stored.
+ * As the cache is private, {@code Cache-Control: private} responses are stored too.
+ * <br>
+ * The cache is bounded by the estimated size of its entries (mostly their bodies), evicting the least recently used first.
+ * Entries are split across independently locked segments (each evicting on its own), so lookups of different URLs rarely contend.
+ * Concurrent misses of the same entry may each make a request, in which case the last response stored wins.
+ * <br><br>
+ * Set a cache on an instance via {@link oauth1.OAuth1Generic#setResponseCache(ResponseCache)}, then make requests via {@link oauth1.OAuth1Generic#makeCachedOAuthBackedRequest(String, OAuthParameters)}.
+ */
+public class ResponseCache {
+    public static final long DEFAULT_MAX_WEIGHT_BYTES = 64L * 1024 * 1024;
+
+    // Rough size of an entry, its key, its linked hash map node and its headers object, excluding the characters and body.
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long maxWeightBytes;
+    private final long maxEntryBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache holding at most 64 MiB of entries.
+     */
+    public ResponseCache() {
+        this(DEFAULT_MAX_WEIGHT_BYTES);
+    }
+
+    /**
+     * Constructs a cache storing entries of up to a sixteenth of its maximum size.
+     * @param maxWeightBytes The maximum estimated memory taken up by the entries held at once, in bytes.
+     */
+    public ResponseCache(long maxWeightBytes) {
+        this(maxWeightBytes, maxWeightBytes / SEGMENTS);
+    }
+
+    /**
+     * @param maxWeightBytes The maximum estimated memory taken up by the entries held at once, in bytes.
+     * @param maxEntryBytes The maximum estimated size of a single entry, in bytes, above which responses are not stored. At most a sixteenth of the maximum size.
+     */
+    public ResponseCache(long maxWeightBytes, long maxEntryBytes) {
+        if (maxWeightBytes < SEGMENTS || maxEntryBytes <= 0) {
+            throw new IllegalArgumentException("maxWeightBytes must be at least " + SEGMENTS + ", and maxEntryBytes positive!");
+        }
+        this.maxWeightBytes = maxWeightBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxWeightBytes / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxWeightBytes / SEGMENTS);
+        }
+    }
+
+    /**
+     * Serves a GET request from the cache if possible, otherwise through the given fetcher, storing the response if cacheable.
+     * @param oAuthParameters The credentials the request is signed with, whose consumer key and access token key the entry.
+     * @param url The URL requested.
+     * @param fetcher Makes the signed request, with the given conditional headers if revalidating.
+     * @return The response, with its body read.
+     * @throws OAuthBackedRequestException If the request failed, or the provider responded with an error.
+     */
+    @Nonnull
+    public CachedResponse get(@Nonnull OAuthParameters oAuthParameters, @Nonnull String url, @Nonnull Fetcher fetcher) throws OAuthBackedRequestException {
+        Key key = new Key(oAuthParameters.consumerKey, oAuthParameters.token, url);
+        Segment segment = segmentFor(key);
+        Entry entry = segment.get(key);
+        if (entry != null && System.currentTimeMillis() < entry.freshUntilMillis) {
+            hits.increment();
+            return entry.toResponse(entry.headers, ResponseSource.CACHE);
+        }
+
+        HttpHeaders conditionalHeaders = entry == null ? null : entry.conditionalHeaders();
+        HttpResponse response = fetcher.fetch(conditionalHeaders);
+        try {
+            if (conditionalHeaders != null && response.getStatusCode() == HttpStatusCodes.NOT_MODIFIED) {
+                response.ignore();
+                revalidations.increment();
+                // The headers of the 304 update those stored, e.g. with a new max-age.
+                HttpHeaders headers = merge(entry.headers, response.getHeaders());
+                store(segment, key, newEntry(key, entry.statusCode, entry.statusMessage, headers, entry.body));
+                return entry.toResponse(headers, ResponseSource.REVALIDATED);
+            }
+            if (!response.isSuccessStatusCode()) {
+                // Conditional requests do not throw on errors by themselves, so a 304 can be handled here.
+                throw new OAuthBackedRequestException(new HttpResponseException(response));
+            }
+            misses.increment();
+            CachedResponse read = CachedResponse.read(response);
+            Entry stored = read.getStatusCode() == HttpStatusCodes.OK ? newEntry(key, read.getStatusCode(), read.getStatusMessage(), read.getHeaders().clone(), read.getBody().clone()) : null;
+            store(segment, key, stored);
+            return read;
+        }
+        catch (IOException e) {
+            throw new OAuthBackedRequestException(e);
+        }
+    }
+
+    /**
+     * Removes the entry of the given URL for the given credentials, e.g. once the resource was modified through another request.
+     * @param consumerKey The consumer key of the credentials.
+     * @param accessToken The access token of the credentials, or null for none.
+     * @param url The URL.
+     */
+    public void invalidate(@Nullable String consumerKey, @Nullable String accessToken, @Nonnull String url) {
+        Key key = new Key(consumerKey, accessToken, url);
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * Removes every entry of the given access token, e.g. once it has been revoked.
+     * @param accessToken The access token.
+     */
+    public void invalidateAccessToken(@Nonnull String accessToken) {
+        for (Segment segment : segments) {
+            segment.removeIf((Key key) -> accessToken.equals(key.accessToken));
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.removeIf((Key key) -> true);
+        }
+    }
+
+    /**
+     * @return The number of entries currently held.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The estimated memory taken up by the entries currently held, in bytes.
+     */
+    public long getWeightBytes() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @return The maximum estimated memory taken up by the entries held at once, in bytes.
+     */
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    /**
+     * @return The number of requests served by a fresh entry, without a request.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of requests served by a stale entry the provider confirmed unchanged.
+     */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    /**
+     * @return The number of requests served by a full response from the provider.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of entries evicted to stay within the maximum size.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Makes the signed GET request of a {@link ResponseCache#get(OAuthParameters, String, Fetcher)}.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        /**
+         * @param conditionalHeaders The validators to send, or null for an unconditional request. A conditional request must not throw on a {@code 304} (or any other) status.
+         * @return The response, whose body is read (or ignored) and closed by the cache.
+         * @throws OAuthBackedRequestException If the request failed.
+         */
+        @Nonnull
+        HttpResponse fetch(@Nullable HttpHeaders conditionalHeaders) throws OAuthBackedRequestException;
+    }
+
+    private void store(@Nonnull Segment segment, @Nonnull Key key, @Nullable Entry entry) {
+        if (entry == null) {
+            segment.remove(key);
+        }
+        else {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * @return The entry of the given response, or null if it may not be stored or is too large.
+     */
+    @Nullable
+    private Entry newEntry(@Nonnull Key key, int statusCode, @Nullable String statusMessage, @Nonnull HttpHeaders headers, @Nonnull byte[] body) {
+        long now = System.currentTimeMillis();
+        long freshnessMillis = freshnessMillis(headers, now);
+        boolean validated = headers.getETag() != null || headers.getLastModified() != null;
+        if (freshnessMillis < 0 || freshnessMillis == 0 && !validated || "*".equals(trim(headers.getFirstHeaderStringValue("Vary")))) {
+            return null;
+        }
+        long weight = ENTRY_OVERHEAD_BYTES + body.length + 2L * key.length();
+        for (Map.Entry<String, Object> header : headers.entrySet()) {
+            weight += 2L * (header.getKey().length() + String.valueOf(header.getValue()).length());
+        }
+        if (weight > maxEntryBytes) {
+            return null;
+        }
+        return new Entry(statusCode, statusMessage, headers, body, now + freshnessMillis, weight);
+    }
+
+    /**
+     * @return How much longer the response stays fresh, in milliseconds, zero if it must always be revalidated, or -1 if it must not be stored.
+     */
+    private static long freshnessMillis(@Nonnull HttpHeaders headers, long nowMillis) {
+        long lifetimeMillis = -1;
+        for (String directive : directives(headers.getHeaderStringValues("Cache-Control"))) {
+            if (directive.equals("no-store")) {
+                return -1;
+            }
+            if (directive.equals("no-cache")) {
+                lifetimeMillis = 0;
+            }
+            else if (directive.startsWith("max-age=") && lifetimeMillis != 0) {
+                try {
+                    lifetimeMillis = TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(unquote(directive.substring("max-age=".length())))));
+                }
+                catch (NumberFormatException e) {
+                    lifetimeMillis = 0;
+                }
+            }
+        }
+        long dateMillis = parseDate(headers.getDate(), nowMillis);
+        if (lifetimeMillis == -1) {
+            String expires = headers.getExpires();
+            // An Expires header which is not a date (e.g. "0") means already expired.
+            lifetimeMillis = expires == null ? 0 : Math.max(0, parseDate(expires, dateMillis) - dateMillis);
+        }
+        Long ageSeconds = headers.getAge();
+        long ageMillis = Math.max(Math.max(0, nowMillis - dateMillis), ageSeconds == null ? 0 : TimeUnit.SECONDS.toMillis(ageSeconds));
+        return Math.max(0, lifetimeMillis - ageMillis);
+    }
+
+    /**
+     * @return The lower-case directives of the given Cache-Control header values.
+     */
+    @Nonnull
+    private static List<String> directives(@Nonnull Collection<String> values) {
+        List<String> directives = new ArrayList<>();
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+                if (!trimmed.isEmpty()) {
+                    directives.add(trimmed);
+                }
+            }
+        }
+        return directives;
+    }
+
+    @Nonnull
+    private static String unquote(@Nonnull String value) {
+        String trimmed = value.trim();
+        return trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"") ? trimmed.substring(1, trimmed.length() - 1) : trimmed;
+    }
+
+    @Nullable
+    private static String trim(@Nullable String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * @return The given HTTP date in epoch milliseconds, or the fallback if absent or malformed.
+     */
+    private static long parseDate(@Nullable String date, long fallbackMillis) {
+        if (date == null) {
+            return fallbackMillis;
+        }
+        try {
+            return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        }
+        catch (DateTimeParseException e) {
+            return fallbackMillis;
+        }
+    }
+
+    /**
+     * @return A copy of the stored headers, updated with those of a {@code 304} response, except those describing its (absent) body.
+     */
+    @Nonnull
+    private static HttpHeaders merge(@Nonnull HttpHeaders stored, @Nonnull HttpHeaders notModified) {
+        HttpHeaders merged = stored.clone();
+        for (Map.Entry<String, Object> header : notModified.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (header.getValue() != null && !name.equals("content-length") && !name.equals("content-encoding") && !name.equals("transfer-encoding")) {
+                merged.set(header.getKey(), header.getValue());
+            }
+        }
+        return merged;
+    }
+
+    @Nonnull
+    private Segment segmentFor(@Nonnull Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * The HTTP status codes the cache handles.
+     */
+    private static final class HttpStatusCodes {
+        private static final int OK = 200;
+        private static final int NOT_MODIFIED = 304;
+    }
+
+    /**
+     * The credentials and URL of an entry.
+     */
+    private static final class Key {
+        private final @Nonnull String consumerKey;
+        private final @Nonnull String accessToken;
+        private final @Nonnull String url;
+        private final int hash;
+
+        private Key(@Nullable String consumerKey, @Nullable String accessToken, @Nonnull String url) {
+            this.consumerKey = consumerKey == null ? "" : consumerKey;
+            this.accessToken = accessToken == null ? "" : accessToken;
+            this.url = url;
+            this.hash = Objects.hash(this.consumerKey, this.accessToken, url);
+        }
+
+        private int length() {
+            return consumerKey.length() + accessToken.length() + url.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && url.equals(other.url) && accessToken.equals(other.accessToken) && consumerKey.equals(other.consumerKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * An independently locked, access-ordered part of the cache.
+     */
+    private final class Segment {
+        private final long maxWeightBytes;
+        // Guarded by this.
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        private Segment(long maxWeightBytes) {
+            this.maxWeightBytes = maxWeightBytes;
+        }
+
+        @Nullable
+        private synchronized Entry get(@Nonnull Key key) {
+            return entries.get(key);
+        }
+
+        private synchronized void put(@Nonnull Key key, @Nonnull Entry entry) {
+            Entry existing = entries.put(key, entry);
+            if (existing != null) {
+                weight -= existing.weight;
+            }
+            weight += entry.weight;
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (weight > maxWeightBytes && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions.increment();
+            }
+        }
+
+        private synchronized void remove(@Nonnull Key key) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        }
+
+        private synchronized void removeIf(@Nonnull Predicate<Key> predicate) {
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    iterator.remove();
+                    weight -= entry.getValue().weight;
+                }
+            }
+        }
+    }
+
+    /**
+     * A stored response. Its headers and body are never modified, and only copies of them are handed out.
+     */
+    private static final class Entry {
+        private final int statusCode;
+        private final @Nullable String statusMessage;
+        private final @Nonnull HttpHeaders headers;
+        private final @Nonnull byte[] body;
+        private final long freshUntilMillis;
+        private final long weight;
+
+        private Entry(int statusCode, @Nullable String statusMessage, @Nonnull HttpHeaders headers, @Nonnull byte[] body, long freshUntilMillis, long weight) {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.headers = headers;
+            this.body = body;
+            this.freshUntilMillis = freshUntilMillis;
+            this.weight = weight;
+        }
+
+        /**
+         * @return The validators to revalidate the entry with, or null if it has none.
+         */
+        @Nullable
+        private HttpHeaders conditionalHeaders() {
+            String eTag = headers.getETag();
+            String lastModified = headers.getLastModified();
+            if (eTag == null && lastModified == null) {
+                return null;
+            }
+            return new HttpHeaders().setIfNoneMatch(eTag).setIfModifiedSince(lastModified);
+        }
+
+        @Nonnull
+        private CachedResponse toResponse(@Nonnull HttpHeaders responseHeaders, @Nonnull ResponseSource source) {
+            return new CachedResponse(statusCode, statusMessage, responseHeaders.clone(), body.clone(), source);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package oauth1.cache;
+
+/**
+ * Where the body of a {@link CachedResponse} came from.
+ */
+public enum ResponseSource {
+    /**
+     * A full response from the provider, as there was no usable cached response.
+     */
+    NETWORK,
+    /**
+     * A fresh cached response, without any request to the provider.
+     */
+    CACHE,
+    /**
+     * A stale cached response the provider confirmed unchanged with a {@code 304 Not Modified}, so its body was not transferred again.
+     */
+    REVALIDATED
+}
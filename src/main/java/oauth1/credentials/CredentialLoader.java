@@ -0,0 +1,22 @@
+package oauth1.credentials;
+
+import oauth1.exception.CredentialLoadException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An interface which provides a way to load a user's access credentials from persistent storage (e.g. a database),
+ * used by {@link CredentialRegistry} to rehydrate users which are not (or no longer) held in memory.
+ */
+@FunctionalInterface
+public interface CredentialLoader {
+    /**
+     * Load the access credentials of the given user.
+     * @param userId The caller-supplied id of the user, as given to {@link CredentialRegistry#register(String, UserCredentials)}.
+     * @return The user's access credentials, or null if the user has none.
+     * @throws CredentialLoadException If the lookup failed.
+     */
+    @Nullable
+    UserCredentials loadCredentials(@Nonnull String userId) throws CredentialLoadException;
+}
@@ -0,0 +1,362 @@
+package oauth1.credentials;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpResponse;
+import oauth1.OAuth1Generic;
+import oauth1.cache.CachedResponse;
+import oauth1.exception.CredentialLoadException;
+import oauth1.exception.OAuthBackedRequestException;
+import oauth1.exception.missingdata.MissingDataCredentialLoadException;
+import oauth1.lib.AuthorisedResult;
+import oauth1.lib.RequestMethod;
+import oauth1.signer.CachedHmacSigner;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe registry of the access credentials of many users, keyed by a caller-supplied user id, so a request can be signed on behalf of any user with a single lookup.
+ * <br><br>
+ * Each user's credentials are held together with a {@link CachedHmacSigner} for them, so the signing key is derived once per user rather than per request.
+ * The consumer key and secret are those of the given {@link OAuth1Generic} instance at the time the user was registered or loaded.
+ * <br>
+ * The registry is bounded both by the number of users and by their estimated total size in memory, evicting the least recently used users once either bound is exceeded.
+ * Users are split across independently locked segments (each evicting on its own), so lookups of different users rarely contend.
+ * <br>
+ * If a {@link CredentialLoader} is given, a user not held in memory (e.g. evicted, or registered before a restart) is loaded through it on lookup.
+ * Concurrent lookups of the same missing user may each call the loader, in which case the first result registered wins.
+ */
+public class CredentialRegistry {
+    public static final int DEFAULT_MAX_USERS = 100_000;
+
+    // Rough size of an entry, its signer, its linked hash map node and the string headers, excluding the characters.
+    private static final long ENTRY_OVERHEAD_BYTES = 320;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final @Nonnull OAuth1Generic client;
+    private final @Nullable CredentialLoader loader;
+    private final Segment[] segments;
+    private final int maxUsers;
+    private final long maxWeightBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a registry holding at most 100,000 users, without a loader.
+     * @param client The instance whose consumer credentials and pooled transport are used.
+     */
+    public CredentialRegistry(@Nonnull OAuth1Generic client) {
+        this(client, DEFAULT_MAX_USERS, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param client The instance whose consumer credentials and pooled transport are used.
+     * @param maxUsers The maximum number of users held in memory at once.
+     * @param maxWeightBytes The maximum estimated memory taken up by the users held at once, in bytes.
+     * @param loader Loads users not held in memory, or null to only hold registered users.
+     */
+    public CredentialRegistry(@Nonnull OAuth1Generic client, int maxUsers, long maxWeightBytes, @Nullable CredentialLoader loader) {
+        if (maxUsers <= 0 || maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("maxUsers and maxWeightBytes must be positive!");
+        }
+        this.client = client;
+        this.loader = loader;
+        this.maxUsers = maxUsers;
+        this.maxWeightBytes = maxWeightBytes;
+        // A power of two no greater than maxUsers, so every segment holds at least one user.
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxUsers));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(
+                    maxUsers / segmentCount + (i < maxUsers % segmentCount ? 1 : 0),
+                    maxWeightBytes == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, maxWeightBytes / segmentCount));
+        }
+    }
+
+    /**
+     * Registers (or replaces) the access credentials of the given user.
+     * @param userId The caller-supplied id of the user.
+     * @param credentials The user's access credentials.
+     */
+    public void register(@Nonnull String userId, @Nonnull UserCredentials credentials) {
+        segmentFor(userId).put(userId, newEntry(userId, credentials), true);
+    }
+
+    /**
+     * Registers (or replaces) the access credentials obtained for the given user from {@link OAuth1Generic#authorised(String, String)}.
+     * @param userId The caller-supplied id of the user.
+     * @param authorisedResult The result of the user's handshake.
+     * @throws IllegalArgumentException If the service provider returned no access token secret.
+     */
+    public void register(@Nonnull String userId, @Nonnull AuthorisedResult authorisedResult) {
+        String accessTokenSecret = authorisedResult.getAccessTokenSecret();
+        if (accessTokenSecret == null) {
+            throw new IllegalArgumentException("The authorised result has no access token secret!");
+        }
+        register(userId, new UserCredentials(authorisedResult.getAccessToken(), accessTokenSecret));
+    }
+
+    /**
+     * Obtains the access credentials of the given user, loading them if not held in memory.
+     * @param userId The caller-supplied id of the user.
+     * @return The user's access credentials, or null if the user is neither held nor could be loaded.
+     * @throws CredentialLoadException If loading the user failed.
+     */
+    @Nullable
+    public UserCredentials getCredentials(@Nonnull String userId) throws CredentialLoadException {
+        Entry entry = lookup(userId);
+        return entry == null ? null : entry.credentials;
+    }
+
+    /**
+     * Builds the {@link OAuthParameters} signing requests on behalf of the given user, loading the user if not held in memory.
+     * <br>
+     * A new instance is returned on every call, as {@link OAuthParameters} is not thread-safe, but it shares the user's cached signer.
+     * @param userId The caller-supplied id of the user.
+     * @return The user's {@link OAuthParameters}, or null if the user is neither held nor could be loaded.
+     * @throws CredentialLoadException If loading the user failed.
+     */
+    @Nullable
+    public OAuthParameters getOAuthParameters(@Nonnull String userId) throws CredentialLoadException {
+        Entry entry = lookup(userId);
+        return entry == null ? null : entry.buildOAuthParameters();
+    }
+
+    /**
+     * Makes a request to the given URL on behalf of the given user, via {@link OAuth1Generic#makePooledOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}.
+     * @param userId The caller-supplied id of the user.
+     * @param url The URL to make the request to.
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param httpContent The content of the HTTP request body, if applicable (e.g. in a PUT request), otherwise null.
+     * @return The response from the server.
+     * @throws CredentialLoadException If the user is neither held nor could be loaded.
+     * @throws OAuthBackedRequestException If building the request, or executing the request to the server, failed.
+     */
+    @Nonnull
+    public HttpResponse makeOAuthBackedRequest(@Nonnull String userId, @Nonnull String url, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) throws CredentialLoadException, OAuthBackedRequestException {
+        OAuthParameters oAuthParameters = getOAuthParameters(userId);
+        if (oAuthParameters == null) {
+            throw new MissingDataCredentialLoadException();
+        }
+        return client.makePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, httpContent);
+    }
+
+    /**
+     * Makes a GET request to the given URL on behalf of the given user, served from the client's response cache if set, via {@link OAuth1Generic#makeCachedOAuthBackedRequest(String, OAuthParameters)}.
+     * @param userId The caller-supplied id of the user.
+     * @param url The URL to make the request to.
+     * @return The response, with its body read.
+     * @throws CredentialLoadException If the user is neither held nor could be loaded.
+     * @throws OAuthBackedRequestException If building the request, executing the request to the server, or reading the response failed, or the server responded with an error.
+     */
+    @Nonnull
+    public CachedResponse makeCachedOAuthBackedRequest(@Nonnull String userId, @Nonnull String url) throws CredentialLoadException, OAuthBackedRequestException {
+        OAuthParameters oAuthParameters = getOAuthParameters(userId);
+        if (oAuthParameters == null) {
+            throw new MissingDataCredentialLoadException();
+        }
+        return client.makeCachedOAuthBackedRequest(url, oAuthParameters);
+    }
+
+    /**
+     * Removes the given user from memory, e.g. once their access token has been revoked. The user may still be loaded again through the loader.
+     * @param userId The caller-supplied id of the user.
+     */
+    public void invalidate(@Nonnull String userId) {
+        segmentFor(userId).remove(userId);
+    }
+
+    /**
+     * @return The number of users currently held in memory.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.users.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The estimated memory taken up by the users currently held, in bytes.
+     */
+    public long getWeightBytes() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @return The maximum number of users held in memory at once.
+     */
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    /**
+     * @return The maximum estimated memory taken up by the users held at once, in bytes.
+     */
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    /**
+     * @return The number of lookups of users held in memory.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups of users not held in memory.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of users successfully loaded through the loader.
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * @return The number of users evicted to stay within the bounds.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Nullable
+    private Entry lookup(@Nonnull String userId) throws CredentialLoadException {
+        Segment segment = segmentFor(userId);
+        Entry entry = segment.get(userId);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        if (loader == null) {
+            return null;
+        }
+        // Loaded outside of the segment lock, so a slow loader never blocks lookups of other users.
+        UserCredentials credentials = loader.loadCredentials(userId);
+        if (credentials == null) {
+            return null;
+        }
+        loads.increment();
+        return segment.put(userId, newEntry(userId, credentials), false);
+    }
+
+    @Nonnull
+    private Entry newEntry(@Nonnull String userId, @Nonnull UserCredentials credentials) {
+        String consumerSecret = client.getConsumerSecret();
+        long weight = ENTRY_OVERHEAD_BYTES + 2L * (userId.length() + credentials.getAccessToken().length()
+                + credentials.getAccessTokenSecret().length() + client.getConsumerKey().length() + consumerSecret.length());
+        return new Entry(credentials, client.getConsumerKey(), new CachedHmacSigner(consumerSecret, credentials.getAccessTokenSecret()), weight);
+    }
+
+    @Nonnull
+    private Segment segmentFor(@Nonnull String userId) {
+        int hash = userId.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * An independently locked, access-ordered part of the registry.
+     */
+    private final class Segment {
+        private final int maxUsers;
+        private final long maxWeightBytes;
+        // Guarded by this.
+        private final LinkedHashMap<String, Entry> users = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        private Segment(int maxUsers, long maxWeightBytes) {
+            this.maxUsers = maxUsers;
+            this.maxWeightBytes = maxWeightBytes;
+        }
+
+        @Nullable
+        private synchronized Entry get(@Nonnull String userId) {
+            return users.get(userId);
+        }
+
+        /**
+         * @param replace Whether to replace an existing entry, rather than keep it.
+         * @return The entry held for the user afterwards.
+         */
+        @Nonnull
+        private synchronized Entry put(@Nonnull String userId, @Nonnull Entry entry, boolean replace) {
+            Entry existing = users.get(userId);
+            if (existing != null) {
+                if (!replace) {
+                    return existing;
+                }
+                weight -= existing.weight;
+            }
+            users.put(userId, entry);
+            weight += entry.weight;
+            evict();
+            return entry;
+        }
+
+        private synchronized void remove(@Nonnull String userId) {
+            Entry removed = users.remove(userId);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        }
+
+        private void evict() {
+            // The most recently used user (i.e. the one just put) is always kept, even if it alone exceeds the weight bound.
+            Iterator<Map.Entry<String, Entry>> iterator = users.entrySet().iterator();
+            while (users.size() > 1 && (users.size() > maxUsers || weight > maxWeightBytes)) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final @Nonnull UserCredentials credentials;
+        private final @Nonnull String consumerKey;
+        private final @Nonnull CachedHmacSigner signer;
+        private final long weight;
+
+        private Entry(@Nonnull UserCredentials credentials, @Nonnull String consumerKey, @Nonnull CachedHmacSigner signer, long weight) {
+            this.credentials = credentials;
+            this.consumerKey = consumerKey;
+            this.signer = signer;
+            this.weight = weight;
+        }
+
+        @Nonnull
+        private OAuthParameters buildOAuthParameters() {
+            OAuthParameters oauthParameters = new OAuthParameters();
+            oauthParameters.signer = signer;
+            oauthParameters.consumerKey = consumerKey;
+            oauthParameters.token = credentials.getAccessToken();
+            oauthParameters.signatureMethod = CachedHmacSigner.SIGNATURE_METHOD;
+            oauthParameters.version = "1.0";
+            return oauthParameters;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package oauth1.credentials;
+
+import lombok.Data;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The access credentials of a single user, as obtained from {@link oauth1.OAuth1Generic#authorised(String, String)}.
+ */
+@Data
+public class UserCredentials {
+    private final @Nonnull String accessToken;
+    @ToString.Exclude
+    private final @Nonnull String accessTokenSecret;
+
+    public UserCredentials(@Nonnull String accessToken, @Nonnull String accessTokenSecret) {
+        this.accessToken = accessToken;
+        this.accessTokenSecret = accessTokenSecret;
+    }
+}
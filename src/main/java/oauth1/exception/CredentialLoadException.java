@@ -0,0 +1,11 @@
+package oauth1.exception;
+
+public class CredentialLoadException extends Exception {
+    public CredentialLoadException(String message) {
+        super(message);
+    }
+
+    public CredentialLoadException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,51 @@
+package oauth1.exception;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Thrown by an {@link oauth1.resilience.EndpointIsolator} when a call to an endpoint is rejected without being made,
+ * and the cause of the {@code EndpointUnavailable} exceptions of {@link oauth1.exception.unavailable}.
+ */
+public class EndpointUnavailableException extends Exception {
+    private final @Nonnull String endpoint;
+    private final @Nonnull Reason reason;
+    private final long retryAfterMillis;
+
+    public EndpointUnavailableException(@Nonnull String endpoint, @Nonnull Reason reason, long retryAfterMillis) {
+        super("Endpoint " + endpoint + " unavailable (" + reason + "), retry after " + retryAfterMillis + "ms!");
+        this.endpoint = endpoint;
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return The endpoint the call was rejected for, e.g. a token URL or the origin of a resource URL.
+     */
+    @Nonnull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Nonnull
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return The time until the circuit lets probes through, in milliseconds, or zero if unknown.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    public enum Reason {
+        /**
+         * The circuit breaker of the endpoint is open, or half-open with all its probes in flight.
+         */
+        CIRCUIT_OPEN,
+        /**
+         * The endpoint already has the maximum number of concurrent calls in flight.
+         */
+        BULKHEAD_FULL
+    }
+}
@@ -0,0 +1,51 @@
+package oauth1.exception;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Thrown when a sealed state cannot be unsealed, for the given {@link Reason}.
+ */
+public class InvalidSealedStateException extends TokenMapException {
+    public enum Reason {
+        /**
+         * The state could not be decoded.
+         */
+        MALFORMED,
+        /**
+         * The state was sealed with a key which is unknown, or was retired too long ago.
+         */
+        UNKNOWN_KEY,
+        /**
+         * The state was not sealed by a known key, or was altered since.
+         */
+        TAMPERED,
+        /**
+         * The state was sealed for another temporary token.
+         */
+        TOKEN_MISMATCH,
+        /**
+         * The state is older than its time-to-live.
+         */
+        EXPIRED,
+        /**
+         * The state was already unsealed.
+         */
+        REPLAYED,
+        /**
+         * The replay filter has no room to record the state, so it is rejected rather than risk it being used twice.
+         */
+        REPLAY_FILTER_FULL
+    }
+
+    private final @Nonnull Reason reason;
+
+    public InvalidSealedStateException(@Nonnull Reason reason) {
+        super("Sealed state is invalid: " + reason + "!");
+        this.reason = reason;
+    }
+
+    @Nonnull
+    public Reason getReason() {
+        return reason;
+    }
+}
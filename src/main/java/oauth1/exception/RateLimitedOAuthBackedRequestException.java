@@ -0,0 +1,20 @@
+package oauth1.exception;
+
+/**
+ * Thrown when a request is not made because no rate limit permit became available in time.
+ */
+public class RateLimitedOAuthBackedRequestException extends OAuthBackedRequestException {
+    private final long retryAfterMillis;
+
+    public RateLimitedOAuthBackedRequestException(long retryAfterMillis) {
+        super("Rate limit reached, retry after " + retryAfterMillis + "ms!");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return The estimated time until a permit becomes available, in milliseconds.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
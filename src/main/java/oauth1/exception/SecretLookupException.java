@@ -0,0 +1,11 @@
+package oauth1.exception;
+
+public class SecretLookupException extends Exception {
+    public SecretLookupException(String message) {
+        super(message);
+    }
+
+    public SecretLookupException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,9 @@
+package oauth1.exception.missingdata;
+
+import oauth1.exception.CredentialLoadException;
+
+public class MissingDataCredentialLoadException extends CredentialLoadException {
+    public MissingDataCredentialLoadException() {
+        super("No credentials are registered or could be loaded for the given user!");
+    }
+}
@@ -0,0 +1,21 @@
+package oauth1.exception.unavailable;
+
+import oauth1.exception.EndpointUnavailableException;
+import oauth1.exception.OAuthBackedRequestException;
+
+import javax.annotation.Nonnull;
+
+public class EndpointUnavailableOAuthBackedRequestException extends OAuthBackedRequestException {
+    public EndpointUnavailableOAuthBackedRequestException(@Nonnull EndpointUnavailableException cause) {
+        super(cause);
+    }
+
+    /**
+     * @return Why the call was rejected without being made.
+     */
+    @Nonnull
+    @Override
+    public synchronized EndpointUnavailableException getCause() {
+        return (EndpointUnavailableException) super.getCause();
+    }
+}
@@ -0,0 +1,146 @@
+package oauth1.jfr;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponseException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Starts the JDK Flight Recorder events emitted by {@link oauth1.OAuth1Generic}, which are all disabled by default.
+ * <br><br>
+ * Enable them in a recording by name (e.g. {@code oauth1.OAuthBackedRequest}) or by their {@code OAuth1} category, e.g. via a {@code .jfc} settings file
+ * or {@code Recording#enable(String)}. While disabled (or on a runtime without the Flight Recorder), each start returns null and nothing else is computed,
+ * so the events cost nothing unless recorded.
+ * <br>
+ * The events carry hosts, methods, statuses, sizes, durations and outcomes (exception class names) only: never URLs, paths, queries, tokens, secrets or exception messages.
+ */
+public final class FlightRecorderEvents {
+    /**
+     * The outcome of an operation which succeeded.
+     */
+    public static final String SUCCESS = "success";
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private FlightRecorderEvents() {
+
+    }
+
+    /**
+     * @param operation The handshake step, e.g. "begin" or "authorised".
+     * @return The started event, or null if not recorded.
+     */
+    @Nullable
+    public static HandshakeEvent beginHandshake(@Nonnull String operation) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        HandshakeEvent event = new HandshakeEvent(operation);
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param phase The phase of the token request, e.g. "REQUEST_TOKEN".
+     * @return The started event, or null if not recorded.
+     */
+    @Nullable
+    public static TokenRequestEvent beginTokenRequest(@Nonnull String phase) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        TokenRequestEvent event = new TokenRequestEvent(phase);
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @return The started event, or null if not recorded.
+     */
+    @Nullable
+    public static OAuthBackedRequestEvent beginOAuthBackedRequest() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        OAuthBackedRequestEvent event = new OAuthBackedRequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param operation The call made to the strategy, e.g. "map" or "fetch".
+     * @param strategy The strategy called.
+     * @return The started event, or null if not recorded.
+     */
+    @Nullable
+    public static TokenMapEvent beginTokenMap(@Nonnull String operation, @Nonnull Object strategy) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        TokenMapEvent event = new TokenMapEvent(operation, strategy.getClass().getName());
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @return {@link FlightRecorderEvents#SUCCESS} if the failure is null, otherwise its class name.
+     */
+    @Nonnull
+    static String outcomeOf(@Nullable Throwable failure) {
+        return failure == null ? SUCCESS : failure.getClass().getName();
+    }
+
+    /**
+     * @return The status code of the error response which caused the failure, or 0 if none was received.
+     */
+    static int statusCodeOf(@Nullable Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof HttpResponseException) {
+                return ((HttpResponseException) cause).getStatusCode();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return The host of the URL alone, or null if malformed.
+     */
+    @Nullable
+    public static String hostOf(@Nullable String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            return new GenericUrl(url).getHost();
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The Flight Recorder is missing from Java 8 runtimes before 8u262, and from runtimes linked without the jdk.jfr module.
+     */
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package oauth1.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The whole of a {@link oauth1.OAuth1Generic#begin()} or {@link oauth1.OAuth1Generic#authorised(String, String)}, including its token request and token map calls.
+ */
+@Name("oauth1.Handshake")
+@Label("OAuth1 Handshake")
+@Category("OAuth1")
+@Description("A step of the OAuth1.0 handshake")
+@Enabled(false)
+@StackTrace(false)
+public class HandshakeEvent extends Event {
+    @Label("Operation")
+    @Description("begin or authorised")
+    private String operation;
+
+    @Label("Host")
+    @Description("Host of the token endpoint")
+    private String host;
+
+    @Label("Outcome")
+    @Description("success, or the class of the exception thrown")
+    private String outcome;
+
+    HandshakeEvent(@Nonnull String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Ends and commits the event, if within the recording's threshold.
+     * @param tokenUrl The URL of the token endpoint, of which only the host is recorded.
+     * @param failure The exception thrown, or null if the step succeeded.
+     */
+    public void complete(@Nullable String tokenUrl, @Nullable Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            host = FlightRecorderEvents.hostOf(tokenUrl);
+            outcome = FlightRecorderEvents.outcomeOf(failure);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package oauth1.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A request made on a user's behalf, up to the response headers being received, including waiting for its rate limit permit and signing it.
+ */
+@Name("oauth1.OAuthBackedRequest")
+@Label("OAuth1 OAuth-Backed Request")
+@Category("OAuth1")
+@Description("A signed request made on a user's behalf")
+@Enabled(false)
+@StackTrace(false)
+public class OAuthBackedRequestEvent extends Event {
+    @Label("Host")
+    private String host;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Status Code")
+    @Description("0 if no response was received")
+    private int statusCode;
+
+    @Label("Request Bytes")
+    @Description("The length of the request body, 0 if none, or -1 if unknown")
+    @DataAmount
+    private long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("The Content-Length of the response, or -1 if unknown")
+    @DataAmount
+    private long responseBytes = -1;
+
+    @Label("Signing Duration")
+    @Timespan
+    private long signingNanos;
+
+    @Label("Outcome")
+    @Description("success, or the class of the exception thrown")
+    private String outcome;
+
+    OAuthBackedRequestEvent() {
+
+    }
+
+    /**
+     * @param nanos The time taken to sign the request.
+     */
+    public void recordSigning(long nanos) {
+        signingNanos += nanos;
+    }
+
+    /**
+     * @param statusCode The status code of the response.
+     * @param contentLength The Content-Length of the response, or null if unknown.
+     */
+    public void recordResponse(int statusCode, @Nullable Long contentLength) {
+        this.statusCode = statusCode;
+        this.responseBytes = contentLength == null ? -1 : contentLength;
+    }
+
+    /**
+     * Ends and commits the event, if within the recording's threshold.
+     * @param host The host of the request.
+     * @param method The HTTP method of the request.
+     * @param requestBytes The length of the request body, 0 if none, or -1 if unknown.
+     * @param failure The exception thrown, or null if the request succeeded.
+     */
+    public void complete(@Nullable String host, @Nonnull String method, long requestBytes, @Nullable Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            this.host = host;
+            this.method = method;
+            this.requestBytes = requestBytes;
+            if (failure != null && statusCode == 0) {
+                statusCode = FlightRecorderEvents.statusCodeOf(failure);
+            }
+            outcome = FlightRecorderEvents.outcomeOf(failure);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package oauth1.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A call to the {@link oauth1.strategy.TokenMapStrategy} of an {@link oauth1.OAuth1Generic}, made by the handshake.
+ */
+@Name("oauth1.TokenMap")
+@Label("OAuth1 Token Map")
+@Category("OAuth1")
+@Description("A call to a token map strategy")
+@Enabled(false)
+@StackTrace(false)
+public class TokenMapEvent extends Event {
+    @Label("Operation")
+    @Description("map, fetch, seal or unseal")
+    private String operation;
+
+    @Label("Strategy")
+    @Description("The class of the token map strategy")
+    private String strategy;
+
+    @Label("Outcome")
+    @Description("success, or the class of the exception thrown")
+    private String outcome;
+
+    TokenMapEvent(@Nonnull String operation, @Nonnull String strategy) {
+        this.operation = operation;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Ends and commits the event, if within the recording's threshold.
+     * @param failure The exception thrown, or null if the call succeeded.
+     */
+    public void complete(@Nullable Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            outcome = FlightRecorderEvents.outcomeOf(failure);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package oauth1.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A single attempt of a request to the request token or access token URL, including signing it and parsing its response.
+ */
+@Name("oauth1.TokenRequest")
+@Label("OAuth1 Token Request")
+@Category("OAuth1")
+@Description("An attempt of a request for a temporary or access token")
+@Enabled(false)
+@StackTrace(false)
+public class TokenRequestEvent extends Event {
+    @Label("Phase")
+    @Description("REQUEST_TOKEN or ACCESS_TOKEN")
+    private String phase;
+
+    @Label("Host")
+    private String host;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Status Code")
+    @Description("0 if no response was received")
+    private int statusCode;
+
+    @Label("Response Bytes")
+    @Description("The Content-Length of the response, or -1 if unknown")
+    @DataAmount
+    private long responseBytes = -1;
+
+    @Label("Signing Duration")
+    @Timespan
+    private long signingNanos;
+
+    @Label("Outcome")
+    @Description("success, or the class of the exception thrown")
+    private String outcome;
+
+    TokenRequestEvent(@Nonnull String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * @param nanos The time taken to sign the request.
+     */
+    public void recordSigning(long nanos) {
+        signingNanos += nanos;
+    }
+
+    /**
+     * @param statusCode The status code of the response.
+     * @param contentLength The Content-Length of the response, or null if unknown.
+     */
+    public void recordResponse(int statusCode, @Nullable Long contentLength) {
+        this.statusCode = statusCode;
+        this.responseBytes = contentLength == null ? -1 : contentLength;
+    }
+
+    /**
+     * Ends and commits the event, if within the recording's threshold.
+     * @param host The host of the token endpoint.
+     * @param method The HTTP method of the request.
+     * @param failure The exception thrown, or null if the request succeeded.
+     */
+    public void complete(@Nullable String host, @Nonnull String method, @Nullable Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            this.host = host;
+            this.method = method;
+            if (failure != null && statusCode == 0) {
+                statusCode = FlightRecorderEvents.statusCodeOf(failure);
+            }
+            outcome = FlightRecorderEvents.outcomeOf(failure);
+            commit();
+        }
+    }
+}
@@ -2,16 +2,37 @@ package oauth1.lib;
 
 import com.google.api.client.auth.oauth.OAuthParameters;
 import lombok.Data;
+import lombok.ToString;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 @Data
 public class AuthorisedResult {
     private @Nonnull String accessToken;
+    /**
+     * The access token secret returned by the service provider, or null if it returned none.
+     */
+    @ToString.Exclude
+    private @Nullable String accessTokenSecret;
     private @Nonnull OAuthParameters oAuthParameters;
+    /**
+     * Every parameter of the service provider's access token response, e.g. to read a user id or {@link TokenResponse#getSessionHandle()}, or null if not known.
+     */
+    private @Nullable TokenResponse tokenResponse;
 
     public AuthorisedResult(@Nonnull String accessToken, @Nonnull OAuthParameters oAuthParameters) {
+        this(accessToken, null, oAuthParameters);
+    }
+
+    public AuthorisedResult(@Nonnull String accessToken, @Nullable String accessTokenSecret, @Nonnull OAuthParameters oAuthParameters) {
+        this(accessToken, accessTokenSecret, oAuthParameters, null);
+    }
+
+    public AuthorisedResult(@Nonnull String accessToken, @Nullable String accessTokenSecret, @Nonnull OAuthParameters oAuthParameters, @Nullable TokenResponse tokenResponse) {
         this.accessToken = accessToken;
+        this.accessTokenSecret = accessTokenSecret;
         this.oAuthParameters = oAuthParameters;
+        this.tokenResponse = tokenResponse;
     }
 }
@@ -10,9 +10,28 @@ import javax.annotation.Nullable;
 public class BeginResult {
     private @Nonnull String temporaryToken;
     private @Nullable String redirectUrl;
+    /**
+     * The sealed state carrying the temporary token secret, if a {@link oauth1.strategy.SealingTokenMapStrategy} is used, otherwise null.
+     * It must be passed back to {@code authorisedWithState}, e.g. via a cookie.
+     */
+    private @Nullable String state;
+    /**
+     * Every parameter of the service provider's request token response, or null if the temporary token was taken from a {@link oauth1.prefetch.TemporaryTokenPool}.
+     */
+    private @Nullable TokenResponse tokenResponse;
 
     public BeginResult(@Nonnull String temporaryToken, @Nullable String redirectUrl) {
+        this(temporaryToken, redirectUrl, null);
+    }
+
+    public BeginResult(@Nonnull String temporaryToken, @Nullable String redirectUrl, @Nullable String state) {
+        this(temporaryToken, redirectUrl, state, null);
+    }
+
+    public BeginResult(@Nonnull String temporaryToken, @Nullable String redirectUrl, @Nullable String state, @Nullable TokenResponse tokenResponse) {
         this.temporaryToken = temporaryToken;
         this.redirectUrl = redirectUrl;
+        this.state = state;
+        this.tokenResponse = tokenResponse;
     }
 }
@@ -0,0 +1,168 @@
+package oauth1.lib;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every parameter of a request token or access token response, in the order the service provider returned them,
+ * including those beyond the token and its secret (e.g. {@code oauth_expires_in}, {@code oauth_session_handle} or a user id).
+ * <br><br>
+ * The value of a parameter given more than once is its first value. Secrets are excluded from {@link TokenResponse#toString()}.
+ */
+public class TokenResponse {
+    public static final String TOKEN = "oauth_token";
+    public static final String TOKEN_SECRET = "oauth_token_secret";
+    public static final String CALLBACK_CONFIRMED = "oauth_callback_confirmed";
+    public static final String EXPIRES_IN = "oauth_expires_in";
+    public static final String SESSION_HANDLE = "oauth_session_handle";
+
+    /**
+     * The decoded names and values, alternately.
+     */
+    private final @Nonnull String[] parameters;
+    private final @Nullable String token;
+    private final @Nullable String tokenSecret;
+
+    /**
+     * @param parameters The decoded names and values of the parameters, alternately, which are not copied.
+     */
+    public TokenResponse(@Nonnull String[] parameters) {
+        if ((parameters.length & 1) != 0) {
+            throw new IllegalArgumentException("parameters must hold a value for each name!");
+        }
+        this.parameters = parameters;
+        this.token = getParameter(TOKEN);
+        this.tokenSecret = getParameter(TOKEN_SECRET);
+    }
+
+    /**
+     * @return The {@code oauth_token} parameter, or null if absent.
+     */
+    @Nullable
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return The {@code oauth_token_secret} parameter, or null if absent.
+     */
+    @Nullable
+    public String getTokenSecret() {
+        return tokenSecret;
+    }
+
+    /**
+     * @return Whether the {@code oauth_callback_confirmed} parameter is {@code true}.
+     */
+    public boolean isCallbackConfirmed() {
+        return "true".equals(getParameter(CALLBACK_CONFIRMED));
+    }
+
+    /**
+     * @return The {@code oauth_session_handle} parameter (of the OAuth Session 1.0 extension), or null if absent.
+     */
+    @Nullable
+    public String getSessionHandle() {
+        return getParameter(SESSION_HANDLE);
+    }
+
+    /**
+     * @return The {@code oauth_expires_in} parameter (of the OAuth Session 1.0 extension), or null if absent or not a number.
+     */
+    @Nullable
+    public Long getExpiresInSeconds() {
+        String expiresIn = getParameter(EXPIRES_IN);
+        if (expiresIn == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(expiresIn.trim());
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param name The name of the parameter.
+     * @return The first value of the given parameter, or null if absent.
+     */
+    @Nullable
+    public String getParameter(@Nonnull String name) {
+        for (int i = 0; i < parameters.length; i += 2) {
+            if (parameters[i].equals(name)) {
+                return parameters[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The names of the parameters, in the order they were returned, including repeated names.
+     */
+    @Nonnull
+    public List<String> getParameterNames() {
+        List<String> names = new ArrayList<>(parameters.length / 2);
+        for (int i = 0; i < parameters.length; i += 2) {
+            names.add(parameters[i]);
+        }
+        return names;
+    }
+
+    /**
+     * @return The first value of each parameter by name, in the order they were returned.
+     */
+    @Nonnull
+    public Map<String, String> getParameters() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i += 2) {
+            map.putIfAbsent(parameters[i], parameters[i + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return The first value of each parameter other than {@code oauth_token}, {@code oauth_token_secret} and {@code oauth_callback_confirmed}, by name.
+     */
+    @Nonnull
+    public Map<String, String> getExtraParameters() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i += 2) {
+            String name = parameters[i];
+            if (!name.equals(TOKEN) && !name.equals(TOKEN_SECRET) && !name.equals(CALLBACK_CONFIRMED)) {
+                map.putIfAbsent(name, parameters[i + 1]);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TokenResponse && Arrays.equals(parameters, ((TokenResponse) o).parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TokenResponse(");
+        for (int i = 0; i < parameters.length; i += 2) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(parameters[i]).append('=');
+            // Only the public parameters are shown, as providers may return secrets under names of their own.
+            builder.append(parameters[i].equals(TOKEN) || parameters[i].equals(CALLBACK_CONFIRMED) || parameters[i].equals(EXPIRES_IN) ? parameters[i + 1] : "***");
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,85 @@
+package oauth1.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsStrategy} recording latencies into an in-memory {@link LatencyHistogram} per {@link Phase},
+ * and counting successes per {@link Operation} and failures per {@link Operation} and exception type.
+ */
+public class HistogramMetricsStrategy implements MetricsStrategy {
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final Map<Operation, LongAdder> successes = new EnumMap<>(Operation.class);
+    private final Map<Operation, ConcurrentHashMap<Class<? extends Throwable>, LongAdder>> failures = new EnumMap<>(Operation.class);
+
+    public HistogramMetricsStrategy() {
+        // All maps are fully populated up front, so they are only ever read concurrently.
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+        for (Operation operation : Operation.values()) {
+            successes.put(operation, new LongAdder());
+            failures.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void recordLatency(@Nonnull Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    public void recordOutcome(@Nonnull Operation operation, @Nullable Class<? extends Throwable> failure) {
+        if (failure == null) {
+            successes.get(operation).increment();
+            return;
+        }
+        ConcurrentHashMap<Class<? extends Throwable>, LongAdder> counters = failures.get(operation);
+        LongAdder counter = counters.get(failure);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(failure, type -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * @param phase The phase.
+     * @return The histogram of the latencies of the given phase, in nanoseconds.
+     */
+    @Nonnull
+    public LatencyHistogram getHistogram(@Nonnull Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * @param operation The operation.
+     * @return The number of times the given operation succeeded.
+     */
+    public long getSuccessCount(@Nonnull Operation operation) {
+        return successes.get(operation).sum();
+    }
+
+    /**
+     * @param operation The operation.
+     * @return The number of times the given operation failed, per exception type.
+     */
+    @Nonnull
+    public Map<Class<? extends Throwable>, Long> getFailureCounts(@Nonnull Operation operation) {
+        Map<Class<? extends Throwable>, Long> counts = new HashMap<>();
+        failures.get(operation).forEach((type, counter) -> counts.put(type, counter.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Clears all histograms and counters.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        successes.values().forEach(LongAdder::reset);
+        failures.values().forEach(Map::clear);
+    }
+}
@@ -0,0 +1,147 @@
+package oauth1.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free, fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ * <br><br>
+ * Values are bucketed by their magnitude (power of two) and, within each magnitude, linearly into {@link LatencyHistogram#SUB_BUCKET_HALF_COUNT} sub-buckets,
+ * so every recorded value is resolved to within 1/64 (about 1.6%) of its true value. Values from 0 to about 9.7 hours in nanoseconds are tracked,
+ * larger values are clamped. Recording is a single atomic increment, and allocates nothing.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_VALUE_BITS = 45;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param value The value, e.g. a latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(MAX_VALUE, value));
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalSum.add(clamped);
+        long currentMax;
+        while (clamped > (currentMax = max.get()) && !max.compareAndSet(currentMax, clamped)) {
+            // Retry.
+        }
+    }
+
+    /**
+     * @return A consistent-enough copy of the recorded values, for computing percentiles.
+     */
+    @Nonnull
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalSum.sum(), max.get());
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        max.set(0);
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    static int indexOf(long value) {
+        int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int subBucket = (int) (value >>> magnitude);
+        // For magnitude 0 the sub-bucket spans [0, SUB_BUCKET_COUNT), otherwise [SUB_BUCKET_HALF_COUNT, SUB_BUCKET_COUNT).
+        return magnitude * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << magnitude;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKET_HALF_COUNT - 1;
+        return lowestValueAt(index) + (1L << magnitude) - 1;
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile The percentile, from 0 to 100.
+         * @return The highest value equivalent (within the histogram's precision) to the value at the given percentile, or 0 if nothing was recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
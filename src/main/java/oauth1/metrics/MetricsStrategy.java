@@ -0,0 +1,33 @@
+package oauth1.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An interface which provides a strategy to record the latency of each {@link Phase} and the outcome of each {@link Operation}.
+ * <br>
+ * Implementations are called on the request path, so must be thread-safe and cheap. Use {@link NoOpMetricsStrategy} to record nothing,
+ * {@link HistogramMetricsStrategy} for in-memory histograms, or a custom implementation to forward to a metrics library.
+ */
+public interface MetricsStrategy {
+    /**
+     * Record the latency of a phase.
+     * @param phase The phase.
+     * @param nanos The duration of the phase, in nanoseconds.
+     */
+    void recordLatency(@Nonnull Phase phase, long nanos);
+
+    /**
+     * Record the outcome of an operation.
+     * @param operation The operation.
+     * @param failure The type of the exception the operation failed with (e.g. {@link oauth1.exception.missingdata.MissingDataTokenMapException}), or null if it succeeded.
+     */
+    void recordOutcome(@Nonnull Operation operation, @Nullable Class<? extends Throwable> failure);
+
+    /**
+     * @return Whether anything is recorded. If false, callers may skip measuring altogether.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
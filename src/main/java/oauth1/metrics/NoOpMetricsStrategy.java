@@ -0,0 +1,28 @@
+package oauth1.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The default {@link MetricsStrategy}, which records nothing.
+ */
+public final class NoOpMetricsStrategy implements MetricsStrategy {
+    public static final NoOpMetricsStrategy INSTANCE = new NoOpMetricsStrategy();
+
+    private NoOpMetricsStrategy() {
+
+    }
+
+    public void recordLatency(@Nonnull Phase phase, long nanos) {
+
+    }
+
+    public void recordOutcome(@Nonnull Operation operation, @Nullable Class<? extends Throwable> failure) {
+
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
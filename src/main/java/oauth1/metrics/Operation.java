@@ -0,0 +1,10 @@
+package oauth1.metrics;
+
+/**
+ * The operations whose outcomes are counted by a {@link MetricsStrategy}.
+ */
+public enum Operation {
+    BEGIN,
+    AUTHORISED,
+    OAUTH_BACKED_REQUEST
+}
@@ -0,0 +1,40 @@
+package oauth1.metrics;
+
+/**
+ * The timed phases of {@link oauth1.OAuth1Generic#begin()}, {@link oauth1.OAuth1Generic#authorised(String, String)}
+ * and {@link oauth1.OAuth1Generic#makePooledOAuthBackedRequest(String, com.google.api.client.auth.oauth.OAuthParameters, oauth1.lib.RequestMethod, com.google.api.client.http.HttpContent)}.
+ */
+public enum Phase {
+    /**
+     * The whole of begin().
+     */
+    BEGIN,
+    /**
+     * The request to the request token URL, including signing and parsing the response.
+     */
+    REQUEST_TOKEN,
+    /**
+     * The call to {@link oauth1.strategy.TokenMapStrategy#mapTemporaryTokenToTemporaryTokenSecret(String, String)}.
+     */
+    TOKEN_MAP_WRITE,
+    /**
+     * The whole of authorised().
+     */
+    AUTHORISED,
+    /**
+     * The call to {@link oauth1.strategy.TokenMapStrategy#fetchTemporaryTokenSecretForTemporaryToken(String)}.
+     */
+    TOKEN_MAP_READ,
+    /**
+     * The request to the access token URL, including signing and parsing the response.
+     */
+    ACCESS_TOKEN,
+    /**
+     * The whole of an OAuth-backed request, up to the response headers being received.
+     */
+    OAUTH_BACKED_REQUEST,
+    /**
+     * Computing the nonce, timestamp and signature of any request, and setting its Authorization header.
+     */
+    SIGNING
+}
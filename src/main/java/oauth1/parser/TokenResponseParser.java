@@ -0,0 +1,235 @@
+package oauth1.parser;
+
+import oauth1.lib.TokenResponse;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A decoder of the {@code application/x-www-form-urlencoded} bodies of request token and access token responses into {@link TokenResponse}s.
+ * <br><br>
+ * The body is read into a buffer reused by the calling thread, then scanned once: each name and value is located and, only if it contains
+ * a {@code +} or percent-escape, decoded in place. Well-known names resolve to constants, so the only allocations are the result and its values.
+ * <br>
+ * A name without {@code =} has an empty value, empty segments (e.g. {@code a=1&&b=2}) are skipped, and trailing whitespace (e.g. a newline appended by the provider) is ignored.
+ */
+public final class TokenResponseParser {
+    /**
+     * The largest body accepted, well above any real token response.
+     */
+    public static final int MAX_RESPONSE_BYTES = 64 * 1024;
+    private static final int INITIAL_BUFFER_BYTES = 512;
+    /**
+     * Buffers up to this size are kept by each thread, larger ones are dropped after use.
+     */
+    private static final int RETAINED_BUFFER_BYTES = 4 * 1024;
+
+    private static final byte[][] KNOWN_NAMES = {
+            ascii(TokenResponse.TOKEN),
+            ascii(TokenResponse.TOKEN_SECRET),
+            ascii(TokenResponse.CALLBACK_CONFIRMED),
+            ascii(TokenResponse.EXPIRES_IN),
+            ascii(TokenResponse.SESSION_HANDLE)
+    };
+    private static final String[] KNOWN_NAME_STRINGS = {
+            TokenResponse.TOKEN,
+            TokenResponse.TOKEN_SECRET,
+            TokenResponse.CALLBACK_CONFIRMED,
+            TokenResponse.EXPIRES_IN,
+            TokenResponse.SESSION_HANDLE
+    };
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TokenResponseParser() {
+
+    }
+
+    /**
+     * Reads and decodes a token response body, without closing the stream.
+     * @param content The body of the response.
+     * @return Every parameter of the response.
+     * @throws IOException If reading the body failed, it exceeds {@value #MAX_RESPONSE_BYTES} bytes, or it contains a malformed percent-escape.
+     */
+    @Nonnull
+    public static TokenResponse parse(@Nonnull InputStream content) throws IOException {
+        State state = STATE.get();
+        try {
+            int length = state.read(content);
+            return state.parse(length);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    @Nonnull
+    private static byte[] ascii(@Nonnull String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int hexValue(byte digit) {
+        if (digit >= '0' && digit <= '9') {
+            return digit - '0';
+        }
+        if (digit >= 'A' && digit <= 'F') {
+            return digit - 'A' + 10;
+        }
+        if (digit >= 'a' && digit <= 'f') {
+            return digit - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * The buffers reused by a single thread.
+     */
+    private static final class State {
+        private byte[] buffer = new byte[INITIAL_BUFFER_BYTES];
+        /**
+         * The decoded names and values of the response being parsed, alternately.
+         */
+        private String[] parameters = new String[16];
+        private int parameterCount;
+
+        /**
+         * Reads the whole body into the buffer, growing it as needed.
+         * @return The length of the body.
+         */
+        private int read(@Nonnull InputStream content) throws IOException {
+            int length = 0;
+            while (true) {
+                if (length == buffer.length) {
+                    if (length >= MAX_RESPONSE_BYTES) {
+                        throw new IOException("Token response exceeds " + MAX_RESPONSE_BYTES + " bytes!");
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(length * 2, MAX_RESPONSE_BYTES));
+                }
+                int read = content.read(buffer, length, buffer.length - length);
+                if (read == -1) {
+                    return length;
+                }
+                length += read;
+            }
+        }
+
+        @Nonnull
+        private TokenResponse parse(int length) throws IOException {
+            byte[] bytes = buffer;
+            int end = length;
+            while (end > 0 && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r' || bytes[end - 1] == ' ' || bytes[end - 1] == '\t')) {
+                end--;
+            }
+            parameterCount = 0;
+            int position = 0;
+            while (position < end) {
+                // Locate the name, noting whether it has to be decoded.
+                int nameStart = position;
+                boolean nameEncoded = false;
+                byte b = 0;
+                while (position < end && (b = bytes[position]) != '=' && b != '&') {
+                    nameEncoded |= b == '%' || b == '+' || b < 0;
+                    position++;
+                }
+                int nameEnd = position;
+                int valueStart = position;
+                boolean valueEncoded = false;
+                if (position < end && b == '=') {
+                    valueStart = ++position;
+                    while (position < end && (b = bytes[position]) != '&') {
+                        valueEncoded |= b == '%' || b == '+' || b < 0;
+                        position++;
+                    }
+                }
+                int valueEnd = position;
+                // Skip the '&'.
+                position++;
+                if (nameStart == nameEnd && valueStart == valueEnd) {
+                    continue;
+                }
+                String name = nameEncoded ? decode(bytes, nameStart, nameEnd) : knownName(bytes, nameStart, nameEnd);
+                add(name, valueEncoded ? decode(bytes, valueStart, valueEnd) : new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1));
+            }
+            return new TokenResponse(Arrays.copyOf(parameters, parameterCount));
+        }
+
+        /**
+         * @return The constant of a well-known name, or a new string holding the given plain ASCII name.
+         */
+        @Nonnull
+        private static String knownName(@Nonnull byte[] bytes, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < KNOWN_NAMES.length; i++) {
+                byte[] known = KNOWN_NAMES[i];
+                if (known.length != length) {
+                    continue;
+                }
+                int j = 0;
+                while (j < length && known[j] == bytes[start + j]) {
+                    j++;
+                }
+                if (j == length) {
+                    return KNOWN_NAME_STRINGS[i];
+                }
+            }
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Decodes the given range in place, as decoding never lengthens it, then as UTF-8.
+         */
+        @Nonnull
+        private static String decode(@Nonnull byte[] bytes, int start, int end) throws IOException {
+            int write = start;
+            for (int read = start; read < end; read++) {
+                byte b = bytes[read];
+                if (b == '+') {
+                    b = ' ';
+                }
+                else if (b == '%') {
+                    int high = read + 2 < end ? hexValue(bytes[read + 1]) : -1;
+                    int low = high == -1 ? -1 : hexValue(bytes[read + 2]);
+                    if (low == -1) {
+                        throw new IOException("Malformed percent-escape in token response!");
+                    }
+                    b = (byte) (high << 4 | low);
+                    read += 2;
+                }
+                bytes[write++] = b;
+            }
+            String decoded = new String(bytes, start, write - start, StandardCharsets.UTF_8);
+            // A decoded well-known name is still returned as its constant.
+            for (String known : KNOWN_NAME_STRINGS) {
+                if (known.equals(decoded)) {
+                    return known;
+                }
+            }
+            return decoded;
+        }
+
+        private void add(@Nonnull String name, @Nonnull String value) {
+            if (parameterCount + 2 > parameters.length) {
+                parameters = Arrays.copyOf(parameters, parameters.length * 2);
+            }
+            parameters[parameterCount++] = name;
+            parameters[parameterCount++] = value;
+        }
+
+        /**
+         * Drops the references to the parsed values, and the buffers grown beyond the retained size.
+         */
+        private void release() {
+            Arrays.fill(parameters, 0, parameterCount, null);
+            parameterCount = 0;
+            if (buffer.length > RETAINED_BUFFER_BYTES) {
+                buffer = new byte[INITIAL_BUFFER_BYTES];
+            }
+            if (parameters.length > 64) {
+                parameters = new String[16];
+            }
+        }
+    }
+}
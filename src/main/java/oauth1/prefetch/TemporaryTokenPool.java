@@ -0,0 +1,310 @@
+package oauth1.prefetch;
+
+import oauth1.exception.GetTemporaryTokenException;
+import oauth1.exception.TokenMapException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of temporary tokens fetched ahead of time, so {@link oauth1.OAuth1Generic#begin()} can hand one out without a round trip to the provider.
+ * <br><br>
+ * The pool keeps up to a target number of tokens in reserve, refilling in the background with a bounded number of concurrent requests.
+ * Each token has already been mapped to its secret via the {@link oauth1.strategy.TokenMapStrategy} when it enters the pool,
+ * so the strategy must keep mappings for at least the maximum token age plus the duration of the handshake.
+ * Discarded tokens (whether expired or left in reserve on {@link TemporaryTokenPool#close()}) are handed back to the source to remove their mappings,
+ * as the pool refetches its whole reserve every maximum age even when idle, so a strategy which neither expires mappings
+ * nor implements {@link oauth1.strategy.TokenMapStrategy#removeTemporaryToken(String)} would grow without bound.
+ * With a {@link oauth1.strategy.SealingTokenMapStrategy}, the pool holds sealed states rather than tokens, so their time-to-live must likewise cover the maximum token age.
+ * <br>
+ * Tokens older than the maximum age (which should be below the provider's temporary token lifetime) are discarded, and the freshest token is handed out first.
+ * If the pool is empty, {@link TemporaryTokenPool#poll()} returns null and the caller fetches a token itself.
+ * Failed refills are retried with exponential backoff.
+ * <br>
+ * Create a pool via {@link oauth1.OAuth1Generic#startTemporaryTokenPool(int, long, int)}.
+ */
+public class TemporaryTokenPool implements AutoCloseable {
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Fetches a temporary token from the provider and maps it to its secret, returning the token.
+     */
+    @FunctionalInterface
+    public interface TemporaryTokenSource {
+        @Nonnull
+        String fetchTemporaryToken() throws GetTemporaryTokenException, TokenMapException;
+
+        /**
+         * Removes the mapping of a fetched token which the pool discarded without handing out.
+         * By default, this does nothing, leaving the mapping to expire.
+         * @param temporaryToken The discarded temporary token.
+         * @throws TokenMapException If the removal failed.
+         */
+        default void discardTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+
+        }
+    }
+
+    private final @Nonnull TemporaryTokenSource source;
+    private final int targetSize;
+    private final long maxAgeNanos;
+    private final int refillConcurrency;
+    private final ScheduledExecutorService scheduler;
+
+    // Oldest tokens at the head, freshest at the tail.
+    private final Deque<PooledToken> tokens = new ConcurrentLinkedDeque<>();
+    // Discarded tokens whose mappings are yet to be removed.
+    private final Queue<String> pendingDiscards = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong backoffMillis = new AtomicLong();
+    private volatile boolean backingOff;
+    private volatile boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private volatile @Nullable Exception lastFetchFailure;
+
+    /**
+     * Constructs and starts filling a pool.
+     * @param source Fetches and maps a single temporary token.
+     * @param targetSize The number of tokens to keep in reserve.
+     * @param maxAgeMillis The age after which a token is discarded rather than handed out.
+     * @param refillConcurrency The maximum number of concurrent requests made to refill the pool.
+     */
+    public TemporaryTokenPool(@Nonnull TemporaryTokenSource source, int targetSize, long maxAgeMillis, int refillConcurrency) {
+        if (targetSize <= 0 || maxAgeMillis <= 0 || refillConcurrency <= 0) {
+            throw new IllegalArgumentException("targetSize, maxAgeMillis and refillConcurrency must be positive!");
+        }
+        this.source = source;
+        this.targetSize = targetSize;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.refillConcurrency = refillConcurrency;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(refillConcurrency, (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "oauth1-temporary-token-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Regularly drop tokens which aged out while nobody was polling, and top the pool back up.
+        long sweepMillis = Math.max(1, maxAgeMillis / 4);
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        refill();
+    }
+
+    /**
+     * Takes the freshest unexpired token from the pool, triggering a background refill.
+     * @return A temporary token already mapped to its secret, or null if the pool is empty.
+     */
+    @Nullable
+    public String poll() {
+        long now = System.nanoTime();
+        PooledToken token;
+        try {
+            while ((token = tokens.pollLast()) != null) {
+                available.decrementAndGet();
+                if (!token.isExpired(now, maxAgeNanos)) {
+                    hits.increment();
+                    return token.temporaryToken;
+                }
+                // The freshest token has expired, so all others have too.
+                discard(token);
+                discardExpired(now);
+            }
+            misses.increment();
+            return null;
+        }
+        finally {
+            refill();
+        }
+    }
+
+    /**
+     * @return The number of tokens currently in reserve, including any which expired since the last sweep.
+     */
+    public int getAvailable() {
+        return available.get();
+    }
+
+    /**
+     * @return The number of times a token was handed out from the pool.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of times the pool was empty when polled.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of tokens discarded for exceeding the maximum age.
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    /**
+     * @return The number of failed background fetches.
+     */
+    public long getFetchFailures() {
+        return fetchFailures.sum();
+    }
+
+    /**
+     * @return The exception of the most recent failed background fetch, or null if none failed.
+     */
+    @Nullable
+    public Exception getLastFetchFailure() {
+        return lastFetchFailure;
+    }
+
+    /**
+     * Stops refilling the pool and discards the tokens in reserve, removing their mappings on the calling thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        discardAll();
+    }
+
+    private void sweep() {
+        discardExpired(System.nanoTime());
+        refill();
+    }
+
+    private void discardExpired(long now) {
+        PooledToken oldest;
+        while ((oldest = tokens.peekFirst()) != null && oldest.isExpired(now, maxAgeNanos)) {
+            if (tokens.removeFirstOccurrence(oldest)) {
+                available.decrementAndGet();
+                discard(oldest);
+            }
+        }
+    }
+
+    /**
+     * Queues the removal of an expired token's mapping, off the polling thread as the strategy may block.
+     */
+    private void discard(@Nonnull PooledToken token) {
+        discarded.increment();
+        pendingDiscards.add(token.temporaryToken);
+        try {
+            scheduler.execute(this::removeDiscarded);
+        }
+        catch (RejectedExecutionException e) {
+            // Closed, so the removal is made by close().
+        }
+    }
+
+    private void discardAll() {
+        PooledToken token;
+        while ((token = tokens.pollFirst()) != null) {
+            available.decrementAndGet();
+            pendingDiscards.add(token.temporaryToken);
+        }
+        removeDiscarded();
+    }
+
+    private void removeDiscarded() {
+        String temporaryToken;
+        while ((temporaryToken = pendingDiscards.poll()) != null) {
+            try {
+                source.discardTemporaryToken(temporaryToken);
+            }
+            catch (TokenMapException | RuntimeException e) {
+                // The mapping is left to the strategy's own expiry (if any).
+            }
+        }
+    }
+
+    /**
+     * Starts as many background fetches as needed to reach the target size, within the concurrency limit.
+     */
+    private void refill() {
+        while (!closed && !backingOff) {
+            int current = inFlight.get();
+            if (current >= refillConcurrency || available.get() + current >= targetSize) {
+                return;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                try {
+                    scheduler.execute(this::fetchOne);
+                }
+                catch (RejectedExecutionException e) {
+                    inFlight.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void fetchOne() {
+        boolean succeeded = false;
+        try {
+            String temporaryToken = source.fetchTemporaryToken();
+            tokens.addLast(new PooledToken(temporaryToken, System.nanoTime()));
+            available.incrementAndGet();
+            backoffMillis.set(0);
+            succeeded = true;
+            if (closed) {
+                // Closed mid-fetch, after close() emptied the pool.
+                discardAll();
+            }
+        }
+        catch (GetTemporaryTokenException | TokenMapException | RuntimeException e) {
+            fetchFailures.increment();
+            lastFetchFailure = e;
+        }
+        finally {
+            inFlight.decrementAndGet();
+        }
+        if (succeeded) {
+            refill();
+        }
+        else {
+            scheduleRetry();
+        }
+    }
+
+    private void scheduleRetry() {
+        long delay = backoffMillis.updateAndGet(previous -> previous == 0 ? INITIAL_BACKOFF_MILLIS : Math.min(MAX_BACKOFF_MILLIS, previous * 2));
+        backingOff = true;
+        try {
+            scheduler.schedule(() -> {
+                backingOff = false;
+                refill();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // Closed.
+        }
+    }
+
+    private static final class PooledToken {
+        private final @Nonnull String temporaryToken;
+        private final long fetchedAtNanos;
+
+        private PooledToken(@Nonnull String temporaryToken, long fetchedAtNanos) {
+            this.temporaryToken = temporaryToken;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+
+        private boolean isExpired(long now, long maxAgeNanos) {
+            return now - fetchedAtNanos >= maxAgeNanos;
+        }
+    }
+}
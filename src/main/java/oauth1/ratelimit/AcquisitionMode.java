@@ -0,0 +1,20 @@
+package oauth1.ratelimit;
+
+/**
+ * How a {@link RateLimiter} behaves when no permit is available for a request.
+ */
+public enum AcquisitionMode {
+    /**
+     * Wait for a permit (up to the maximum wait), blocking the calling thread. Asynchronous requests block their executor thread.
+     */
+    BLOCKING,
+    /**
+     * Fail immediately if no permit is available.
+     */
+    FAIL_FAST,
+    /**
+     * Wait for a permit (up to the maximum wait). Synchronous requests block the calling thread,
+     * whereas asynchronous requests are queued and only handed to their executor once the permit is available, so no thread waits for it.
+     */
+    QUEUED
+}
@@ -0,0 +1,43 @@
+package oauth1.ratelimit;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The quotas enforced by a {@link RateLimiter}, per consumer key and per access token.
+ * <br>
+ * A rate of zero (or less) disables the corresponding quota.
+ */
+@Data
+public class RateLimitConfig {
+    public static final int DEFAULT_MAX_TRACKED_TOKENS = 100_000;
+
+    private double consumerPermitsPerSecond;
+    private int consumerBurst;
+    private double tokenPermitsPerSecond;
+    private int tokenBurst;
+    private @Nonnull AcquisitionMode mode;
+    private long maxWaitMillis;
+    /**
+     * The number of access tokens above which the buckets of idle access tokens are dropped.
+     */
+    private int maxTrackedTokens = DEFAULT_MAX_TRACKED_TOKENS;
+
+    /**
+     * @param consumerPermitsPerSecond The sustained rate of requests allowed per consumer key, or zero for no limit.
+     * @param consumerBurst The number of requests per consumer key allowed in a burst above the sustained rate.
+     * @param tokenPermitsPerSecond The sustained rate of requests allowed per access token, or zero for no limit.
+     * @param tokenBurst The number of requests per access token allowed in a burst above the sustained rate.
+     * @param mode How to behave when no permit is available.
+     * @param maxWaitMillis The maximum time to wait for a permit (ignored when failing fast), beyond which the request fails instead.
+     */
+    public RateLimitConfig(double consumerPermitsPerSecond, int consumerBurst, double tokenPermitsPerSecond, int tokenBurst, @Nonnull AcquisitionMode mode, long maxWaitMillis) {
+        this.consumerPermitsPerSecond = consumerPermitsPerSecond;
+        this.consumerBurst = consumerBurst;
+        this.tokenPermitsPerSecond = tokenPermitsPerSecond;
+        this.tokenBurst = tokenBurst;
+        this.mode = mode;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
@@ -0,0 +1,273 @@
+package oauth1.ratelimit;
+
+import com.google.api.client.http.HttpHeaders;
+import oauth1.exception.OAuthBackedRequestException;
+import oauth1.exception.RateLimitedOAuthBackedRequestException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rate limits OAuth-backed requests per consumer key and per access token, with a lock-free {@link TokenBucket} for each,
+ * so requests stay within the provider's quotas instead of bursting into {@code 429 Too Many Requests} responses.
+ * <br><br>
+ * A request takes a permit from both the bucket of its consumer key and that of its access token. If none is available, the request waits or fails as per the {@link AcquisitionMode}.
+ * <br>
+ * The buckets adapt to the provider's feedback on each response:
+ * a {@code Retry-After} header (on a 429 or 503 response) pauses the bucket until then,
+ * and {@code X-RateLimit-Remaining}/{@code X-RateLimit-Reset} (or {@code RateLimit-Remaining}/{@code RateLimit-Reset}) headers spread the remaining quota evenly until the window resets.
+ * Feedback applies to the bucket of the request's access token, or that of its consumer key for requests without one.
+ * <br>
+ * Set a limiter on an instance via {@link oauth1.OAuth1Generic#setRateLimiter(RateLimiter)} to apply it to the requests made through its pooled transport.
+ */
+public class RateLimiter {
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String[] REMAINING_HEADERS = {"X-RateLimit-Remaining", "RateLimit-Remaining"};
+    private static final String[] RESET_HEADERS = {"X-RateLimit-Reset", "RateLimit-Reset"};
+    // Reset values above this are epoch seconds rather than seconds until the reset.
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private final @Nonnull RateLimitConfig config;
+    private final Map<String, TokenBucket> consumerBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttledResponses = new LongAdder();
+
+    /**
+     * @param config The quotas to enforce, and how to behave when they are reached.
+     */
+    public RateLimiter(@Nonnull RateLimitConfig config) {
+        if (config.getConsumerPermitsPerSecond() > 0 && config.getConsumerBurst() <= 0
+                || config.getTokenPermitsPerSecond() > 0 && config.getTokenBurst() <= 0) {
+            throw new IllegalArgumentException("Bursts of enabled quotas must be positive!");
+        }
+        this.config = config;
+        this.maxWaitNanos = config.getMode() == AcquisitionMode.FAIL_FAST ? 0 : TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getMaxWaitMillis()));
+    }
+
+    /**
+     * @return The quotas enforced.
+     */
+    @Nonnull
+    public RateLimitConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Takes a permit for a request, waiting for it on the calling thread unless failing fast.
+     * @param consumerKey The consumer key of the request, or null for none.
+     * @param accessToken The access token of the request, or null for none.
+     * @throws RateLimitedOAuthBackedRequestException If no permit became available within the maximum wait.
+     * @throws OAuthBackedRequestException If interrupted while waiting.
+     */
+    public void acquire(@Nullable String consumerKey, @Nullable String accessToken) throws OAuthBackedRequestException {
+        TokenBucket consumerBucket = consumerBucket(consumerKey);
+        TokenBucket tokenBucket = tokenBucket(accessToken);
+        long wait = reserve(consumerBucket, tokenBucket);
+        long deadline = System.nanoTime() + wait;
+        for (long remaining = wait; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                refund(consumerBucket, tokenBucket);
+                Thread.currentThread().interrupt();
+                throw new OAuthBackedRequestException(new InterruptedException("Interrupted while waiting for a rate limit permit!"));
+            }
+        }
+    }
+
+    /**
+     * Takes a permit for a request without blocking the calling thread.
+     * @param consumerKey The consumer key of the request, or null for none.
+     * @param accessToken The access token of the request, or null for none.
+     * @return A future completed once the permit is available, or exceptionally with a {@link RateLimitedOAuthBackedRequestException} if none becomes available within the maximum wait.
+     */
+    @Nonnull
+    public CompletableFuture<Void> acquireAsync(@Nullable String consumerKey, @Nullable String accessToken) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long wait;
+        try {
+            wait = reserve(consumerBucket(consumerKey), tokenBucket(accessToken));
+        }
+        catch (RateLimitedOAuthBackedRequestException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (wait == 0) {
+            future.complete(null);
+        }
+        else {
+            SchedulerHolder.INSTANCE.schedule(() -> future.complete(null), wait, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Adapts the buckets of a request to the rate limiting feedback of its response.
+     * @param consumerKey The consumer key of the request, or null for none.
+     * @param accessToken The access token of the request, or null for none.
+     * @param statusCode The status code of the response.
+     * @param headers The headers of the response.
+     */
+    public void onResponse(@Nullable String consumerKey, @Nullable String accessToken, int statusCode, @Nonnull HttpHeaders headers) {
+        TokenBucket bucket = accessToken != null ? tokenBucket(accessToken) : null;
+        if (bucket == null) {
+            bucket = consumerBucket(consumerKey);
+        }
+        if (bucket == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (statusCode == 429 || statusCode == 503) {
+            throttledResponses.increment();
+            long retryAfterNanos = parseRetryAfterNanos(headers.getFirstHeaderStringValue(RETRY_AFTER));
+            if (retryAfterNanos > 0) {
+                bucket.pauseUntil(now + retryAfterNanos);
+            }
+        }
+        for (int i = 0; i < REMAINING_HEADERS.length; i++) {
+            String remaining = headers.getFirstHeaderStringValue(REMAINING_HEADERS[i]);
+            String reset = headers.getFirstHeaderStringValue(RESET_HEADERS[i]);
+            if (remaining != null && reset != null) {
+                try {
+                    bucket.limitRate(Long.parseLong(remaining.trim()), now + parseResetNanos(Long.parseLong(reset.trim())));
+                }
+                catch (NumberFormatException e) {
+                    // Not a quota window this limiter understands.
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of requests refused a permit.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of 429 and 503 responses observed.
+     */
+    public long getThrottledResponseCount() {
+        return throttledResponses.sum();
+    }
+
+    /**
+     * @return The number of access tokens whose buckets are currently tracked.
+     */
+    public int getTrackedTokenCount() {
+        return tokenBuckets.size();
+    }
+
+    private long reserve(@Nullable TokenBucket consumerBucket, @Nullable TokenBucket tokenBucket) throws RateLimitedOAuthBackedRequestException {
+        long consumerWait = consumerBucket == null ? 0 : consumerBucket.reserve(maxWaitNanos);
+        if (consumerWait < 0) {
+            throw rejection(-consumerWait);
+        }
+        long tokenWait = tokenBucket == null ? 0 : tokenBucket.reserve(maxWaitNanos);
+        if (tokenWait < 0) {
+            // Both permits are taken or neither.
+            if (consumerBucket != null) {
+                consumerBucket.refund();
+            }
+            throw rejection(-tokenWait);
+        }
+        return Math.max(consumerWait, tokenWait);
+    }
+
+    private static void refund(@Nullable TokenBucket consumerBucket, @Nullable TokenBucket tokenBucket) {
+        if (consumerBucket != null) {
+            consumerBucket.refund();
+        }
+        if (tokenBucket != null) {
+            tokenBucket.refund();
+        }
+    }
+
+    @Nonnull
+    private RateLimitedOAuthBackedRequestException rejection(long retryAfterNanos) {
+        rejected.increment();
+        return new RateLimitedOAuthBackedRequestException(TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+    }
+
+    @Nullable
+    private TokenBucket consumerBucket(@Nullable String consumerKey) {
+        if (consumerKey == null || config.getConsumerPermitsPerSecond() <= 0) {
+            return null;
+        }
+        return consumerBuckets.computeIfAbsent(consumerKey, k -> new TokenBucket(config.getConsumerPermitsPerSecond(), config.getConsumerBurst()));
+    }
+
+    @Nullable
+    private TokenBucket tokenBucket(@Nullable String accessToken) {
+        if (accessToken == null || config.getTokenPermitsPerSecond() <= 0) {
+            return null;
+        }
+        TokenBucket bucket = tokenBuckets.get(accessToken);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (tokenBuckets.size() >= config.getMaxTrackedTokens()) {
+            dropIdleTokenBuckets();
+        }
+        return tokenBuckets.computeIfAbsent(accessToken, k -> new TokenBucket(config.getTokenPermitsPerSecond(), config.getTokenBurst()));
+    }
+
+    private void dropIdleTokenBuckets() {
+        // An idle bucket is full and unadapted, so dropping it (and re-creating it on the next request) changes nothing.
+        long now = System.nanoTime();
+        tokenBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private static long parseRetryAfterNanos(@Nullable String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        String value = retryAfter.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+        }
+        catch (NumberFormatException e) {
+            // Otherwise an HTTP date.
+        }
+        try {
+            long millis = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+        catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static long parseResetNanos(long reset) {
+        if (reset > EPOCH_SECONDS_THRESHOLD) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, TimeUnit.SECONDS.toMillis(reset) - Instant.now().toEpochMilli()));
+        }
+        return TimeUnit.SECONDS.toNanos(reset);
+    }
+
+    private static final class SchedulerHolder {
+        private static final ScheduledExecutorService INSTANCE = newScheduler();
+
+        private static ScheduledExecutorService newScheduler() {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "oauth1-rate-limiter-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package oauth1.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, allowing a sustained rate of permits plus a burst.
+ * <br><br>
+ * The bucket is implemented as a generic cell rate algorithm: its whole state is the time at which it will next be full (the theoretical arrival time),
+ * so taking a permit is a single compare-and-set, and a permit can be reserved ahead of time by advancing that time past now.
+ * <br>
+ * The refill rate adapts to feedback from the provider: {@link TokenBucket#pauseUntil(long)} stops handing out permits until a given time (e.g. from a {@code Retry-After} header),
+ * and {@link TokenBucket#limitRate(long, long)} spreads the remaining quota of a window evenly until the window resets, after which the configured rate applies again.
+ */
+public class TokenBucket {
+    private final long baseIntervalNanos;
+    private final int burst;
+    private final AtomicLong theoreticalArrivalNanos;
+    private volatile long intervalNanos;
+    private volatile long adaptedUntilNanos;
+
+    /**
+     * @param permitsPerSecond The sustained rate of permits.
+     * @param burst The number of permits which may be taken at once by a full bucket.
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive!");
+        }
+        this.baseIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = burst;
+        this.intervalNanos = baseIntervalNanos;
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a permit, either now or (if allowed) by reserving one which becomes available within the given time.
+     * @param maxWaitNanos The maximum time the caller is willing to wait for the permit, or zero to only take an immediately available permit.
+     * @return If a permit was taken, the time to wait before using it (zero if immediately available), otherwise the negated time until one would be available.
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long interval = currentInterval(now);
+            long tolerance = tolerance(interval);
+            long current = theoreticalArrivalNanos.get();
+            long next = Math.max(current, now) + interval;
+            long wait = Math.max(0, next - now - tolerance);
+            if (wait > maxWaitNanos) {
+                return -wait;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Takes a permit only if immediately available.
+     * @return Whether a permit was taken.
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Returns a permit taken (or reserved) but not used.
+     */
+    public void refund() {
+        long interval = intervalNanos;
+        theoreticalArrivalNanos.getAndAdd(-interval);
+    }
+
+    /**
+     * Stops handing out permits until the given time, e.g. when the provider asked to retry after it.
+     * @param nanoTime The time (as per {@link System#nanoTime()}) until which no permits are handed out.
+     */
+    public void pauseUntil(long nanoTime) {
+        long interval = intervalNanos;
+        // The first permit is available once now + tolerance reaches the theoretical arrival time plus an interval.
+        long paused = nanoTime + tolerance(interval) - interval;
+        theoreticalArrivalNanos.accumulateAndGet(paused, (a, b) -> a - b > 0 ? a : b);
+    }
+
+    /**
+     * Adapts the rate to a quota window reported by the provider, spreading the remaining permits evenly until the window resets.
+     * The configured rate is never exceeded, and applies again once the window has reset.
+     * @param remaining The number of requests remaining in the window.
+     * @param resetNanoTime The time (as per {@link System#nanoTime()}) at which the window resets.
+     */
+    public void limitRate(long remaining, long resetNanoTime) {
+        long now = System.nanoTime();
+        if (resetNanoTime - now <= 0) {
+            return;
+        }
+        if (remaining <= 0) {
+            pauseUntil(resetNanoTime);
+            return;
+        }
+        adaptedUntilNanos = resetNanoTime;
+        intervalNanos = Math.max(baseIntervalNanos, (resetNanoTime - now) / remaining);
+    }
+
+    /**
+     * @return The current refill rate in permits per second, which may be below the configured rate while adapted to the provider's quota.
+     */
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / currentInterval(System.nanoTime());
+    }
+
+    /**
+     * @return Whether the bucket is full and running at its configured rate, i.e. indistinguishable from a new bucket.
+     */
+    boolean isIdle(long now) {
+        return currentInterval(now) == baseIntervalNanos && theoreticalArrivalNanos.get() - now <= 0;
+    }
+
+    private long currentInterval(long now) {
+        long interval = intervalNanos;
+        if (interval != baseIntervalNanos && now - adaptedUntilNanos >= 0) {
+            // The provider's window has reset.
+            intervalNanos = baseIntervalNanos;
+            return baseIntervalNanos;
+        }
+        return interval;
+    }
+
+    private long tolerance(long interval) {
+        // The burst is a fixed span of time at the configured rate, so a slowed down bucket also allows a proportionally smaller burst (but always one permit).
+        return Math.max(burst * baseIntervalNanos, interval);
+    }
+}
@@ -0,0 +1,134 @@
+package oauth1.resilience;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The circuit breaker of a single endpoint, over a sliding window of the outcomes of its most recent calls.
+ * <br>
+ * Every method is synchronized: a call only takes the lock briefly, before and after the request, never while it is in flight.
+ */
+final class CircuitBreaker {
+    /**
+     * Returned by {@link CircuitBreaker#acquire(long)} when the call is rejected.
+     */
+    static final long REJECTED = -1;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    // Ring buffer of the outcomes of the last calls, and the counts of failed and slow calls in it.
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failedCount;
+    private int slowCount;
+
+    private @Nonnull CircuitState state = CircuitState.CLOSED;
+    private long openedAtNanos;
+    /**
+     * Incremented on every transition, so the outcomes of calls let through before it are ignored.
+     */
+    private long generation;
+    private int probesStarted;
+    private int probesCompleted;
+    private int probesFailed;
+    private int probesSlow;
+
+    CircuitBreaker(@Nonnull IsolationConfig config) {
+        this.minimumCalls = config.getMinimumCalls();
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMillis());
+        this.halfOpenProbes = config.getHalfOpenProbes();
+        this.failed = new boolean[config.getSlidingWindowSize()];
+        this.slow = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return The generation to record the outcome of the call with, or {@link CircuitBreaker#REJECTED}.
+     */
+    synchronized long acquire(long nowNanos) {
+        if (state == CircuitState.OPEN) {
+            if (nowNanos - openedAtNanos < openDurationNanos) {
+                return REJECTED;
+            }
+            transition(CircuitState.HALF_OPEN, nowNanos);
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                return REJECTED;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    /**
+     * Records the outcome of a call let through by {@link CircuitBreaker#acquire(long)}.
+     */
+    synchronized void record(long callGeneration, boolean callFailed, boolean callSlow, long nowNanos) {
+        if (callGeneration != generation) {
+            return;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            probesCompleted++;
+            probesFailed += callFailed ? 1 : 0;
+            probesSlow += callSlow ? 1 : 0;
+            if (probesCompleted >= halfOpenProbes) {
+                boolean healthy = probesFailed < failureRateThreshold * probesCompleted && probesSlow < slowCallRateThreshold * probesCompleted;
+                transition(healthy ? CircuitState.CLOSED : CircuitState.OPEN, nowNanos);
+            }
+            return;
+        }
+        if (recorded == failed.length) {
+            failedCount -= failed[next] ? 1 : 0;
+            slowCount -= slow[next] ? 1 : 0;
+        }
+        else {
+            recorded++;
+        }
+        failed[next] = callFailed;
+        slow[next] = callSlow;
+        failedCount += callFailed ? 1 : 0;
+        slowCount += callSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+        if (recorded >= minimumCalls && (failedCount >= failureRateThreshold * recorded || slowCount >= slowCallRateThreshold * recorded)) {
+            transition(CircuitState.OPEN, nowNanos);
+        }
+    }
+
+    /**
+     * @return The time until an open circuit lets probes through, or zero if it is not open.
+     */
+    synchronized long remainingOpenNanos(long nowNanos) {
+        return state == CircuitState.OPEN ? Math.max(0, openDurationNanos - (nowNanos - openedAtNanos)) : 0;
+    }
+
+    @Nonnull
+    synchronized CircuitState getState() {
+        return state;
+    }
+
+    private void transition(@Nonnull CircuitState to, long nowNanos) {
+        state = to;
+        generation++;
+        openedAtNanos = nowNanos;
+        probesStarted = 0;
+        probesCompleted = 0;
+        probesFailed = 0;
+        probesSlow = 0;
+        if (to == CircuitState.CLOSED) {
+            // Start afresh, rather than with the outcomes which opened the circuit.
+            next = 0;
+            recorded = 0;
+            failedCount = 0;
+            slowCount = 0;
+        }
+    }
+}
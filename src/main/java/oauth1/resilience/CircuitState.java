@@ -0,0 +1,19 @@
+package oauth1.resilience;
+
+/**
+ * The state of the circuit breaker of an endpoint.
+ */
+public enum CircuitState {
+    /**
+     * Calls are let through, and their outcomes recorded.
+     */
+    CLOSED,
+    /**
+     * Calls are rejected immediately, until the open duration has elapsed.
+     */
+    OPEN,
+    /**
+     * A few probe calls are let through to decide whether to close the circuit again, and other calls are rejected.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,201 @@
+package oauth1.resilience;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponseException;
+import oauth1.exception.EndpointUnavailableException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Isolates the endpoints of providers from one another, with a circuit breaker and a bulkhead per endpoint,
+ * so a degraded endpoint fails fast instead of holding the calling threads for its full timeouts.
+ * <br><br>
+ * The endpoints are the request token URL and access token URL of each instance, and the origin (scheme, host and port) of each resource URL.
+ * A call is a failure if it fails at the connection level (e.g. a timeout or refused connection) or the provider responds with a 5xx status, and is slow if it takes at least the slow call duration.
+ * The circuit of an endpoint opens once its failure or slow call rate over the sliding window reaches its threshold, rejecting calls for the open duration,
+ * then lets a few probes through and closes again if they are healthy. The bulkhead of an endpoint rejects calls beyond its maximum number of concurrent calls.
+ * <br>
+ * Rejected calls fail immediately with a subclass of the usual exception (e.g. {@link oauth1.exception.unavailable.EndpointUnavailableGetAccessTokenException}), caused by an {@link EndpointUnavailableException}.
+ * <br><br>
+ * Set an isolator on an instance via {@link oauth1.OAuth1Generic#setEndpointIsolator(EndpointIsolator)}. An isolator may be shared by several instances, e.g. by all tenants, as its state is kept per endpoint.
+ */
+public class EndpointIsolator {
+    private final @Nonnull IsolationConfig config;
+    private final long slowCallDurationNanos;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final LongAdder circuitOpenRejections = new LongAdder();
+    private final LongAdder bulkheadFullRejections = new LongAdder();
+
+    /**
+     * Constructs an isolator with the default {@link IsolationConfig}.
+     */
+    public EndpointIsolator() {
+        this(new IsolationConfig());
+    }
+
+    /**
+     * @param config The thresholds and bulkhead size applied to every endpoint, read once on construction.
+     */
+    public EndpointIsolator(@Nonnull IsolationConfig config) {
+        if (config.getSlidingWindowSize() <= 0 || config.getMinimumCalls() <= 0 || config.getMinimumCalls() > config.getSlidingWindowSize()
+                || config.getHalfOpenProbes() <= 0 || config.getOpenDurationMillis() < 0 || config.getSlowCallDurationMillis() <= 0) {
+            throw new IllegalArgumentException("The sliding window, minimum calls (at most the window), probes and slow call duration must be positive, and the open duration non-negative!");
+        }
+        this.config = config;
+        this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMillis());
+    }
+
+    /**
+     * @return The thresholds and bulkhead size applied to every endpoint.
+     */
+    @Nonnull
+    public IsolationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Lets a call to the given endpoint through, or rejects it. The returned permit must be released once the call completes.
+     * @param endpoint The endpoint, e.g. from {@link EndpointIsolator#endpointOf(GenericUrl, boolean)}.
+     * @return The permit of the call.
+     * @throws EndpointUnavailableException If the circuit of the endpoint is open, or its bulkhead is full.
+     */
+    @Nonnull
+    public Permit acquire(@Nonnull String endpoint) throws EndpointUnavailableException {
+        Endpoint state = endpoints.computeIfAbsent(endpoint, (String key) -> new Endpoint(config));
+        // Take the bulkhead first, so a rejected call does not use up a half-open probe.
+        if (state.bulkhead != null && !state.bulkhead.tryAcquire()) {
+            bulkheadFullRejections.increment();
+            throw new EndpointUnavailableException(endpoint, EndpointUnavailableException.Reason.BULKHEAD_FULL, 0);
+        }
+        long now = System.nanoTime();
+        long generation = state.breaker.acquire(now);
+        if (generation == CircuitBreaker.REJECTED) {
+            if (state.bulkhead != null) {
+                state.bulkhead.release();
+            }
+            circuitOpenRejections.increment();
+            throw new EndpointUnavailableException(endpoint, EndpointUnavailableException.Reason.CIRCUIT_OPEN, TimeUnit.NANOSECONDS.toMillis(state.breaker.remainingOpenNanos(now)));
+        }
+        return new Permit(this, state, generation, now);
+    }
+
+    /**
+     * @param endpoint The endpoint.
+     * @return The state of the circuit of the given endpoint, which is closed if it was never called.
+     */
+    @Nonnull
+    public CircuitState getState(@Nonnull String endpoint) {
+        Endpoint state = endpoints.get(endpoint);
+        return state == null ? CircuitState.CLOSED : state.breaker.getState();
+    }
+
+    /**
+     * @return A snapshot of the state of the circuit of every endpoint called so far.
+     */
+    @Nonnull
+    public Map<String, CircuitState> getStates() {
+        Map<String, CircuitState> states = new LinkedHashMap<>();
+        endpoints.forEach((String endpoint, Endpoint state) -> states.put(endpoint, state.breaker.getState()));
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * @return The number of calls rejected as their circuit was open (or half-open with all its probes in flight).
+     */
+    public long getCircuitOpenRejections() {
+        return circuitOpenRejections.sum();
+    }
+
+    /**
+     * @return The number of calls rejected as their bulkhead was full.
+     */
+    public long getBulkheadFullRejections() {
+        return bulkheadFullRejections.sum();
+    }
+
+    /**
+     * @param url The URL called.
+     * @param withPath Whether the path is part of the endpoint, as for token URLs, rather than only the origin, as for resource URLs.
+     * @return The endpoint of the URL: its scheme, host, port (if not the default) and optionally path, without the query.
+     */
+    @Nonnull
+    public static String endpointOf(@Nonnull GenericUrl url, boolean withPath) {
+        StringBuilder endpoint = new StringBuilder().append(url.getScheme()).append("://").append(url.getHost());
+        if (url.getPort() != -1) {
+            endpoint.append(':').append(url.getPort());
+        }
+        if (withPath) {
+            endpoint.append(url.getRawPath());
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * @param e The exception a call failed with, or null if it completed.
+     * @param statusCode The status code of the response, or zero if none.
+     * @return Whether the call counts as a failure of the endpoint: a connection-level failure or a 5xx response, but not a 4xx response nor a local error.
+     */
+    public static boolean isFailure(@Nullable Throwable e, int statusCode) {
+        if (e instanceof HttpResponseException) {
+            return ((HttpResponseException) e).getStatusCode() >= 500;
+        }
+        return e instanceof IOException || statusCode >= 500;
+    }
+
+    /**
+     * The permission given to a single call, recording its outcome once released.
+     */
+    public static final class Permit {
+        private final @Nonnull EndpointIsolator isolator;
+        private final @Nonnull Endpoint endpoint;
+        private final long generation;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(@Nonnull EndpointIsolator isolator, @Nonnull Endpoint endpoint, long generation, long startNanos) {
+            this.isolator = isolator;
+            this.endpoint = endpoint;
+            this.generation = generation;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Records the outcome of the call, and frees its place in the bulkhead. Only the first release of a permit has an effect.
+         * @param failed Whether the call failed, e.g. as per {@link EndpointIsolator#isFailure(Throwable, int)}.
+         */
+        public void release(boolean failed) {
+            if (released) {
+                return;
+            }
+            released = true;
+            long now = System.nanoTime();
+            endpoint.breaker.record(generation, failed, now - startNanos >= isolator.slowCallDurationNanos, now);
+            if (endpoint.bulkhead != null) {
+                endpoint.bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * The circuit breaker and bulkhead of a single endpoint.
+     */
+    private static final class Endpoint {
+        private final @Nonnull CircuitBreaker breaker;
+        private final @Nullable Semaphore bulkhead;
+
+        private Endpoint(@Nonnull IsolationConfig config) {
+            this.breaker = new CircuitBreaker(config);
+            this.bulkhead = config.getMaxConcurrentCalls() > 0 ? new Semaphore(config.getMaxConcurrentCalls()) : null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package oauth1.resilience;
+
+import lombok.Data;
+
+/**
+ * A policy for hedging idempotent requests: once a request has been outstanding for the hedge delay, a second, freshly signed copy is sent, and whichever responds first is used.
+ * <br>
+ * The hedge delay is either fixed, or adapts to a percentile of the observed latencies (falling back to the fixed delay until enough latencies have been observed).
+ * The budget caps the extra load: at most the given fraction of requests (plus a small burst) are hedged.
+ */
+@Data
+public class HedgingPolicy {
+    public static final int DEFAULT_BUDGET_BURST = 10;
+
+    private long hedgeDelayMillis;
+    private double hedgeDelayPercentile;
+    private double budgetRatio;
+    /**
+     * The number of hedges which may be sent in a burst, on top of the budget ratio.
+     */
+    private int budgetBurst = DEFAULT_BUDGET_BURST;
+
+    /**
+     * @param hedgeDelayMillis The delay after which a request is hedged, or the initial delay if adapting to a percentile.
+     * @param hedgeDelayPercentile The percentile (e.g. 95.0) of observed latencies to use as the delay, or zero to always use the fixed delay.
+     * @param budgetRatio The maximum fraction of requests which are hedged (e.g. 0.05).
+     */
+    public HedgingPolicy(long hedgeDelayMillis, double hedgeDelayPercentile, double budgetRatio) {
+        if (hedgeDelayMillis < 0 || hedgeDelayPercentile < 0 || hedgeDelayPercentile > 100 || budgetRatio < 0 || budgetRatio > 1) {
+            throw new IllegalArgumentException("hedgeDelayMillis must be non-negative, hedgeDelayPercentile within [0, 100] and budgetRatio within [0, 1]!");
+        }
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+        this.budgetRatio = budgetRatio;
+    }
+}
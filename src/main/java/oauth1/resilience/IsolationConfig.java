@@ -0,0 +1,83 @@
+package oauth1.resilience;
+
+import lombok.Data;
+
+/**
+ * The thresholds of the circuit breaker and the size of the bulkhead an {@link EndpointIsolator} keeps per endpoint.
+ * <br>
+ * A circuit opens once at least {@link IsolationConfig#minimumCalls} of the last {@link IsolationConfig#slidingWindowSize} calls were recorded,
+ * and the rate of failed calls or of slow calls among them reaches its threshold.
+ */
+@Data
+public class IsolationConfig {
+    public static final int DEFAULT_SLIDING_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+    public static final long DEFAULT_SLOW_CALL_DURATION_MILLIS = 2_000;
+    public static final long DEFAULT_OPEN_DURATION_MILLIS = 10_000;
+    public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 64;
+
+    /**
+     * The number of most recent calls the failure and slow call rates are computed over.
+     */
+    private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+    /**
+     * The number of calls which must be recorded before the circuit may open.
+     */
+    private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    /**
+     * The rate of failed calls, between 0 and 1, at which the circuit opens.
+     */
+    private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    /**
+     * The rate of slow calls, between 0 and 1, at which the circuit opens.
+     */
+    private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    /**
+     * The duration from which a call counts as slow, whether or not it succeeded.
+     */
+    private long slowCallDurationMillis = DEFAULT_SLOW_CALL_DURATION_MILLIS;
+    /**
+     * How long an open circuit rejects calls before letting probes through.
+     */
+    private long openDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+    /**
+     * The number of probe calls let through by a half-open circuit. The circuit closes if they are healthy, and opens again otherwise.
+     */
+    private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+    /**
+     * The maximum number of concurrent calls per endpoint, beyond which calls are rejected immediately, or zero for no bulkhead.
+     */
+    private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+
+    /**
+     * Constructs a configuration with the default thresholds: circuits open at a 50% failure rate or 80% rate of calls slower than 2 seconds over the last 50 calls (once 20 were made),
+     * stay open for 10 seconds, then let 3 probes through. At most 64 calls run concurrently per endpoint.
+     */
+    public IsolationConfig() {
+
+    }
+
+    /**
+     * @param slidingWindowSize The number of most recent calls the rates are computed over.
+     * @param minimumCalls The number of calls which must be recorded before the circuit may open.
+     * @param failureRateThreshold The rate of failed calls at which the circuit opens.
+     * @param slowCallRateThreshold The rate of slow calls at which the circuit opens.
+     * @param slowCallDurationMillis The duration from which a call counts as slow.
+     * @param openDurationMillis How long an open circuit rejects calls.
+     * @param halfOpenProbes The number of probe calls let through by a half-open circuit.
+     * @param maxConcurrentCalls The maximum number of concurrent calls per endpoint, or zero for no bulkhead.
+     */
+    public IsolationConfig(int slidingWindowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold, long slowCallDurationMillis, long openDurationMillis, int halfOpenProbes, int maxConcurrentCalls) {
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDurationMillis = slowCallDurationMillis;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+}
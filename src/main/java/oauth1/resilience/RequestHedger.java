@@ -0,0 +1,259 @@
+package oauth1.resilience;
+
+import com.google.api.client.http.HttpResponse;
+import oauth1.async.AsyncExecutors;
+import oauth1.exception.OAuthBackedRequestException;
+import oauth1.metrics.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Executes idempotent requests as per a {@link HedgingPolicy}, cutting the tail latency caused by the occasional stalled connection.
+ * <br><br>
+ * Each attempt runs on the given executor, so the caller can take whichever response arrives first.
+ * The losing attempt is cancelled: if it has not started yet, it never does, otherwise its response is disconnected as soon as it arrives, releasing its connection.
+ * <br>
+ * A request failing before the hedge delay is not hedged, as the failure is not a stall. If one attempt fails after hedging, the other's outcome is used.
+ * <br>
+ * Set a hedger on an instance via {@link oauth1.OAuth1Generic#setRequestHedger(RequestHedger)} to hedge the GET and HEAD requests made through its pooled transport.
+ */
+public class RequestHedger {
+    private static final long BUDGET_UNIT = 1_000_000;
+    private static final int MIN_SAMPLES = 100;
+    private static final int REFRESH_INTERVAL = 100;
+    private static final int WINDOW_SAMPLES = 10_000;
+
+    private final @Nonnull HedgingPolicy policy;
+    private final @Nonnull Executor executor;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong budget;
+    private final long budgetPerRequest;
+    private final long maxBudget;
+    private volatile long hedgeDelayNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * Constructs a hedger running attempts on {@link AsyncExecutors#defaultExecutor()}.
+     * @param policy The hedging policy.
+     */
+    public RequestHedger(@Nonnull HedgingPolicy policy) {
+        this(policy, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param policy The hedging policy.
+     * @param executor The executor the attempts run on. It should allow at least twice the number of concurrent requests to run at once.
+     */
+    public RequestHedger(@Nonnull HedgingPolicy policy, @Nonnull Executor executor) {
+        this.policy = policy;
+        this.executor = executor;
+        // The budget is kept in millionths of a hedge, so fractional ratios accumulate exactly enough.
+        this.budgetPerRequest = (long) (policy.getBudgetRatio() * BUDGET_UNIT);
+        this.maxBudget = Math.max(1, policy.getBudgetBurst()) * BUDGET_UNIT;
+        this.budget = new AtomicLong(maxBudget);
+        this.hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(policy.getHedgeDelayMillis());
+    }
+
+    /**
+     * Executes a request, hedging it if it is still outstanding after the hedge delay and the budget allows.
+     * @param attempt Makes a single attempt of the request. It is called once per attempt, and must sign each afresh.
+     * @return The first successful response.
+     * @throws OAuthBackedRequestException If all attempts failed, or the calling thread was interrupted.
+     */
+    @Nonnull
+    public HttpResponse execute(@Nonnull AsyncExecutors.BlockingCall<HttpResponse, OAuthBackedRequestException> attempt) throws OAuthBackedRequestException {
+        requests.increment();
+        budget.accumulateAndGet(budgetPerRequest, (current, added) -> Math.min(maxBudget, current + added));
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse> primary = submit(attempt);
+        try {
+            HttpResponse response = primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+            recordLatency(System.nanoTime() - start);
+            return response;
+        }
+        catch (TimeoutException e) {
+            // Stalled, so consider hedging.
+        }
+        catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+        catch (InterruptedException e) {
+            abandon(primary);
+            Thread.currentThread().interrupt();
+            throw new OAuthBackedRequestException(e);
+        }
+
+        if (!tryTakeBudget()) {
+            return await(primary, start);
+        }
+        hedges.increment();
+        CompletableFuture<HttpResponse> hedge = submit(attempt);
+
+        // Complete with the first successful response, or the last failure.
+        CompletableFuture<HttpResponse> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<HttpResponse, Throwable> race = (HttpResponse response, Throwable failure) -> {
+            if (failure == null) {
+                if (!first.complete(response)) {
+                    disconnect(response);
+                }
+            }
+            else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(failure);
+            }
+        };
+        primary.whenComplete(race);
+        hedge.whenComplete(race);
+        HttpResponse response;
+        try {
+            response = await(first, start);
+        }
+        finally {
+            // Cancel the loser (or both, if interrupted). A cancelled attempt never starts, or disconnects its response once it arrives.
+            primary.cancel(false);
+            hedge.cancel(false);
+        }
+        if (!primary.isDone() || primary.isCompletedExceptionally() || primary.join() != response) {
+            hedgeWins.increment();
+        }
+        return response;
+    }
+
+    /**
+     * @return The current hedge delay, in nanoseconds.
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * @return The number of requests executed.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return The number of hedges sent.
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return The number of requests won by their hedge.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    @Nonnull
+    private HttpResponse await(@Nonnull CompletableFuture<HttpResponse> future, long start) throws OAuthBackedRequestException {
+        try {
+            HttpResponse response = future.get();
+            recordLatency(System.nanoTime() - start);
+            return response;
+        }
+        catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+        catch (InterruptedException e) {
+            abandon(future);
+            Thread.currentThread().interrupt();
+            throw new OAuthBackedRequestException(e);
+        }
+    }
+
+    private boolean tryTakeBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        if (policy.getHedgeDelayPercentile() <= 0) {
+            return;
+        }
+        latencies.record(nanos);
+        long count = latencies.getCount();
+        if (count >= MIN_SAMPLES && count % REFRESH_INTERVAL == 0) {
+            hedgeDelayNanos = latencies.snapshot().getValueAtPercentile(policy.getHedgeDelayPercentile());
+            if (count >= WINDOW_SAMPLES) {
+                // Start a new window, so the delay follows changes in latency.
+                latencies.reset();
+            }
+        }
+    }
+
+    /**
+     * Runs an attempt on the executor. If the returned future is cancelled before the attempt starts, it never does,
+     * and if cancelled while the attempt is running, the attempt's response is disconnected once it arrives.
+     */
+    @Nonnull
+    private CompletableFuture<HttpResponse> submit(@Nonnull AsyncExecutors.BlockingCall<HttpResponse, OAuthBackedRequestException> attempt) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    // Cancelled before starting.
+                    return;
+                }
+                try {
+                    HttpResponse response = attempt.call();
+                    if (!future.complete(response)) {
+                        disconnect(response);
+                    }
+                }
+                catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            future.completeExceptionally(new OAuthBackedRequestException(e));
+        }
+        return future;
+    }
+
+    /**
+     * Cancels a future whose response will not be returned, disconnecting the response if it already arrived.
+     */
+    private static void abandon(@Nonnull CompletableFuture<HttpResponse> future) {
+        if (!future.cancel(false) && !future.isCompletedExceptionally()) {
+            disconnect(future.join());
+        }
+    }
+
+    private static void disconnect(@Nonnull HttpResponse response) {
+        try {
+            response.disconnect();
+        }
+        catch (IOException e) {
+            // The response is not used.
+        }
+    }
+
+    @Nonnull
+    private static OAuthBackedRequestException unwrap(@Nonnull ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof OAuthBackedRequestException) {
+            return (OAuthBackedRequestException) cause;
+        }
+        return new OAuthBackedRequestException(cause);
+    }
+}
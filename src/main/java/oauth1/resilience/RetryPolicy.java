@@ -0,0 +1,56 @@
+package oauth1.resilience;
+
+import com.google.api.client.http.HttpResponseException;
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A policy retrying the token requests of {@link oauth1.OAuth1Generic#begin()} and {@link oauth1.OAuth1Generic#authorised(String, String)}
+ * on connection-level failures (e.g. a refused connection, a timeout, or a connection closed without a response), but never on error responses from the provider.
+ * <br>
+ * Retries back off exponentially with full jitter, so clients failing together do not retry together. Each retry is freshly signed.
+ * <br>
+ * Note that a timeout does not prove the provider did not process the request, so a retried access token request may be rejected if the provider already exchanged the temporary token.
+ */
+@Data
+public class RetryPolicy {
+    private int maxAttempts;
+    private long initialBackoffMillis;
+    private long maxBackoffMillis;
+
+    /**
+     * @param maxAttempts The maximum number of attempts, including the first.
+     * @param initialBackoffMillis The upper bound of the backoff before the first retry, doubled for each further retry.
+     * @param maxBackoffMillis The maximum upper bound of the backoff.
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts <= 0 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("maxAttempts must be positive, and backoffs non-negative and ordered!");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param failedAttempts The number of attempts which failed so far.
+     * @return A random backoff before the next attempt, between zero and the exponentially growing upper bound.
+     */
+    public long backoffMillis(int failedAttempts) {
+        int doublings = Math.max(0, Math.min(failedAttempts - 1, 62));
+        // Doubling past the maximum (or overflowing) is capped at the maximum.
+        long bound = initialBackoffMillis <= (maxBackoffMillis >> doublings) ? initialBackoffMillis << doublings : maxBackoffMillis;
+        return bound == 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    /**
+     * @param e The exception a request failed with.
+     * @return Whether the failure happened at the connection level, rather than the provider responding with an error.
+     */
+    public static boolean isConnectionFailure(@Nonnull IOException e) {
+        return !(e instanceof HttpResponseException);
+    }
+}
@@ -0,0 +1,181 @@
+package oauth1.signer;
+
+import com.google.api.client.auth.oauth.OAuthHmacSigner;
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.auth.oauth.OAuthSigner;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * An HMAC-SHA1 {@link OAuthSigner} producing the same signatures as {@link OAuthHmacSigner}, for use as {@link OAuthParameters#signer}.
+ * <br><br>
+ * Unlike {@link OAuthHmacSigner}, the signing key is derived once on construction rather than on every signature,
+ * each thread reuses a single {@link Mac} instance (only re-initialising it when it last signed with a different key),
+ * and the signature base string, digest and Base64 output are written into per-thread reusable buffers.
+ * In steady state, signing allocates little beyond the returned signature string.
+ * <br>
+ * Instances are immutable and thread-safe. Obtain them via {@link HmacSignerCache} to share them between requests with the same secrets.
+ */
+public final class CachedHmacSigner implements OAuthSigner {
+    public static final String SIGNATURE_METHOD = "HMAC-SHA1";
+    private static final String ALGORITHM = "HmacSHA1";
+    private static final char[] BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private static final ThreadLocal<SigningState> SIGNING_STATE = new ThreadLocal<>();
+
+    @Getter
+    private final @Nullable String clientSharedSecret;
+    @Getter
+    private final @Nullable String tokenSharedSecret;
+    private final @Nonnull SecretKeySpec key;
+
+    /**
+     * @param clientSharedSecret The consumer secret, or null for none.
+     * @param tokenSharedSecret The token secret, or null for none (e.g. when requesting a temporary token).
+     */
+    public CachedHmacSigner(@Nullable String clientSharedSecret, @Nullable String tokenSharedSecret) {
+        this.clientSharedSecret = clientSharedSecret;
+        this.tokenSharedSecret = tokenSharedSecret;
+        this.key = new SecretKeySpec(deriveKey(clientSharedSecret, tokenSharedSecret), ALGORITHM);
+    }
+
+    @Nonnull
+    public String getSignatureMethod() {
+        return SIGNATURE_METHOD;
+    }
+
+    @Nonnull
+    public String computeSignature(@Nonnull String signatureBaseString) throws GeneralSecurityException {
+        SigningState state = signingState();
+        int length = state.encode(signatureBaseString);
+        return sign(state, state.input, 0, length);
+    }
+
+    /**
+     * Computes the signature of a signature base string already encoded as UTF-8 bytes.
+     * @param signatureBaseString Buffer holding the UTF-8 encoded signature base string.
+     * @param offset Offset of the signature base string within the buffer.
+     * @param length Length in bytes of the signature base string.
+     * @return The Base64 encoded signature.
+     * @throws GeneralSecurityException If the MAC could not be computed.
+     */
+    @Nonnull
+    public String computeSignature(@Nonnull byte[] signatureBaseString, int offset, int length) throws GeneralSecurityException {
+        return sign(signingState(), signatureBaseString, offset, length);
+    }
+
+    @Nonnull
+    private String sign(@Nonnull SigningState state, @Nonnull byte[] input, int offset, int length) throws GeneralSecurityException {
+        Mac mac = state.mac;
+        if (state.key != key) {
+            mac.init(key);
+            state.key = key;
+        }
+        mac.update(input, offset, length);
+        mac.doFinal(state.digest, 0);
+        return state.encodeDigest();
+    }
+
+    @Nonnull
+    private static SigningState signingState() throws GeneralSecurityException {
+        SigningState state = SIGNING_STATE.get();
+        if (state == null) {
+            state = new SigningState(Mac.getInstance(ALGORITHM));
+            SIGNING_STATE.set(state);
+        }
+        return state;
+    }
+
+    /**
+     * Derives the key exactly as {@link OAuthHmacSigner} does: the escaped consumer secret and escaped token secret, joined by '&amp;'.
+     */
+    @Nonnull
+    private static byte[] deriveKey(@Nullable String clientSharedSecret, @Nullable String tokenSharedSecret) {
+        StringBuilder keyBuf = new StringBuilder();
+        if (clientSharedSecret != null) {
+            keyBuf.append(OAuthParameters.escape(clientSharedSecret));
+        }
+        keyBuf.append('&');
+        if (tokenSharedSecret != null) {
+            keyBuf.append(OAuthParameters.escape(tokenSharedSecret));
+        }
+        return keyBuf.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Per-thread signing state: the {@link Mac}, the key it was last initialised with, and reusable buffers.
+     */
+    private static final class SigningState {
+        private final @Nonnull Mac mac;
+        private @Nullable SecretKeySpec key;
+        private @Nonnull byte[] input = new byte[1024];
+        private final @Nonnull byte[] digest;
+        private final @Nonnull char[] output;
+
+        private SigningState(@Nonnull Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+            this.output = new char[(digest.length + 2) / 3 * 4];
+        }
+
+        /**
+         * Encodes the given string as UTF-8 into {@link SigningState#input}, growing it if needed.
+         * @return The number of bytes written.
+         */
+        private int encode(@Nonnull String value) {
+            int length = value.length();
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    // Signature base strings are percent-encoded, so are ASCII in practice; fall back for anything else.
+                    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                    if (input.length < encoded.length) {
+                        input = encoded;
+                    }
+                    else {
+                        System.arraycopy(encoded, 0, input, 0, encoded.length);
+                    }
+                    return encoded.length;
+                }
+                input[i] = (byte) c;
+            }
+            return length;
+        }
+
+        /**
+         * Base64 encodes {@link SigningState#digest} (with padding, without line breaks) as {@link OAuthHmacSigner} does.
+         */
+        @Nonnull
+        private String encodeDigest() {
+            byte[] in = digest;
+            char[] out = output;
+            int o = 0;
+            int i = 0;
+            for (; i + 2 < in.length; i += 3) {
+                int bits = (in[i] & 0xff) << 16 | (in[i + 1] & 0xff) << 8 | (in[i + 2] & 0xff);
+                out[o++] = BASE64_ALPHABET[bits >>> 18];
+                out[o++] = BASE64_ALPHABET[(bits >>> 12) & 0x3f];
+                out[o++] = BASE64_ALPHABET[(bits >>> 6) & 0x3f];
+                out[o++] = BASE64_ALPHABET[bits & 0x3f];
+            }
+            int remaining = in.length - i;
+            if (remaining > 0) {
+                int bits = (in[i] & 0xff) << 16 | (remaining == 2 ? (in[i + 1] & 0xff) << 8 : 0);
+                out[o++] = BASE64_ALPHABET[bits >>> 18];
+                out[o++] = BASE64_ALPHABET[(bits >>> 12) & 0x3f];
+                out[o++] = remaining == 2 ? BASE64_ALPHABET[(bits >>> 6) & 0x3f] : '=';
+                out[o++] = '=';
+            }
+            return new String(out, 0, o);
+        }
+    }
+}
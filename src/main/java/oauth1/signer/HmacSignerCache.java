@@ -0,0 +1,109 @@
+package oauth1.signer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe cache of {@link CachedHmacSigner}s per (consumer secret, token secret) pair, so the signing key of a pair is derived only once.
+ * <br>
+ * The cache is bounded: once full, arbitrary signers are dropped to make room. A dropped signer remains usable by whoever holds it,
+ * and is simply re-created on the next lookup of its pair.
+ */
+public class HmacSignerCache {
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final ConcurrentHashMap<SecretPair, CachedHmacSigner> signers = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    /**
+     * Constructs a cache holding at most 10,000 signers.
+     */
+    public HmacSignerCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum number of signers held at once.
+     */
+    public HmacSignerCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive!");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Obtains the signer for the given secrets, creating and caching it if absent.
+     * @param clientSharedSecret The consumer secret, or null for none.
+     * @param tokenSharedSecret The token secret, or null for none.
+     * @return A signer for the given secrets.
+     */
+    @Nonnull
+    public CachedHmacSigner getSigner(@Nullable String clientSharedSecret, @Nullable String tokenSharedSecret) {
+        SecretPair pair = new SecretPair(clientSharedSecret, tokenSharedSecret);
+        CachedHmacSigner signer = signers.get(pair);
+        if (signer != null) {
+            return signer;
+        }
+        if (signers.size() >= maxSize) {
+            evict();
+        }
+        return signers.computeIfAbsent(pair, p -> new CachedHmacSigner(p.clientSharedSecret, p.tokenSharedSecret));
+    }
+
+    /**
+     * Removes the signer for the given secrets, e.g. once a token has been revoked or a consumer secret rotated.
+     * @param clientSharedSecret The consumer secret, or null for none.
+     * @param tokenSharedSecret The token secret, or null for none.
+     */
+    public void invalidate(@Nullable String clientSharedSecret, @Nullable String tokenSharedSecret) {
+        signers.remove(new SecretPair(clientSharedSecret, tokenSharedSecret));
+    }
+
+    /**
+     * @return The number of signers currently cached.
+     */
+    public int size() {
+        return signers.size();
+    }
+
+    private void evict() {
+        // Drop an eighth of the cache at once, so eviction is amortised over many insertions.
+        int toRemove = Math.max(1, maxSize / 8);
+        Iterator<SecretPair> iterator = signers.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class SecretPair {
+        private final @Nullable String clientSharedSecret;
+        private final @Nullable String tokenSharedSecret;
+
+        private SecretPair(@Nullable String clientSharedSecret, @Nullable String tokenSharedSecret) {
+            this.clientSharedSecret = clientSharedSecret;
+            this.tokenSharedSecret = tokenSharedSecret;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SecretPair)) {
+                return false;
+            }
+            SecretPair other = (SecretPair) o;
+            return Objects.equals(clientSharedSecret, other.clientSharedSecret) && Objects.equals(tokenSharedSecret, other.tokenSharedSecret);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(clientSharedSecret) + Objects.hashCode(tokenSharedSecret);
+        }
+    }
+}
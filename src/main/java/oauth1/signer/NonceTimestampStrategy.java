@@ -0,0 +1,22 @@
+package oauth1.signer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An interface which provides a strategy to generate the {@code oauth_nonce} and {@code oauth_timestamp} of each signed request.
+ * <br>
+ * Implementations must be thread-safe, and the nonces they generate must be unique across all threads and processes signing with the same credentials.
+ */
+public interface NonceTimestampStrategy {
+    /**
+     * @return A new nonce, consisting only of characters which need no percent-encoding.
+     */
+    @Nonnull
+    String nextNonce();
+
+    /**
+     * @return The current time in seconds since the epoch, as a decimal string.
+     */
+    @Nonnull
+    String currentTimestamp();
+}
@@ -0,0 +1,473 @@
+package oauth1.signer;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.auth.oauth.OAuthSigner;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.util.escape.CharEscapers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the signature of a request exactly as {@link OAuthParameters#computeSignature(String, GenericUrl)} does, byte for byte, without its intermediate maps and strings.
+ * <br><br>
+ * The OAuth parameters which do not change between the requests of a credential (consumer key, token, signature method and version) are percent-encoded once and cached,
+ * already sorted, so each request only encodes its nonce, timestamp and URL parameters, and merges them with the cached parameters without sorting them again.
+ * The signature base string is written straight into a per-thread reusable buffer, which is handed to {@link CachedHmacSigner#computeSignature(byte[], int, int)}.
+ * <br>
+ * Like {@link OAuthParameters#computeSignature(String, GenericUrl)}, parameters are sorted by encoded name then encoded value, identical parameters are only included once,
+ * and the signature method is taken from the signer. Requests whose URL has a null value among repeated parameters are left to {@link OAuthParameters#computeSignature(String, GenericUrl)}.
+ */
+public final class SignatureBaseStringBuilder {
+    /**
+     * The maximum number of credentials whose encoded parameters are cached.
+     */
+    public static final int MAX_CACHED_CREDENTIALS = 10_000;
+
+    private static final String BODY_HASH_PARAMETER = "oauth_body_hash";
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final boolean[] UNRESERVED = new boolean[128];
+    private static final Comparator<Parameter> ORDER = (Parameter a, Parameter b) -> {
+        int byKey = a.key.compareTo(b.key);
+        return byKey != 0 ? byKey : a.value.compareTo(b.value);
+    };
+
+    private static final ConcurrentHashMap<Credential, StaticParameters> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['~'] = true;
+    }
+
+    private SignatureBaseStringBuilder() {
+
+    }
+
+    /**
+     * Computes the signature of a request, setting {@link OAuthParameters#signatureMethod} and {@link OAuthParameters#signature} as {@link OAuthParameters#computeSignature(String, GenericUrl)} does.
+     * @param oAuthParameters The OAuth parameters of the request, with their nonce and timestamp already set.
+     * @param requestMethod The HTTP request method.
+     * @param url The URL of the request, whose query parameters are signed.
+     * @param bodyHash The oauth_body_hash to sign as if it were a parameter of the URL (replacing any such parameter), or null for none.
+     * @throws GeneralSecurityException If the signature could not be computed.
+     */
+    public static void computeSignature(@Nonnull OAuthParameters oAuthParameters, @Nonnull String requestMethod, @Nonnull GenericUrl url, @Nullable String bodyHash) throws GeneralSecurityException {
+        OAuthSigner signer = oAuthParameters.signer;
+        State state = STATE.get();
+        int length = write(state, oAuthParameters, signer.getSignatureMethod(), requestMethod, url, bodyHash);
+        if (length < 0) {
+            computeSignatureAsLibrary(oAuthParameters, requestMethod, url, bodyHash);
+            return;
+        }
+        oAuthParameters.signatureMethod = signer.getSignatureMethod();
+        oAuthParameters.signature = signer instanceof CachedHmacSigner
+                ? ((CachedHmacSigner) signer).computeSignature(state.buffer, 0, length)
+                // The signature base string is fully percent-encoded, so is ASCII.
+                : signer.computeSignature(new String(state.buffer, 0, length, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Builds the signature base string of a request, e.g. to log or compare it.
+     * @see SignatureBaseStringBuilder#computeSignature(OAuthParameters, String, GenericUrl, String)
+     */
+    @Nonnull
+    public static String build(@Nonnull OAuthParameters oAuthParameters, @Nonnull String requestMethod, @Nonnull GenericUrl url, @Nullable String bodyHash) {
+        State state = STATE.get();
+        int length = write(state, oAuthParameters, oAuthParameters.signer.getSignatureMethod(), requestMethod, url, bodyHash);
+        if (length < 0) {
+            throw new IllegalArgumentException("URL has a null value among repeated parameters!");
+        }
+        return new String(state.buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the signature base string into the state's buffer.
+     * @return Its length, or -1 if the URL has a null value among repeated parameters.
+     */
+    private static int write(@Nonnull State state, @Nonnull OAuthParameters oAuthParameters, @Nonnull String signatureMethod, @Nonnull String requestMethod, @Nonnull GenericUrl url, @Nullable String bodyHash) {
+        // Collect and sort the URL parameters, by encoded name then encoded value.
+        int count = 0;
+        for (Map.Entry<String, Object> entry : url.entrySet()) {
+            Object value = entry.getValue();
+            String name = entry.getKey();
+            if (value == null || (bodyHash != null && BODY_HASH_PARAMETER.equals(name))) {
+                continue;
+            }
+            String key = escape(name);
+            if (value instanceof Collection<?>) {
+                for (Object repeated : (Collection<?>) value) {
+                    if (repeated == null) {
+                        return -1;
+                    }
+                    state.parameter(count++).set(key, escape(repeated.toString()));
+                }
+            }
+            else {
+                state.parameter(count++).set(key, escape(value.toString()));
+            }
+        }
+        if (bodyHash != null) {
+            state.parameter(count++).set(BODY_HASH_PARAMETER, escape(bodyHash));
+        }
+        Parameter[] parameters = state.parameters;
+        Arrays.sort(parameters, 0, count, ORDER);
+
+        state.length = 0;
+        state.appendEscaped(requestMethod);
+        state.append('&');
+        appendNormalisedUrl(state, url);
+        state.append('&');
+
+        // Merge the cached OAuth parameters (sorted and encoded once) with the nonce, timestamp and sorted URL parameters.
+        StaticParameters fixed = staticParameters(state, oAuthParameters, signatureMethod);
+        String nonce = oAuthParameters.nonce == null ? null : escape(oAuthParameters.nonce);
+        String timestamp = oAuthParameters.timestamp == null ? null : escape(oAuthParameters.timestamp);
+        state.lastKey = null;
+        state.lastValue = null;
+        int next = 0;
+        for (int slot = 0; slot < StaticParameters.SLOTS; slot++) {
+            String key = StaticParameters.KEYS[slot];
+            String value = slot == StaticParameters.NONCE ? nonce : slot == StaticParameters.TIMESTAMP ? timestamp : fixed.values[slot];
+            if (value == null) {
+                continue;
+            }
+            // Emit the URL parameters sorting before this OAuth parameter.
+            while (next < count && compare(parameters[next], key, value) < 0) {
+                appendParameter(state, parameters[next].key, parameters[next++].value, null);
+            }
+            appendParameter(state, key, value, fixed.encoded[slot]);
+        }
+        while (next < count) {
+            appendParameter(state, parameters[next].key, parameters[next++].value, null);
+        }
+        return state.length;
+    }
+
+    /**
+     * Appends a parameter, unless identical to the one appended before it (as parameters are appended in order, this includes each parameter only once).
+     * @param encoded The parameter as it appears in the signature base string, if already encoded, otherwise null.
+     */
+    private static void appendParameter(@Nonnull State state, @Nonnull String key, @Nonnull String value, @Nullable byte[] encoded) {
+        if (state.lastKey != null) {
+            if (key.equals(state.lastKey) && value.equals(state.lastValue)) {
+                return;
+            }
+            state.append("%26");
+        }
+        if (encoded != null) {
+            state.append(encoded);
+        }
+        else {
+            state.appendDoubleEscaped(key);
+            state.append("%3D");
+            state.appendDoubleEscaped(value);
+        }
+        state.lastKey = key;
+        state.lastValue = value;
+    }
+
+    private static int compare(@Nonnull Parameter parameter, @Nonnull String key, @Nonnull String value) {
+        int byKey = parameter.key.compareTo(key);
+        return byKey != 0 ? byKey : parameter.value.compareTo(value);
+    }
+
+    /**
+     * Appends the encoded URL without its query or fragment, dropping the default port, as {@link OAuthParameters#computeSignature(String, GenericUrl)} normalises it.
+     */
+    private static void appendNormalisedUrl(@Nonnull State state, @Nonnull GenericUrl url) {
+        String scheme = url.getScheme();
+        int port = url.getPort();
+        if ("http".equals(scheme) && port == 80 || "https".equals(scheme) && port == 443) {
+            port = -1;
+        }
+        state.appendEscaped(Objects.requireNonNull(scheme));
+        state.append("%3A%2F%2F");
+        state.appendEscaped(Objects.requireNonNull(url.getHost()));
+        if (port != -1) {
+            state.append("%3A");
+            state.append(Integer.toString(port));
+        }
+        List<String> pathParts = url.getPathParts();
+        if (pathParts != null) {
+            for (int i = 0; i < pathParts.size(); i++) {
+                String part = pathParts.get(i);
+                if (i != 0) {
+                    state.append("%2F");
+                }
+                if (!part.isEmpty()) {
+                    state.appendEscaped(CharEscapers.escapeUriPath(part));
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtains the encoded static parameters of a credential, from the thread's last used ones, the shared cache, or by encoding them.
+     */
+    @Nonnull
+    private static StaticParameters staticParameters(@Nonnull State state, @Nonnull OAuthParameters oAuthParameters, @Nonnull String signatureMethod) {
+        StaticParameters last = state.lastStaticParameters;
+        if (last != null && last.matches(oAuthParameters, signatureMethod)) {
+            return last;
+        }
+        Credential credential = new Credential(oAuthParameters, signatureMethod);
+        StaticParameters fixed;
+        if (oAuthParameters.callback != null || oAuthParameters.verifier != null) {
+            // The token requests of a handshake are only signed once, so are not worth caching.
+            fixed = new StaticParameters(credential);
+        }
+        else {
+            fixed = CACHE.get(credential);
+            if (fixed == null) {
+                if (CACHE.size() >= MAX_CACHED_CREDENTIALS) {
+                    evict();
+                }
+                fixed = CACHE.computeIfAbsent(credential, StaticParameters::new);
+            }
+        }
+        state.lastStaticParameters = fixed;
+        return fixed;
+    }
+
+    private static void evict() {
+        // Drop an eighth of the cache at once, so eviction is amortised over many insertions.
+        int toRemove = Math.max(1, MAX_CACHED_CREDENTIALS / 8);
+        Iterator<Credential> iterator = CACHE.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Percent-encodes a value as {@link OAuthParameters#escape(String)} does, returning it unchanged if it needs no encoding.
+     */
+    @Nonnull
+    private static String escape(@Nonnull String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 128 || !UNRESERVED[c]) {
+                return OAuthParameters.escape(value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The static OAuth parameters of a credential, in the order they sort in.
+     */
+    private static final class Credential {
+        private final @Nullable String callback;
+        private final @Nullable String consumerKey;
+        private final @Nonnull String signatureMethod;
+        private final @Nullable String token;
+        private final @Nullable String verifier;
+        private final @Nullable String version;
+
+        private Credential(@Nonnull OAuthParameters oAuthParameters, @Nonnull String signatureMethod) {
+            this.callback = oAuthParameters.callback;
+            this.consumerKey = oAuthParameters.consumerKey;
+            this.signatureMethod = signatureMethod;
+            this.token = oAuthParameters.token;
+            this.verifier = oAuthParameters.verifier;
+            this.version = oAuthParameters.version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Credential)) {
+                return false;
+            }
+            Credential other = (Credential) o;
+            return Objects.equals(callback, other.callback) && Objects.equals(consumerKey, other.consumerKey) && signatureMethod.equals(other.signatureMethod)
+                    && Objects.equals(token, other.token) && Objects.equals(verifier, other.verifier) && Objects.equals(version, other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(callback, consumerKey, signatureMethod, token, verifier, version);
+        }
+    }
+
+    /**
+     * The encoded static parameters of a credential, each pre-encoded as it appears in the signature base string.
+     */
+    private static final class StaticParameters {
+        private static final String[] KEYS = {"oauth_callback", "oauth_consumer_key", "oauth_nonce", "oauth_signature_method", "oauth_timestamp", "oauth_token", "oauth_verifier", "oauth_version"};
+        private static final int SLOTS = KEYS.length;
+        private static final int NONCE = 2;
+        private static final int TIMESTAMP = 4;
+
+        private final @Nonnull Credential credential;
+        private final @Nonnull String[] values = new String[SLOTS];
+        private final @Nonnull byte[][] encoded = new byte[SLOTS][];
+
+        private StaticParameters(@Nonnull Credential credential) {
+            this.credential = credential;
+            String[] raw = {credential.callback, credential.consumerKey, null, credential.signatureMethod, null, credential.token, credential.verifier, credential.version};
+            State scratch = new State();
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (raw[slot] == null) {
+                    continue;
+                }
+                values[slot] = escape(raw[slot]);
+                scratch.length = 0;
+                scratch.appendDoubleEscaped(KEYS[slot]);
+                scratch.append("%3D");
+                scratch.appendDoubleEscaped(values[slot]);
+                encoded[slot] = Arrays.copyOf(scratch.buffer, scratch.length);
+            }
+        }
+
+        /**
+         * Whether these are the parameters of the given credential, compared by reference as the parameters of a credential are typically reused.
+         */
+        private boolean matches(@Nonnull OAuthParameters oAuthParameters, @Nonnull String signatureMethod) {
+            return credential.consumerKey == oAuthParameters.consumerKey && credential.token == oAuthParameters.token && credential.version == oAuthParameters.version
+                    && credential.callback == oAuthParameters.callback && credential.verifier == oAuthParameters.verifier && credential.signatureMethod.equals(signatureMethod);
+        }
+    }
+
+    /**
+     * A URL parameter, its name and value encoded.
+     */
+    private static final class Parameter {
+        private String key;
+        private String value;
+
+        @Nonnull
+        private Parameter set(@Nonnull String key, @Nonnull String value) {
+            this.key = key;
+            this.value = value;
+            return this;
+        }
+    }
+
+    /**
+     * Per-thread reusable buffers: the signature base string and the URL parameters being sorted.
+     */
+    private static final class State {
+        private byte[] buffer = new byte[1024];
+        private int length;
+        private Parameter[] parameters = new Parameter[16];
+        private @Nullable StaticParameters lastStaticParameters;
+        private @Nullable String lastKey;
+        private @Nullable String lastValue;
+
+        @Nonnull
+        private Parameter parameter(int index) {
+            if (index == parameters.length) {
+                parameters = Arrays.copyOf(parameters, index * 2);
+            }
+            Parameter parameter = parameters[index];
+            if (parameter == null) {
+                parameter = parameters[index] = new Parameter();
+            }
+            return parameter;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length + extra, buffer.length * 2));
+            }
+        }
+
+        private void append(char c) {
+            ensure(1);
+            buffer[length++] = (byte) c;
+        }
+
+        private void append(@Nonnull String ascii) {
+            ensure(ascii.length());
+            for (int i = 0; i < ascii.length(); i++) {
+                buffer[length++] = (byte) ascii.charAt(i);
+            }
+        }
+
+        private void append(@Nonnull byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        /**
+         * Appends an already encoded value encoded once more, which only turns each '%' into "%25".
+         */
+        private void appendDoubleEscaped(@Nonnull String escaped) {
+            ensure(escaped.length() * 3);
+            for (int i = 0; i < escaped.length(); i++) {
+                char c = escaped.charAt(i);
+                if (c == '%') {
+                    buffer[length++] = '%';
+                    buffer[length++] = '2';
+                    buffer[length++] = '5';
+                }
+                else {
+                    buffer[length++] = (byte) c;
+                }
+            }
+        }
+
+        /**
+         * Appends a value percent-encoded as {@link OAuthParameters#escape(String)} does.
+         */
+        private void appendEscaped(@Nonnull String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 128) {
+                    // Let the library encode anything beyond ASCII (e.g. surrogate pairs).
+                    append(OAuthParameters.escape(value));
+                    return;
+                }
+            }
+            ensure(value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (UNRESERVED[c]) {
+                    buffer[length++] = (byte) c;
+                }
+                else {
+                    buffer[length++] = '%';
+                    buffer[length++] = HEX[c >>> 4];
+                    buffer[length++] = HEX[c & 0xF];
+                }
+            }
+        }
+    }
+
+    /**
+     * Falls back to the library for URLs it would reject or sign in ways not worth replicating.
+     */
+    private static void computeSignatureAsLibrary(@Nonnull OAuthParameters oAuthParameters, @Nonnull String requestMethod, @Nonnull GenericUrl url, @Nullable String bodyHash) throws GeneralSecurityException {
+        GenericUrl signedUrl = url;
+        if (bodyHash != null) {
+            signedUrl = url.clone();
+            signedUrl.set(BODY_HASH_PARAMETER, bodyHash);
+        }
+        oAuthParameters.computeSignature(requestMethod, signedUrl);
+    }
+}
@@ -0,0 +1,150 @@
+package oauth1.signer;
+
+import javax.annotation.Nonnull;
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The default {@link NonceTimestampStrategy}, generating nonces without contention between threads.
+ * <br><br>
+ * Nonces are drawn from a set of stripes, each with its own {@link SecureRandom} producing random bytes in bulk into a buffer.
+ * A thread uses the stripe its id hashes to, moving on to the next if that one is busy, so threads never wait on each other.
+ * <br>
+ * Each nonce is 32 URL-safe Base64 characters encoding a stripe id unique within this process (combined with a random process id),
+ * a counter per stripe, and 64 random bits, so nonces are unique across threads and, with overwhelming probability, across processes, while remaining unpredictable.
+ * <br>
+ * The timestamp string is cached and only rebuilt when the second changes.
+ */
+public class StripedNonceTimestampStrategy implements NonceTimestampStrategy {
+    public static final StripedNonceTimestampStrategy INSTANCE = new StripedNonceTimestampStrategy();
+
+    private static final int RANDOM_BUFFER_BYTES = 4096;
+    private static final int RANDOM_BYTES_PER_NONCE = 8;
+    private static final int NONCE_BYTES = 24;
+    private static final char[] BASE64_URL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private final Stripe[] stripes;
+    private volatile Timestamp timestamp = new Timestamp(-1, "");
+
+    /**
+     * Constructs a strategy with two stripes per available processor.
+     */
+    public StripedNonceTimestampStrategy() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes The number of stripes, rounded up to a power of two.
+     */
+    public StripedNonceTimestampStrategy(int stripes) {
+        if (stripes <= 0 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("stripes must be within [1, 65536]!");
+        }
+        int count = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        SecureRandom seeder = new SecureRandom();
+        // The upper 48 bits identify this instance (and so this process), the lower 16 bits the stripe.
+        long instanceId = seeder.nextLong() << 16;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(instanceId | i, new SecureRandom(seeder.generateSeed(20)));
+        }
+    }
+
+    @Nonnull
+    public String nextNonce() {
+        int mask = stripes.length - 1;
+        int start = (int) mix(Thread.currentThread().getId()) & mask;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[(start + i) & mask];
+            if (stripe.lock.tryLock()) {
+                try {
+                    return stripe.nextNonce();
+                }
+                finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+        // Every stripe is busy, so wait for the thread's own.
+        Stripe stripe = stripes[start];
+        stripe.lock.lock();
+        try {
+            return stripe.nextNonce();
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Nonnull
+    public String currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second != second) {
+            current = new Timestamp(second, Long.toString(second));
+            timestamp = current;
+        }
+        return current.value;
+    }
+
+    private static long mix(long value) {
+        // Spreads sequential thread ids across the stripes.
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ (value >>> 32);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long stripeId;
+        private final SecureRandom random;
+        // Guarded by lock.
+        private final byte[] randomBuffer = new byte[RANDOM_BUFFER_BYTES];
+        private int randomPosition = RANDOM_BUFFER_BYTES;
+        private long counter;
+        private final byte[] nonce = new byte[NONCE_BYTES];
+        private final char[] encoded = new char[NONCE_BYTES / 3 * 4];
+
+        private Stripe(long stripeId, @Nonnull SecureRandom random) {
+            this.stripeId = stripeId;
+            this.random = random;
+        }
+
+        @Nonnull
+        private String nextNonce() {
+            if (randomPosition + RANDOM_BYTES_PER_NONCE > RANDOM_BUFFER_BYTES) {
+                random.nextBytes(randomBuffer);
+                randomPosition = 0;
+            }
+            putLong(nonce, 0, stripeId);
+            putLong(nonce, 8, counter++);
+            System.arraycopy(randomBuffer, randomPosition, nonce, 16, RANDOM_BYTES_PER_NONCE);
+            randomPosition += RANDOM_BYTES_PER_NONCE;
+            // 24 bytes encode to exactly 32 characters without padding.
+            for (int in = 0, out = 0; in < NONCE_BYTES; in += 3) {
+                int bits = (nonce[in] & 0xFF) << 16 | (nonce[in + 1] & 0xFF) << 8 | (nonce[in + 2] & 0xFF);
+                encoded[out++] = BASE64_URL_ALPHABET[bits >>> 18];
+                encoded[out++] = BASE64_URL_ALPHABET[(bits >>> 12) & 0x3F];
+                encoded[out++] = BASE64_URL_ALPHABET[(bits >>> 6) & 0x3F];
+                encoded[out++] = BASE64_URL_ALPHABET[bits & 0x3F];
+            }
+            return new String(encoded);
+        }
+
+        private static void putLong(@Nonnull byte[] bytes, int offset, long value) {
+            for (int i = 7; i >= 0; i--) {
+                bytes[offset + i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+    }
+
+    private static final class Timestamp {
+        private final long second;
+        private final @Nonnull String value;
+
+        private Timestamp(long second, @Nonnull String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package oauth1.strategy;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An asynchronous, batched companion of {@link TokenMapStrategy}, for remote stores (e.g. a Redis-like backend) where each call is a network round trip:
+ * operations return {@link CompletionStage}s instead of blocking, take many temporary tokens at once, and give each mapping a time-to-live.
+ * <br><br>
+ * Stages complete exceptionally with a {@link oauth1.exception.TokenMapException} if the operation failed.
+ * <br>
+ * Wrap an implementation in a {@link oauth1.strategy.preset.CoalescingAsyncTokenMapStrategy} to batch concurrent single-key calls,
+ * and bridge it to a {@link TokenMapStrategy} via {@link TokenMapStrategyBridges#toBlocking(AsyncTokenMapStrategy, long, long)} to use it in an instance.
+ */
+public interface AsyncTokenMapStrategy {
+    /**
+     * Maps each of the given temporary tokens to its temporary token secret, for the given time-to-live.
+     * @param mappings The temporary tokens mapped to their temporary token secrets.
+     * @param timeToLiveMillis How long the mappings must persist, which should be at least the maximal permissible duration of the OAuth handshake procedure.
+     * @return A stage completed once all the mappings are made.
+     */
+    @Nonnull
+    CompletionStage<Void> mapTemporaryTokensToTemporaryTokenSecrets(@Nonnull Map<String, String> mappings, long timeToLiveMillis);
+
+    /**
+     * Retrieves the temporary token secrets mapped to the given temporary tokens.
+     * @param temporaryTokens The temporary tokens.
+     * @return A stage completed with the temporary token secrets of those temporary tokens which are mapped, keyed by temporary token. Unmapped temporary tokens are absent.
+     */
+    @Nonnull
+    CompletionStage<Map<String, String>> fetchTemporaryTokenSecretsForTemporaryTokens(@Nonnull Collection<String> temporaryTokens);
+
+    /**
+     * Removes the mappings of the given temporary tokens, if any.
+     * @param temporaryTokens The temporary tokens.
+     * @return A stage completed once the mappings are removed.
+     */
+    @Nonnull
+    CompletionStage<Void> removeTemporaryTokens(@Nonnull Collection<String> temporaryTokens);
+
+    /**
+     * Maps the given temporary token to the given temporary token secret, for the given time-to-live.
+     * @see AsyncTokenMapStrategy#mapTemporaryTokensToTemporaryTokenSecrets(Map, long)
+     */
+    @Nonnull
+    default CompletionStage<Void> mapTemporaryTokenToTemporaryTokenSecret(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret, long timeToLiveMillis) {
+        return mapTemporaryTokensToTemporaryTokenSecrets(Collections.singletonMap(temporaryToken, temporaryTokenSecret), timeToLiveMillis);
+    }
+
+    /**
+     * Retrieves the temporary token secret mapped to the given temporary token.
+     * @return A stage completed with the temporary token secret, or null if the temporary token is not mapped.
+     * @see AsyncTokenMapStrategy#fetchTemporaryTokenSecretsForTemporaryTokens(Collection)
+     */
+    @Nonnull
+    default CompletionStage<String> fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) {
+        return fetchTemporaryTokenSecretsForTemporaryTokens(Collections.singleton(temporaryToken)).thenApply((Map<String, String> secrets) -> secrets.get(temporaryToken));
+    }
+
+    /**
+     * Removes the mapping of the given temporary token, if any.
+     * @see AsyncTokenMapStrategy#removeTemporaryTokens(Collection)
+     */
+    @Nonnull
+    default CompletionStage<Void> removeTemporaryToken(@Nonnull String temporaryToken) {
+        return removeTemporaryTokens(Collections.singleton(temporaryToken));
+    }
+}
@@ -0,0 +1,42 @@
+package oauth1.strategy;
+
+import oauth1.exception.TokenMapException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link TokenMapStrategy} which stores nothing: instead of mapping a temporary token to its secret, it seals the secret into an opaque state,
+ * which the caller carries from {@link oauth1.lib.BeginResult#getState()} to {@code authorisedWithState} (e.g. in a cookie), so neither step needs a round trip to a store.
+ * <br><br>
+ * As no mapping is kept, {@link TokenMapStrategy#fetchTemporaryTokenSecretForTemporaryToken(String)} cannot find a secret without the state.
+ */
+public interface SealingTokenMapStrategy extends TokenMapStrategy {
+    /**
+     * Seals the given temporary token secret, together with its temporary token, into an opaque state.
+     * @param temporaryToken The temporary token.
+     * @param temporaryTokenSecret The temporary token secret.
+     * @return The state, safe to hand to the user (e.g. in a cookie or URL).
+     * @throws TokenMapException If sealing failed.
+     */
+    @Nonnull
+    String seal(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException;
+
+    /**
+     * Reads the temporary token a state was sealed with, without checking the state is genuine.
+     * @param state The state returned from {@link SealingTokenMapStrategy#seal(String, String)}.
+     * @return The temporary token.
+     * @throws TokenMapException If the state is malformed.
+     */
+    @Nonnull
+    String temporaryTokenOf(@Nonnull String state) throws TokenMapException;
+
+    /**
+     * Unseals the temporary token secret from a state, which can only be done once per state.
+     * @param temporaryToken The temporary token the state must have been sealed with.
+     * @param state The state returned from {@link SealingTokenMapStrategy#seal(String, String)}.
+     * @return The temporary token secret.
+     * @throws TokenMapException If the state is not genuine, was sealed for another temporary token, has expired, or was already unsealed.
+     */
+    @Nonnull
+    String unseal(@Nonnull String temporaryToken, @Nonnull String state) throws TokenMapException;
+}
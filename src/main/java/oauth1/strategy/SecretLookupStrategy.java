@@ -0,0 +1,30 @@
+package oauth1.strategy;
+
+import oauth1.exception.SecretLookupException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An interface which provides a strategy to look up the consumer and token secrets of incoming requests, for verifying their signatures as a provider.
+ */
+public interface SecretLookupStrategy {
+    /**
+     * Retrieve the consumer secret of the given consumer key.
+     * @param consumerKey The consumer key of the request.
+     * @return The consumer secret of the consumer key, if it is known, otherwise null.
+     * @throws SecretLookupException If the lookup failed.
+     */
+    @Nullable
+    String fetchConsumerSecretForConsumerKey(@Nonnull String consumerKey) throws SecretLookupException;
+
+    /**
+     * Retrieve the secret of the given (temporary or access) token, issued to the given consumer key.
+     * @param consumerKey The consumer key of the request.
+     * @param token The token of the request.
+     * @return The token secret of the token, if it is known and was issued to the consumer key, otherwise null.
+     * @throws SecretLookupException If the lookup failed.
+     */
+    @Nullable
+    String fetchTokenSecretForToken(@Nonnull String consumerKey, @Nonnull String token) throws SecretLookupException;
+}
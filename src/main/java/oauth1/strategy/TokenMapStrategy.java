@@ -29,4 +29,16 @@ public interface TokenMapStrategy {
      */
     @Nullable
     String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException;
+
+    /**
+     * Remove the mapping of the given temporary token, if any, without it counting as fetched, e.g. once a temporary token fetched ahead of time is discarded unused.
+     * <br>
+     * By default, this does nothing, leaving the mapping to the strategy's own expiry (if any).
+     * A strategy which does not expire mappings must override this to be used with a {@link oauth1.prefetch.TemporaryTokenPool}, or its mappings grow without bound.
+     * @param temporaryToken The temporary token.
+     * @throws TokenMapException If the removal failed.
+     */
+    default void removeTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+
+    }
 }
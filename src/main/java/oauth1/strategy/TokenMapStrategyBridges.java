@@ -0,0 +1,133 @@
+package oauth1.strategy;
+
+import oauth1.async.AsyncExecutors;
+import oauth1.exception.TokenMapException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bridges between {@link TokenMapStrategy} and {@link AsyncTokenMapStrategy}, so either kind can be used where the other is expected.
+ */
+public final class TokenMapStrategyBridges {
+    private TokenMapStrategyBridges() {
+
+    }
+
+    /**
+     * Adapts a blocking strategy to the asynchronous interface, running its calls on the given executor.
+     * <br>
+     * A blocking strategy has no notion of time-to-live, so the given time-to-live is ignored in favour of the strategy's own expiry (if any).
+     * Removals are made via {@link TokenMapStrategy#removeTemporaryToken(String)}.
+     * @param strategy The blocking strategy.
+     * @param executor The executor to make the blocking calls on.
+     * @return The asynchronous strategy.
+     */
+    @Nonnull
+    public static AsyncTokenMapStrategy toAsync(@Nonnull TokenMapStrategy strategy, @Nonnull Executor executor) {
+        return new AsyncTokenMapStrategy() {
+            @Nonnull
+            @Override
+            public CompletionStage<Void> mapTemporaryTokensToTemporaryTokenSecrets(@Nonnull Map<String, String> mappings, long timeToLiveMillis) {
+                return AsyncExecutors.supplyAsync(executor, () -> {
+                    for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                        strategy.mapTemporaryTokenToTemporaryTokenSecret(mapping.getKey(), mapping.getValue());
+                    }
+                    return null;
+                }, TokenMapException::new);
+            }
+
+            @Nonnull
+            @Override
+            public CompletionStage<Map<String, String>> fetchTemporaryTokenSecretsForTemporaryTokens(@Nonnull Collection<String> temporaryTokens) {
+                return AsyncExecutors.supplyAsync(executor, () -> {
+                    Map<String, String> secrets = new HashMap<>();
+                    for (String temporaryToken : temporaryTokens) {
+                        String secret = strategy.fetchTemporaryTokenSecretForTemporaryToken(temporaryToken);
+                        if (secret != null) {
+                            secrets.put(temporaryToken, secret);
+                        }
+                    }
+                    return secrets;
+                }, TokenMapException::new);
+            }
+
+            @Nonnull
+            @Override
+            public CompletionStage<Void> removeTemporaryTokens(@Nonnull Collection<String> temporaryTokens) {
+                return AsyncExecutors.supplyAsync(executor, () -> {
+                    for (String temporaryToken : temporaryTokens) {
+                        strategy.removeTemporaryToken(temporaryToken);
+                    }
+                    return null;
+                }, TokenMapException::new);
+            }
+        };
+    }
+
+    /**
+     * Adapts an asynchronous strategy to the blocking interface, e.g. to use it in an {@link oauth1.OAuth1Generic} instance, waiting for each call up to a timeout.
+     * <br>
+     * Mappings are made with the given time-to-live, and are removed once fetched (as a temporary token is only exchanged once), without waiting for the removal.
+     * @param strategy The asynchronous strategy.
+     * @param timeToLiveMillis The time-to-live of the mappings made. This should be at least the maximal permissible duration of the OAuth handshake procedure.
+     * @param timeoutMillis How long to wait for each call before failing with a {@link TokenMapException}.
+     * @return The blocking strategy.
+     */
+    @Nonnull
+    public static TokenMapStrategy toBlocking(@Nonnull AsyncTokenMapStrategy strategy, long timeToLiveMillis, long timeoutMillis) {
+        if (timeToLiveMillis <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeToLiveMillis and timeoutMillis must be positive!");
+        }
+        return new TokenMapStrategy() {
+            @Override
+            public void mapTemporaryTokenToTemporaryTokenSecret(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException {
+                await(strategy.mapTemporaryTokenToTemporaryTokenSecret(temporaryToken, temporaryTokenSecret, timeToLiveMillis), timeoutMillis);
+            }
+
+            @Nullable
+            @Override
+            public String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+                String secret = await(strategy.fetchTemporaryTokenSecretForTemporaryToken(temporaryToken), timeoutMillis);
+                if (secret != null) {
+                    strategy.removeTemporaryToken(temporaryToken);
+                }
+                return secret;
+            }
+
+            @Override
+            public void removeTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+                await(strategy.removeTemporaryToken(temporaryToken), timeoutMillis);
+            }
+        };
+    }
+
+    /**
+     * Waits for the given stage, rethrowing its {@link TokenMapException}, or wrapping any other failure (including a timeout) in one.
+     */
+    @Nullable
+    private static <T> T await(@Nonnull CompletionStage<T> stage, long timeoutMillis) throws TokenMapException {
+        try {
+            return stage.toCompletableFuture().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw cause instanceof TokenMapException ? (TokenMapException) cause : new TokenMapException(cause);
+        }
+        catch (TimeoutException e) {
+            throw new TokenMapException(e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenMapException(e);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.TokenMapException;
+import oauth1.strategy.TokenMapStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, bounded, in-memory preset implementation of {@link TokenMapStrategy}, suitable for production use on a single node.
+ * <br><br>
+ * Each mapping expires a fixed time-to-live after it was made, and is removed as soon as it has been fetched (as a temporary token is only exchanged once).
+ * The number of mappings never exceeds the capacity: when full, the mapping closest to expiry is evicted to make room.
+ * <br>
+ * Mappings are held in a {@link ConcurrentHashMap}, and expiry is tracked on a timer wheel: each operation drains only the wheel buckets
+ * whose time has passed since the previous operation, so expired mappings are evicted in amortised constant time rather than by full scans.
+ * A fetched or replaced mapping drops its secret at once, and its wheel bucket is purged of such mappings once they make up half of it,
+ * so the wheel stays proportional to the mappings held rather than to the rate of mappings made.
+ */
+public class BoundedExpiringTokenMapStrategy implements TokenMapStrategy {
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private static final int WHEEL_SIZE = 256;
+    private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int MAX_FAILED_EVICTIONS = 64;
+    private static final int MIN_DISCARDED_TO_PURGE = 64;
+
+    private final ConcurrentHashMap<String, Entry> map = new ConcurrentHashMap<>();
+    private final Bucket[] wheel;
+    private final long timeToLiveNanos;
+    private final long tickNanos;
+    private final int capacity;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong lastExpiredTick;
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder consumedCount = new LongAdder();
+
+    /**
+     * Constructs a strategy with the default time-to-live of 10 minutes and a capacity of 100,000 mappings.
+     */
+    public BoundedExpiringTokenMapStrategy() {
+        this(DEFAULT_TIME_TO_LIVE_MILLIS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param timeToLiveMillis How long a mapping is kept after being made. This should be at least the maximal permissible duration of the OAuth handshake procedure.
+     * @param capacity The maximum number of mappings held at once.
+     */
+    public BoundedExpiringTokenMapStrategy(long timeToLiveMillis, int capacity) {
+        if (timeToLiveMillis <= 0) {
+            throw new IllegalArgumentException("timeToLiveMillis must be positive!");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.capacity = capacity;
+        // Choose the tick such that a full time-to-live fits within a single revolution of the wheel, with a few ticks to spare
+        // for operations which read the clock slightly before the last drain.
+        this.tickNanos = Math.max(MIN_TICK_NANOS, (timeToLiveNanos + WHEEL_SIZE - 9) / (WHEEL_SIZE - 8));
+        this.wheel = new Bucket[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.lastExpiredTick = new AtomicLong(tickOf(System.nanoTime()));
+    }
+
+    /**
+     * Maps the given temporary token to the given temporary token secret until the time-to-live elapses,
+     * evicting the mapping closest to expiry if the capacity has been reached.
+     */
+    public void mapTemporaryTokenToTemporaryTokenSecret(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException {
+        long now = System.nanoTime();
+        expireEntries(now);
+        Entry entry = new Entry(temporaryToken, temporaryTokenSecret, now + timeToLiveNanos, wheel[bucketOf(tickOf(now + timeToLiveNanos))]);
+        // Replacing an existing mapping takes no slot, so must not evict another mapping.
+        Entry previous = map.replace(temporaryToken, entry);
+        if (previous == null) {
+            reserveSlot();
+            previous = map.put(temporaryToken, entry);
+            if (previous != null) {
+                // Replaced a mapping made concurrently, so the reserved slot was not needed.
+                size.decrementAndGet();
+            }
+        }
+        if (previous != null) {
+            previous.discard();
+        }
+        entry.bucket.offer(entry);
+    }
+
+    /**
+     * Obtains and removes the temporary token secret mapped to the given temporary token, if the mapping exists and has not expired.
+     */
+    @Nullable
+    public String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+        long now = System.nanoTime();
+        expireEntries(now);
+        Entry entry = map.remove(temporaryToken);
+        if (entry == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        String temporaryTokenSecret = entry.temporaryTokenSecret;
+        entry.discard();
+        if (temporaryTokenSecret == null || entry.isExpired(now)) {
+            expiredCount.increment();
+            return null;
+        }
+        consumedCount.increment();
+        return temporaryTokenSecret;
+    }
+
+    /**
+     * Removes the mapping of the given temporary token, if any, without counting it as consumed.
+     */
+    @Override
+    public void removeTemporaryToken(@Nonnull String temporaryToken) {
+        expireEntries(System.nanoTime());
+        Entry entry = map.remove(temporaryToken);
+        if (entry != null) {
+            size.decrementAndGet();
+            entry.discard();
+        }
+    }
+
+    /**
+     * @return The number of mappings currently held, including expired mappings not yet evicted.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return The maximum number of mappings held at once.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of mappings removed because their time-to-live elapsed.
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * @return The number of unexpired mappings evicted to make room once the capacity was reached.
+     */
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    /**
+     * @return The number of mappings removed by being fetched.
+     */
+    public long getConsumedCount() {
+        return consumedCount.sum();
+    }
+
+    private void reserveSlot() throws TokenMapException {
+        int failedEvictions = 0;
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                if (evictClosestToExpiry()) {
+                    continue;
+                }
+                // Concurrent operations may briefly hold every evictable mapping (e.g. mid-insertion), so retry a few times before giving up.
+                if (++failedEvictions > MAX_FAILED_EVICTIONS) {
+                    throw new TokenMapException("Token map capacity of " + capacity + " reached and no mapping could be evicted!");
+                }
+                Thread.yield();
+                continue;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drains the wheel buckets whose tick has fully elapsed since the last drain. Only one thread drains at a time, others carry on.
+     */
+    private void expireEntries(long now) {
+        long currentTick = tickOf(now);
+        long last = lastExpiredTick.get();
+        // Buckets of the current tick may still hold unexpired mappings, so only drain up to the previous tick.
+        long target = currentTick - 1;
+        if (target <= last || !lastExpiredTick.compareAndSet(last, target)) {
+            return;
+        }
+        long from = Math.max(last + 1, target - WHEEL_SIZE + 1);
+        for (long tick = from; tick <= target; tick++) {
+            drainBucket(wheel[bucketOf(tick)], now);
+        }
+    }
+
+    private void drainBucket(@Nonnull Bucket bucket, long now) {
+        // Bounded by the size at the start, as unexpired mappings (from a later revolution of the wheel) are put back.
+        for (int remaining = bucket.size.get(); remaining > 0; remaining--) {
+            Entry entry = bucket.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.isDiscarded()) {
+                continue;
+            }
+            if (!entry.isExpired(now)) {
+                bucket.offer(entry);
+            }
+            else if (map.remove(entry.temporaryToken, entry)) {
+                size.decrementAndGet();
+                expiredCount.increment();
+            }
+        }
+    }
+
+    private boolean evictClosestToExpiry() {
+        long now = System.nanoTime();
+        long start = lastExpiredTick.get() + 1;
+        // Mappings made from now on land at most one time-to-live (plus a tick of rounding) ahead, so scan up to there.
+        long end = Math.min(start + WHEEL_SIZE, tickOf(now + timeToLiveNanos) + 2);
+        for (long tick = start; tick < end; tick++) {
+            Bucket bucket = wheel[bucketOf(tick)];
+            Entry entry;
+            while ((entry = bucket.poll()) != null) {
+                // Skip stale wheel entries whose mapping was already fetched, replaced or expired.
+                if (!entry.isDiscarded() && map.remove(entry.temporaryToken, entry)) {
+                    size.decrementAndGet();
+                    if (entry.isExpired(now)) {
+                        expiredCount.increment();
+                    }
+                    else {
+                        evictedCount.increment();
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long tickOf(long nanos) {
+        return Math.floorDiv(nanos, tickNanos);
+    }
+
+    private static int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+    }
+
+    private static final class Entry {
+        private final @Nonnull String temporaryToken;
+        // Null once discarded, so the wheel does not keep the secret of a fetched or replaced mapping.
+        private volatile @Nullable String temporaryTokenSecret;
+        private final long expiresAtNanos;
+        private final @Nonnull Bucket bucket;
+        private final AtomicBoolean discarded = new AtomicBoolean();
+
+        private Entry(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret, long expiresAtNanos, @Nonnull Bucket bucket) {
+            this.temporaryToken = temporaryToken;
+            this.temporaryTokenSecret = temporaryTokenSecret;
+            this.expiresAtNanos = expiresAtNanos;
+            this.bucket = bucket;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        private boolean isDiscarded() {
+            return discarded.get();
+        }
+
+        /**
+         * Marks the entry as no longer in the map, once it has been removed from it.
+         */
+        private void discard() {
+            if (discarded.compareAndSet(false, true)) {
+                temporaryTokenSecret = null;
+                bucket.discarded();
+            }
+        }
+    }
+
+    /**
+     * A wheel bucket, counting its entries and those discarded, so it can be purged of discarded entries before they outnumber the others.
+     */
+    private static final class Bucket {
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+        // Approximate under concurrent use, as they are only used to decide when to purge.
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger discardedCount = new AtomicInteger();
+        private final AtomicBoolean purging = new AtomicBoolean();
+
+        private void offer(@Nonnull Entry entry) {
+            entries.offer(entry);
+            size.incrementAndGet();
+        }
+
+        @Nullable
+        private Entry poll() {
+            Entry entry = entries.poll();
+            if (entry != null) {
+                size.decrementAndGet();
+                if (entry.isDiscarded()) {
+                    discardedCount.decrementAndGet();
+                }
+            }
+            return entry;
+        }
+
+        private void discarded() {
+            int discarded = discardedCount.incrementAndGet();
+            if (discarded >= MIN_DISCARDED_TO_PURGE && discarded * 2 > size.get() && purging.compareAndSet(false, true)) {
+                try {
+                    // Bounded by the size at the start, as the entries kept are put back.
+                    for (int remaining = size.get(); remaining > 0; remaining--) {
+                        Entry polled = poll();
+                        if (polled == null) {
+                            break;
+                        }
+                        if (!polled.isDiscarded()) {
+                            offer(polled);
+                        }
+                    }
+                }
+                finally {
+                    purging.set(false);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.TokenMapException;
+import oauth1.strategy.AsyncTokenMapStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe {@link AsyncTokenMapStrategy} which coalesces the calls made concurrently by many threads into batches,
+ * passed to a delegate (typically a remote store, which pipelines each batch in a single round trip).
+ * <br><br>
+ * Calls are queued, and the queue is flushed once it holds a maximum number of operations, or a maximum delay after the first operation was queued, whichever comes first.
+ * Each flush makes at most one call to the delegate per kind of operation (and per time-to-live for mappings), so e.g. a hundred concurrent single-key fetches cost one multi-key fetch.
+ * Within a batch, mappings and removals are applied before fetches, so a fetch sees the writes queued before it.
+ * <br>
+ * If a batch fails, every operation in it fails with the same exception.
+ */
+public class CoalescingAsyncTokenMapStrategy implements AsyncTokenMapStrategy, AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+    public static final long DEFAULT_MAX_DELAY_MICROS = 500;
+
+    private final @Nonnull AsyncTokenMapStrategy delegate;
+    private final int maxBatchSize;
+    private final long maxDelayMicros;
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder operationCount = new LongAdder();
+
+    /**
+     * Constructs a strategy flushing batches of up to 128 operations, at most 500 microseconds after the first was queued.
+     * @param delegate The strategy the batches are passed to.
+     */
+    public CoalescingAsyncTokenMapStrategy(@Nonnull AsyncTokenMapStrategy delegate) {
+        this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MICROS);
+    }
+
+    /**
+     * @param delegate The strategy the batches are passed to.
+     * @param maxBatchSize The number of queued operations which triggers a flush.
+     * @param maxDelayMicros The longest an operation waits in the queue before being flushed.
+     */
+    public CoalescingAsyncTokenMapStrategy(@Nonnull AsyncTokenMapStrategy delegate, int maxBatchSize, long maxDelayMicros) {
+        if (maxBatchSize <= 0 || maxDelayMicros <= 0) {
+            throw new IllegalArgumentException("maxBatchSize and maxDelayMicros must be positive!");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMicros = maxDelayMicros;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "oauth1-token-map-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Void> mapTemporaryTokensToTemporaryTokenSecrets(@Nonnull Map<String, String> mappings, long timeToLiveMillis) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(mappings.size());
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            futures.add(enqueue(new Operation(Kind.MAP, mapping.getKey(), mapping.getValue(), timeToLiveMillis)));
+        }
+        return allOf(futures);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Map<String, String>> fetchTemporaryTokenSecretsForTemporaryTokens(@Nonnull Collection<String> temporaryTokens) {
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (String temporaryToken : temporaryTokens) {
+            futures.computeIfAbsent(temporaryToken, (String token) -> enqueue(new Operation(Kind.FETCH, token, null, 0)));
+        }
+        return allOf(futures.values()).thenApply((Void ignored) -> {
+            Map<String, String> secrets = new HashMap<>();
+            futures.forEach((String temporaryToken, CompletableFuture<String> future) -> {
+                String secret = future.join();
+                if (secret != null) {
+                    secrets.put(temporaryToken, secret);
+                }
+            });
+            return secrets;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Void> removeTemporaryTokens(@Nonnull Collection<String> temporaryTokens) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(temporaryTokens.size());
+        for (String temporaryToken : temporaryTokens) {
+            futures.add(enqueue(new Operation(Kind.REMOVE, temporaryToken, null, 0)));
+        }
+        return allOf(futures);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<String> fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) {
+        // Skip the single-entry map of the default implementation.
+        return this.<String>enqueue(new Operation(Kind.FETCH, temporaryToken, null, 0));
+    }
+
+    /**
+     * @return The number of batches passed to the delegate.
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return The number of operations passed to the delegate in batches.
+     */
+    public long getOperationCount() {
+        return operationCount.sum();
+    }
+
+    /**
+     * Flushes the queued operations, and fails those queued from then on with a {@link TokenMapException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+        scheduler.shutdown();
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> enqueue(@Nonnull Operation operation) {
+        if (closed) {
+            operation.future.completeExceptionally(new TokenMapException("Coalescing token map strategy is closed!"));
+            return (CompletableFuture<T>) operation.future;
+        }
+        queue.add(operation);
+        if (queued.incrementAndGet() >= maxBatchSize) {
+            // Flush on this thread, as the delegate is asynchronous.
+            flush();
+        }
+        else if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::flush, maxDelayMicros, TimeUnit.MICROSECONDS);
+            }
+            catch (RejectedExecutionException e) {
+                // Closed concurrently.
+                flush();
+            }
+        }
+        return (CompletableFuture<T>) operation.future;
+    }
+
+    /**
+     * Drains the queue and passes its operations to the delegate, writes first.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        Map<Long, Map<String, String>> mappings = new HashMap<>();
+        Map<Long, List<Operation>> mapOperations = new HashMap<>();
+        Map<String, List<Operation>> removeOperations = new LinkedHashMap<>();
+        Map<String, List<Operation>> fetchOperations = new LinkedHashMap<>();
+        int count = 0;
+        for (Operation operation = queue.poll(); operation != null; operation = queue.poll()) {
+            queued.decrementAndGet();
+            count++;
+            switch (operation.kind) {
+                case MAP:
+                    // The last mapping of a temporary token queued wins.
+                    mappings.computeIfAbsent(operation.timeToLiveMillis, (Long ttl) -> new LinkedHashMap<>()).put(operation.temporaryToken, operation.temporaryTokenSecret);
+                    mapOperations.computeIfAbsent(operation.timeToLiveMillis, (Long ttl) -> new ArrayList<>()).add(operation);
+                    break;
+                case REMOVE:
+                    removeOperations.computeIfAbsent(operation.temporaryToken, (String token) -> new ArrayList<>(1)).add(operation);
+                    break;
+                default:
+                    fetchOperations.computeIfAbsent(operation.temporaryToken, (String token) -> new ArrayList<>(1)).add(operation);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        operationCount.add(count);
+
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        mappings.forEach((Long timeToLiveMillis, Map<String, String> batch) -> {
+            CompletableFuture<Void> write = call(() -> delegate.mapTemporaryTokensToTemporaryTokenSecrets(batch, timeToLiveMillis));
+            write.whenComplete((Void ignored, Throwable failure) -> completeAll(mapOperations.get(timeToLiveMillis), null, failure));
+            writes.add(write);
+        });
+        if (!removeOperations.isEmpty()) {
+            CompletableFuture<Void> write = call(() -> delegate.removeTemporaryTokens(new ArrayList<>(removeOperations.keySet())));
+            write.whenComplete((Void ignored, Throwable failure) -> removeOperations.values().forEach((List<Operation> operations) -> completeAll(operations, null, failure)));
+            writes.add(write);
+        }
+        if (fetchOperations.isEmpty()) {
+            return;
+        }
+        // Fetch once the writes of this batch have been applied, whether or not they succeeded.
+        allOf(writes).handle((Void ignored, Throwable failure) -> null).thenCompose((Object ignored) ->
+                call(() -> delegate.fetchTemporaryTokenSecretsForTemporaryTokens(new ArrayList<>(fetchOperations.keySet())))).whenComplete((Map<String, String> secrets, Throwable failure) -> fetchOperations.forEach((String temporaryToken, List<Operation> operations) ->
+                completeAll(operations, secrets == null ? null : secrets.get(temporaryToken), failure)));
+    }
+
+    /**
+     * Calls the delegate, turning an exception thrown rather than returned into a failed future.
+     */
+    @Nonnull
+    private <T> CompletableFuture<T> call(@Nonnull Supplier<CompletionStage<T>> call) {
+        batchCount.increment();
+        try {
+            return call.get().toCompletableFuture();
+        }
+        catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * {@link CompletableFuture#allOf(CompletableFuture[])} over a collection, through a wildcard array rather than a raw one.
+     */
+    @Nonnull
+    private static CompletableFuture<Void> allOf(@Nonnull Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static void completeAll(@Nonnull List<Operation> operations, @Nullable Object result, @Nullable Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        for (Operation operation : operations) {
+            if (cause != null) {
+                operation.future.completeExceptionally(cause);
+            }
+            else {
+                operation.future.complete(result);
+            }
+        }
+    }
+
+    private enum Kind {
+        MAP,
+        REMOVE,
+        FETCH
+    }
+
+    /**
+     * A queued single-key operation and the future completed with its result.
+     */
+    private static final class Operation {
+        private final @Nonnull Kind kind;
+        private final @Nonnull String temporaryToken;
+        private final @Nullable String temporaryTokenSecret;
+        private final long timeToLiveMillis;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Operation(@Nonnull Kind kind, @Nonnull String temporaryToken, @Nullable String temporaryTokenSecret, long timeToLiveMillis) {
+            this.kind = kind;
+            this.temporaryToken = temporaryToken;
+            this.temporaryTokenSecret = temporaryTokenSecret;
+            this.timeToLiveMillis = timeToLiveMillis;
+        }
+    }
+}
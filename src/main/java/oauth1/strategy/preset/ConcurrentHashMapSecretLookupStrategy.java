@@ -0,0 +1,68 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.SecretLookupException;
+import oauth1.strategy.SecretLookupStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A preset implementation of {@link SecretLookupStrategy}, holding the secrets in {@link ConcurrentHashMap}s.
+ * <br>
+ * In practise, a custom implementation would look the secrets up in the database they were issued into (ideally behind a cache).
+ */
+public class ConcurrentHashMapSecretLookupStrategy implements SecretLookupStrategy {
+    private final Map<String, String> consumerSecrets = new ConcurrentHashMap<>();
+    private final Map<String, TokenSecret> tokenSecrets = new ConcurrentHashMap<>();
+
+    /**
+     * Maps the given consumer key to its consumer secret.
+     */
+    public void mapConsumerKeyToConsumerSecret(@Nonnull String consumerKey, @Nonnull String consumerSecret) {
+        consumerSecrets.put(consumerKey, consumerSecret);
+    }
+
+    /**
+     * Maps the given token, issued to the given consumer key, to its token secret.
+     */
+    public void mapTokenToTokenSecret(@Nonnull String consumerKey, @Nonnull String token, @Nonnull String tokenSecret) {
+        tokenSecrets.put(token, new TokenSecret(consumerKey, tokenSecret));
+    }
+
+    /**
+     * Removes the given consumer key, e.g. once its secret is revoked.
+     */
+    public void removeConsumerKey(@Nonnull String consumerKey) {
+        consumerSecrets.remove(consumerKey);
+    }
+
+    /**
+     * Removes the given token, e.g. once it is revoked.
+     */
+    public void removeToken(@Nonnull String token) {
+        tokenSecrets.remove(token);
+    }
+
+    @Nullable
+    public String fetchConsumerSecretForConsumerKey(@Nonnull String consumerKey) throws SecretLookupException {
+        return consumerSecrets.get(consumerKey);
+    }
+
+    @Nullable
+    public String fetchTokenSecretForToken(@Nonnull String consumerKey, @Nonnull String token) throws SecretLookupException {
+        TokenSecret tokenSecret = tokenSecrets.get(token);
+        return tokenSecret == null || !tokenSecret.consumerKey.equals(consumerKey) ? null : tokenSecret.secret;
+    }
+
+    private static final class TokenSecret {
+        private final @Nonnull String consumerKey;
+        private final @Nonnull String secret;
+
+        private TokenSecret(@Nonnull String consumerKey, @Nonnull String secret) {
+            this.consumerKey = consumerKey;
+            this.secret = secret;
+        }
+    }
+}
@@ -11,7 +11,8 @@ import java.util.Map;
 /**
  * A preset implementation of {@link TokenMapStrategy}, simply using a {@link HashMap}.
  * <br>
- * In practise, it's highly recommended to use a database instead, i.e. a custom implementation of {@link TokenMapStrategy}.
+ * In practise, it's highly recommended to use a database instead, i.e. a custom implementation of {@link TokenMapStrategy},
+ * or {@link BoundedExpiringTokenMapStrategy} for a thread-safe, bounded in-memory map on a single node.
  */
 public class HashMapTokenMapStrategy implements TokenMapStrategy {
     /**
@@ -33,4 +34,12 @@ public class HashMapTokenMapStrategy implements TokenMapStrategy {
     public String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
         return TEMPORARY_TOKEN_TOKEN_SECRET_MAP.get(temporaryToken);
     }
+
+    /**
+     * Uses {@link Map#remove(Object)} to remove the mapping of the given temporary token.
+     */
+    @Override
+    public void removeTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+        TEMPORARY_TOKEN_TOKEN_SECRET_MAP.remove(temporaryToken);
+    }
 }
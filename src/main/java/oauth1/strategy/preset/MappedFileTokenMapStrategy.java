@@ -0,0 +1,542 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.TokenMapException;
+import oauth1.strategy.TokenMapStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A preset implementation of {@link TokenMapStrategy} storing mappings off-heap in a memory-mapped file,
+ * so pending handshakes survive a restart of the JVM and millions of them add no GC pressure.
+ * <br><br>
+ * The file holds an open-addressing hash table of fixed-size slots, each with the mapping's expiry timestamp.
+ * The table is split into independently locked segments (each mapped separately, so the file may exceed 2GB),
+ * and a temporary token always hashes to, and linearly probes within, a single segment, so operations on different segments run concurrently.
+ * <br>
+ * Fetching a mapping removes it. Expired and removed slots are reused by later mappings, and a segment is compacted in place once too many of its slots are removed.
+ * On construction an existing file with the same layout is reopened and its mappings recovered.
+ * A slot is only marked as in use once fully written, so a mapping being written when the process died is simply absent after recovery.
+ * Compaction moves one mapping at a time, writing its new slot before clearing its old one, so a crash mid-compaction loses no mapping, and recovery completes it.
+ * <br>
+ * Mappings are written to the OS page cache, which survives a crash of the JVM but not of the machine, unless {@code syncWrites} is enabled.
+ */
+public class MappedFileTokenMapStrategy implements TokenMapStrategy, Closeable {
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_MAX_KEY_BYTES = 128;
+    public static final int DEFAULT_MAX_VALUE_BYTES = 128;
+
+    private static final long MAGIC = 0x4F41315450454E44L; // "OA1TPEND"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SEGMENT_COUNT = 64;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_FULL = 1;
+    private static final int STATE_REMOVED = 2;
+
+    // Slot layout.
+    private static final int STATE_OFFSET = 0;
+    private static final int HASH_OFFSET = 4;
+    private static final int EXPIRY_OFFSET = 8;
+    private static final int KEY_LENGTH_OFFSET = 16;
+    private static final int VALUE_LENGTH_OFFSET = 18;
+    private static final int KEY_OFFSET = 20;
+
+    private final FileChannel channel;
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final long timeToLiveMillis;
+    private final int maxKeyBytes;
+    private final int maxValueBytes;
+    private final int slotBytes;
+    private final int slotsPerSegment;
+    private final boolean syncWrites;
+
+    /**
+     * Opens (or creates) a file with the default time-to-live of 10 minutes and keys and values of up to 128 bytes, without syncing writes.
+     * @param file The file to store the mappings in.
+     * @param capacity The number of mappings the file is sized to hold at once.
+     * @throws IOException If the file could not be opened or mapped, or has an incompatible layout.
+     */
+    public MappedFileTokenMapStrategy(@Nonnull Path file, int capacity) throws IOException {
+        this(file, capacity, DEFAULT_TIME_TO_LIVE_MILLIS, DEFAULT_MAX_KEY_BYTES, DEFAULT_MAX_VALUE_BYTES, false);
+    }
+
+    /**
+     * Opens (or creates) a file with the given layout.
+     * @param file The file to store the mappings in.
+     * @param capacity The number of mappings the file is sized to hold at once. Each segment holds a share of this, with some headroom for uneven spread.
+     * @param timeToLiveMillis How long a mapping is kept after being made.
+     * @param maxKeyBytes The maximum length of a temporary token, in UTF-8 bytes.
+     * @param maxValueBytes The maximum length of a temporary token secret, in UTF-8 bytes.
+     * @param syncWrites Whether to force each write to the storage device, so mappings also survive a crash of the machine.
+     * @throws IOException If the file could not be opened or mapped, or has an incompatible layout.
+     */
+    public MappedFileTokenMapStrategy(@Nonnull Path file, int capacity, long timeToLiveMillis, int maxKeyBytes, int maxValueBytes, boolean syncWrites) throws IOException {
+        if (capacity <= 0 || timeToLiveMillis <= 0 || maxKeyBytes <= 0 || maxValueBytes <= 0) {
+            throw new IllegalArgumentException("capacity, timeToLiveMillis, maxKeyBytes and maxValueBytes must be positive!");
+        }
+        if (maxKeyBytes > Short.MAX_VALUE || maxValueBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("maxKeyBytes and maxValueBytes must fit in a short!");
+        }
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maxKeyBytes = maxKeyBytes;
+        this.maxValueBytes = maxValueBytes;
+        this.syncWrites = syncWrites;
+        // Slots are 8-byte aligned.
+        this.slotBytes = (KEY_OFFSET + maxKeyBytes + maxValueBytes + 7) & ~7;
+        this.slotsPerSegment = (int) Math.max(1, Math.ceil(capacity / MAX_LOAD_FACTOR / SEGMENT_COUNT));
+        long segmentBytes = (long) slotsPerSegment * slotBytes;
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity too large for the slot size!");
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (header.getLong(0) == MAGIC) {
+                checkHeader(header);
+            }
+            else {
+                writeHeader(header);
+            }
+            // Leave headroom for mappings spreading unevenly across segments, while keeping probe sequences short.
+            int maxLive = Math.max(1, slotsPerSegment - slotsPerSegment / 8);
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + i * segmentBytes, segmentBytes);
+                segments[i] = new Segment(buffer, maxLive);
+                segments[i].recover(System.currentTimeMillis());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the given temporary token to the given temporary token secret in the file until the time-to-live elapses.
+     * @throws TokenMapException If either is longer than the configured maximum, or the token's segment is full.
+     */
+    public void mapTemporaryTokenToTemporaryTokenSecret(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException {
+        byte[] key = temporaryToken.getBytes(StandardCharsets.UTF_8);
+        byte[] value = temporaryTokenSecret.getBytes(StandardCharsets.UTF_8);
+        if (key.length > maxKeyBytes || value.length > maxValueBytes) {
+            throw new TokenMapException("Temporary token or temporary token secret exceeds the maximum length!");
+        }
+        int hash = hash(key);
+        segmentFor(hash).put(key, value, hash, System.currentTimeMillis() + timeToLiveMillis);
+    }
+
+    /**
+     * Obtains and removes the temporary token secret mapped to the given temporary token, if the mapping exists and has not expired.
+     */
+    @Nullable
+    public String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+        byte[] key = temporaryToken.getBytes(StandardCharsets.UTF_8);
+        if (key.length > maxKeyBytes) {
+            return null;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash, System.currentTimeMillis());
+    }
+
+    /**
+     * Removes the mapping of the given temporary token, if any.
+     */
+    @Override
+    public void removeTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+        fetchTemporaryTokenSecretForTemporaryToken(temporaryToken);
+    }
+
+    /**
+     * @return The number of unexpired mappings held. This scans every slot of the file.
+     */
+    public int size() {
+        long now = System.currentTimeMillis();
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.countUnexpired(now);
+            }
+            finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Forces all mappings to the storage device.
+     */
+    public void sync() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.buffer.force();
+            }
+            finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Syncs and closes the file. The mappings remain in the file, to be recovered when it is next opened.
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private void writeHeader(@Nonnull MappedByteBuffer header) {
+        header.putInt(8, VERSION);
+        header.putInt(12, SEGMENT_COUNT);
+        header.putInt(16, slotsPerSegment);
+        header.putInt(20, slotBytes);
+        header.putInt(24, maxKeyBytes);
+        header.putInt(28, maxValueBytes);
+        // The magic number goes last, so a partially written header is never trusted.
+        header.putLong(0, MAGIC);
+        header.force();
+    }
+
+    private void checkHeader(@Nonnull MappedByteBuffer header) throws IOException {
+        if (header.getInt(8) != VERSION
+                || header.getInt(12) != SEGMENT_COUNT
+                || header.getInt(16) != slotsPerSegment
+                || header.getInt(20) != slotBytes
+                || header.getInt(24) != maxKeyBytes
+                || header.getInt(28) != maxValueBytes) {
+            throw new IOException("Existing token map file has a different layout (capacity or maximum key/value lengths)!");
+        }
+    }
+
+    @Nonnull
+    private Segment segmentFor(int hash) {
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    private static int hash(@Nonnull byte[] key) {
+        // FNV-1a, then spread so segment and slot selection use different bits.
+        int hash = 0x811C9DC5;
+        for (byte b : key) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A separately mapped and locked part of the hash table.
+     */
+    private final class Segment {
+        private final @Nonnull MappedByteBuffer buffer;
+        private final @Nonnull ReentrantLock lock = new ReentrantLock();
+        private final int maxLive;
+        // Guarded by lock.
+        private int live;
+        private int removed;
+
+        private Segment(@Nonnull MappedByteBuffer buffer, int maxLive) {
+            this.buffer = buffer;
+            this.maxLive = maxLive;
+        }
+
+        private void recover(long now) {
+            for (int slot = 0; slot < slotsPerSegment; slot++) {
+                int offset = slot * slotBytes;
+                int state = buffer.getInt(offset + STATE_OFFSET);
+                if (state == STATE_FULL) {
+                    if (buffer.getLong(offset + EXPIRY_OFFSET) <= now) {
+                        buffer.putInt(offset + STATE_OFFSET, STATE_REMOVED);
+                        removed++;
+                    }
+                    else {
+                        live++;
+                    }
+                }
+                else if (state == STATE_REMOVED) {
+                    removed++;
+                }
+                else if (state != STATE_EMPTY) {
+                    buffer.putInt(offset + STATE_OFFSET, STATE_EMPTY);
+                }
+            }
+            // Always compact, to finish any compaction interrupted by a crash.
+            compact(now);
+        }
+
+        private void put(@Nonnull byte[] key, @Nonnull byte[] value, int hash, long expiresAt) throws TokenMapException {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                if (!tryPut(key, value, hash, expiresAt, now)) {
+                    // Expired mappings past the first empty slot of a chain are never met by probing, so free them all and try again.
+                    purgeExpired(now);
+                    if (!tryPut(key, value, hash, expiresAt, now)) {
+                        throw new TokenMapException("Token map segment is full!");
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return Whether the mapping was written, or false if the segment is full.
+         */
+        private boolean tryPut(@Nonnull byte[] key, @Nonnull byte[] value, int hash, long expiresAt, long now) {
+            int reusable = -1;
+            int empty = -1;
+            int slot = firstSlot(hash);
+            for (int probes = 0; probes < slotsPerSegment; probes++, slot = nextSlot(slot)) {
+                int offset = slot * slotBytes;
+                int state = buffer.getInt(offset + STATE_OFFSET);
+                if (state == STATE_EMPTY) {
+                    empty = slot;
+                    break;
+                }
+                if (state == STATE_FULL && buffer.getInt(offset + HASH_OFFSET) == hash && keyEquals(offset, key)) {
+                    // Replace the existing mapping in place.
+                    writeSlot(offset, key, value, hash, expiresAt);
+                    return true;
+                }
+                if (reusable < 0 && (state == STATE_REMOVED || buffer.getLong(offset + EXPIRY_OFFSET) <= now)) {
+                    reusable = slot;
+                }
+            }
+            int target = reusable >= 0 ? reusable : empty;
+            if (target < 0) {
+                return false;
+            }
+            int targetOffset = target * slotBytes;
+            int targetState = buffer.getInt(targetOffset + STATE_OFFSET);
+            if (targetState != STATE_FULL) {
+                // A reused expired slot is already counted as live, so only a fresh slot takes up capacity.
+                if (live >= maxLive) {
+                    return false;
+                }
+                live++;
+            }
+            if (targetState == STATE_REMOVED) {
+                removed--;
+            }
+            writeSlot(targetOffset, key, value, hash, expiresAt);
+            return true;
+        }
+
+        /**
+         * Marks every expired mapping of this segment as removed, so its slot no longer counts as live, compacting the segment if too many slots are then removed.
+         */
+        private void purgeExpired(long now) {
+            for (int slot = 0; slot < slotsPerSegment; slot++) {
+                int offset = slot * slotBytes;
+                if (buffer.getInt(offset + STATE_OFFSET) == STATE_FULL && buffer.getLong(offset + EXPIRY_OFFSET) <= now) {
+                    buffer.putInt(offset + STATE_OFFSET, STATE_REMOVED);
+                    live--;
+                    removed++;
+                }
+            }
+            if (removed > slotsPerSegment / 4) {
+                compact(now);
+            }
+            else if (syncWrites) {
+                buffer.force();
+            }
+        }
+
+        /**
+         * @return The number of unexpired mappings in this segment.
+         */
+        private int countUnexpired(long now) {
+            int count = 0;
+            for (int slot = 0; slot < slotsPerSegment; slot++) {
+                int offset = slot * slotBytes;
+                if (buffer.getInt(offset + STATE_OFFSET) == STATE_FULL && buffer.getLong(offset + EXPIRY_OFFSET) > now) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Nullable
+        private String remove(@Nonnull byte[] key, int hash, long now) {
+            lock.lock();
+            try {
+                int slot = firstSlot(hash);
+                for (int probes = 0; probes < slotsPerSegment; probes++, slot = nextSlot(slot)) {
+                    int offset = slot * slotBytes;
+                    int state = buffer.getInt(offset + STATE_OFFSET);
+                    if (state == STATE_EMPTY) {
+                        return null;
+                    }
+                    if (state == STATE_FULL && buffer.getInt(offset + HASH_OFFSET) == hash && keyEquals(offset, key)) {
+                        String value = buffer.getLong(offset + EXPIRY_OFFSET) > now ? readValue(offset) : null;
+                        buffer.putInt(offset + STATE_OFFSET, STATE_REMOVED);
+                        if (syncWrites) {
+                            buffer.force();
+                        }
+                        live--;
+                        removed++;
+                        if (removed > slotsPerSegment / 4) {
+                            compact(now);
+                        }
+                        return value;
+                    }
+                }
+                return null;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Clears every removed and expired slot of this segment, then moves each mapping left unreachable by its probe sequence into the first empty slot of that sequence.
+         * <br>
+         * Each mapping is written to its new slot before its old slot is cleared, so a crash at any point loses no mapping:
+         * at worst a mapping is left unreachable or held twice, which {@link Segment#recover(long)} repairs by compacting again.
+         */
+        private void compact(long now) {
+            for (int slot = 0; slot < slotsPerSegment; slot++) {
+                int offset = slot * slotBytes;
+                int state = buffer.getInt(offset + STATE_OFFSET);
+                if (state == STATE_REMOVED || state == STATE_FULL && buffer.getLong(offset + EXPIRY_OFFSET) <= now) {
+                    buffer.putInt(offset + STATE_OFFSET, STATE_EMPTY);
+                }
+            }
+            // Clearing a slot may cut off mappings further along its probe sequence (including ones already visited, across the wrap-around), so repeat until none move.
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int slot = 0; slot < slotsPerSegment; slot++) {
+                    int offset = slot * slotBytes;
+                    if (buffer.getInt(offset + STATE_OFFSET) != STATE_FULL) {
+                        continue;
+                    }
+                    int target = unreachableTarget(slot);
+                    if (target == slot) {
+                        continue;
+                    }
+                    if (target >= 0) {
+                        byte[] key = readBytes(offset + KEY_OFFSET, buffer.getShort(offset + KEY_LENGTH_OFFSET));
+                        byte[] value = readBytes(offset + KEY_OFFSET + maxKeyBytes, buffer.getShort(offset + VALUE_LENGTH_OFFSET));
+                        writeSlot(target * slotBytes, key, value, buffer.getInt(offset + HASH_OFFSET), buffer.getLong(offset + EXPIRY_OFFSET));
+                    }
+                    // Either moved, or a duplicate left behind by a crash mid-move.
+                    buffer.putInt(offset + STATE_OFFSET, STATE_EMPTY);
+                    moved = true;
+                }
+            }
+            live = countUnexpired(now);
+            removed = 0;
+            if (syncWrites) {
+                buffer.force();
+            }
+        }
+
+        /**
+         * Walks the probe sequence of the mapping in the given slot up to that slot.
+         * @return The slot itself if it is reachable, the first empty slot of the sequence if it is not, or -1 if an earlier slot holds the same mapping.
+         */
+        private int unreachableTarget(int slot) {
+            int offset = slot * slotBytes;
+            int hash = buffer.getInt(offset + HASH_OFFSET);
+            for (int probe = firstSlot(hash); probe != slot; probe = nextSlot(probe)) {
+                int probeOffset = probe * slotBytes;
+                int state = buffer.getInt(probeOffset + STATE_OFFSET);
+                if (state == STATE_EMPTY) {
+                    return probe;
+                }
+                if (state == STATE_FULL && buffer.getInt(probeOffset + HASH_OFFSET) == hash && keysEqual(probeOffset, offset)) {
+                    return -1;
+                }
+            }
+            return slot;
+        }
+
+        private void writeSlot(int offset, @Nonnull byte[] key, @Nonnull byte[] value, int hash, long expiresAt) {
+            // Mark the slot as not in use while writing, so a crash mid-write never exposes a torn mapping.
+            buffer.putInt(offset + STATE_OFFSET, STATE_REMOVED);
+            buffer.putInt(offset + HASH_OFFSET, hash);
+            buffer.putLong(offset + EXPIRY_OFFSET, expiresAt);
+            buffer.putShort(offset + KEY_LENGTH_OFFSET, (short) key.length);
+            buffer.putShort(offset + VALUE_LENGTH_OFFSET, (short) value.length);
+            for (int i = 0; i < key.length; i++) {
+                buffer.put(offset + KEY_OFFSET + i, key[i]);
+            }
+            int valueOffset = offset + KEY_OFFSET + maxKeyBytes;
+            for (int i = 0; i < value.length; i++) {
+                buffer.put(valueOffset + i, value[i]);
+            }
+            buffer.putInt(offset + STATE_OFFSET, STATE_FULL);
+            if (syncWrites) {
+                buffer.force();
+            }
+        }
+
+        private boolean keysEqual(int offset, int otherOffset) {
+            int length = buffer.getShort(offset + KEY_LENGTH_OFFSET);
+            if (buffer.getShort(otherOffset + KEY_LENGTH_OFFSET) != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(offset + KEY_OFFSET + i) != buffer.get(otherOffset + KEY_OFFSET + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean keyEquals(int offset, @Nonnull byte[] key) {
+            if (buffer.getShort(offset + KEY_LENGTH_OFFSET) != key.length) {
+                return false;
+            }
+            int keyOffset = offset + KEY_OFFSET;
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(keyOffset + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Nonnull
+        private String readValue(int offset) {
+            byte[] value = readBytes(offset + KEY_OFFSET + maxKeyBytes, buffer.getShort(offset + VALUE_LENGTH_OFFSET));
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        @Nonnull
+        private byte[] readBytes(int offset, int length) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            return bytes;
+        }
+
+        private int firstSlot(int hash) {
+            // The low bits select the segment, so use the high bits here.
+            return (hash >>> 6) % slotsPerSegment;
+        }
+
+        private int nextSlot(int slot) {
+            return slot + 1 == slotsPerSegment ? 0 : slot + 1;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.InvalidSealedStateException;
+import oauth1.exception.InvalidSealedStateException.Reason;
+import oauth1.exception.TokenMapException;
+import oauth1.strategy.SealingTokenMapStrategy;
+import oauth1.verifier.NonceReplayCache;
+import oauth1.verifier.VerificationOutcome;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe, stateless preset implementation of {@link SealingTokenMapStrategy}, suitable for production use across many nodes without a shared store or sticky sessions.
+ * <br><br>
+ * The temporary token secret is encrypted with AES-GCM, together with the time it was sealed, into a URL-safe state which also carries the temporary token and the id of the key.
+ * Unsealing checks the state was sealed for the given temporary token by a known key, and is no older than the time-to-live.
+ * Each state can be unsealed once by this instance: the random IV of each unsealed state is recorded in a bounded {@link NonceReplayCache} until the state expires,
+ * and states which cannot be recorded because the cache is full are rejected.
+ * The cache grows as states are recorded, but splits its capacity over time, so at most about a sixteenth of it can be used per sixteenth of the time-to-live.
+ * <br>
+ * Keys are rotated via {@link SealedStateTokenMapStrategy#rotateKey(byte[])}: new states are sealed with the new key,
+ * while retired keys still unseal states for one time-to-live, so handshakes in flight are not invalidated.
+ * For several nodes to unseal each other's states, rotate all of them to the same keys; the id of a key is derived from the key itself.
+ * The replay filter is held by each instance, so across nodes sharing a key a state can be unsealed once per node, not once overall.
+ * Where that matters, route the callbacks of a handshake to a single node, or check access tokens for reuse downstream.
+ * <br>
+ * As IVs are random, a key should be rotated well before sealing 2^32 states.
+ */
+public class SealedStateTokenMapStrategy implements SealingTokenMapStrategy {
+    public static final long DEFAULT_TIME_TO_LIVE_SECONDS = TimeUnit.MINUTES.toSeconds(10);
+    public static final int DEFAULT_REPLAY_CAPACITY = 4_000_000;
+
+    private static final byte VERSION = 1;
+    private static final int KEY_ID_BYTES = 4;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_BYTES = 1 + KEY_ID_BYTES + 2;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        }
+        catch (GeneralSecurityException e) {
+            // AES-GCM is required of every Java platform.
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final long timeToLiveSeconds;
+    private final @Nonnull NonceReplayCache replayFilter;
+    private final SecureRandom random = new SecureRandom();
+    private volatile @Nonnull KeyRing keyRing;
+
+    /**
+     * Constructs a strategy with a random key, the default time-to-live of 10 minutes, and a replay filter holding up to 4,000,000 states (so about 250,000 per 75 seconds).
+     * <br>
+     * The random key is only known to this instance, so rotate to a shared key via {@link SealedStateTokenMapStrategy#rotateKey(byte[])} if states are unsealed on other nodes.
+     */
+    public SealedStateTokenMapStrategy() {
+        this(DEFAULT_TIME_TO_LIVE_SECONDS, DEFAULT_REPLAY_CAPACITY);
+    }
+
+    /**
+     * Constructs a strategy with a random key.
+     * @param timeToLiveSeconds How long a state can be unsealed after being sealed. This should be at least the maximal permissible duration of the OAuth handshake procedure.
+     * @param replayCapacity The maximum number of unsealed states remembered at once, to reject them if unsealed again.
+     */
+    public SealedStateTokenMapStrategy(long timeToLiveSeconds, int replayCapacity) {
+        this(null, timeToLiveSeconds, replayCapacity);
+    }
+
+    /**
+     * @param key The AES key (16, 24 or 32 bytes) to seal with, e.g. one shared by every node, or null for a random key.
+     * @param timeToLiveSeconds How long a state can be unsealed after being sealed. This should be at least the maximal permissible duration of the OAuth handshake procedure.
+     * @param replayCapacity The maximum number of unsealed states remembered at once, to reject them if unsealed again.
+     */
+    public SealedStateTokenMapStrategy(@Nullable byte[] key, long timeToLiveSeconds, int replayCapacity) {
+        if (timeToLiveSeconds <= 0) {
+            throw new IllegalArgumentException("timeToLiveSeconds must be positive!");
+        }
+        if (replayCapacity <= 0) {
+            throw new IllegalArgumentException("replayCapacity must be positive!");
+        }
+        this.timeToLiveSeconds = timeToLiveSeconds;
+        this.replayFilter = new NonceReplayCache(timeToLiveSeconds, replayCapacity);
+        this.keyRing = new KeyRing(new Key(key == null ? randomKey() : key.clone()), Collections.emptyList());
+    }
+
+    /**
+     * Seals new states with a new random key, only known to this instance.
+     */
+    public void rotateKey() {
+        rotateKey(randomKey());
+    }
+
+    /**
+     * Seals new states with the given key. The current key is retired, but still unseals the states it sealed until they expire.
+     * Rotating to a key which is already known makes it current again.
+     * @param key The AES key (16, 24 or 32 bytes).
+     */
+    public synchronized void rotateKey(@Nonnull byte[] key) {
+        Key next = new Key(key.clone());
+        long now = nowSeconds();
+        KeyRing ring = keyRing;
+        List<Key> retired = new ArrayList<>();
+        for (Key candidate : ring.retired) {
+            // Drop keys which can no longer have sealed an unexpired state, and any previous use of the new key.
+            if (now - candidate.retiredAt <= timeToLiveSeconds && candidate.id != next.id) {
+                retired.add(candidate);
+            }
+        }
+        if (ring.current.id != next.id) {
+            retired.add(ring.current.retire(now));
+        }
+        keyRing = new KeyRing(next, retired);
+    }
+
+    /**
+     * @return How long a state can be unsealed after being sealed, in seconds.
+     */
+    public long getTimeToLiveSeconds() {
+        return timeToLiveSeconds;
+    }
+
+    /**
+     * @return The number of unsealed states currently remembered.
+     */
+    public long getReplayFilterSize() {
+        return replayFilter.size();
+    }
+
+    /**
+     * Stores nothing, as a sealing strategy carries the temporary token secret in the state returned from {@link SealedStateTokenMapStrategy#seal(String, String)}.
+     * @throws TokenMapException Always.
+     */
+    @Override
+    public void mapTemporaryTokenToTemporaryTokenSecret(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException {
+        throw new TokenMapException("A sealing token map strategy keeps no mappings, seal the temporary token secret instead!");
+    }
+
+    /**
+     * Finds nothing, as a sealing strategy keeps no mappings: the state is required to unseal the temporary token secret.
+     * @throws TokenMapException Always.
+     */
+    @Nullable
+    @Override
+    public String fetchTemporaryTokenSecretForTemporaryToken(@Nonnull String temporaryToken) throws TokenMapException {
+        throw new TokenMapException("A sealing token map strategy keeps no mappings, the sealed state is required to obtain the temporary token secret!");
+    }
+
+    @Nonnull
+    @Override
+    public String seal(@Nonnull String temporaryToken, @Nonnull String temporaryTokenSecret) throws TokenMapException {
+        byte[] token = temporaryToken.getBytes(StandardCharsets.UTF_8);
+        byte[] secret = temporaryTokenSecret.getBytes(StandardCharsets.UTF_8);
+        if (token.length > 0xFFFF) {
+            throw new TokenMapException("Temporary token is too long to seal!");
+        }
+        Key key = keyRing.current;
+        int aadLength = HEADER_BYTES + token.length;
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+
+        // Layout: version | key id | token length | token | IV | AES-GCM(sealed at | secret) | tag, authenticating everything before the IV.
+        ByteBuffer state = ByteBuffer.allocate(aadLength + IV_BYTES + Long.BYTES + secret.length + TAG_BITS / 8);
+        state.put(VERSION).putInt(key.id).putShort((short) token.length).put(token).put(iv);
+        ByteBuffer plaintext = ByteBuffer.allocate(Long.BYTES + secret.length);
+        plaintext.putLong(nowSeconds()).put(secret).flip();
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key.spec, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(state.array(), 0, aadLength);
+            cipher.doFinal(plaintext, state);
+        }
+        catch (GeneralSecurityException e) {
+            throw new TokenMapException(e);
+        }
+        return ENCODER.encodeToString(state.array());
+    }
+
+    @Nonnull
+    @Override
+    public String temporaryTokenOf(@Nonnull String state) throws TokenMapException {
+        byte[] bytes = decode(state);
+        return new String(bytes, HEADER_BYTES, tokenLength(bytes), StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    @Override
+    public String unseal(@Nonnull String temporaryToken, @Nonnull String state) throws TokenMapException {
+        byte[] bytes = decode(state);
+        int tokenLength = tokenLength(bytes);
+        if (!MessageDigest.isEqual(temporaryToken.getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(bytes, HEADER_BYTES, HEADER_BYTES + tokenLength))) {
+            throw new InvalidSealedStateException(Reason.TOKEN_MISMATCH);
+        }
+        Key key = keyRing.find(ByteBuffer.wrap(bytes, 1, KEY_ID_BYTES).getInt());
+        if (key == null) {
+            throw new InvalidSealedStateException(Reason.UNKNOWN_KEY);
+        }
+
+        int aadLength = HEADER_BYTES + tokenLength;
+        byte[] plaintext;
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key.spec, new GCMParameterSpec(TAG_BITS, bytes, aadLength, IV_BYTES));
+            cipher.updateAAD(bytes, 0, aadLength);
+            plaintext = cipher.doFinal(bytes, aadLength + IV_BYTES, bytes.length - aadLength - IV_BYTES);
+        }
+        catch (AEADBadTagException e) {
+            throw new InvalidSealedStateException(Reason.TAMPERED);
+        }
+        catch (GeneralSecurityException e) {
+            throw new TokenMapException(e);
+        }
+
+        long sealedAt = ByteBuffer.wrap(plaintext).getLong();
+        long age = nowSeconds() - sealedAt;
+        if (age > timeToLiveSeconds || age < -timeToLiveSeconds) {
+            throw new InvalidSealedStateException(Reason.EXPIRED);
+        }
+        // Only genuine, unexpired states reach the replay filter, so it cannot be filled by forged ones.
+        String iv = ENCODER.encodeToString(Arrays.copyOfRange(bytes, aadLength, aadLength + IV_BYTES));
+        VerificationOutcome outcome = replayFilter.recordIfAbsent(sealedAt, "", temporaryToken, iv);
+        switch (outcome) {
+            case VALID:
+                return new String(plaintext, Long.BYTES, plaintext.length - Long.BYTES, StandardCharsets.UTF_8);
+            case REPLAYED_NONCE:
+                throw new InvalidSealedStateException(Reason.REPLAYED);
+            case NONCE_CACHE_FULL:
+                throw new InvalidSealedStateException(Reason.REPLAY_FILTER_FULL);
+            default:
+                throw new InvalidSealedStateException(Reason.EXPIRED);
+        }
+    }
+
+    @Nonnull
+    private static byte[] decode(@Nonnull String state) throws InvalidSealedStateException {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(state);
+        }
+        catch (IllegalArgumentException e) {
+            throw new InvalidSealedStateException(Reason.MALFORMED);
+        }
+        if (bytes.length < HEADER_BYTES || bytes[0] != VERSION) {
+            throw new InvalidSealedStateException(Reason.MALFORMED);
+        }
+        return bytes;
+    }
+
+    private static int tokenLength(@Nonnull byte[] state) throws InvalidSealedStateException {
+        int tokenLength = ByteBuffer.wrap(state, 1 + KEY_ID_BYTES, 2).getShort() & 0xFFFF;
+        if (state.length < HEADER_BYTES + tokenLength + IV_BYTES + Long.BYTES + TAG_BITS / 8) {
+            throw new InvalidSealedStateException(Reason.MALFORMED);
+        }
+        return tokenLength;
+    }
+
+    @Nonnull
+    private byte[] randomKey() {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        return key;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * An AES key and its id, the first bytes of its SHA-256 digest.
+     */
+    private static final class Key {
+        private final int id;
+        private final @Nonnull SecretKeySpec spec;
+        private final long retiredAt;
+
+        private Key(@Nonnull byte[] key) {
+            this(idOf(key), new SecretKeySpec(checkLength(key), "AES"), Long.MAX_VALUE);
+        }
+
+        private Key(int id, @Nonnull SecretKeySpec spec, long retiredAt) {
+            this.id = id;
+            this.spec = spec;
+            this.retiredAt = retiredAt;
+        }
+
+        @Nonnull
+        private Key retire(long now) {
+            return new Key(id, spec, now);
+        }
+
+        @Nonnull
+        private static byte[] checkLength(@Nonnull byte[] key) {
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalArgumentException("key must be 16, 24 or 32 bytes!");
+            }
+            return key;
+        }
+
+        private static int idOf(@Nonnull byte[] key) {
+            try {
+                return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(key)).getInt();
+            }
+            catch (GeneralSecurityException e) {
+                // SHA-256 is required of every Java platform.
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * An immutable snapshot of the current key and the retired keys, replaced as a whole on rotation.
+     */
+    private static final class KeyRing {
+        private final @Nonnull Key current;
+        private final @Nonnull List<Key> retired;
+
+        private KeyRing(@Nonnull Key current, @Nonnull List<Key> retired) {
+            this.current = current;
+            this.retired = retired;
+        }
+
+        @Nullable
+        private Key find(int id) {
+            if (current.id == id) {
+                return current;
+            }
+            for (Key key : retired) {
+                if (key.id == id) {
+                    // States sealed before retirement expire on their own, so a retired key needs no further expiry check.
+                    return key;
+                }
+            }
+            return null;
+        }
+    }
+}
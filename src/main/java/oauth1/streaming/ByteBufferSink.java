@@ -0,0 +1,41 @@
+package oauth1.streaming;
+
+import javax.annotation.Nonnull;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link WritableByteChannel} writing into a caller-supplied {@link ByteBuffer} (e.g. a reusable direct buffer), starting at its position.
+ * <br>
+ * Writing more than the buffer's remaining capacity throws a {@link BufferOverflowException}.
+ */
+public class ByteBufferSink implements WritableByteChannel {
+    private final @Nonnull ByteBuffer buffer;
+    private boolean open = true;
+
+    public ByteBufferSink(@Nonnull ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int write(@Nonnull ByteBuffer src) throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int written = src.remaining();
+        buffer.put(src);
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
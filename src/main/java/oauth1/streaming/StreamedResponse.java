@@ -0,0 +1,28 @@
+package oauth1.streaming;
+
+import com.google.api.client.http.HttpHeaders;
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The status and headers of a response whose body was streamed into a caller-supplied sink.
+ */
+@Data
+public class StreamedResponse {
+    private final int statusCode;
+    private final @Nullable String statusMessage;
+    private final @Nonnull HttpHeaders headers;
+    /**
+     * The number of (decoded) body bytes written into the sink.
+     */
+    private final long bodyBytes;
+
+    public StreamedResponse(int statusCode, @Nullable String statusMessage, @Nonnull HttpHeaders headers, long bodyBytes) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.headers = headers;
+        this.bodyBytes = bodyBytes;
+    }
+}
@@ -0,0 +1,175 @@
+package oauth1.streaming;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.util.Base64;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A request body streamed from a {@link ReadableByteChannel} or {@link InputStream} while the request is sent, rather than held in memory.
+ * <br><br>
+ * If the body hash is enabled, the {@code oauth_body_hash} (the Base64 encoded SHA-1 digest of the body) is computed incrementally and signed along with the request.
+ * As the hash must be known before the request is signed, the body is read twice:
+ * a {@link SeekableByteChannel} (e.g. a {@link FileChannel}) is hashed in a first pass and then rewound,
+ * whereas any other source is spooled to a temporary file while being hashed, and then streamed from that file.
+ * Either way, only a small fixed-size buffer is held in memory.
+ * <br>
+ * Per the OAuth Request Body Hash specification, the body hash should not be used with {@code application/x-www-form-urlencoded} bodies.
+ * <br>
+ * A body can only be sent once, and the source is closed once it has been sent (or via {@link StreamingBody#close()}).
+ */
+public class StreamingBody extends AbstractHttpContent implements Closeable {
+    private static final int BUFFER_BYTES = 16 * 1024;
+
+    private final @Nonnull ReadableByteChannel source;
+    private final boolean bodyHashEnabled;
+    private long length;
+    private @Nullable String bodyHash;
+    private @Nullable Path spoolFile;
+    private long startPosition;
+
+    /**
+     * @param type The content type of the body, or null for none.
+     * @param source The channel the body is read from.
+     * @param length The length of the body in bytes, or -1 if unknown (in which case the body is sent chunked, unless spooled for hashing).
+     * @param bodyHashEnabled Whether to compute and sign the {@code oauth_body_hash} of the body.
+     */
+    public StreamingBody(@Nullable String type, @Nonnull ReadableByteChannel source, long length, boolean bodyHashEnabled) {
+        super(type);
+        this.source = source;
+        this.length = length;
+        this.bodyHashEnabled = bodyHashEnabled;
+    }
+
+    /**
+     * @param type The content type of the body, or null for none.
+     * @param source The stream the body is read from.
+     * @param length The length of the body in bytes, or -1 if unknown (in which case the body is sent chunked, unless spooled for hashing).
+     * @param bodyHashEnabled Whether to compute and sign the {@code oauth_body_hash} of the body.
+     */
+    public StreamingBody(@Nullable String type, @Nonnull InputStream source, long length, boolean bodyHashEnabled) {
+        this(type, Channels.newChannel(source), length, bodyHashEnabled);
+    }
+
+    /**
+     * Computes the {@code oauth_body_hash} of the body, if enabled, reading the whole body once. Subsequent calls return the same hash.
+     * @return The Base64 encoded SHA-1 digest of the body, or null if the body hash is not enabled.
+     * @throws IOException If reading (or spooling) the body failed.
+     */
+    @Nullable
+    public synchronized String computeBodyHash() throws IOException {
+        if (!bodyHashEnabled || bodyHash != null) {
+            return bodyHash;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        if (source instanceof SeekableByteChannel) {
+            SeekableByteChannel seekable = (SeekableByteChannel) source;
+            startPosition = seekable.position();
+            long hashed = 0;
+            while (seekable.read(buffer) != -1) {
+                digest.update(buffer.array(), 0, buffer.position());
+                hashed += buffer.position();
+                buffer.clear();
+            }
+            seekable.position(startPosition);
+            length = hashed;
+        }
+        else {
+            Path file = Files.createTempFile("oauth1-body-", ".tmp");
+            spoolFile = file;
+            long spooled = 0;
+            try (FileChannel spool = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                while (source.read(buffer) != -1) {
+                    digest.update(buffer.array(), 0, buffer.position());
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        spooled += spool.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            length = spooled;
+        }
+        bodyHash = Base64.encodeBase64String(digest.digest());
+        return bodyHash;
+    }
+
+    /**
+     * @return Whether the {@code oauth_body_hash} of the body is computed and signed.
+     */
+    public boolean isBodyHashEnabled() {
+        return bodyHashEnabled;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public boolean retrySupported() {
+        // The source can only be read once.
+        return false;
+    }
+
+    @Override
+    public synchronized void writeTo(@Nonnull OutputStream out) throws IOException {
+        try {
+            ReadableByteChannel body = spoolFile != null ? FileChannel.open(spoolFile, StandardOpenOption.READ) : source;
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+                while (body.read(buffer) != -1) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                out.flush();
+            }
+            finally {
+                if (body != source) {
+                    body.close();
+                }
+            }
+        }
+        finally {
+            close();
+        }
+    }
+
+    /**
+     * Closes the source and deletes the spooled copy of the body, if any.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            source.close();
+        }
+        finally {
+            if (spoolFile != null) {
+                Files.deleteIfExists(spoolFile);
+                spoolFile = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package oauth1.tenant;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpResponse;
+import oauth1.OAuth1Generic;
+import oauth1.async.AsyncExecutors;
+import oauth1.cache.CachedResponse;
+import oauth1.exception.GetAccessTokenException;
+import oauth1.exception.GetTemporaryTokenException;
+import oauth1.exception.OAuthBackedRequestException;
+import oauth1.exception.TokenMapException;
+import oauth1.lib.AuthorisedResult;
+import oauth1.lib.BeginResult;
+import oauth1.lib.RequestMethod;
+import oauth1.metrics.MetricsStrategy;
+import oauth1.signer.HmacSignerCache;
+import oauth1.transport.SharedTransport;
+import oauth1.warmup.WarmUpReport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An immutable, thread-safe OAuth1.0 consumer of a single provider, built from a {@link ProviderConfig}.
+ * <br><br>
+ * Unlike {@link OAuth1Generic}, a client has no setters: its configuration is fixed on construction, so it can be shared freely between threads.
+ * To change the configuration (e.g. to rotate the consumer secret), build a new client, which {@link OAuth1ClientRegistry} does atomically;
+ * requests in flight on the old client complete with the configuration they started with.
+ * <br>
+ * Clients are cheap: the transport, signer cache, metrics and executor are shared, typically by every client of an {@link OAuth1ClientRegistry}.
+ */
+public final class OAuth1Client {
+    private final @Nonnull ProviderConfig config;
+    private final @Nonnull Executor executor;
+    private final @Nonnull Delegate delegate;
+
+    /**
+     * @param config The configuration of the provider.
+     * @param transport The pooled transport the requests are made through.
+     * @param signerCache The cache of signers (and thus derived signing keys).
+     * @param metricsStrategy The strategy recording the latency and outcome of each request.
+     * @param executor The executor the asynchronous methods run on.
+     */
+    public OAuth1Client(@Nonnull ProviderConfig config, @Nonnull SharedTransport transport, @Nonnull HmacSignerCache signerCache, @Nonnull MetricsStrategy metricsStrategy, @Nonnull Executor executor) {
+        this.config = config;
+        this.executor = executor;
+        this.delegate = new Delegate(config, transport, signerCache, metricsStrategy);
+    }
+
+    /**
+     * @return The configuration of the provider.
+     */
+    @Nonnull
+    public ProviderConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Requests a temporary token, maps it to its token secret, and builds the redirect URL if the provider has an authorise URL.
+     * @see OAuth1Generic#begin()
+     */
+    @Nonnull
+    public BeginResult begin() throws GetTemporaryTokenException, TokenMapException {
+        return delegate.begin();
+    }
+
+    /**
+     * Exchanges an authorised temporary token for an access token.
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Client#begin()}.
+     * @param verifier The verifier, if the provider issued one, otherwise null.
+     * @see OAuth1Generic#authorised(String, String)
+     */
+    @Nonnull
+    public AuthorisedResult authorised(@Nonnull String temporaryToken, @Nullable String verifier) throws GetAccessTokenException, TokenMapException {
+        return delegate.authorised(temporaryToken, verifier);
+    }
+
+    /**
+     * Exchanges an authorised temporary token for an access token, unsealing the temporary token secret from the state returned by {@link OAuth1Client#begin()}.
+     * @param temporaryToken The temporary token obtained from {@link OAuth1Client#begin()}.
+     * @param verifier The verifier, if the provider issued one, otherwise null.
+     * @param state The sealed state obtained from {@link OAuth1Client#begin()}, when the provider is configured with a {@link oauth1.strategy.SealingTokenMapStrategy}.
+     * @see OAuth1Generic#authorisedWithState(String, String, String)
+     */
+    @Nonnull
+    public AuthorisedResult authorisedWithState(@Nonnull String temporaryToken, @Nullable String verifier, @Nonnull String state) throws GetAccessTokenException, TokenMapException {
+        return delegate.authorisedWithState(temporaryToken, verifier, state);
+    }
+
+    /**
+     * Makes a request on a user's behalf through the shared transport.
+     * @see OAuth1Generic#makePooledOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)
+     */
+    @Nonnull
+    public HttpResponse makeOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) throws OAuthBackedRequestException {
+        return delegate.makePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, httpContent);
+    }
+
+    /**
+     * Makes a GET request on a user's behalf through the shared transport, served from the provider's response cache if configured.
+     * @see OAuth1Generic#makeCachedOAuthBackedRequest(String, OAuthParameters)
+     */
+    @Nonnull
+    public CachedResponse makeCachedOAuthBackedRequest(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters) throws OAuthBackedRequestException {
+        return delegate.makeCachedOAuthBackedRequest(url, oAuthParameters);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Client#begin()}, run on the shared executor.
+     */
+    @Nonnull
+    public CompletableFuture<BeginResult> beginAsync() {
+        return AsyncExecutors.supplyAsync(executor, delegate::begin, GetTemporaryTokenException::new);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Client#authorised(String, String)}, run on the shared executor.
+     */
+    @Nonnull
+    public CompletableFuture<AuthorisedResult> authorisedAsync(@Nonnull String temporaryToken, @Nullable String verifier) {
+        return AsyncExecutors.supplyAsync(executor, () -> delegate.authorised(temporaryToken, verifier), GetAccessTokenException::new);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Client#authorisedWithState(String, String, String)}, run on the shared executor.
+     */
+    @Nonnull
+    public CompletableFuture<AuthorisedResult> authorisedWithStateAsync(@Nonnull String temporaryToken, @Nullable String verifier, @Nonnull String state) {
+        return delegate.authorisedWithStateAsync(temporaryToken, verifier, state, executor);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link OAuth1Client#makeOAuthBackedRequest(String, OAuthParameters, RequestMethod, HttpContent)}, run on the shared executor.
+     */
+    @Nonnull
+    public CompletableFuture<HttpResponse> makeOAuthBackedRequestAsync(@Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod, @Nullable HttpContent httpContent) {
+        return delegate.makeOAuthBackedRequestAsync(url, oAuthParameters, requestMethod, httpContent, executor);
+    }
+
+    /**
+     * Builds the {@link OAuthParameters} signing requests on behalf of an access token, e.g. one loaded from storage.
+     * @param accessToken The access token.
+     * @param tokenSecret The token secret the requests are signed with.
+     * @return The {@link OAuthParameters} of the access token.
+     */
+    @Nonnull
+    public OAuthParameters buildOAuthParameters(@Nonnull String accessToken, @Nonnull String tokenSecret) {
+        return delegate.buildOAuthParameters(accessToken, tokenSecret);
+    }
+
+    /**
+     * Warms up this client before it serves traffic, with {@value OAuth1Generic#DEFAULT_WARM_UP_ITERATIONS} iterations. See {@link OAuth1Generic#warmUp(int)}.
+     * @return The duration and outcome of each step.
+     */
+    @Nonnull
+    public WarmUpReport warmUp() {
+        return delegate.warmUp();
+    }
+
+    /**
+     * Warms up this client before it serves traffic. See {@link OAuth1Generic#warmUp(int)}.
+     * @param iterations The number of times the signing and parsing steps are repeated.
+     * @return The duration and outcome of each step.
+     */
+    @Nonnull
+    public WarmUpReport warmUp(int iterations) {
+        return delegate.warmUp(iterations);
+    }
+
+    /**
+     * The {@link OAuth1Generic} doing the work, configured once on construction and never exposed, so never mutated.
+     */
+    private static final class Delegate extends OAuth1Generic {
+        private Delegate(@Nonnull ProviderConfig config, @Nonnull SharedTransport transport, @Nonnull HmacSignerCache signerCache, @Nonnull MetricsStrategy metricsStrategy) {
+            super(
+                    config.getConsumerKey(),
+                    config.getConsumerSecret(),
+                    config.getRequestTokenUrl(),
+                    config.getCallbackUrl(),
+                    config.getAuthoriseUrl(),
+                    config.getAccessTokenUrl(),
+                    config.getTokenMapStrategy(),
+                    transport
+            );
+            this.signerCache = signerCache;
+            this.metricsStrategy = metricsStrategy;
+            this.nonceTimestampStrategy = config.getNonceTimestampStrategy();
+            this.rateLimiter = config.getRateLimiter();
+            this.requestHedger = config.getRequestHedger();
+            this.retryPolicy = config.getRetryPolicy();
+            this.endpointIsolator = config.getEndpointIsolator();
+            this.responseCache = config.getResponseCache();
+        }
+
+        @Nonnull
+        @Override
+        protected BeginResult begin() throws GetTemporaryTokenException, TokenMapException {
+            return super.begin();
+        }
+
+        @Nonnull
+        @Override
+        protected AuthorisedResult authorised(@Nonnull String temporaryToken, @Nullable String verifier) throws GetAccessTokenException, TokenMapException {
+            return super.authorised(temporaryToken, verifier);
+        }
+
+        @Nonnull
+        @Override
+        protected AuthorisedResult authorisedWithState(@Nonnull String temporaryToken, @Nullable String verifier, @Nullable String state) throws GetAccessTokenException, TokenMapException {
+            return super.authorisedWithState(temporaryToken, verifier, state);
+        }
+
+        @Nonnull
+        @Override
+        protected CompletableFuture<AuthorisedResult> authorisedWithStateAsync(@Nonnull String temporaryToken, @Nullable String verifier, @Nullable String state, @Nonnull Executor executor) {
+            return super.authorisedWithStateAsync(temporaryToken, verifier, state, executor);
+        }
+
+        @Nonnull
+        @Override
+        protected OAuthParameters buildOAuthParameters(@Nonnull String accessToken, @Nonnull String tokenSecret) {
+            return super.buildOAuthParameters(accessToken, tokenSecret);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package oauth1.tenant;
+
+import oauth1.async.AsyncExecutors;
+import oauth1.metrics.MetricsStrategy;
+import oauth1.metrics.NoOpMetricsStrategy;
+import oauth1.signer.HmacSignerCache;
+import oauth1.transport.SharedTransport;
+import oauth1.warmup.WarmUpReport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe registry of {@link OAuth1Client}s, one per tenant (e.g. per provider), all sharing one pooled transport, signer cache, metrics strategy and executor.
+ * <br><br>
+ * The configuration of a tenant is replaced atomically via {@link OAuth1ClientRegistry#register(String, ProviderConfig)} or {@link OAuth1ClientRegistry#update(String, UnaryOperator)}:
+ * lookups return either the old client or the new one, never a mix, and requests in flight on the old client complete undisturbed.
+ * When a consumer secret is rotated, the signer of the old secret alone is invalidated in the shared cache, and those of its tokens are left to be evicted.
+ * <br><br>
+ * Invalidating only affects signers looked up afterwards: an {@link com.google.api.client.auth.oauth.OAuthParameters} holds on to its signer,
+ * so those built before a rotation (e.g. on an {@link oauth1.lib.AuthorisedResult}) keep signing with the retired secret.
+ * Rebuild them via {@link OAuth1Client#buildOAuthParameters(String, String)} on the tenant's new client once the rotation is done.
+ */
+public class OAuth1ClientRegistry {
+    private final @Nonnull SharedTransport transport;
+    private final @Nonnull HmacSignerCache signerCache;
+    private final @Nonnull MetricsStrategy metricsStrategy;
+    private final @Nonnull Executor executor;
+    private final Map<String, OAuth1Client> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a registry with its own pooled {@link SharedTransport} using the default {@link oauth1.transport.TransportConfig},
+     * recording no metrics, and running asynchronous requests on {@link AsyncExecutors#defaultExecutor()}.
+     */
+    public OAuth1ClientRegistry() {
+        this(new SharedTransport(), new HmacSignerCache(), NoOpMetricsStrategy.INSTANCE, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param transport The pooled transport shared by every client. Its connection limits apply across all tenants.
+     * @param signerCache The signer cache shared by every client.
+     * @param metricsStrategy The metrics strategy shared by every client.
+     * @param executor The executor the asynchronous requests of every client run on.
+     */
+    public OAuth1ClientRegistry(@Nonnull SharedTransport transport, @Nonnull HmacSignerCache signerCache, @Nonnull MetricsStrategy metricsStrategy, @Nonnull Executor executor) {
+        this.transport = transport;
+        this.signerCache = signerCache;
+        this.metricsStrategy = metricsStrategy;
+        this.executor = executor;
+    }
+
+    /**
+     * Builds a client sharing this registry's resources, without registering it.
+     * @param config The configuration of the provider.
+     * @return The client.
+     */
+    @Nonnull
+    public OAuth1Client newClient(@Nonnull ProviderConfig config) {
+        return new OAuth1Client(config, transport, signerCache, metricsStrategy, executor);
+    }
+
+    /**
+     * Registers the configuration of a tenant, atomically replacing any previous one.
+     * @param tenantId The identifier of the tenant.
+     * @param config The configuration of the tenant's provider.
+     * @return The tenant's new client.
+     */
+    @Nonnull
+    public OAuth1Client register(@Nonnull String tenantId, @Nonnull ProviderConfig config) {
+        return update(tenantId, (ProviderConfig previous) -> config);
+    }
+
+    /**
+     * Atomically replaces the configuration of a tenant with one derived from its current configuration, e.g.
+     * {@code registry.update(id, c -> c.toBuilder().consumerSecret(rotated).build())}.
+     * <br>
+     * {@link com.google.api.client.auth.oauth.OAuthParameters} built before a consumer secret is rotated keep signing with the old secret,
+     * so callers must rebuild them via {@link OAuth1Client#buildOAuthParameters(String, String)} on the returned client.
+     * @param tenantId The identifier of the tenant.
+     * @param update Derives the new configuration from the current one (or null if the tenant is not registered). It runs while the tenant is locked, so must be quick and must not use this registry.
+     * @return The tenant's new client.
+     */
+    @Nonnull
+    public OAuth1Client update(@Nonnull String tenantId, @Nonnull UnaryOperator<ProviderConfig> update) {
+        OAuth1Client[] replaced = new OAuth1Client[1];
+        OAuth1Client client = clients.compute(tenantId, (String id, OAuth1Client current) -> {
+            replaced[0] = current;
+            return newClient(update.apply(current == null ? null : current.getConfig()));
+        });
+        if (replaced[0] != null) {
+            releaseSigner(replaced[0].getConfig(), client.getConfig());
+        }
+        return client;
+    }
+
+    /**
+     * @param tenantId The identifier of the tenant.
+     * @return The tenant's client, or null if the tenant is not registered.
+     */
+    @Nullable
+    public OAuth1Client get(@Nonnull String tenantId) {
+        return clients.get(tenantId);
+    }
+
+    /**
+     * Removes a tenant. Requests in flight on its client complete undisturbed.
+     * @param tenantId The identifier of the tenant.
+     * @return The tenant's removed client, or null if the tenant was not registered.
+     */
+    @Nullable
+    public OAuth1Client remove(@Nonnull String tenantId) {
+        OAuth1Client removed = clients.remove(tenantId);
+        if (removed != null) {
+            releaseSigner(removed.getConfig(), null);
+        }
+        return removed;
+    }
+
+    /**
+     * @return A snapshot of the identifiers of the registered tenants.
+     */
+    @Nonnull
+    public Set<String> getTenantIds() {
+        return Collections.unmodifiableSet(new HashSet<>(clients.keySet()));
+    }
+
+    /**
+     * @return The number of registered tenants.
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Warms up the client of every registered tenant in turn, e.g. before a readiness probe lets traffic in. See {@link OAuth1Client#warmUp()}.
+     * @return The warm-up report of each tenant, by tenant identifier.
+     */
+    @Nonnull
+    public Map<String, WarmUpReport> warmUp() {
+        Map<String, WarmUpReport> reports = new LinkedHashMap<>();
+        clients.forEach((String tenantId, OAuth1Client client) -> reports.put(tenantId, client.warmUp()));
+        return reports;
+    }
+
+    /**
+     * Shuts down the shared transport, once no client of this registry is used any more.
+     * @throws IOException If the transport failed to shut down.
+     */
+    public void shutdown() throws IOException {
+        transport.shutdown();
+    }
+
+    /**
+     * Drops the signer of a replaced consumer secret from the shared cache, unless another tenant still uses it.
+     */
+    private void releaseSigner(@Nonnull ProviderConfig previous, @Nullable ProviderConfig current) {
+        String secret = previous.getConsumerSecret();
+        if (current != null && current.getConsumerSecret().equals(secret)) {
+            return;
+        }
+        for (OAuth1Client client : clients.values()) {
+            if (client.getConfig().getConsumerSecret().equals(secret)) {
+                return;
+            }
+        }
+        signerCache.invalidate(secret, null);
+    }
+}
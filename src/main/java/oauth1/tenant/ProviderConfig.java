@@ -0,0 +1,240 @@
+package oauth1.tenant;
+
+import lombok.Data;
+import lombok.ToString;
+import oauth1.cache.ResponseCache;
+import oauth1.ratelimit.RateLimiter;
+import oauth1.resilience.EndpointIsolator;
+import oauth1.resilience.RequestHedger;
+import oauth1.resilience.RetryPolicy;
+import oauth1.signer.NonceTimestampStrategy;
+import oauth1.signer.StripedNonceTimestampStrategy;
+import oauth1.strategy.TokenMapStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The immutable configuration of a single OAuth1.0 provider: its client credentials, endpoints, {@link TokenMapStrategy}, and the optional per-provider request policies.
+ * <br>
+ * Build one via {@link ProviderConfig#builder()}, or derive a modified copy via {@link ProviderConfig#toBuilder()}, e.g. to rotate the consumer secret.
+ */
+@Data
+public class ProviderConfig {
+    private final @Nonnull String consumerKey;
+    @ToString.Exclude
+    private final @Nonnull String consumerSecret;
+    private final @Nonnull String requestTokenUrl;
+    private final @Nullable String callbackUrl;
+    private final @Nullable String authoriseUrl;
+    private final @Nonnull String accessTokenUrl;
+    private final @Nonnull TokenMapStrategy tokenMapStrategy;
+    private final @Nonnull NonceTimestampStrategy nonceTimestampStrategy;
+    private final @Nullable RateLimiter rateLimiter;
+    private final @Nullable RequestHedger requestHedger;
+    private final @Nullable RetryPolicy retryPolicy;
+    private final @Nullable EndpointIsolator endpointIsolator;
+    private final @Nullable ResponseCache responseCache;
+
+    private ProviderConfig(@Nonnull Builder builder) {
+        this.consumerKey = required(builder.consumerKey, "consumerKey");
+        this.consumerSecret = required(builder.consumerSecret, "consumerSecret");
+        this.requestTokenUrl = required(builder.requestTokenUrl, "requestTokenUrl");
+        this.callbackUrl = builder.callbackUrl;
+        this.authoriseUrl = builder.authoriseUrl;
+        this.accessTokenUrl = required(builder.accessTokenUrl, "accessTokenUrl");
+        this.tokenMapStrategy = required(builder.tokenMapStrategy, "tokenMapStrategy");
+        this.nonceTimestampStrategy = builder.nonceTimestampStrategy;
+        this.rateLimiter = builder.rateLimiter;
+        this.requestHedger = builder.requestHedger;
+        this.retryPolicy = builder.retryPolicy;
+        this.endpointIsolator = builder.endpointIsolator;
+        this.responseCache = builder.responseCache;
+    }
+
+    /**
+     * @return A new, empty builder.
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return A builder initialised with this configuration.
+     */
+    @Nonnull
+    public Builder toBuilder() {
+        return new Builder()
+                .consumerKey(consumerKey)
+                .consumerSecret(consumerSecret)
+                .requestTokenUrl(requestTokenUrl)
+                .callbackUrl(callbackUrl)
+                .authoriseUrl(authoriseUrl)
+                .accessTokenUrl(accessTokenUrl)
+                .tokenMapStrategy(tokenMapStrategy)
+                .nonceTimestampStrategy(nonceTimestampStrategy)
+                .rateLimiter(rateLimiter)
+                .requestHedger(requestHedger)
+                .retryPolicy(retryPolicy)
+                .endpointIsolator(endpointIsolator)
+                .responseCache(responseCache);
+    }
+
+    @Nonnull
+    private static <T> T required(@Nullable T value, @Nonnull String name) {
+        if (value == null) {
+            throw new IllegalStateException(name + " is required!");
+        }
+        return value;
+    }
+
+    /**
+     * Builder of a {@link ProviderConfig}. The consumer key and secret, request and access token URLs, and {@link TokenMapStrategy} are required.
+     */
+    public static final class Builder {
+        private @Nullable String consumerKey;
+        private @Nullable String consumerSecret;
+        private @Nullable String requestTokenUrl;
+        private @Nullable String callbackUrl;
+        private @Nullable String authoriseUrl;
+        private @Nullable String accessTokenUrl;
+        private @Nullable TokenMapStrategy tokenMapStrategy;
+        private @Nonnull NonceTimestampStrategy nonceTimestampStrategy = StripedNonceTimestampStrategy.INSTANCE;
+        private @Nullable RateLimiter rateLimiter;
+        private @Nullable RequestHedger requestHedger;
+        private @Nullable RetryPolicy retryPolicy;
+        private @Nullable EndpointIsolator endpointIsolator;
+        private @Nullable ResponseCache responseCache;
+
+        private Builder() {
+
+        }
+
+        /**
+         * @param consumerKey Identifier portion of the client credentials.
+         */
+        @Nonnull
+        public Builder consumerKey(@Nonnull String consumerKey) {
+            this.consumerKey = consumerKey;
+            return this;
+        }
+
+        /**
+         * @param consumerSecret Client-shared secret.
+         */
+        @Nonnull
+        public Builder consumerSecret(@Nonnull String consumerSecret) {
+            this.consumerSecret = consumerSecret;
+            return this;
+        }
+
+        /**
+         * @param requestTokenUrl Encoded URL of the temporary token endpoint.
+         */
+        @Nonnull
+        public Builder requestTokenUrl(@Nonnull String requestTokenUrl) {
+            this.requestTokenUrl = requestTokenUrl;
+            return this;
+        }
+
+        /**
+         * @param callbackUrl Absolute URI the provider redirects the user back to once they granted access, or null for none.
+         */
+        @Nonnull
+        public Builder callbackUrl(@Nullable String callbackUrl) {
+            this.callbackUrl = callbackUrl;
+            return this;
+        }
+
+        /**
+         * @param authoriseUrl Encoded user authorization URL, or null to only receive the temporary token.
+         */
+        @Nonnull
+        public Builder authoriseUrl(@Nullable String authoriseUrl) {
+            this.authoriseUrl = authoriseUrl;
+            return this;
+        }
+
+        /**
+         * @param accessTokenUrl Encoded URL of the access token endpoint.
+         */
+        @Nonnull
+        public Builder accessTokenUrl(@Nonnull String accessTokenUrl) {
+            this.accessTokenUrl = accessTokenUrl;
+            return this;
+        }
+
+        /**
+         * @param tokenMapStrategy Strategy to map temporary tokens to token secrets.
+         */
+        @Nonnull
+        public Builder tokenMapStrategy(@Nonnull TokenMapStrategy tokenMapStrategy) {
+            this.tokenMapStrategy = tokenMapStrategy;
+            return this;
+        }
+
+        /**
+         * @param nonceTimestampStrategy Strategy generating the nonce and timestamp of each signed request. Defaults to {@link StripedNonceTimestampStrategy#INSTANCE}.
+         */
+        @Nonnull
+        public Builder nonceTimestampStrategy(@Nonnull NonceTimestampStrategy nonceTimestampStrategy) {
+            this.nonceTimestampStrategy = nonceTimestampStrategy;
+            return this;
+        }
+
+        /**
+         * @param rateLimiter Rate limiter applied to the provider's OAuth-backed requests, or null for none.
+         */
+        @Nonnull
+        public Builder rateLimiter(@Nullable RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * @param requestHedger Hedger applied to the provider's GET and HEAD requests, or null for none.
+         */
+        @Nonnull
+        public Builder requestHedger(@Nullable RequestHedger requestHedger) {
+            this.requestHedger = requestHedger;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy Policy retrying the provider's token requests on connection-level failures, or null for no retries.
+         */
+        @Nonnull
+        public Builder retryPolicy(@Nullable RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * @param endpointIsolator Circuit breakers and bulkheads applied per endpoint to the provider's token and OAuth-backed requests, or null for none. May be shared by several providers.
+         */
+        @Nonnull
+        public Builder endpointIsolator(@Nullable EndpointIsolator endpointIsolator) {
+            this.endpointIsolator = endpointIsolator;
+            return this;
+        }
+
+        /**
+         * @param responseCache Cache of the responses to the provider's cached GET requests, private to each user's credentials, or null for none. May be shared by several providers.
+         */
+        @Nonnull
+        public Builder responseCache(@Nullable ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * @return The configuration.
+         * @throws IllegalStateException If a required value is missing.
+         */
+        @Nonnull
+        public ProviderConfig build() {
+            return new ProviderConfig(this);
+        }
+    }
+}
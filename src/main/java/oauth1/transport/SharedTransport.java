@@ -0,0 +1,94 @@
+package oauth1.transport;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import lombok.Getter;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-lived HTTP transport and request factory, shared by every request made by a single consumer instance.
+ * <br><br>
+ * By default the transport is backed by a pooled Apache HTTP client, so kept-alive connections (and their TLS sessions) are reused across requests,
+ * with the per-host and total connection limits and the timeouts given in a {@link TransportConfig}.
+ * <br>
+ * The transport is thread-safe, and should be shut down via {@link SharedTransport#shutdown()} once the consumer instance is no longer used.
+ */
+public class SharedTransport {
+    @Getter
+    private final @Nonnull HttpTransport httpTransport;
+    @Getter
+    private final @Nonnull HttpRequestFactory requestFactory;
+    @Getter
+    private final @Nonnull TransportConfig config;
+
+    /**
+     * Constructs a pooled transport with the default {@link TransportConfig}.
+     */
+    public SharedTransport() {
+        this(new TransportConfig());
+    }
+
+    /**
+     * Constructs a pooled transport backed by an Apache HTTP client configured with the given limits and timeouts.
+     * @param config The connection limits and timeouts of the transport.
+     */
+    public SharedTransport(@Nonnull TransportConfig config) {
+        this(new ApacheHttpTransport(buildPooledHttpClient(config)), config);
+    }
+
+    /**
+     * Wraps an existing transport (e.g. a {@link com.google.api.client.http.javanet.NetHttpTransport} or a mock transport),
+     * applying the timeouts of the given {@link TransportConfig} to every request. Connection limits are left to the given transport.
+     * @param httpTransport The transport to share.
+     * @param config The timeouts applied to every request.
+     */
+    public SharedTransport(@Nonnull HttpTransport httpTransport, @Nonnull TransportConfig config) {
+        this.httpTransport = httpTransport;
+        this.config = config;
+        // The timeouts must be applied per request, as HttpRequest otherwise overrides the client defaults with its own.
+        this.requestFactory = httpTransport.createRequestFactory((HttpRequest request) -> {
+            request.setConnectTimeout(config.getConnectTimeoutMillis());
+            request.setReadTimeout(config.getReadTimeoutMillis());
+        });
+    }
+
+    /**
+     * Closes all pooled connections. The transport cannot be used afterwards.
+     * @throws IOException If closing the underlying transport failed.
+     */
+    public void shutdown() throws IOException {
+        httpTransport.shutdown();
+    }
+
+    @Nonnull
+    private static CloseableHttpClient buildPooledHttpClient(@Nonnull TransportConfig config) {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(config.getConnectionTimeToLiveMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSocketTimeout(config.getReadTimeoutMillis())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+                .build();
+        // Redirects and retries are handled by HttpRequest itself, as with the default transport.
+        return HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getMaxIdleMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package oauth1.transport;
+
+import lombok.Data;
+
+/**
+ * Configuration of the pooled HTTP transport shared by a single consumer instance, see {@link SharedTransport}.
+ * <br>
+ * All durations are in milliseconds. A timeout of 0 means an infinite timeout.
+ */
+@Data
+public class TransportConfig {
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 20_000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 20_000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 20_000;
+    public static final long DEFAULT_CONNECTION_TIME_TO_LIVE_MILLIS = 300_000;
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 30_000;
+
+    /**
+     * Maximum number of pooled connections across all hosts.
+     */
+    private int maxConnectionsTotal;
+    /**
+     * Maximum number of pooled connections to a single host (route).
+     */
+    private int maxConnectionsPerHost;
+    /**
+     * Timeout for establishing a connection (including the TLS handshake).
+     */
+    private int connectTimeoutMillis;
+    /**
+     * Socket read timeout, i.e. the maximum inactivity between two consecutive data packets.
+     */
+    private int readTimeoutMillis;
+    /**
+     * Timeout for leasing a connection from the pool once the per-host or total limit has been reached.
+     */
+    private int connectionRequestTimeoutMillis;
+    /**
+     * Maximum lifetime of a pooled (kept-alive) connection, after which it is closed rather than reused.
+     */
+    private long connectionTimeToLiveMillis;
+    /**
+     * Idle duration after which a kept-alive connection is evicted from the pool.
+     */
+    private long maxIdleMillis;
+
+    /**
+     * Constructs a configuration with the default limits and timeouts.
+     */
+    public TransportConfig() {
+        this(
+                DEFAULT_MAX_CONNECTIONS_TOTAL,
+                DEFAULT_MAX_CONNECTIONS_PER_HOST,
+                DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DEFAULT_READ_TIMEOUT_MILLIS,
+                DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS,
+                DEFAULT_CONNECTION_TIME_TO_LIVE_MILLIS,
+                DEFAULT_MAX_IDLE_MILLIS
+        );
+    }
+
+    /**
+     * @param maxConnectionsTotal Maximum number of pooled connections across all hosts.
+     * @param maxConnectionsPerHost Maximum number of pooled connections to a single host.
+     * @param connectTimeoutMillis Timeout for establishing a connection, or 0 for infinite.
+     * @param readTimeoutMillis Socket read timeout, or 0 for infinite.
+     * @param connectionRequestTimeoutMillis Timeout for leasing a connection from an exhausted pool, or 0 for infinite.
+     * @param connectionTimeToLiveMillis Maximum lifetime of a pooled connection.
+     * @param maxIdleMillis Idle duration after which a pooled connection is evicted.
+     */
+    public TransportConfig(
+            int maxConnectionsTotal,
+            int maxConnectionsPerHost,
+            int connectTimeoutMillis,
+            int readTimeoutMillis,
+            int connectionRequestTimeoutMillis,
+            long connectionTimeToLiveMillis,
+            long maxIdleMillis
+    ) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+        this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+}
@@ -0,0 +1,212 @@
+package oauth1.verifier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * A thread-safe cache of the nonces seen within the allowed timestamp skew, detecting replayed requests with bounded memory.
+ * <br><br>
+ * Nonces are bucketed by their request's timestamp into a ring of buckets, each covering a fixed span of seconds. A bucket only needs to be kept while its
+ * timestamps are within the skew of the current time, after which any request falling into it is rejected as stale anyway, so it is cleared and reused for a newer span.
+ * <br>
+ * Each bucket is split into stripes with their own lock, so concurrent verifications rarely contend. A stripe holds 64-bit keyed fingerprints
+ * of (consumer key, token, timestamp, nonce) in an open-addressing table, taking 11 to 22 bytes per nonce regardless of the length of the nonce and tokens.
+ * <br>
+ * Each bucket holds at most {@code maxEntries} divided by the number of buckets. Once a stripe is full, further nonces falling into it are rejected with
+ * {@link VerificationOutcome#NONCE_CACHE_FULL} rather than accepted unrecorded. Size {@code maxEntries} for the peak rate of requests times twice the skew.
+ */
+public class NonceReplayCache {
+    public static final long DEFAULT_MAX_SKEW_SECONDS = 300;
+    public static final int DEFAULT_MAX_ENTRIES = 8 * 1024 * 1024;
+
+    private static final int BUCKETS_PER_WINDOW = 16;
+    private static final int INITIAL_TABLE_SIZE = 64;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long maxSkewSeconds;
+    private final long bucketSeconds;
+    private final Stripe[][] buckets;
+    private final int stripeMask;
+    private final int stripeCapacity;
+    private final long seed = new SecureRandom().nextLong();
+
+    /**
+     * Constructs a cache allowing a skew of 300 seconds, holding at most about 8 million nonces.
+     */
+    public NonceReplayCache() {
+        this(DEFAULT_MAX_SKEW_SECONDS, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a cache with four stripes per available processor in each bucket.
+     * @param maxSkewSeconds The maximum difference in seconds allowed between the timestamp of a request and the current time.
+     * @param maxEntries The maximum number of nonces held at once.
+     */
+    public NonceReplayCache(long maxSkewSeconds, int maxEntries) {
+        this(maxSkewSeconds, maxEntries, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxSkewSeconds The maximum difference in seconds allowed between the timestamp of a request and the current time.
+     * @param maxEntries The maximum number of nonces held at once.
+     * @param stripes The number of stripes per bucket, rounded up to a power of two.
+     */
+    public NonceReplayCache(long maxSkewSeconds, int maxEntries, int stripes) {
+        if (maxSkewSeconds <= 0 || maxSkewSeconds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSkewSeconds must be within [1, " + Integer.MAX_VALUE + "]!");
+        }
+        if (maxEntries <= 0 || stripes <= 0 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("maxEntries must be positive, and stripes within [1, 65536]!");
+        }
+        this.maxSkewSeconds = maxSkewSeconds;
+        long window = 2 * maxSkewSeconds;
+        this.bucketSeconds = Math.max(1, (window + BUCKETS_PER_WINDOW - 1) / BUCKETS_PER_WINDOW);
+        // Enough buckets that a bucket is only reused once all of its timestamps are beyond the skew.
+        int bucketCount = (int) ((window + bucketSeconds - 1) / bucketSeconds) + 2;
+        int stripeCount = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.stripeCapacity = (int) Math.max(1, (long) maxEntries / ((long) bucketCount * stripeCount));
+        this.buckets = new Stripe[bucketCount][stripeCount];
+        for (Stripe[] bucket : buckets) {
+            for (int i = 0; i < stripeCount; i++) {
+                bucket[i] = new Stripe();
+            }
+        }
+    }
+
+    /**
+     * @return The maximum difference in seconds allowed between the timestamp of a request and the current time.
+     */
+    public long getMaxSkewSeconds() {
+        return maxSkewSeconds;
+    }
+
+    /**
+     * Records the nonce of a request, unless it was already recorded.
+     * @param timestampSeconds The timestamp of the request, which must be within the skew of the current time.
+     * @param consumerKey The consumer key of the request.
+     * @param token The token of the request, or null for none.
+     * @param nonce The nonce of the request.
+     * @return {@link VerificationOutcome#VALID} if the nonce was recorded, {@link VerificationOutcome#REPLAYED_NONCE} if it was already,
+     * {@link VerificationOutcome#NONCE_CACHE_FULL} if there is no room to record it, or {@link VerificationOutcome#STALE_TIMESTAMP} if its bucket has already been reused for newer timestamps.
+     */
+    @Nonnull
+    public VerificationOutcome recordIfAbsent(long timestampSeconds, @Nonnull String consumerKey, @Nullable String token, @Nonnull String nonce) {
+        long bucketIndex = Math.floorDiv(timestampSeconds, bucketSeconds);
+        long fingerprint = fingerprint(timestampSeconds, consumerKey, token, nonce);
+        Stripe stripe = buckets[(int) Math.floorMod(bucketIndex, (long) buckets.length)][(int) (fingerprint >>> 40) & stripeMask];
+        synchronized (stripe) {
+            if (stripe.bucketIndex != bucketIndex) {
+                if (stripe.bucketIndex > bucketIndex) {
+                    return VerificationOutcome.STALE_TIMESTAMP;
+                }
+                stripe.reset(bucketIndex);
+            }
+            return stripe.add(fingerprint, stripeCapacity);
+        }
+    }
+
+    /**
+     * @return The number of nonces currently held, including those of buckets which are beyond the skew but not yet reused.
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe[] bucket : buckets) {
+            for (Stripe stripe : bucket) {
+                synchronized (stripe) {
+                    size += stripe.size;
+                }
+            }
+        }
+        return size;
+    }
+
+    private long fingerprint(long timestampSeconds, @Nonnull String consumerKey, @Nullable String token, @Nonnull String nonce) {
+        // FNV-1a over the fields, seeded randomly so collisions differ between instances, then finalised as in MurmurHash3.
+        long hash = seed;
+        hash = mix(hash, consumerKey);
+        hash = (hash ^ 0xFFFF) * FNV_PRIME;
+        if (token != null) {
+            hash = mix(hash, token);
+        }
+        hash = (hash ^ 0xFFFF) * FNV_PRIME;
+        hash = (hash ^ timestampSeconds) * FNV_PRIME;
+        hash = mix(hash, nonce);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        // Zero marks an empty slot.
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long mix(long hash, @Nonnull String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * A stripe of a bucket. Guarded by its own monitor.
+     */
+    private static final class Stripe {
+        private long bucketIndex = Long.MIN_VALUE;
+        private @Nonnull long[] table = new long[0];
+        private int size;
+
+        private void reset(long bucketIndex) {
+            this.bucketIndex = bucketIndex;
+            if (size > 0) {
+                Arrays.fill(table, 0);
+                size = 0;
+            }
+        }
+
+        @Nonnull
+        private VerificationOutcome add(long fingerprint, int capacity) {
+            if (table.length > 0) {
+                int mask = table.length - 1;
+                for (int i = (int) fingerprint & mask; table[i] != 0; i = (i + 1) & mask) {
+                    if (table[i] == fingerprint) {
+                        return VerificationOutcome.REPLAYED_NONCE;
+                    }
+                }
+            }
+            if (size >= capacity) {
+                return VerificationOutcome.NONCE_CACHE_FULL;
+            }
+            // Keep the table at most three quarters full, growing it as the bucket fills.
+            if ((size + 1) * 4L > table.length * 3L) {
+                grow();
+            }
+            int mask = table.length - 1;
+            int i = (int) fingerprint & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+            size++;
+            return VerificationOutcome.VALID;
+        }
+
+        private void grow() {
+            long[] old = table;
+            long[] grown = new long[Math.max(INITIAL_TABLE_SIZE, old.length * 2)];
+            int mask = grown.length - 1;
+            for (long fingerprint : old) {
+                if (fingerprint != 0) {
+                    int i = (int) fingerprint & mask;
+                    while (grown[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    grown[i] = fingerprint;
+                }
+            }
+            table = grown;
+        }
+    }
+}
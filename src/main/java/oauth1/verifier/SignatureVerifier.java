@@ -0,0 +1,290 @@
+package oauth1.verifier;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import oauth1.exception.SecretLookupException;
+import oauth1.signer.CachedHmacSigner;
+import oauth1.signer.HmacSignerCache;
+import oauth1.strategy.SecretLookupStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Verifies the HMAC-SHA1 signatures of incoming OAuth 1.0 requests (RFC 5849), for applications which are themselves OAuth providers.
+ * <br><br>
+ * The OAuth parameters are taken from the {@code Authorization} header, or otherwise from the query and form parameters.
+ * The signature base string is rebuilt from the request method, URL, query, form and OAuth parameters, signed with the same {@link CachedHmacSigner} used to sign outgoing requests,
+ * and compared with the request's signature in constant time.
+ * <br>
+ * Requests whose timestamp is further from the current time than the {@link NonceReplayCache}'s skew are rejected, as are nonces already used within it.
+ * A nonce is only recorded once the signature is verified, so forged requests cannot fill the cache.
+ * <br>
+ * The secrets are looked up through a {@link SecretLookupStrategy}, and the signing key of each (consumer secret, token secret) pair is derived once via an {@link HmacSignerCache}.
+ * <br>
+ * Instances are thread-safe.
+ */
+public class SignatureVerifier {
+    private static final String OAUTH_PREFIX = "oauth_";
+    private static final String SIGNATURE = "oauth_signature";
+    private static final String REALM = "realm";
+    private static final String AUTHORIZATION_SCHEME = "OAuth";
+
+    private final @Nonnull SecretLookupStrategy secretLookupStrategy;
+    private final @Nonnull NonceReplayCache nonceReplayCache;
+    private final @Nonnull HmacSignerCache signerCache;
+
+    /**
+     * Constructs a verifier allowing a skew of 300 seconds, with a default {@link NonceReplayCache}.
+     * @param secretLookupStrategy Strategy to look up the consumer and token secrets of requests.
+     */
+    public SignatureVerifier(@Nonnull SecretLookupStrategy secretLookupStrategy) {
+        this(secretLookupStrategy, new NonceReplayCache(), new HmacSignerCache());
+    }
+
+    /**
+     * @param secretLookupStrategy Strategy to look up the consumer and token secrets of requests.
+     * @param nonceReplayCache The cache of nonces seen, whose skew also bounds the accepted timestamps.
+     * @param signerCache The cache of signers per (consumer secret, token secret) pair.
+     */
+    public SignatureVerifier(@Nonnull SecretLookupStrategy secretLookupStrategy, @Nonnull NonceReplayCache nonceReplayCache, @Nonnull HmacSignerCache signerCache) {
+        this.secretLookupStrategy = secretLookupStrategy;
+        this.nonceReplayCache = nonceReplayCache;
+        this.signerCache = signerCache;
+    }
+
+    /**
+     * Verifies a request without form parameters.
+     * @see SignatureVerifier#verify(String, String, String, Map)
+     */
+    @Nonnull
+    public VerificationResult verify(@Nonnull String requestMethod, @Nonnull String url, @Nullable String authorizationHeader) throws SecretLookupException {
+        return verify(requestMethod, url, authorizationHeader, null);
+    }
+
+    /**
+     * Verifies the signature, timestamp and nonce of a request.
+     * @param requestMethod The HTTP request method (GET, PUT, etc.)
+     * @param url The full URL of the request as received, including its query (e.g. reconstructed from the scheme, {@code Host} header and request URI).
+     * @param authorizationHeader The {@code Authorization} header of the request, or null if absent.
+     * @param formParameters The decoded parameters of an {@code application/x-www-form-urlencoded} body, or null for none.
+     * @return The outcome of the verification, and the consumer key and token the request claims.
+     * @throws SecretLookupException If looking up the secrets failed.
+     */
+    @Nonnull
+    public VerificationResult verify(@Nonnull String requestMethod, @Nonnull String url, @Nullable String authorizationHeader, @Nullable Map<String, ? extends Collection<String>> formParameters) throws SecretLookupException {
+        URI uri;
+        try {
+            uri = new URI(url);
+        }
+        catch (URISyntaxException e) {
+            return new VerificationResult(VerificationOutcome.MALFORMED, null, null);
+        }
+        // Every parameter of the request (bar the signature and realm) is signed, the OAuth ones must appear exactly once.
+        List<String[]> parameters = new ArrayList<>();
+        Map<String, String> oauthParameters = new HashMap<>();
+        boolean wellFormed = authorizationHeader == null || parseAuthorizationHeader(authorizationHeader, oauthParameters);
+        wellFormed &= parseQuery(uri.getRawQuery(), authorizationHeader == null, parameters, oauthParameters);
+        if (formParameters != null) {
+            for (Map.Entry<String, ? extends Collection<String>> entry : formParameters.entrySet()) {
+                for (String value : entry.getValue()) {
+                    wellFormed &= addParameter(entry.getKey(), value, authorizationHeader == null, parameters, oauthParameters);
+                }
+            }
+        }
+        String consumerKey = oauthParameters.get("oauth_consumer_key");
+        String token = oauthParameters.get("oauth_token");
+        String signature = oauthParameters.get(SIGNATURE);
+        String nonce = oauthParameters.get("oauth_nonce");
+        String timestamp = oauthParameters.get("oauth_timestamp");
+        if (!wellFormed || consumerKey == null || signature == null || nonce == null || timestamp == null) {
+            return new VerificationResult(VerificationOutcome.MALFORMED, consumerKey, token);
+        }
+        String version = oauthParameters.get("oauth_version");
+        if (!CachedHmacSigner.SIGNATURE_METHOD.equals(oauthParameters.get("oauth_signature_method")) || version != null && !version.equals("1.0")) {
+            return new VerificationResult(VerificationOutcome.UNSUPPORTED_SIGNATURE_METHOD, consumerKey, token);
+        }
+        long timestampSeconds;
+        try {
+            timestampSeconds = Long.parseLong(timestamp);
+        }
+        catch (NumberFormatException e) {
+            return new VerificationResult(VerificationOutcome.MALFORMED, consumerKey, token);
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - timestampSeconds) > nonceReplayCache.getMaxSkewSeconds()) {
+            return new VerificationResult(VerificationOutcome.STALE_TIMESTAMP, consumerKey, token);
+        }
+
+        String consumerSecret = secretLookupStrategy.fetchConsumerSecretForConsumerKey(consumerKey);
+        if (consumerSecret == null) {
+            return new VerificationResult(VerificationOutcome.UNKNOWN_CONSUMER_KEY, consumerKey, token);
+        }
+        String tokenSecret = null;
+        if (token != null && !token.isEmpty()) {
+            tokenSecret = secretLookupStrategy.fetchTokenSecretForToken(consumerKey, token);
+            if (tokenSecret == null) {
+                return new VerificationResult(VerificationOutcome.UNKNOWN_TOKEN, consumerKey, token);
+            }
+        }
+
+        for (Map.Entry<String, String> entry : oauthParameters.entrySet()) {
+            if (!entry.getKey().equals(SIGNATURE)) {
+                parameters.add(new String[] {OAuthParameters.escape(entry.getKey()), OAuthParameters.escape(entry.getValue())});
+            }
+        }
+        String signatureBaseString = buildSignatureBaseString(requestMethod, uri, parameters);
+        if (signatureBaseString == null) {
+            return new VerificationResult(VerificationOutcome.MALFORMED, consumerKey, token);
+        }
+        String expected;
+        try {
+            expected = signerCache.getSigner(consumerSecret, tokenSecret).computeSignature(signatureBaseString);
+        }
+        catch (GeneralSecurityException e) {
+            // HMAC-SHA1 is available on every Java platform.
+            throw new IllegalStateException(e);
+        }
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8))) {
+            return new VerificationResult(VerificationOutcome.INVALID_SIGNATURE, consumerKey, token);
+        }
+        return new VerificationResult(nonceReplayCache.recordIfAbsent(timestampSeconds, consumerKey, token, nonce), consumerKey, token);
+    }
+
+    /**
+     * Builds the signature base string as per RFC 5849 section 3.4.1, from already percent-encoded parameters.
+     * @return The signature base string, or null if the URL is not absolute.
+     */
+    @Nullable
+    private static String buildSignatureBaseString(@Nonnull String requestMethod, @Nonnull URI uri, @Nonnull List<String[]> parameters) {
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (scheme == null || host == null) {
+            return null;
+        }
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        StringBuilder baseUri = new StringBuilder(scheme).append("://").append(host.toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            baseUri.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        baseUri.append(path == null || path.isEmpty() ? "/" : path);
+
+        // Sorted by name, then by value.
+        parameters.sort((String[] a, String[] b) -> {
+            int byName = a[0].compareTo(b[0]);
+            return byName != 0 ? byName : a[1].compareTo(b[1]);
+        });
+        StringBuilder normalised = new StringBuilder();
+        for (String[] parameter : parameters) {
+            if (normalised.length() > 0) {
+                normalised.append('&');
+            }
+            normalised.append(parameter[0]).append('=').append(parameter[1]);
+        }
+        return requestMethod.toUpperCase(Locale.ROOT) + '&' + OAuthParameters.escape(baseUri.toString()) + '&' + OAuthParameters.escape(normalised.toString());
+    }
+
+    /**
+     * Parses the OAuth parameters of an {@code Authorization} header, e.g. {@code OAuth realm="x", oauth_consumer_key="key", ...}.
+     * @return Whether the header is well formed, with no duplicate parameters.
+     */
+    private static boolean parseAuthorizationHeader(@Nonnull String header, @Nonnull Map<String, String> oauthParameters) {
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, AUTHORIZATION_SCHEME, 0, AUTHORIZATION_SCHEME.length())
+                || value.length() > AUTHORIZATION_SCHEME.length() && !Character.isWhitespace(value.charAt(AUTHORIZATION_SCHEME.length()))) {
+            return false;
+        }
+        int i = AUTHORIZATION_SCHEME.length();
+        int length = value.length();
+        while (i < length) {
+            while (i < length && (Character.isWhitespace(value.charAt(i)) || value.charAt(i) == ',')) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int equals = value.indexOf('=', i);
+            if (equals < 0 || equals + 1 >= length || value.charAt(equals + 1) != '"') {
+                return false;
+            }
+            int closingQuote = value.indexOf('"', equals + 2);
+            if (closingQuote < 0) {
+                return false;
+            }
+            String name = decode(value.substring(i, equals).trim(), false);
+            String parameterValue = decode(value.substring(equals + 2, closingQuote), false);
+            if (name == null || parameterValue == null) {
+                return false;
+            }
+            if (!name.equalsIgnoreCase(REALM)) {
+                if (!name.startsWith(OAUTH_PREFIX) || oauthParameters.put(name, parameterValue) != null) {
+                    return false;
+                }
+            }
+            i = closingQuote + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the query of the request into its parameters, taking the OAuth ones from it if allowed.
+     * @return Whether the query is well formed.
+     */
+    private static boolean parseQuery(@Nullable String rawQuery, boolean oauthAllowed, @Nonnull List<String[]> parameters, @Nonnull Map<String, String> oauthParameters) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return true;
+        }
+        boolean wellFormed = true;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = decode(equals < 0 ? pair : pair.substring(0, equals), true);
+            String value = equals < 0 ? "" : decode(pair.substring(equals + 1), true);
+            if (name == null || value == null) {
+                return false;
+            }
+            wellFormed &= addParameter(name, value, oauthAllowed, parameters, oauthParameters);
+        }
+        return wellFormed;
+    }
+
+    /**
+     * Adds a decoded query or form parameter, as an OAuth parameter if it is one and allowed.
+     * @return False if the parameter is a duplicate OAuth parameter, or an OAuth parameter where they are not allowed.
+     */
+    private static boolean addParameter(@Nonnull String name, @Nonnull String value, boolean oauthAllowed, @Nonnull List<String[]> parameters, @Nonnull Map<String, String> oauthParameters) {
+        if (name.startsWith(OAUTH_PREFIX)) {
+            return oauthAllowed && oauthParameters.put(name, value) == null;
+        }
+        parameters.add(new String[] {OAuthParameters.escape(name), OAuthParameters.escape(value)});
+        return true;
+    }
+
+    /**
+     * Percent-decodes the given value as UTF-8.
+     * @param plusAsSpace Whether '+' encodes a space, as in form encoding.
+     * @return The decoded value, or null if it is malformed.
+     */
+    @Nullable
+    private static String decode(@Nonnull String value, boolean plusAsSpace) {
+        if (value.indexOf('%') < 0 && (!plusAsSpace || value.indexOf('+') < 0)) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(plusAsSpace ? value : value.replace("+", "%2B"), "UTF-8");
+        }
+        catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package oauth1.verifier;
+
+/**
+ * The outcome of verifying an incoming OAuth 1.0 request via {@link SignatureVerifier}.
+ */
+public enum VerificationOutcome {
+    /**
+     * The signature is valid, and the nonce was not used before.
+     */
+    VALID,
+    /**
+     * The request carries no OAuth parameters, or they are malformed, duplicated or missing a required parameter.
+     */
+    MALFORMED,
+    /**
+     * The request is signed with a method other than HMAC-SHA1, or claims a version other than 1.0.
+     */
+    UNSUPPORTED_SIGNATURE_METHOD,
+    /**
+     * The timestamp is further from the current time than the allowed skew.
+     */
+    STALE_TIMESTAMP,
+    /**
+     * The consumer key is not known.
+     */
+    UNKNOWN_CONSUMER_KEY,
+    /**
+     * The token is not known, or was not issued to the consumer key.
+     */
+    UNKNOWN_TOKEN,
+    /**
+     * The signature does not match the request.
+     */
+    INVALID_SIGNATURE,
+    /**
+     * The nonce was already used with the same consumer key, token and timestamp.
+     */
+    REPLAYED_NONCE,
+    /**
+     * The nonce could not be recorded because the replay cache is full, so the request is rejected rather than risk accepting a replay.
+     */
+    NONCE_CACHE_FULL
+}
@@ -0,0 +1,32 @@
+package oauth1.verifier;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+@Data
+public class VerificationResult {
+    private @Nonnull VerificationOutcome outcome;
+    /**
+     * The consumer key the request claims, or null if it could not be parsed.
+     */
+    private @Nullable String consumerKey;
+    /**
+     * The token the request claims, or null for none.
+     */
+    private @Nullable String token;
+
+    public VerificationResult(@Nonnull VerificationOutcome outcome, @Nullable String consumerKey, @Nullable String token) {
+        this.outcome = outcome;
+        this.consumerKey = consumerKey;
+        this.token = token;
+    }
+
+    /**
+     * @return Whether the request was verified, i.e. the outcome is {@link VerificationOutcome#VALID}.
+     */
+    public boolean isValid() {
+        return outcome == VerificationOutcome.VALID;
+    }
+}
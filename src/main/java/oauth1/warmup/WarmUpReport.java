@@ -0,0 +1,52 @@
+package oauth1.warmup;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The outcome of {@link oauth1.OAuth1Generic#warmUp()}: the result of each step, in the order they ran.
+ * <br>
+ * A readiness probe should gate traffic on {@link WarmUpReport#isReady()}. A failed step does not stop the following ones, so e.g. the token map is primed even if the provider is unreachable.
+ */
+@Data
+public class WarmUpReport {
+    private final @Nonnull List<WarmUpStepResult> steps;
+    /**
+     * Wall-clock time of the whole warm-up.
+     */
+    private final long elapsedNanos;
+
+    public WarmUpReport(@Nonnull List<WarmUpStepResult> steps, long elapsedNanos) {
+        this.steps = steps;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return Whether every step succeeded.
+     */
+    public boolean isReady() {
+        for (WarmUpStepResult step : steps) {
+            if (!step.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param step The step.
+     * @return The result of the given step, or null if it was not run.
+     */
+    @Nullable
+    public WarmUpStepResult getStep(@Nonnull WarmUpStep step) {
+        for (WarmUpStepResult result : steps) {
+            if (result.getStep() == step) {
+                return result;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package oauth1.warmup;
+
+/**
+ * The steps of {@link oauth1.OAuth1Generic#warmUp()}, in the order they run.
+ */
+public enum WarmUpStep {
+    /**
+     * Repeatedly signing requests to the token URLs, loading the HMAC signer of the consumer secret and exercising the signing code until it is compiled.
+     */
+    SIGNING,
+    /**
+     * Repeatedly parsing a token response and building the authorise URL.
+     */
+    PARSING,
+    /**
+     * Resolving the hosts of the request token and access token URLs.
+     */
+    DNS,
+    /**
+     * Opening a pooled (and, over HTTPS, TLS) connection to each distinct origin of the request token and access token URLs.
+     */
+    CONNECT,
+    /**
+     * Mapping a throwaway temporary token via the {@link oauth1.strategy.TokenMapStrategy} and fetching it back (or sealing and unsealing it).
+     */
+    TOKEN_MAP
+}
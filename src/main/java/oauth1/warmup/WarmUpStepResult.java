@@ -0,0 +1,26 @@
+package oauth1.warmup;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The outcome of a single step of a warm-up: how long it took, and the exception it failed with, if any.
+ */
+@Data
+public class WarmUpStepResult {
+    private final @Nonnull WarmUpStep step;
+    private final long durationNanos;
+    private final @Nullable Exception exception;
+
+    public WarmUpStepResult(@Nonnull WarmUpStep step, long durationNanos, @Nullable Exception exception) {
+        this.step = step;
+        this.durationNanos = durationNanos;
+        this.exception = exception;
+    }
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
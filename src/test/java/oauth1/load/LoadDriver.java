@@ -0,0 +1,141 @@
+package oauth1.load;
+
+import com.google.api.client.http.HttpResponseException;
+import oauth1.async.AsyncExecutors;
+import oauth1.metrics.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link LoadOperation} concurrently at a target rate for a given duration, e.g. handshakes or OAuth-backed requests against a {@link oauth1.stub.StubOAuthProvider},
+ * and reports the throughput, latency percentiles and errors, so capacity can be planned offline.
+ * <br><br>
+ * The load is open-loop: operations are scheduled at fixed intervals regardless of how long earlier ones take, up to a maximum number in flight.
+ * Once that maximum is reached, scheduled operations wait for a slot, and the wait counts towards their latency.
+ */
+public class LoadDriver {
+    private final double targetRatePerSecond;
+    private final int maxConcurrency;
+    private final @Nonnull Executor executor;
+
+    /**
+     * Constructs a driver running operations on {@link AsyncExecutors#defaultExecutor()}.
+     * @param targetRatePerSecond The rate at which operations are started.
+     * @param maxConcurrency The maximum number of operations in flight at once.
+     */
+    public LoadDriver(double targetRatePerSecond, int maxConcurrency) {
+        this(targetRatePerSecond, maxConcurrency, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param targetRatePerSecond The rate at which operations are started.
+     * @param maxConcurrency The maximum number of operations in flight at once.
+     * @param executor The executor the operations run on. It must allow {@code maxConcurrency} operations to run at once.
+     */
+    public LoadDriver(double targetRatePerSecond, int maxConcurrency, @Nonnull Executor executor) {
+        if (targetRatePerSecond <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("targetRatePerSecond and maxConcurrency must be positive!");
+        }
+        this.targetRatePerSecond = targetRatePerSecond;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the operation at the target rate for the given duration, then waits for the operations in flight to complete.
+     * @param operation The operation to run.
+     * @param durationMillis The time during which operations are started.
+     * @return The report of the run.
+     * @throws InterruptedException If interrupted while running, in which case the operations in flight are left to complete on their own.
+     */
+    @Nonnull
+    public LoadReport run(@Nonnull LoadOperation operation, long durationMillis) throws InterruptedException {
+        long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / targetRatePerSecond));
+        Semaphore slots = new Semaphore(maxConcurrency);
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder failed = new LongAdder();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (long scheduled = start; scheduled - end < 0; scheduled += intervalNanos) {
+            for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(this, wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            slots.acquire();
+            long scheduledStart = scheduled;
+            Runnable task = () -> {
+                try {
+                    operation.run();
+                }
+                catch (Exception e) {
+                    failed.increment();
+                    errors.computeIfAbsent(describe(e), k -> new LongAdder()).increment();
+                }
+                finally {
+                    latencies.record(System.nanoTime() - scheduledStart);
+                    slots.release();
+                }
+            };
+            try {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException e) {
+                slots.release();
+                failed.increment();
+                latencies.record(0);
+                errors.computeIfAbsent(describe(e), k -> new LongAdder()).increment();
+            }
+        }
+        // Wait for the operations in flight.
+        slots.acquire(maxConcurrency);
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((String error, LongAdder count) -> errorCounts.put(error, count.sum()));
+        long total = snapshot.getCount();
+        return new LoadReport(
+                targetRatePerSecond,
+                total,
+                total - failed.sum(),
+                failed.sum(),
+                elapsed,
+                (long) snapshot.getMean(),
+                snapshot.getValueAtPercentile(50),
+                snapshot.getValueAtPercentile(90),
+                snapshot.getValueAtPercentile(99),
+                snapshot.getValueAtPercentile(99.9),
+                snapshot.getMax(),
+                errorCounts
+        );
+    }
+
+    /**
+     * Describes an error by the HTTP status it carries, if any, otherwise by its type and that of its root cause.
+     */
+    @Nonnull
+    private static String describe(@Nonnull Throwable error) {
+        Throwable root = error;
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException) {
+                return "HTTP " + ((HttpResponseException) cause).getStatusCode();
+            }
+            root = cause;
+        }
+        String type = error.getClass().getSimpleName();
+        return root == error ? type : type + " (" + root.getClass().getSimpleName() + ")";
+    }
+}
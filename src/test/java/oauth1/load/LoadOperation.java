@@ -0,0 +1,13 @@
+package oauth1.load;
+
+/**
+ * A single operation run repeatedly by a {@link LoadDriver}, e.g. a handshake or an OAuth-backed request. See {@link LoadOperations} for the common ones.
+ */
+@FunctionalInterface
+public interface LoadOperation {
+    /**
+     * Runs the operation once.
+     * @throws Exception If the operation failed, which is recorded in the {@link LoadReport} by its type.
+     */
+    void run() throws Exception;
+}
@@ -0,0 +1,69 @@
+package oauth1.load;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.HttpResponse;
+import oauth1.OAuth1Generic;
+import oauth1.OAuth1NoCallback;
+import oauth1.OAuth1WithCallback;
+import oauth1.lib.BeginResult;
+import oauth1.lib.RequestMethod;
+import oauth1.stub.StubOAuthProvider;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The {@link LoadOperation}s of the handshake and of OAuth-backed requests.
+ */
+public final class LoadOperations {
+    private LoadOperations() {
+
+    }
+
+    /**
+     * A full handshake without a callback: {@link OAuth1NoCallback#begin()}, the user granting access on the provider, then {@link OAuth1NoCallback#authorised(String)}.
+     * @param client The client, configured with the URLs of the provider.
+     * @param provider The provider, on which access is granted.
+     */
+    @Nonnull
+    public static LoadOperation handshake(@Nonnull OAuth1NoCallback client, @Nonnull StubOAuthProvider provider) {
+        return () -> {
+            BeginResult beginResult = client.begin();
+            provider.authorise(beginResult.getTemporaryToken());
+            client.authorised(beginResult.getTemporaryToken());
+        };
+    }
+
+    /**
+     * A full handshake with a callback: {@link OAuth1WithCallback#begin()}, the user granting access on the provider, then {@link OAuth1WithCallback#authorised(String, String)} with the verifier.
+     * @param client The client, configured with the URLs of the provider.
+     * @param provider The provider, on which access is granted.
+     */
+    @Nonnull
+    public static LoadOperation handshake(@Nonnull OAuth1WithCallback client, @Nonnull StubOAuthProvider provider) {
+        return () -> {
+            BeginResult beginResult = client.begin();
+            String verifier = provider.authorise(beginResult.getTemporaryToken());
+            client.authorised(beginResult.getTemporaryToken(), verifier);
+        };
+    }
+
+    /**
+     * An OAuth-backed request without a body through the client's pooled transport, reading the whole response.
+     * @param client The client making the request.
+     * @param url The URL to make the request to.
+     * @param oAuthParameters The OAuth credentials of the user the request is made on behalf of, shared by every operation (each request signs its own copy).
+     * @param requestMethod The HTTP request method.
+     */
+    @Nonnull
+    public static LoadOperation request(@Nonnull OAuth1Generic client, @Nonnull String url, @Nonnull OAuthParameters oAuthParameters, @Nonnull RequestMethod requestMethod) {
+        return () -> {
+            HttpResponse response = client.makePooledOAuthBackedRequest(url, oAuthParameters, requestMethod, null);
+            try {
+                response.parseAsString();
+            }
+            finally {
+                response.disconnect();
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package oauth1.load;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link LoadDriver} run: throughput, latency percentiles and the errors by type.
+ * <br>
+ * Latencies are measured from the time each operation was scheduled to start, not the time it actually started,
+ * so time spent queued behind a saturated client or provider is included rather than hidden.
+ */
+@Data
+public class LoadReport {
+    private final double targetRatePerSecond;
+    private final long total;
+    private final long succeeded;
+    private final long failed;
+    /**
+     * Wall-clock time from the first operation being scheduled to the last one completing.
+     */
+    private final long elapsedNanos;
+    private final long meanLatencyNanos;
+    private final long p50LatencyNanos;
+    private final long p90LatencyNanos;
+    private final long p99LatencyNanos;
+    private final long p999LatencyNanos;
+    private final long maxLatencyNanos;
+    /**
+     * The number of failed operations by error, e.g. {@code "HTTP 503"} or {@code "GetTemporaryTokenException (SocketTimeoutException)"}.
+     */
+    private final @Nonnull Map<String, Long> errors;
+
+    public LoadReport(double targetRatePerSecond, long total, long succeeded, long failed, long elapsedNanos, long meanLatencyNanos, long p50LatencyNanos, long p90LatencyNanos, long p99LatencyNanos, long p999LatencyNanos, long maxLatencyNanos, @Nonnull Map<String, Long> errors) {
+        this.targetRatePerSecond = targetRatePerSecond;
+        this.total = total;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.meanLatencyNanos = meanLatencyNanos;
+        this.p50LatencyNanos = p50LatencyNanos;
+        this.p90LatencyNanos = p90LatencyNanos;
+        this.p99LatencyNanos = p99LatencyNanos;
+        this.p999LatencyNanos = p999LatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.errors = errors;
+    }
+
+    /**
+     * @return Completed operations per second over the whole run.
+     */
+    public double getThroughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : total * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return Successful operations per second over the whole run.
+     */
+    public double getGoodputPerSecond() {
+        return elapsedNanos == 0 ? 0 : succeeded * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
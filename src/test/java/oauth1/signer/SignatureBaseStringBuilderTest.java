@@ -0,0 +1,98 @@
+package oauth1.signer;
+
+import com.google.api.client.auth.oauth.OAuthHmacSigner;
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.auth.oauth.OAuthSigner;
+import com.google.api.client.http.GenericUrl;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.security.GeneralSecurityException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins the signatures computed by {@link SignatureBaseStringBuilder} to those of {@link OAuthParameters#computeSignature(String, GenericUrl)}, byte for byte.
+ */
+public class SignatureBaseStringBuilderTest {
+    private static final String[] URLS = {
+            "https://api.example.com/1.1/statuses/user_timeline.json?screen_name=example&count=200&include_rts=true",
+            // Repeated parameters, including an identical pair which is only signed once.
+            "https://api.example.com/search?a=2&a=1&b=x&a=1",
+            // Default and non-default ports, and a host in mixed case.
+            "https://Api.Example.COM:443/path",
+            "http://api.example.com:80/path?x=1",
+            "http://api.example.com:8080/path?x=1",
+            // Non-ASCII characters in the path and query.
+            "https://api.example.com/caf%C3%A9?name=%E2%9C%93&emoji=%F0%9F%98%80",
+            // Empty values, and a parameter without a value.
+            "https://api.example.com/path?empty=&flag&other=1",
+            // Encoded slashes in the path and query.
+            "https://api.example.com/a%2Fb/c?path=%2Fx%2Fy",
+            // Reserved characters and a plus sign.
+            "https://api.example.com/path?q=a+b&r=%21%2A%27%28%29&s=%7E-._",
+    };
+    private static final String[] METHODS = {"GET", "POST", "DELETE"};
+
+    @Test
+    public void matchesTheLibraryWithAPlainSigner() throws GeneralSecurityException {
+        OAuthHmacSigner signer = new OAuthHmacSigner();
+        signer.clientSharedSecret = "consumer-secret";
+        signer.tokenSharedSecret = "token-secret";
+        assertMatchesLibrary(signer);
+    }
+
+    @Test
+    public void matchesTheLibraryWithACachedSigner() throws GeneralSecurityException {
+        assertMatchesLibrary(new CachedHmacSigner("consumer-secret", "token-secret"));
+        assertMatchesLibrary(new CachedHmacSigner("consumer-secret", null));
+    }
+
+    @Test
+    public void signsTheBodyHashAsAParameterOfTheUrl() throws GeneralSecurityException {
+        CachedHmacSigner signer = new CachedHmacSigner("consumer-secret", "token-secret");
+        String bodyHash = "2jmj7l5rSw0yVb/vlWAYkK/YBwk=";
+        for (String url : URLS) {
+            OAuthParameters expected = parameters(signer, "token");
+            GenericUrl withBodyHash = new GenericUrl(url);
+            withBodyHash.set("oauth_body_hash", bodyHash);
+            expected.computeSignature("POST", withBodyHash);
+
+            OAuthParameters actual = parameters(signer, "token");
+            SignatureBaseStringBuilder.computeSignature(actual, "POST", new GenericUrl(url), bodyHash);
+            assertEquals(url, expected.signature, actual.signature);
+        }
+    }
+
+    private static void assertMatchesLibrary(@Nonnull OAuthSigner signer) throws GeneralSecurityException {
+        for (String url : URLS) {
+            for (String method : METHODS) {
+                for (String token : new String[] {null, "token", "tok en/+%"}) {
+                    OAuthParameters expected = parameters(signer, token);
+                    expected.computeSignature(method, new GenericUrl(url));
+
+                    OAuthParameters actual = parameters(signer, token);
+                    SignatureBaseStringBuilder.computeSignature(actual, method, new GenericUrl(url), null);
+                    String message = method + " " + url + " with token " + token;
+                    assertEquals(message, expected.signatureMethod, actual.signatureMethod);
+                    assertEquals(message, expected.signature, actual.signature);
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static OAuthParameters parameters(@Nonnull OAuthSigner signer, @Nullable String token) {
+        OAuthParameters parameters = new OAuthParameters();
+        parameters.signer = signer;
+        parameters.consumerKey = "consumer key";
+        parameters.token = token;
+        parameters.verifier = token == null ? null : "verifier";
+        parameters.callback = token == null ? "https://client.example.com/callback?state=1" : null;
+        parameters.version = "1.0";
+        parameters.nonce = "nonce-é";
+        parameters.timestamp = "1700000000";
+        return parameters;
+    }
+}
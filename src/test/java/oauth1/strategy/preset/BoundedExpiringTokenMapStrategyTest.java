@@ -0,0 +1,59 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.TokenMapException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BoundedExpiringTokenMapStrategyTest {
+    @Test
+    public void fetchingRemovesTheMapping() throws TokenMapException {
+        BoundedExpiringTokenMapStrategy strategy = new BoundedExpiringTokenMapStrategy();
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("token", "secret");
+        assertEquals("secret", strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+        assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+        assertEquals(0, strategy.size());
+        assertEquals(1, strategy.getConsumedCount());
+    }
+
+    /**
+     * Replacing a mapping at capacity takes no extra slot, so must not evict another mapping.
+     */
+    @Test
+    public void replacingAtCapacityEvictsNothing() throws TokenMapException {
+        BoundedExpiringTokenMapStrategy strategy = new BoundedExpiringTokenMapStrategy(BoundedExpiringTokenMapStrategy.DEFAULT_TIME_TO_LIVE_MILLIS, 2);
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("first", "first-secret");
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("second", "second-secret");
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("first", "replaced-secret");
+        assertEquals(2, strategy.size());
+        assertEquals(0, strategy.getEvictedCount());
+        assertEquals("replaced-secret", strategy.fetchTemporaryTokenSecretForTemporaryToken("first"));
+        assertEquals("second-secret", strategy.fetchTemporaryTokenSecretForTemporaryToken("second"));
+    }
+
+    @Test
+    public void mappingAtCapacityEvictsTheClosestToExpiry() throws TokenMapException {
+        BoundedExpiringTokenMapStrategy strategy = new BoundedExpiringTokenMapStrategy(BoundedExpiringTokenMapStrategy.DEFAULT_TIME_TO_LIVE_MILLIS, 2);
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("first", "first-secret");
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("second", "second-secret");
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("third", "third-secret");
+        assertEquals(2, strategy.size());
+        assertEquals(1, strategy.getEvictedCount());
+        assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("first"));
+        assertEquals("third-secret", strategy.fetchTemporaryTokenSecretForTemporaryToken("third"));
+    }
+
+    /**
+     * Removing a mapping (e.g. of a discarded pooled token) must not count as a handshake consuming it.
+     */
+    @Test
+    public void removingIsNotCountedAsConsumed() throws TokenMapException {
+        BoundedExpiringTokenMapStrategy strategy = new BoundedExpiringTokenMapStrategy();
+        strategy.mapTemporaryTokenToTemporaryTokenSecret("token", "secret");
+        strategy.removeTemporaryToken("token");
+        assertEquals(0, strategy.size());
+        assertEquals(0, strategy.getConsumedCount());
+        assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+    }
+}
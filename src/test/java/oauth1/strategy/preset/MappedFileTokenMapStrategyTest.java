@@ -0,0 +1,182 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.TokenMapException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedFileTokenMapStrategyTest {
+    private static final int CAPACITY = 640;
+    private static final long TIME_TO_LIVE_MILLIS = 100;
+    private static final int MAX_BYTES = 32;
+    private static final int MAPPINGS = 64;
+
+    // The file layout, as written by MappedFileTokenMapStrategy.
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = (20 + MAX_BYTES + MAX_BYTES + 7) & ~7;
+    private static final int SLOTS_PER_SEGMENT = (int) Math.ceil(CAPACITY / 0.75 / 64);
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_FULL = 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Overwriting the file with short-lived mappings round after round must keep reusing the slots of expired mappings, rather than filling up.
+     */
+    @Test
+    public void expiredMappingsAreReclaimedWhenRefilling() throws IOException, TokenMapException, InterruptedException {
+        try (MappedFileTokenMapStrategy strategy = new MappedFileTokenMapStrategy(folder.newFile().toPath(), CAPACITY, TIME_TO_LIVE_MILLIS, 32, 32, false)) {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < CAPACITY / 2; i++) {
+                    strategy.mapTemporaryTokenToTemporaryTokenSecret("token-" + round + "-" + i, "secret-" + i);
+                }
+                assertEquals(CAPACITY / 2, strategy.size());
+                Thread.sleep(TIME_TO_LIVE_MILLIS * 2);
+                assertEquals(0, strategy.size());
+            }
+            assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token-9-0"));
+        }
+    }
+
+    @Test
+    public void fetchingRemovesTheMapping() throws IOException, TokenMapException {
+        try (MappedFileTokenMapStrategy strategy = new MappedFileTokenMapStrategy(folder.newFile().toPath(), CAPACITY)) {
+            strategy.mapTemporaryTokenToTemporaryTokenSecret("token", "secret");
+            assertEquals("secret", strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+            assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+            assertEquals(0, strategy.size());
+        }
+    }
+
+    /**
+     * Compacting after many removals must keep every remaining mapping reachable, including once reopened.
+     */
+    @Test
+    public void compactionKeepsRemainingMappings() throws IOException, TokenMapException {
+        Path file = folder.newFile().toPath();
+        try (MappedFileTokenMapStrategy strategy = newStrategy(file)) {
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                strategy.mapTemporaryTokenToTemporaryTokenSecret("token-" + i, "secret-" + i);
+            }
+            for (int i = 0; i < CAPACITY / 2; i += 2) {
+                assertEquals("secret-" + i, strategy.fetchTemporaryTokenSecretForTemporaryToken("token-" + i));
+            }
+        }
+        try (MappedFileTokenMapStrategy strategy = newStrategy(file)) {
+            assertEquals(CAPACITY / 4, strategy.size());
+            for (int i = 1; i < CAPACITY / 2; i += 2) {
+                assertEquals("secret-" + i, strategy.fetchTemporaryTokenSecretForTemporaryToken("token-" + i));
+            }
+        }
+    }
+
+    /**
+     * A crash after a mapping was moved by compaction, but before its old slot was cleared, leaves it held twice: recovery must keep a single copy.
+     */
+    @Test
+    public void recoveryRemovesMappingsLeftTwiceByACrash() throws IOException, TokenMapException {
+        Path file = folder.newFile().toPath();
+        mapAll(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, channel.size() - HEADER_BYTES);
+            int[] move = findChainHeadAndLaterEmptySlot(slots);
+            copySlot(slots, move[0], move[1]);
+            slots.force();
+        }
+        try (MappedFileTokenMapStrategy strategy = newStrategy(file)) {
+            assertEquals(MAPPINGS, strategy.size());
+            assertAllFetchedOnce(strategy);
+        }
+    }
+
+    /**
+     * A crash after compaction cleared the slots before a mapping, but before it moved the mapping, leaves it past an empty slot of its probe sequence:
+     * recovery must move it back within reach.
+     */
+    @Test
+    public void recoveryMovesMappingsLeftUnreachableByACrash() throws IOException, TokenMapException {
+        Path file = folder.newFile().toPath();
+        mapAll(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, channel.size() - HEADER_BYTES);
+            int[] move = findChainHeadAndLaterEmptySlot(slots);
+            copySlot(slots, move[0], move[1]);
+            slots.putInt(move[0] * SLOT_BYTES, STATE_EMPTY);
+            slots.force();
+        }
+        try (MappedFileTokenMapStrategy strategy = newStrategy(file)) {
+            assertAllFetchedOnce(strategy);
+        }
+    }
+
+    @Nonnull
+    private static MappedFileTokenMapStrategy newStrategy(@Nonnull Path file) throws IOException {
+        return new MappedFileTokenMapStrategy(file, CAPACITY, MappedFileTokenMapStrategy.DEFAULT_TIME_TO_LIVE_MILLIS, MAX_BYTES, MAX_BYTES, false);
+    }
+
+    private static void mapAll(@Nonnull Path file) throws IOException, TokenMapException {
+        try (MappedFileTokenMapStrategy strategy = newStrategy(file)) {
+            for (int i = 0; i < MAPPINGS; i++) {
+                strategy.mapTemporaryTokenToTemporaryTokenSecret("token-" + i, "secret-" + i);
+            }
+        }
+    }
+
+    private static void assertAllFetchedOnce(@Nonnull MappedFileTokenMapStrategy strategy) throws TokenMapException {
+        for (int i = 0; i < MAPPINGS; i++) {
+            assertEquals("secret-" + i, strategy.fetchTemporaryTokenSecretForTemporaryToken("token-" + i));
+            assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token-" + i));
+        }
+        assertEquals(0, strategy.size());
+    }
+
+    /**
+     * @return A full slot preceded by an empty one (so it is the first of its probe sequence), and an empty slot further along the same segment.
+     */
+    @Nonnull
+    private static int[] findChainHeadAndLaterEmptySlot(@Nonnull MappedByteBuffer slots) {
+        for (int segmentStart = 0; segmentStart * SLOT_BYTES < slots.capacity(); segmentStart += SLOTS_PER_SEGMENT) {
+            for (int slot = segmentStart + 1; slot < segmentStart + SLOTS_PER_SEGMENT; slot++) {
+                if (slots.getInt(slot * SLOT_BYTES) != STATE_FULL || slots.getInt((slot - 1) * SLOT_BYTES) != STATE_EMPTY) {
+                    continue;
+                }
+                for (int later = slot + 2; later < segmentStart + SLOTS_PER_SEGMENT; later++) {
+                    if (slots.getInt(later * SLOT_BYTES) == STATE_EMPTY && slots.getInt((later - 1) * SLOT_BYTES) == STATE_EMPTY) {
+                        return new int[] {slot, later};
+                    }
+                }
+            }
+        }
+        throw new AssertionError("No suitable slots found!");
+    }
+
+    private static void copySlot(@Nonnull MappedByteBuffer slots, int from, int to) {
+        assertTrue(from != to);
+        for (int i = 0; i < SLOT_BYTES; i++) {
+            slots.put(to * SLOT_BYTES + i, slots.get(from * SLOT_BYTES + i));
+        }
+    }
+
+    @Test
+    public void removingRemovesTheMapping() throws IOException, TokenMapException {
+        try (MappedFileTokenMapStrategy strategy = newStrategy(folder.newFile().toPath())) {
+            strategy.mapTemporaryTokenToTemporaryTokenSecret("token", "secret");
+            strategy.removeTemporaryToken("token");
+            assertEquals(0, strategy.size());
+            assertNull(strategy.fetchTemporaryTokenSecretForTemporaryToken("token"));
+        }
+    }
+}
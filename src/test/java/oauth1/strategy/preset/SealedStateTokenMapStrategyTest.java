@@ -0,0 +1,152 @@
+package oauth1.strategy.preset;
+
+import oauth1.exception.InvalidSealedStateException;
+import oauth1.exception.InvalidSealedStateException.Reason;
+import oauth1.exception.TokenMapException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SealedStateTokenMapStrategyTest {
+    private static final byte[] KEY = key(1);
+    private static final byte[] OTHER_KEY = key(2);
+    private static final long TIME_TO_LIVE_SECONDS = 60;
+    private static final int REPLAY_CAPACITY = 1_000;
+
+    @Test
+    public void unsealsWhatItSealed() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        String state = strategy.seal("token", "secret");
+        assertEquals("token", strategy.temporaryTokenOf(state));
+        assertEquals("secret", strategy.unseal("token", state));
+    }
+
+    @Test
+    public void rejectsATamperedCiphertext() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        byte[] state = Base64.getUrlDecoder().decode(strategy.seal("token", "secret"));
+        state[state.length - 1] ^= 1;
+        assertRejected(strategy, "token", encode(state), Reason.TAMPERED);
+    }
+
+    /**
+     * The temporary token is authenticated along with the ciphertext, so altering it (and unsealing for the altered token) is detected.
+     */
+    @Test
+    public void rejectsATamperedToken() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        String state = strategy.seal("token", "secret");
+        String altered = encode(replace(Base64.getUrlDecoder().decode(state), "token".getBytes(), "tokem".getBytes()));
+        assertRejected(strategy, "tokem", altered, Reason.TAMPERED);
+    }
+
+    @Test
+    public void rejectsAStateSealedForAnotherToken() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        String state = strategy.seal("token", "secret");
+        assertRejected(strategy, "other-token", state, Reason.TOKEN_MISMATCH);
+    }
+
+    @Test
+    public void rejectsAnExpiredState() throws TokenMapException, InterruptedException {
+        SealedStateTokenMapStrategy strategy = new SealedStateTokenMapStrategy(KEY, 1, REPLAY_CAPACITY);
+        String state = strategy.seal("token", "secret");
+        // Sealing times are whole seconds, so wait until the state is at least two seconds old.
+        Thread.sleep(2_100);
+        assertRejected(strategy, "token", state, Reason.EXPIRED);
+    }
+
+    @Test
+    public void rejectsAReplayedState() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        String state = strategy.seal("token", "secret");
+        assertEquals("secret", strategy.unseal("token", state));
+        assertRejected(strategy, "token", state, Reason.REPLAYED);
+    }
+
+    @Test
+    public void rejectsAMalformedState() {
+        assertRejected(newStrategy(KEY), "token", "not a state!", Reason.MALFORMED);
+    }
+
+    /**
+     * A retired key still unseals the states it sealed, while new states are sealed with the new key.
+     */
+    @Test
+    public void unsealsStatesSealedBeforeAKeyRotation() throws TokenMapException {
+        SealedStateTokenMapStrategy strategy = newStrategy(KEY);
+        String before = strategy.seal("before", "before-secret");
+        strategy.rotateKey(OTHER_KEY);
+        String after = strategy.seal("after", "after-secret");
+        assertEquals("before-secret", strategy.unseal("before", before));
+        assertEquals("after-secret", strategy.unseal("after", after));
+
+        // A node only knowing the new key unseals new states, but not those of the retired key.
+        SealedStateTokenMapStrategy otherNode = newStrategy(OTHER_KEY);
+        assertEquals("after-secret", otherNode.unseal("after", strategy.seal("after", "after-secret")));
+        assertRejected(otherNode, "before", before, Reason.UNKNOWN_KEY);
+    }
+
+    /**
+     * Each instance keeps its own replay filter, so a state can be unsealed once per node sharing the key.
+     */
+    @Test
+    public void replayFilterIsPerInstance() throws TokenMapException {
+        SealedStateTokenMapStrategy node = newStrategy(KEY);
+        SealedStateTokenMapStrategy otherNode = newStrategy(KEY);
+        String state = node.seal("token", "secret");
+        assertEquals("secret", node.unseal("token", state));
+        assertEquals("secret", otherNode.unseal("token", state));
+        assertRejected(otherNode, "token", state, Reason.REPLAYED);
+    }
+
+    @Nonnull
+    private static SealedStateTokenMapStrategy newStrategy(@Nonnull byte[] key) {
+        return new SealedStateTokenMapStrategy(key, TIME_TO_LIVE_SECONDS, REPLAY_CAPACITY);
+    }
+
+    private static void assertRejected(@Nonnull SealedStateTokenMapStrategy strategy, @Nonnull String temporaryToken, @Nonnull String state, @Nonnull Reason reason) {
+        try {
+            strategy.unseal(temporaryToken, state);
+            fail("Expected the state to be rejected as " + reason + ".");
+        }
+        catch (InvalidSealedStateException e) {
+            assertEquals(reason, e.getReason());
+        }
+        catch (TokenMapException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Nonnull
+    private static byte[] key(int seed) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+
+    @Nonnull
+    private static String encode(@Nonnull byte[] state) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(state);
+    }
+
+    /**
+     * @return The state with the first occurrence of the given bytes replaced by others of the same length.
+     */
+    @Nonnull
+    private static byte[] replace(@Nonnull byte[] state, @Nonnull byte[] from, @Nonnull byte[] to) {
+        for (int i = 0; i + from.length <= state.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(state, i, i + from.length), from)) {
+                byte[] replaced = state.clone();
+                System.arraycopy(to, 0, replaced, i, to.length);
+                return replaced;
+            }
+        }
+        throw new AssertionError("Bytes not found in the state!");
+    }
+}
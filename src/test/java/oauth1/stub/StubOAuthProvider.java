@@ -0,0 +1,426 @@
+package oauth1.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import oauth1.exception.SecretLookupException;
+import oauth1.strategy.SecretLookupStrategy;
+import oauth1.verifier.SignatureVerifier;
+import oauth1.verifier.VerificationResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process OAuth1.0 provider bound to localhost, for testing and load testing clients without a real provider.
+ * <br><br>
+ * It serves the request token, authorise and access token endpoints of the handshake, plus a resource endpoint, at the paths given by the constants of this class.
+ * The token endpoints only accept the {@link StubProviderConfig#getTokenRequestMethod()}, as a real provider may.
+ * Requests are verified with a {@link SignatureVerifier} (unless disabled), and every response can be delayed and replaced by an error as per its {@link StubProviderConfig},
+ * which may be changed while running.
+ * <br>
+ * Token secrets and verifiers are derived from the tokens with a key random to each provider, so issuing tokens keeps no state beyond the callbacks
+ * and authorisations of temporary tokens not yet exchanged.
+ * <br>
+ * Authorising a temporary token stands in for the user granting access: either request {@link StubOAuthProvider#AUTHORISE_PATH} with the {@code oauth_token}
+ * (which redirects to the callback, if one was given, otherwise answers with the verifier), or call {@link StubOAuthProvider#authorise(String)}.
+ * <br><br>
+ * When load testing, run the JVM with {@code -Dsun.net.httpserver.nodelay=true}, as otherwise Nagle's algorithm on the server delays each response by the client's delayed ACK.
+ * The provider leaves it unset, as it applies to every {@code HttpServer} of the JVM (and is read once, when the first is created).
+ */
+public class StubOAuthProvider implements AutoCloseable {
+    public static final String REQUEST_TOKEN_PATH = "/oauth/request_token";
+    public static final String AUTHORISE_PATH = "/oauth/authorise";
+    public static final String ACCESS_TOKEN_PATH = "/oauth/access_token";
+    public static final String RESOURCE_PATH = "/resource";
+
+    private static final String TEMPORARY_TOKEN_PREFIX = "temporary-";
+    private static final String ACCESS_TOKEN_PREFIX = "access-";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final byte[] RESOURCE_BODY = "{\"id\":42,\"name\":\"stub\"}".getBytes(StandardCharsets.UTF_8);
+    private static final Pattern OAUTH_PARAMETER = Pattern.compile("(oauth_[a-z_]+)=\"([^\"]*)\"");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SignatureVerifier signatureVerifier;
+    private final byte[] derivationKey = new byte[32];
+    private final AtomicLong tokenCounter = new AtomicLong();
+    private final Map<String, String> callbacks = new ConcurrentHashMap<>();
+    private final Set<String> authorised = ConcurrentHashMap.newKeySet();
+    private volatile @Nonnull StubProviderConfig config;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Starts a provider on an ephemeral port with the default {@link StubProviderConfig}.
+     * @throws IOException If the server could not be bound.
+     */
+    public StubOAuthProvider() throws IOException {
+        this(new StubProviderConfig());
+    }
+
+    /**
+     * Starts a provider on an ephemeral port.
+     * @param config The client credentials, and the latency and errors to inject.
+     * @throws IOException If the server could not be bound.
+     */
+    public StubOAuthProvider(@Nonnull StubProviderConfig config) throws IOException {
+        this.config = config;
+        new SecureRandom().nextBytes(derivationKey);
+        this.signatureVerifier = new SignatureVerifier(new StubSecretLookupStrategy());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "oauth1-stub-provider-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(REQUEST_TOKEN_PATH, exchange -> handle(exchange, this::requestToken));
+        server.createContext(AUTHORISE_PATH, exchange -> handle(exchange, this::authorisePage));
+        server.createContext(ACCESS_TOKEN_PATH, exchange -> handle(exchange, this::accessToken));
+        server.createContext(RESOURCE_PATH, exchange -> handle(exchange, this::resource));
+        server.start();
+    }
+
+    /**
+     * @return The base URL of the provider, e.g. http://127.0.0.1:12345
+     */
+    @Nonnull
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Nonnull
+    public StubProviderConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replaces the config, applying to the requests received from now on.
+     */
+    public void setConfig(@Nonnull StubProviderConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Authorises a temporary token, as the user would by granting access on the authorise page.
+     * @param temporaryToken The temporary token issued by this provider.
+     * @return The verifier to exchange the temporary token with.
+     */
+    @Nonnull
+    public String authorise(@Nonnull String temporaryToken) {
+        authorised.add(temporaryToken);
+        return derive("verifier", temporaryToken);
+    }
+
+    /**
+     * @return The number of requests received.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return The number of requests answered with an injected error.
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * @return The number of requests rejected, e.g. for an invalid signature, unauthorised temporary token or wrong token request method.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Nonnull
+    private Response requestToken(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters) throws SecretLookupException {
+        if (!isTokenRequestMethod(exchange)) {
+            return Response.METHOD_NOT_ALLOWED;
+        }
+        if (!verify(exchange, oauthParameters, null)) {
+            return Response.UNAUTHORISED;
+        }
+        String temporaryToken = TEMPORARY_TOKEN_PREFIX + tokenCounter.incrementAndGet();
+        String callback = oauthParameters.get("oauth_callback");
+        if (callback != null && !callback.equals("oob")) {
+            callbacks.put(temporaryToken, callback);
+        }
+        return Response.form("oauth_token=" + temporaryToken + "&oauth_token_secret=" + derive("secret", temporaryToken) + "&oauth_callback_confirmed=true");
+    }
+
+    @Nonnull
+    private Response authorisePage(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters) {
+        String temporaryToken = parseForm(exchange.getRequestURI().getRawQuery()).get("oauth_token");
+        if (temporaryToken == null || !temporaryToken.startsWith(TEMPORARY_TOKEN_PREFIX)) {
+            return Response.BAD_REQUEST;
+        }
+        String query = "oauth_token=" + temporaryToken + "&oauth_verifier=" + authorise(temporaryToken);
+        String callback = callbacks.remove(temporaryToken);
+        if (callback == null) {
+            return Response.form(query);
+        }
+        return Response.redirect(callback + (callback.indexOf('?') < 0 ? '?' : '&') + query);
+    }
+
+    @Nonnull
+    private Response accessToken(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters) throws SecretLookupException {
+        if (!isTokenRequestMethod(exchange)) {
+            return Response.METHOD_NOT_ALLOWED;
+        }
+        String temporaryToken = oauthParameters.get("oauth_token");
+        if (temporaryToken == null || !temporaryToken.startsWith(TEMPORARY_TOKEN_PREFIX) || !verify(exchange, oauthParameters, null)) {
+            return Response.UNAUTHORISED;
+        }
+        String verifier = oauthParameters.get("oauth_verifier");
+        boolean granted = authorised.remove(temporaryToken) || config.isAutoAuthorise();
+        if (!granted || verifier != null && !verifier.equals(derive("verifier", temporaryToken))) {
+            return Response.UNAUTHORISED;
+        }
+        callbacks.remove(temporaryToken);
+        String accessToken = ACCESS_TOKEN_PREFIX + tokenCounter.incrementAndGet();
+        return Response.form("oauth_token=" + accessToken + "&oauth_token_secret=" + derive("secret", accessToken));
+    }
+
+    @Nonnull
+    private Response resource(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters) throws SecretLookupException, IOException {
+        String accessToken = oauthParameters.get("oauth_token");
+        if (accessToken == null || !accessToken.startsWith(ACCESS_TOKEN_PREFIX)) {
+            return Response.UNAUTHORISED;
+        }
+        Map<String, List<String>> formParameters = null;
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith(FORM_CONTENT_TYPE)) {
+            formParameters = new HashMap<>();
+            for (Map.Entry<String, String> entry : parseForm(new String(readBody(exchange.getRequestBody()), StandardCharsets.UTF_8)).entrySet()) {
+                formParameters.put(entry.getKey(), Collections.singletonList(entry.getValue()));
+            }
+        }
+        if (!verify(exchange, oauthParameters, formParameters)) {
+            return Response.UNAUTHORISED;
+        }
+        return new Response(200, "application/json", RESOURCE_BODY, null);
+    }
+
+    private boolean isTokenRequestMethod(@Nonnull HttpExchange exchange) {
+        return config.getTokenRequestMethod().equals(exchange.getRequestMethod());
+    }
+
+    private boolean verify(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters, @Nullable Map<String, List<String>> formParameters) throws SecretLookupException {
+        if (!config.isVerifySignatures()) {
+            return config.getConsumerKey().equals(oauthParameters.get("oauth_consumer_key"));
+        }
+        VerificationResult result = signatureVerifier.verify(exchange.getRequestMethod(), getBaseUrl() + exchange.getRequestURI(),
+                exchange.getRequestHeaders().getFirst("Authorization"), formParameters);
+        return result.isValid();
+    }
+
+    private void handle(@Nonnull HttpExchange exchange, @Nonnull Handler handler) throws IOException {
+        try {
+            requests.increment();
+            StubProviderConfig current = config;
+            long latencyMillis = current.getLatencyMillis();
+            if (current.getLatencyJitterMillis() > 0) {
+                latencyMillis += ThreadLocalRandom.current().nextLong(current.getLatencyJitterMillis() + 1);
+            }
+            if (latencyMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                }
+                catch (InterruptedException e) {
+                    // The provider is closing.
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            Response response;
+            if (current.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < current.getErrorRate()) {
+                injectedErrors.increment();
+                response = new Response(current.getErrorStatusCode(), "text/plain", "Injected error".getBytes(StandardCharsets.UTF_8), null);
+            }
+            else {
+                try {
+                    response = handler.handle(exchange, parseAuthorizationHeader(exchange.getRequestHeaders().getFirst("Authorization")));
+                }
+                catch (SecretLookupException e) {
+                    response = Response.UNAUTHORISED;
+                }
+                if (response.statusCode == 401 || response.statusCode == 400 || response.statusCode == 405) {
+                    rejected.increment();
+                }
+            }
+            // Drain the request body so the connection can be kept alive.
+            readBody(exchange.getRequestBody());
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (response.location != null) {
+                exchange.getResponseHeaders().set("Location", response.location);
+            }
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                // A response to HEAD has no body, e.g. for the pre-connect step of a warm-up.
+                exchange.sendResponseHeaders(response.statusCode, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(response.statusCode, response.body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body);
+            }
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Derives a token secret or verifier from a token, so neither has to be stored.
+     */
+    @Nonnull
+    private String derive(@Nonnull String purpose, @Nonnull String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(derivationKey);
+            digest.update(purpose.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 18));
+        }
+        catch (GeneralSecurityException e) {
+            // SHA-256 is available on every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses the OAuth parameters of an {@code Authorization} header, without validating it (which the {@link SignatureVerifier} does).
+     */
+    @Nonnull
+    private static Map<String, String> parseAuthorizationHeader(@Nullable String header) {
+        Map<String, String> parameters = new HashMap<>();
+        if (header != null) {
+            Matcher matcher = OAUTH_PARAMETER.matcher(header);
+            while (matcher.find()) {
+                parameters.put(matcher.group(1), decode(matcher.group(2)));
+            }
+        }
+        return parameters;
+    }
+
+    @Nonnull
+    private static Map<String, String> parseForm(@Nullable String form) {
+        Map<String, String> parameters = new HashMap<>();
+        if (form != null) {
+            for (String pair : form.split("&")) {
+                int equals = pair.indexOf('=');
+                if (!pair.isEmpty()) {
+                    parameters.put(decode(equals < 0 ? pair : pair.substring(0, equals)), equals < 0 ? "" : decode(pair.substring(equals + 1)));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @Nonnull
+    private static String decode(@Nonnull String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        }
+        catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    @Nonnull
+    private static byte[] readBody(@Nonnull InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        @Nonnull
+        Response handle(@Nonnull HttpExchange exchange, @Nonnull Map<String, String> oauthParameters) throws SecretLookupException, IOException;
+    }
+
+    private static final class Response {
+        private static final Response UNAUTHORISED = new Response(401, "text/plain", "Unauthorised".getBytes(StandardCharsets.UTF_8), null);
+        private static final Response BAD_REQUEST = new Response(400, "text/plain", "Bad request".getBytes(StandardCharsets.UTF_8), null);
+        private static final Response METHOD_NOT_ALLOWED = new Response(405, "text/plain", "Method not allowed".getBytes(StandardCharsets.UTF_8), null);
+
+        private final int statusCode;
+        private final @Nonnull String contentType;
+        private final @Nonnull byte[] body;
+        private final @Nullable String location;
+
+        private Response(int statusCode, @Nonnull String contentType, @Nonnull byte[] body, @Nullable String location) {
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.body = body;
+            this.location = location;
+        }
+
+        @Nonnull
+        private static Response form(@Nonnull String body) {
+            return new Response(200, FORM_CONTENT_TYPE, body.getBytes(StandardCharsets.UTF_8), null);
+        }
+
+        @Nonnull
+        private static Response redirect(@Nonnull String location) {
+            return new Response(302, "text/plain", "Redirecting".getBytes(StandardCharsets.UTF_8), location);
+        }
+    }
+
+    /**
+     * Looks up the consumer secret of the config, and derives the secrets of the tokens issued by this provider.
+     */
+    private final class StubSecretLookupStrategy implements SecretLookupStrategy {
+        @Nullable
+        public String fetchConsumerSecretForConsumerKey(@Nonnull String consumerKey) {
+            StubProviderConfig current = config;
+            return current.getConsumerKey().equals(consumerKey) ? current.getConsumerSecret() : null;
+        }
+
+        @Nullable
+        public String fetchTokenSecretForToken(@Nonnull String consumerKey, @Nonnull String token) {
+            if (!token.startsWith(TEMPORARY_TOKEN_PREFIX) && !token.startsWith(ACCESS_TOKEN_PREFIX)) {
+                return null;
+            }
+            return derive("secret", token);
+        }
+    }
+}
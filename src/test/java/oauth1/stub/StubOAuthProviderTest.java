@@ -0,0 +1,66 @@
+package oauth1.stub;
+
+import oauth1.OAuth1NoCallback;
+import oauth1.exception.GetAccessTokenException;
+import oauth1.exception.GetTemporaryTokenException;
+import oauth1.exception.TokenMapException;
+import oauth1.lib.AuthorisedResult;
+import oauth1.strategy.preset.HashMapTokenMapStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StubOAuthProviderTest {
+    private StubOAuthProvider stub;
+    private OAuth1NoCallback consumer;
+
+    @Before
+    public void start() throws IOException {
+        stub = new StubOAuthProvider();
+        String baseUrl = stub.getBaseUrl();
+        consumer = new OAuth1NoCallback(
+                StubProviderConfig.DEFAULT_CONSUMER_KEY,
+                StubProviderConfig.DEFAULT_CONSUMER_SECRET,
+                baseUrl + StubOAuthProvider.REQUEST_TOKEN_PATH,
+                baseUrl + StubOAuthProvider.AUTHORISE_PATH,
+                baseUrl + StubOAuthProvider.ACCESS_TOKEN_PATH,
+                new HashMapTokenMapStrategy()
+        );
+    }
+
+    @After
+    public void stop() throws IOException {
+        consumer.close();
+        stub.close();
+    }
+
+    @Test
+    public void handshakeSucceeds() throws GetTemporaryTokenException, GetAccessTokenException, TokenMapException {
+        AuthorisedResult result = consumer.authorised(consumer.begin().getTemporaryToken());
+        assertTrue(result.getAccessToken().startsWith("access-"));
+        assertEquals(0, stub.getRejectedCount());
+    }
+
+    /**
+     * The library sends token requests with GET, so a provider only accepting another method must reject them.
+     */
+    @Test
+    public void tokenRequestsWithAnotherMethodAreRejected() throws TokenMapException {
+        StubProviderConfig config = new StubProviderConfig();
+        config.setTokenRequestMethod("POST");
+        stub.setConfig(config);
+        try {
+            consumer.begin();
+            fail("The temporary token request should have been rejected.");
+        }
+        catch (GetTemporaryTokenException e) {
+            assertEquals(1, stub.getRejectedCount());
+        }
+    }
+}
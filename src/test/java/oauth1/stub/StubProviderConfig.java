@@ -0,0 +1,65 @@
+package oauth1.stub;
+
+import lombok.Data;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The behaviour of a {@link StubOAuthProvider}: its client credentials, and the latency and errors it injects.
+ */
+@Data
+public class StubProviderConfig {
+    public static final String DEFAULT_CONSUMER_KEY = "stub-consumer-key";
+    public static final String DEFAULT_CONSUMER_SECRET = "stub-consumer-secret";
+
+    private @Nonnull String consumerKey = DEFAULT_CONSUMER_KEY;
+    private @Nonnull String consumerSecret = DEFAULT_CONSUMER_SECRET;
+    /**
+     * The fixed latency added to every response.
+     */
+    private long latencyMillis;
+    /**
+     * The maximum random latency added on top of the fixed latency, drawn uniformly.
+     */
+    private long latencyJitterMillis;
+    /**
+     * The fraction of requests (from 0 to 1) answered with {@link StubProviderConfig#errorStatusCode} instead.
+     */
+    private double errorRate;
+    private int errorStatusCode = 503;
+    /**
+     * Whether to verify the signature, timestamp and nonce of every request, rejecting invalid ones with a 401.
+     * Disable to measure the client alone, without the cost of verification.
+     */
+    private boolean verifySignatures = true;
+    /**
+     * Whether temporary tokens may be exchanged without being authorised first, i.e. every user grants access instantly.
+     */
+    private boolean autoAuthorise = true;
+    /**
+     * The only HTTP method accepted by the request token and access token endpoints, which answer any other with a 405.
+     * GET by default, as sent by the library.
+     */
+    private @Nonnull String tokenRequestMethod = "GET";
+
+    /**
+     * Constructs a config with the default client credentials, verifying signatures, authorising automatically, accepting GET token requests, and injecting no latency nor errors.
+     */
+    public StubProviderConfig() {
+
+    }
+
+    /**
+     * @param latencyMillis The fixed latency added to every response.
+     * @param latencyJitterMillis The maximum random latency added on top of the fixed latency.
+     * @param errorRate The fraction of requests (from 0 to 1) answered with an error.
+     */
+    public StubProviderConfig(long latencyMillis, long latencyJitterMillis, double errorRate) {
+        if (latencyMillis < 0 || latencyJitterMillis < 0 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Latencies must be non-negative and errorRate within [0, 1]!");
+        }
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+    }
+}
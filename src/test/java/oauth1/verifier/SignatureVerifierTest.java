@@ -0,0 +1,175 @@
+package oauth1.verifier;
+
+import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.GenericUrl;
+import oauth1.exception.SecretLookupException;
+import oauth1.signer.CachedHmacSigner;
+import oauth1.signer.HmacSignerCache;
+import oauth1.signer.SignatureBaseStringBuilder;
+import oauth1.strategy.preset.ConcurrentHashMapSecretLookupStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SignatureVerifierTest {
+    private static final String CONSUMER_KEY = "9djdj82h48djs9d2";
+    private static final String CONSUMER_SECRET = "j49sk3j29djd";
+    private static final String TOKEN = "kkk9d7dh3k39sjv7";
+    private static final String TOKEN_SECRET = "dh893hdasih9";
+    private static final String URL = "https://api.example.com/photos?size=original&file=vacation.jpg";
+    // The example of RFC 5849 section 3.4.1, whose signature base string is given in full by the RFC.
+    private static final String RFC_URL = "http://example.com/request?b5=%3D%253D&a3=a&c%40=&a2=r%20b";
+    private static final String RFC_BASE_STRING = "POST&http%3A%2F%2Fexample.com%2Frequest&a2%3Dr%2520b%26a3%3D2%2520q"
+            + "%26a3%3Da%26b5%3D%253D%25253D%26c%2540%3D%26c2%3D%26oauth_consumer_key%3D9djdj82h48djs9d2%26oauth_nonce%3D7d8f3e4a"
+            + "%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D137131201%26oauth_token%3Dkkk9d7dh3k39sjv7";
+
+    private ConcurrentHashMapSecretLookupStrategy secrets;
+    private SignatureVerifier verifier;
+
+    @Before
+    public void setUp() {
+        secrets = new ConcurrentHashMapSecretLookupStrategy();
+        secrets.mapConsumerKeyToConsumerSecret(CONSUMER_KEY, CONSUMER_SECRET);
+        secrets.mapTokenToTokenSecret(CONSUMER_KEY, TOKEN, TOKEN_SECRET);
+        verifier = new SignatureVerifier(secrets);
+    }
+
+    /**
+     * The RFC does not give the secrets behind its example signature, so the request is signed over the RFC's base string with known secrets.
+     * It only verifies if the verifier builds exactly that base string from the request.
+     */
+    @Test
+    public void verifiesTheRfcExample() throws GeneralSecurityException, SecretLookupException {
+        // The example timestamp is from 1974, so the skew must reach back that far.
+        SignatureVerifier verifier = new SignatureVerifier(secrets, new NonceReplayCache(Integer.MAX_VALUE, 1024), new HmacSignerCache());
+        String signature = new CachedHmacSigner(CONSUMER_SECRET, TOKEN_SECRET).computeSignature(RFC_BASE_STRING);
+        String header = "OAuth realm=\"Example\", oauth_consumer_key=\"9djdj82h48djs9d2\", oauth_token=\"kkk9d7dh3k39sjv7\", "
+                + "oauth_signature_method=\"HMAC-SHA1\", oauth_timestamp=\"137131201\", oauth_nonce=\"7d8f3e4a\", "
+                + "oauth_signature=\"" + OAuthParameters.escape(signature) + "\"";
+        Map<String, Collection<String>> form = new HashMap<>();
+        form.put("c2", Arrays.asList(""));
+        form.put("a3", Arrays.asList("2 q"));
+
+        assertOutcome(VerificationOutcome.VALID, verifier.verify("POST", RFC_URL, header, form));
+        // Dropping a form parameter changes the base string.
+        form.remove("c2");
+        assertOutcome(VerificationOutcome.INVALID_SIGNATURE, verifier.verify("POST", RFC_URL, header, form));
+    }
+
+    @Test
+    public void verifiesRequestsSignedByTheLibrary() throws GeneralSecurityException, SecretLookupException {
+        for (String method : new String[] {"GET", "POST"}) {
+            String header = sign(method, URL, TOKEN, TOKEN_SECRET, currentTimestamp());
+            assertOutcome(VerificationOutcome.VALID, verifier.verify(method, URL, header));
+        }
+        secrets.mapConsumerKeyToConsumerSecret("consumer without token", CONSUMER_SECRET);
+        OAuthParameters parameters = parameters(new CachedHmacSigner(CONSUMER_SECRET, null), null, currentTimestamp());
+        parameters.consumerKey = "consumer without token";
+        SignatureBaseStringBuilder.computeSignature(parameters, "GET", new GenericUrl(URL), null);
+        assertOutcome(VerificationOutcome.VALID, verifier.verify("GET", URL, parameters.getAuthorizationHeader()));
+    }
+
+    @Test
+    public void rejectsAWrongSecretOrAlteredRequest() throws GeneralSecurityException, SecretLookupException {
+        String header = sign("GET", URL, TOKEN, "wrong secret", currentTimestamp());
+        assertOutcome(VerificationOutcome.INVALID_SIGNATURE, verifier.verify("GET", URL, header));
+
+        header = sign("GET", URL, TOKEN, TOKEN_SECRET, currentTimestamp());
+        assertOutcome(VerificationOutcome.INVALID_SIGNATURE, verifier.verify("DELETE", URL, header));
+        assertOutcome(VerificationOutcome.INVALID_SIGNATURE, verifier.verify("GET", URL + "&size=thumbnail", header));
+    }
+
+    @Test
+    public void rejectsStaleTimestamps() throws GeneralSecurityException, SecretLookupException {
+        long now = System.currentTimeMillis() / 1000;
+        long skew = NonceReplayCache.DEFAULT_MAX_SKEW_SECONDS;
+        for (long timestamp : new long[] {now - skew - 60, now + skew + 60}) {
+            String header = sign("GET", URL, TOKEN, TOKEN_SECRET, Long.toString(timestamp));
+            assertOutcome(VerificationOutcome.STALE_TIMESTAMP, verifier.verify("GET", URL, header));
+        }
+    }
+
+    @Test
+    public void rejectsReplayedNonces() throws GeneralSecurityException, SecretLookupException {
+        String header = sign("GET", URL, TOKEN, TOKEN_SECRET, currentTimestamp());
+        assertOutcome(VerificationOutcome.VALID, verifier.verify("GET", URL, header));
+        assertOutcome(VerificationOutcome.REPLAYED_NONCE, verifier.verify("GET", URL, header));
+    }
+
+    /**
+     * Each OAuth parameter must appear exactly once, and only in the query or body when there is no {@code Authorization} header.
+     */
+    @Test
+    public void rejectsDuplicateOrMisplacedOAuthParameters() throws GeneralSecurityException, SecretLookupException {
+        String header = sign("GET", URL, TOKEN, TOKEN_SECRET, currentTimestamp());
+
+        String duplicated = header + ", oauth_nonce=\"another\"";
+        assertOutcome(VerificationOutcome.MALFORMED, verifier.verify("GET", URL, duplicated));
+
+        String withOAuthQuery = URL + "&oauth_token=" + TOKEN;
+        assertOutcome(VerificationOutcome.MALFORMED, verifier.verify("GET", withOAuthQuery, header));
+
+        Map<String, Collection<String>> form = new HashMap<>();
+        form.put("oauth_nonce", Arrays.asList("another"));
+        assertOutcome(VerificationOutcome.MALFORMED, verifier.verify("POST", URL, header, form));
+
+        // Without a header the parameters may come from the query, but still only once.
+        OAuthParameters parameters = parameters(new CachedHmacSigner(CONSUMER_SECRET, TOKEN_SECRET), TOKEN, currentTimestamp());
+        SignatureBaseStringBuilder.computeSignature(parameters, "GET", new GenericUrl(URL), null);
+        String query = URL + "&oauth_consumer_key=" + OAuthParameters.escape(parameters.consumerKey)
+                + "&oauth_token=" + TOKEN
+                + "&oauth_signature_method=HMAC-SHA1"
+                + "&oauth_timestamp=" + parameters.timestamp
+                + "&oauth_nonce=" + OAuthParameters.escape(parameters.nonce)
+                + "&oauth_version=1.0"
+                + "&oauth_signature=" + OAuthParameters.escape(parameters.signature);
+        assertOutcome(VerificationOutcome.MALFORMED, verifier.verify("GET", query + "&oauth_token=" + TOKEN, null));
+        assertOutcome(VerificationOutcome.VALID, verifier.verify("GET", query, null));
+    }
+
+    @Test
+    public void rejectsUnknownCredentials() throws GeneralSecurityException, SecretLookupException {
+        String header = sign("GET", URL, "unknown token", TOKEN_SECRET, currentTimestamp());
+        assertOutcome(VerificationOutcome.UNKNOWN_TOKEN, verifier.verify("GET", URL, header));
+
+        secrets.removeConsumerKey(CONSUMER_KEY);
+        header = sign("GET", URL, TOKEN, TOKEN_SECRET, currentTimestamp());
+        assertOutcome(VerificationOutcome.UNKNOWN_CONSUMER_KEY, verifier.verify("GET", URL, header));
+    }
+
+    @Nonnull
+    private static String sign(@Nonnull String method, @Nonnull String url, @Nonnull String token, @Nonnull String tokenSecret, @Nonnull String timestamp) throws GeneralSecurityException {
+        OAuthParameters parameters = parameters(new CachedHmacSigner(CONSUMER_SECRET, tokenSecret), token, timestamp);
+        SignatureBaseStringBuilder.computeSignature(parameters, method, new GenericUrl(url), null);
+        return parameters.getAuthorizationHeader();
+    }
+
+    @Nonnull
+    private static OAuthParameters parameters(@Nonnull CachedHmacSigner signer, String token, @Nonnull String timestamp) {
+        OAuthParameters parameters = new OAuthParameters();
+        parameters.signer = signer;
+        parameters.consumerKey = CONSUMER_KEY;
+        parameters.token = token;
+        parameters.version = "1.0";
+        parameters.computeNonce();
+        parameters.timestamp = timestamp;
+        return parameters;
+    }
+
+    @Nonnull
+    private static String currentTimestamp() {
+        return Long.toString(System.currentTimeMillis() / 1000);
+    }
+
+    private static void assertOutcome(@Nonnull VerificationOutcome expected, @Nonnull VerificationResult result) {
+        assertEquals(expected, result.getOutcome());
+    }
+}